@@ -0,0 +1,41 @@
+-- Monthly RANGE partitioning for aqi_data (MySQL 8)
+-- Run once after database_setup.sql, during a maintenance window.
+-- Afterwards PartitionManagerService keeps future partitions created and
+-- retention drops whole expired months instead of running a large DELETE.
+
+USE air_quality_monitoring;
+
+-- Every unique key of a partitioned table must include the partitioning column,
+-- and RANGE COLUMNS needs DATETIME (the type Hibernate uses for LocalDateTime)
+ALTER TABLE aqi_data
+    MODIFY timestamp DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, timestamp);
+
+-- Everything before the first monthly bound lands in p_old, so no retained rows are
+-- lost. Retention trims p_old with a range delete and drops it once it has fully
+-- expired. Partition names must stay pYYYYMM, with p_old below them and pmax as the
+-- catch-all above them.
+ALTER TABLE aqi_data
+    PARTITION BY RANGE COLUMNS (timestamp) (
+        PARTITION p_old VALUES LESS THAN ('2025-10-01 00:00:00'),
+        PARTITION p202510 VALUES LESS THAN ('2025-11-01 00:00:00'),
+        PARTITION p202511 VALUES LESS THAN ('2025-12-01 00:00:00'),
+        PARTITION p202512 VALUES LESS THAN ('2026-01-01 00:00:00'),
+        PARTITION p202601 VALUES LESS THAN ('2026-02-01 00:00:00'),
+        PARTITION p202602 VALUES LESS THAN ('2026-03-01 00:00:00'),
+        PARTITION p202603 VALUES LESS THAN ('2026-04-01 00:00:00'),
+        PARTITION p202604 VALUES LESS THAN ('2026-05-01 00:00:00'),
+        PARTITION p202605 VALUES LESS THAN ('2026-06-01 00:00:00'),
+        PARTITION p202606 VALUES LESS THAN ('2026-07-01 00:00:00'),
+        PARTITION p202607 VALUES LESS THAN ('2026-08-01 00:00:00'),
+        PARTITION p202608 VALUES LESS THAN ('2026-09-01 00:00:00'),
+        PARTITION p202609 VALUES LESS THAN ('2026-10-01 00:00:00'),
+        PARTITION p202610 VALUES LESS THAN ('2026-11-01 00:00:00'),
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
+
+-- Inspect the layout
+SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS
+FROM information_schema.PARTITIONS
+WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'aqi_data';
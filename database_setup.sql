@@ -32,6 +32,16 @@ CREATE TABLE IF NOT EXISTS aqi_data (
     co DECIMAL(10,2),
     o3 DECIMAL(10,2),
     timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    latitude DOUBLE,
+    longitude DOUBLE,
+    aqi_pm25 INT,
+    aqi_pm10 INT,
+    aqi_no2 INT,
+    aqi_so2 INT,
+    aqi_co INT,
+    aqi_o3 INT,
+    dominant_pollutant VARCHAR(8),
+    aqi_standard VARCHAR(16),
     INDEX idx_city (city),
     INDEX idx_timestamp (timestamp),
     INDEX idx_city_timestamp (city, timestamp)
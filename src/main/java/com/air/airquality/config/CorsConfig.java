@@ -39,7 +39,8 @@ public class CorsConfig {
         // Expose common headers
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization", "Content-Type", "X-Requested-With", "accept", "Origin", 
-            "Access-Control-Request-Method", "Access-Control-Request-Headers"
+            "Access-Control-Request-Method", "Access-Control-Request-Headers",
+            "ETag", "RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset", "RateLimit-Policy", "Retry-After"
         ));
         
         // Set max age for preflight requests
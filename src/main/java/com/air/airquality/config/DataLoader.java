@@ -1,11 +1,13 @@
 package com.air.airquality.config;
 
+import com.air.airquality.event.AqiDataIngestedEvent;
 import com.air.airquality.model.AqiData;
 import com.air.airquality.model.User;
 import com.air.airquality.repository.AqiDataRepository;
 import com.air.airquality.repository.UserRepository;
+import com.air.airquality.services.AqiStandardService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -14,7 +16,7 @@ import java.util.Arrays;
 import java.util.List;
 
 @Component
-public class DataLoader implements CommandLineRunner {
+public class DataLoader {
 
     @Autowired
     private AqiDataRepository aqiDataRepository;
@@ -24,17 +26,27 @@ public class DataLoader implements CommandLineRunner {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
 
-    @Override
-    public void run(String... args) throws Exception {
+    // Runs in the background at startup (see StartupSeedingService); returns true if anything was loaded
+    public boolean loadIfEmpty() {
+        boolean loaded = false;
         // Check if data already exists
         if (aqiDataRepository.count() == 0) {
             loadSampleData();
+            loaded = true;
         }
         
         if (userRepository.count() == 0) {
             loadSampleUsers();
+            loaded = true;
         }
+        return loaded;
     }
 
     private void loadSampleData() {
@@ -51,7 +63,7 @@ public class DataLoader implements CommandLineRunner {
             createAqiData("Beijing", 187, 78.9, 112.6, 48.7, 18.9, 2.8, 94.2)
         );
         
-        aqiDataRepository.saveAll(sampleData);
+        eventPublisher.publishEvent(new AqiDataIngestedEvent(aqiDataRepository.saveAll(sampleData)));
         System.out.println("✅ Sample AQI data loaded successfully!");
     }
     
@@ -92,6 +104,7 @@ public class DataLoader implements CommandLineRunner {
         data.setCo(co);
         data.setO3(o3);
         data.setTimestamp(LocalDateTime.now());
+        aqiStandardService.score(data);
         return data;
     }
 }
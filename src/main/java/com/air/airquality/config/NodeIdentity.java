@@ -0,0 +1,44 @@
+package com.air.airquality.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Identifies this application instance in shared tables (scheduler locks, cluster state).
+ * Uses app.node.id when set, otherwise the host name (the pod name under Kubernetes)
+ * plus a random suffix, so a restarted pod never reuses the identity of its previous run.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node.id:}") String configuredId) {
+        this.id = configuredId != null && !configuredId.isBlank() ? configuredId : hostName() + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        String hostName = System.getenv("HOSTNAME");
+        if (hostName != null && !hostName.isBlank()) {
+            return hostName;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,134 @@
+package com.air.airquality.config;
+
+import com.air.airquality.util.TokenBucketRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.*;
+
+/**
+ * Enforces api.rate.limit.* per client: the authenticated user when there is one, otherwise
+ * the client address. Client-supplied identity headers (X-User-Id) are not used, since a new
+ * value per request would mean a fresh bucket per request. Behind the load balancer the
+ * address comes from X-Forwarded-For as trusted by server.forward-headers-strategy.
+ * Expensive endpoints cost more than one token, configured as "path-prefix:cost" pairs.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // Probes must never be throttled
+    private static final List<String> EXCLUDED_PATHS = List.of("/api/health", "/api/live", "/api/ready");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${api.rate.limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${api.rate.limit.requests:100}")
+    private long requestsPerWindow;
+
+    @Value("${api.rate.limit.duration:3600}")
+    private long windowSeconds;
+
+    @Value("${api.rate.limit.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${api.rate.limit.costs:/api/aqi/historical:10,/api/export:10,/api/aqi/multiple:3,/api/aqi/search:1}")
+    private String costsConfig;
+
+    private TokenBucketRateLimiter rateLimiter;
+
+    // Longest prefix first so specific paths win over broader ones
+    private final List<Map.Entry<String, Integer>> endpointCosts = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = new TokenBucketRateLimiter(requestsPerWindow, windowSeconds, maxClients);
+        for (String entry : costsConfig.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                endpointCosts.add(Map.entry(entry.substring(0, separator).trim(),
+                        Integer.parseInt(entry.substring(separator + 1).trim())));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid rate limit cost entry: {}", entry);
+            }
+        }
+        endpointCosts.sort((a, b) -> Integer.compare(b.getKey().length(), a.getKey().length()));
+        logger.info("API rate limiting {}: {} requests per {}s per client",
+                enabled ? "enabled" : "disabled", requestsPerWindow, windowSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !enabled
+                || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || !path.startsWith("/api/")
+                || EXCLUDED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int cost = costOf(request.getRequestURI());
+        TokenBucketRateLimiter.Decision decision = rateLimiter.tryAcquire(clientKey(request), cost);
+
+        response.setHeader("RateLimit-Policy", requestsPerWindow + ";w=" + windowSeconds);
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.getLimit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.getResetSeconds()));
+
+        if (decision.isAllowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        logger.debug("Rate limit exceeded for {} on {}", clientKey(request), request.getRequestURI());
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", "Rate limit exceeded. Retry after " + decision.getRetryAfterSeconds() + " seconds");
+        body.put("timestamp", System.currentTimeMillis());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(decision.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private int costOf(String path) {
+        for (Map.Entry<String, Integer> entry : endpointCosts) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return 1;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && principal.getName() != null && !principal.getName().isEmpty()) {
+            return "user:" + principal.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -1,7 +1,14 @@
 package com.air.airquality.controller;
 
+import com.air.airquality.config.NodeIdentity;
+import com.air.airquality.repository.SchedulerLockRepository;
+import com.air.airquality.services.CacheInvalidationBus;
+import com.air.airquality.services.ClusterMembershipService;
 import com.air.airquality.services.HistoricalDataSeederService;
 import com.air.airquality.services.AqiService;
+import com.air.airquality.services.AqiStandardService;
+import com.air.airquality.services.PartitionManagerService;
+import com.air.airquality.services.RetentionJobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +28,27 @@ public class AdminController {
     @Autowired
     private AqiService aqiService;
     
+    @Autowired
+    private PartitionManagerService partitionManagerService;
+    
+    @Autowired
+    private RetentionJobService retentionJobService;
+    
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+    
+    @Autowired
+    private NodeIdentity nodeIdentity;
+    
+    @Autowired
+    private ClusterMembershipService clusterMembershipService;
+    
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Autowired
+    private AqiStandardService aqiStandardService;
+    
     @PostMapping("/seed-historical-data")
     public ResponseEntity<?> seedHistoricalData(@RequestParam(defaultValue = "3") int years) {
         try {
@@ -92,6 +120,41 @@ public class AdminController {
         }
     }
     
+    // Builds a reproducible synthetic dataset and reports generation throughput; rows are only
+    // written to aqi_data when persist=true, since they would show up next to real cities
+    @PostMapping("/benchmark-dataset")
+    public ResponseEntity<?> generateBenchmarkDataset(@RequestParam(defaultValue = "100") int cities,
+                                                      @RequestParam(defaultValue = "3") int years,
+                                                      @RequestParam(defaultValue = "1") int intervalHours,
+                                                      @RequestParam(defaultValue = "42") long seed,
+                                                      @RequestParam(defaultValue = "false") boolean persist) {
+        Map<String, Object> response = new HashMap<>();
+        if (cities < 1 || cities > 1000 || years < 1 || years > 5 || intervalHours < 1 || intervalHours > 24) {
+            response.put("success", false);
+            response.put("message", "cities must be 1-1000, years 1-5 and intervalHours 1-24");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            HistoricalDataSeederService.GenerationResult result =
+                    seederService.generateBenchmarkDataset(cities, years, intervalHours, seed, persist);
+            if (result == null) {
+                response.put("success", false);
+                response.put("message", "Another data generation is already running");
+                return ResponseEntity.status(409).body(response);
+            }
+            
+            response.put("success", true);
+            response.put("result", result);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error generating benchmark dataset: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
     @GetMapping("/database-status")
     public ResponseEntity<?> getDatabaseStatus() {
         try {
@@ -104,6 +167,7 @@ public class AdminController {
             response.put("totalRecords", totalRecords);
             response.put("isDatabaseReady", isReady);
             response.put("availableCities", aqiService.getAvailableCities());
+            response.put("storageEngine", aqiService.getStorageEngine());
             
             if (totalRecords < 1000) {
                 response.put("recommendation", "Consider seeding historical data for better analytics experience");
@@ -120,26 +184,161 @@ public class AdminController {
         }
     }
     
+    @GetMapping("/cluster")
+    public ResponseEntity<?> getClusterStatus() {
+        Map<String, Object> response = new HashMap<>(clusterMembershipService.getStatus());
+        response.put("cacheInvalidation", cacheInvalidationBus.getStatus());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/scheduler-locks")
+    public ResponseEntity<?> getSchedulerLocks() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("node", nodeIdentity.getId());
+            response.put("locks", schedulerLockRepository.findAll());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error reading scheduler locks: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    @GetMapping("/partitions")
+    public ResponseEntity<?> getPartitions() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            boolean partitioned = partitionManagerService.isPartitioned();
+            
+            response.put("success", true);
+            response.put("partitioned", partitioned);
+            response.put("strategy", partitioned ? "partition-drop"
+                    : partitionManagerService.isH2() ? "segment-delete" : "row-delete");
+            response.put("partitions", partitionManagerService.listMonthlyPartitions());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error reading partition layout: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    @PostMapping("/partitions/maintain")
+    public ResponseEntity<?> maintainPartitions() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("partitionsCreated", partitionManagerService.ensureFuturePartitions());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error maintaining partitions: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    // Starts the chunked retention job in the background; poll /retention/status for progress
     @DeleteMapping("/cleanup-old-data")
     public ResponseEntity<?> cleanupOldData(@RequestParam(defaultValue = "90") int daysToKeep) {
+        return startRetention(daysToKeep);
+    }
+    
+    @PostMapping("/retention/start")
+    public ResponseEntity<?> startRetention(@RequestParam(defaultValue = "90") int daysToKeep) {
         try {
-            long recordsBefore = aqiService.getTotalRecords();
-            aqiService.cleanupOldData(daysToKeep);
-            long recordsAfter = aqiService.getTotalRecords();
+            Map<String, Object> response = new HashMap<>();
+            
+            if (daysToKeep < 1) {
+                response.put("success", false);
+                response.put("message", "daysToKeep must be at least 1");
+                return ResponseEntity.badRequest().body(response);
+            }
             
+            boolean started = retentionJobService.start(LocalDateTime.now().minusDays(daysToKeep));
+            response.put("success", started);
+            response.put("message", started
+                    ? "Cleanup started for data older than " + daysToKeep + " days"
+                    : "A cleanup job is already running");
+            response.put("statusEndpoint", "/api/admin/retention/status");
+            response.put("job", retentionJobService.getStatus());
+            
+            return ResponseEntity.status(started ? 202 : 409).body(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error starting cleanup: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    @GetMapping("/retention/status")
+    public ResponseEntity<?> getRetentionStatus() {
+        try {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("recordsBefore", recordsBefore);
-            response.put("recordsAfter", recordsAfter);
-            response.put("recordsDeleted", recordsBefore - recordsAfter);
-            response.put("message", "Cleanup completed successfully");
-            
+            response.put("job", retentionJobService.getStatus());
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Error during cleanup: " + e.getMessage());
+            response.put("message", "Error reading cleanup status: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    @PostMapping("/retention/stop")
+    public ResponseEntity<?> stopRetention() {
+        Map<String, Object> response = new HashMap<>();
+        boolean stopping = retentionJobService.stop();
+        response.put("success", stopping);
+        response.put("message", stopping
+                ? "Cleanup will stop after the current chunk and can be resumed"
+                : "No cleanup job is running");
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/aqi-standards")
+    public ResponseEntity<?> getAqiStandards() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("standards", aqiStandardService.describeStandards());
+        response.put("defaultStandard", aqiStandardService.getDefaultStandard().getKey());
+        response.put("cityStandards", aqiStandardService.getCityStandards());
+        response.put("rescore", aqiStandardService.getRescoreStatus());
+        return ResponseEntity.ok(response);
+    }
+    
+    // Re-scores stored readings with each city's configured standard in the background;
+    // poll GET /aqi-standards for progress
+    @PostMapping("/aqi-standards/rescore")
+    public ResponseEntity<?> rescoreHistory(@RequestParam(required = false) String city) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            boolean started = aqiStandardService.startRescore(city != null && !city.isBlank() ? city : null);
+            response.put("success", started);
+            response.put("message", started
+                    ? "Re-scoring started for " + (city != null && !city.isBlank() ? city : "all cities")
+                    : "A re-scoring run is already in progress");
+            response.put("statusEndpoint", "/api/admin/aqi-standards");
+            response.put("job", aqiStandardService.getRescoreStatus());
+            return ResponseEntity.status(started ? 202 : 409).body(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error starting re-scoring: " + e.getMessage());
             return ResponseEntity.status(500).body(response);
         }
     }
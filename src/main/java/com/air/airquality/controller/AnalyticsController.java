@@ -2,6 +2,9 @@ package com.air.airquality.controller;
 
 import com.air.airquality.dto.AqiResponse;
 import com.air.airquality.services.AqiService;
+import com.air.airquality.services.ChartService;
+import com.air.airquality.services.ComparativeAnalyticsService;
+import com.air.airquality.services.StatisticsSketchService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -15,7 +18,11 @@ import javax.servlet.http.HttpServletRequest;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 @RestController
@@ -25,6 +32,15 @@ public class AnalyticsController {
     @Autowired
     private AqiService aqiService;
 
+    @Autowired
+    private StatisticsSketchService statisticsSketchService;
+
+    @Autowired
+    private ChartService chartService;
+
+    @Autowired
+    private ComparativeAnalyticsService comparativeAnalyticsService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -132,32 +148,58 @@ public class AnalyticsController {
             if (endDate == null) endDate = LocalDateTime.now();
             if (startDate == null) startDate = endDate.minusDays(7);
 
-            // Get historical data
-            List<AqiResponse> historicalData = aqiService.getHistoricalData(city, startDate, endDate);
-            
-            if (historicalData == null || historicalData.isEmpty()) {
+            // Merged from per-day sketches; only the partial days at the ends touch raw readings
+            Map<String, Object> stats = statisticsSketchService.getStatistics(city, startDate, endDate);
+            if (((Number) stats.get("total_records")).longValue() == 0) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("No data available for the specified period");
             }
 
-            // Convert data to JSON for Python script
-            String dataJson = objectMapper.writeValueAsString(historicalData);
+            return ResponseEntity.ok(stats);
 
-            // Call Python analytics service for statistics
-            String statsJson = callPythonAnalyticsServiceForStats(dataJson, city, "stats");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error generating analytics statistics: " + e.getMessage());
+        }
+    }
 
-            if (statsJson == null || statsJson.trim().isEmpty()) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Failed to generate analytics statistics");
+    @GetMapping("/analytics-compare")
+    public ResponseEntity<?> compareCities(
+            @RequestParam List<String> cities,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            HttpServletRequest request) {
+
+        try {
+            String userId = request.getHeader("X-User-Id");
+            if (userId == null || userId.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body("Comparative analytics require user authentication");
+            }
+            if (cities.isEmpty() || cities.size() > comparativeAnalyticsService.getMaxCities()) {
+                return ResponseEntity.badRequest()
+                        .body("Provide between 1 and " + comparativeAnalyticsService.getMaxCities() + " cities");
             }
 
-            // Parse and return statistics
-            Object stats = objectMapper.readValue(statsJson, Object.class);
-            return ResponseEntity.ok(stats);
+            if (endDate == null) endDate = LocalDateTime.now();
+            if (startDate == null) startDate = endDate.minusDays(7);
+            if (endDate.isBefore(startDate) || ChronoUnit.DAYS.between(startDate, endDate) > 1095) {
+                return ResponseEntity.badRequest()
+                        .body("Date range must be ordered and cannot exceed 3 years (1095 days)");
+            }
+
+            // One fork-join task per city over the daily sketches
+            return ResponseEntity.ok(comparativeAnalyticsService.compare(cities, startDate, endDate));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Comparative analytics interrupted");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error generating analytics statistics: " + e.getMessage());
+                    .body("Error generating comparative analytics: " + e.getMessage());
         }
     }
 
@@ -167,6 +209,7 @@ public class AnalyticsController {
             @RequestParam String city,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "base64") String format,
             HttpServletRequest request) {
         
         try {
@@ -177,38 +220,36 @@ public class AnalyticsController {
             }
 
             // Validate chart type
-            if (!isValidChartType(chartType)) {
+            if (!ChartService.isChartType(chartType)) {
                 return ResponseEntity.badRequest()
                         .body("Invalid chart type. Supported types: trend_chart, bar_chart, pie_chart, dist_chart");
             }
+            // base64 (PNG as text, the original response), png or svg
+            if (!"base64".equals(format) && !ChartService.PNG.equals(format) && !ChartService.SVG.equals(format)) {
+                return ResponseEntity.badRequest()
+                        .body("Invalid format. Supported formats: base64, png, svg");
+            }
 
             // Set default dates if not provided
             if (endDate == null) endDate = LocalDateTime.now();
             if (startDate == null) startDate = endDate.minusDays(7);
 
-            // Get historical data
-            List<AqiResponse> historicalData = aqiService.getHistoricalData(city, startDate, endDate);
-            
-            if (historicalData == null || historicalData.isEmpty()) {
+            // Rendered in-process and cached until the city's data changes
+            Optional<ChartService.Chart> chart = chartService.getChart(city, chartType,
+                    ChartService.SVG.equals(format) ? ChartService.SVG : ChartService.PNG, startDate, endDate);
+            if (chart.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("No data available for the specified period");
             }
 
-            // Convert data to JSON for Python script
-            String dataJson = objectMapper.writeValueAsString(historicalData);
-
-            // Call Python analytics service for chart generation
-            String chartBase64 = callPythonAnalyticsServiceForStats(dataJson, city, chartType);
-
-            if (chartBase64 == null || chartBase64.trim().isEmpty()) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Failed to generate chart");
+            if ("base64".equals(format)) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(Base64.getEncoder().encodeToString(chart.get().getContent()));
             }
-
-            // Return base64 image
             return ResponseEntity.ok()
-                    .contentType(MediaType.TEXT_PLAIN)
-                    .body(chartBase64.trim());
+                    .contentType(MediaType.parseMediaType(chart.get().getContentType()))
+                    .body(chart.get().getContent());
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -216,13 +257,6 @@ public class AnalyticsController {
         }
     }
 
-    private boolean isValidChartType(String chartType) {
-        return "trend_chart".equals(chartType) || 
-               "bar_chart".equals(chartType) || 
-               "pie_chart".equals(chartType) || 
-               "dist_chart".equals(chartType);
-    }
-
     private byte[] callPythonAnalyticsService(String dataJson, String city, String operation, String startDate, String endDate) {
         try {
             // Create temporary file for data
@@ -278,55 +312,4 @@ public class AnalyticsController {
             throw new RuntimeException("Error calling Python analytics service: " + e.getMessage(), e);
         }
     }
-
-    private String callPythonAnalyticsServiceForStats(String dataJson, String city, String operation) {
-        try {
-            // Create temporary file for data
-            File tempDataFile = File.createTempFile("aqi_data_", ".json");
-            try (FileWriter writer = new FileWriter(tempDataFile)) {
-                writer.write(dataJson);
-            }
-
-            // Build command
-            ProcessBuilder processBuilder = new ProcessBuilder(
-                PYTHON_EXECUTABLE,
-                PYTHON_SCRIPT_PATH,
-                tempDataFile.getAbsolutePath(),
-                city,
-                operation
-            );
-
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-
-            // Read output
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            }
-
-            // Wait for process to complete
-            boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                throw new RuntimeException("Python process timed out");
-            }
-
-            // Clean up temp file
-            tempDataFile.delete();
-
-            if (process.exitValue() != 0) {
-                String error = output.toString();
-                throw new RuntimeException("Python process failed: " + error);
-            }
-
-            return output.toString().trim();
-
-        } catch (Exception e) {
-            throw new RuntimeException("Error calling Python analytics service: " + e.getMessage(), e);
-        }
-    }
 }
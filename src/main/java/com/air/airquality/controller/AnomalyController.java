@@ -0,0 +1,64 @@
+package com.air.airquality.controller;
+
+import com.air.airquality.dto.AqiAnomaly;
+import com.air.airquality.services.AnomalyDetectionService;
+import com.air.airquality.services.CityResolverService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Readings flagged by the ingestion-time anomaly detector, with the city baseline kept in memory
+@RestController
+@RequestMapping("/api/aqi")
+public class AnomalyController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Autowired
+    private CityResolverService cityResolverService;
+
+    @GetMapping("/anomalies")
+    public ResponseEntity<Map<String, Object>> getRecentAnomalies(@RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("limit must be between 1 and " + MAX_LIMIT));
+        }
+        List<AqiAnomaly> anomalies = anomalyDetectionService.getRecentAnomalies(limit);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("anomalies", anomalies);
+        response.put("count", anomalies.size());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/anomalies/{city}")
+    public ResponseEntity<Map<String, Object>> getCityAnomalies(
+            @PathVariable String city,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("limit must be between 1 and " + MAX_LIMIT));
+        }
+        String normalizedCity = cityResolverService.resolve(city);
+        List<AqiAnomaly> anomalies = anomalyDetectionService.getAnomalies(normalizedCity, limit);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("city", normalizedCity);
+        response.put("anomalies", anomalies);
+        response.put("count", anomalies.size());
+        response.put("baseline", anomalyDetectionService.getBaseline(normalizedCity).orElse(null));
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> buildErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -1,18 +1,38 @@
 package com.air.airquality.controller;
 
 import com.air.airquality.dto.AqiResponse;
+import com.air.airquality.dto.ColumnarAqiSeries;
+import com.air.airquality.event.CacheInvalidationEvent;
 import com.air.airquality.model.AqiData;
 import com.air.airquality.services.AqiService;
+import com.air.airquality.services.CityResolverService;
+import com.air.airquality.services.LatestReadingsSnapshotService;
+import com.air.airquality.services.NowCastService;
 import com.air.airquality.services.OpenAQService;
+import com.air.airquality.util.AQICalculator;
+import com.air.airquality.util.AqiStandard;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.CityNames;
+import com.air.airquality.util.HttpCacheUtils;
+import com.air.airquality.util.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,50 +45,105 @@ public class AqiController {
     
     private static final Logger logger = LoggerFactory.getLogger(AqiController.class);
     private static final int CACHE_DURATION_MINUTES = 5;
+    private static final long MIN_CLIENT_CACHE_SECONDS = 60;
     
     @Autowired
     private AqiService aqiService;
     @Autowired
     private OpenAQService openAQService;
+    @Autowired
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+    @Autowired
+    private CityResolverService cityResolverService;
+    @Autowired
+    private NowCastService nowCastService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${aqi.ingestion.interval-ms:43200000}")
+    private long ingestionIntervalMs;
+    
+    // Binary encoder for the compact wire format; thread-safe once configured
+    private final CBORMapper cborMapper = new CBORMapper();
     
     // Optimized caching with ConcurrentHashMap for thread safety
     private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
     
+    // A newer reading was stored by another replica
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            cache.clear();
+        } else {
+            cache.remove(event.getKey());
+        }
+    }
+    
     @GetMapping("/current/{city}")
-    public ResponseEntity<Map<String, Object>> getCurrentAqi(@PathVariable String city) {
-        String normalizedCity = normalizeCity(city);
+    public ResponseEntity<byte[]> getCurrentAqi(
+            @PathVariable String city,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String normalizedCity = resolveCity(city);
         
-        // Check cache first - O(1) lookup
+        // Conditional GET against the in-memory snapshot before touching cache or database
+        Optional<AqiData> latest = latestReadingsSnapshotService.getLatest(normalizedCity);
+        String latestEtag = null;
+        if (latest.isPresent() && openAQService.isRecentData(latest.get().getTimestamp())) {
+            latestEtag = HttpCacheUtils.readingEtag(latest.get().getId(), latest.get().getTimestamp());
+            if (HttpCacheUtils.matches(ifNoneMatch, latestEtag)) {
+                return notModified(latestEtag, cacheControlFor(latest.get().getTimestamp()));
+            }
+        }
+        
+        // Serve the cached bytes while they still describe the latest stored reading
         CachedResponse cachedData = cache.get(normalizedCity);
-        if (cachedData != null && !cachedData.isExpired()) {
+        if (cachedData != null && cachedData.isCurrent(latestEtag)) {
             logger.debug("Cache hit for city: {}", normalizedCity);
-            return ResponseEntity.ok(cachedData.getData());
+            return writePayload(cachedData.getPayload(), acceptEncoding, cacheControlFor(cachedData.getReadingTimestamp()));
         }
         
         try {
             AqiData aqiData = openAQService.getCurrentAqiData(normalizedCity);
-            Map<String, Object> response = buildSuccessResponse(aqiData);
+            String etag = HttpCacheUtils.readingEtag(aqiData.getId(), aqiData.getTimestamp());
             
-            // Cache the response
-            cache.put(normalizedCity, new CachedResponse(response));
+            // Serialize once per reading; later hits write these bytes directly
+            Map<String, Object> body = buildSuccessResponse(aqiData);
+            // 12-hour weighted PM average next to the instantaneous reading; null while too sparse
+            body.put("nowcast", nowCastService.getNowCast(normalizedCity).orElse(null));
+            SerializedPayload payload = SerializedPayload.of(objectMapper, body, etag);
+            cache.put(normalizedCity, new CachedResponse(payload, aqiData.getTimestamp()));
             
-            return ResponseEntity.ok(response);
+            return writePayload(payload, acceptEncoding, cacheControlFor(aqiData.getTimestamp()));
         } catch (Exception e) {
             logger.error("Error fetching AQI for city {}: {}", normalizedCity, e.getMessage());
+            SerializedPayload error = SerializedPayload.of(objectMapper,
+                    buildErrorResponse("Unable to fetch AQI data for " + city, e.getMessage()), null);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(buildErrorResponse("Unable to fetch AQI data for " + city, e.getMessage()));
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(error.getJson());
         }
     }
 
     @GetMapping("/cities")
-    public ResponseEntity<Map<String, Object>> getAvailableCities() {
+    public ResponseEntity<Map<String, Object>> getAvailableCities(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = latestReadingsSnapshotService.getCitiesEtag();
+            LocalDateTime lastUpdated = latestReadingsSnapshotService.getLastUpdated().orElse(null);
+            if (HttpCacheUtils.matches(ifNoneMatch, etag)) {
+                return notModified(etag, cacheControlFor(lastUpdated));
+            }
+            
             List<String> cities = openAQService.getAvailableCities();
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("cities", cities);
             response.put("count", cities.size());
-            return ResponseEntity.ok(response);
+            return withCaching(ResponseEntity.ok(), etag, lastUpdated).body(response);
         } catch (Exception e) {
             logger.error("Error fetching cities: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -76,10 +151,28 @@ public class AqiController {
         }
     }
 
+    // Latest reading for every monitored city as one pre-serialized document
+    @GetMapping("/dashboard")
+    public ResponseEntity<byte[]> getDashboard(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            SerializedPayload document = latestReadingsSnapshotService.getDashboardDocument();
+            LocalDateTime lastUpdated = latestReadingsSnapshotService.getLastUpdated().orElse(null);
+            if (HttpCacheUtils.matches(ifNoneMatch, document.getEtag())) {
+                return notModified(document.getEtag(), cacheControlFor(lastUpdated));
+            }
+            return writePayload(document, acceptEncoding, cacheControlFor(lastUpdated));
+        } catch (Exception e) {
+            logger.error("Error building dashboard snapshot: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchCities(@RequestParam String query) {
         try {
-            String normalizedQuery = normalizeCity(query.trim());
+            String normalizedQuery = CityNames.normalize(query);
             List<String> matchingCities = openAQService.searchCities(normalizedQuery);
             
             Map<String, Object> response = new HashMap<>();
@@ -112,32 +205,23 @@ public class AqiController {
     }
 
     @GetMapping("/multiple")
-    public ResponseEntity<Map<String, Object>> getMultipleCitiesAqi(@RequestParam List<String> cities) {
+    public ResponseEntity<Map<String, Object>> getMultipleCitiesAqi(
+            @RequestParam List<String> cities,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            // Parallel processing for better performance
-            Map<String, AqiResponse> citiesData = cities.parallelStream()
-                .collect(Collectors.toConcurrentMap(
-                    city -> city,
-                    city -> {
-                        try {
-                            AqiData aqiData = openAQService.getCurrentAqiData(normalizeCity(city));
-                            return buildAqiResponse(aqiData);
-                        } catch (Exception e) {
-                            logger.warn("Failed to get data for city: {}", city);
-                            return null;
-                        }
-                    }
-                ));
-            
-            // Remove null values
-            citiesData.values().removeIf(Objects::isNull);
+            ReadingsVersion version = multipleCitiesVersion(cities);
+            String etag = version.getEtag();
+            if (HttpCacheUtils.matches(ifNoneMatch, etag)) {
+                return notModified(etag, cacheControlFor(version.getLastReading()));
+            }
             
+            Map<String, AqiResponse> citiesData = loadCurrentReadings(cities);
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", citiesData);
             response.put("count", citiesData.size());
             
-            return ResponseEntity.ok(response);
+            return withCaching(ResponseEntity.ok(), etag, version.getLastReading()).body(response);
         } catch (Exception e) {
             logger.error("Error fetching multiple cities AQI: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -145,10 +229,31 @@ public class AqiController {
         }
     }
 
+    // Columnar CBOR variant for machine clients (Accept: application/cbor)
+    @GetMapping(value = "/multiple", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getMultipleCitiesAqiCompact(
+            @RequestParam List<String> cities,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            ReadingsVersion version = multipleCitiesVersion(cities);
+            String etag = variantEtag(version.getEtag(), "cbor");
+            if (HttpCacheUtils.matches(ifNoneMatch, etag)) {
+                return notModified(etag, cacheControlFor(version.getLastReading()));
+            }
+            
+            List<AqiResponse> rows = new ArrayList<>(loadCurrentReadings(cities).values());
+            return writeCbor(ResponseEntity.ok(), ColumnarAqiSeries.forCities(rows), etag, cacheControlFor(version.getLastReading()));
+        } catch (Exception e) {
+            logger.error("Error fetching multiple cities AQI (CBOR): {}", e.getMessage());
+            return writeCbor(ResponseEntity.badRequest(),
+                    buildErrorResponse("Unable to fetch data for requested cities", e.getMessage()), null, CacheControl.noCache());
+        }
+    }
+
     @PostMapping("/cities/add")
     public ResponseEntity<Map<String, Object>> addCityToMonitoring(@RequestParam String city) {
         try {
-            String normalizedCity = normalizeCity(city);
+            String normalizedCity = CityNames.normalize(city);
             boolean success = openAQService.addCityToMonitoring(normalizedCity);
             
             Map<String, Object> response = new HashMap<>();
@@ -178,75 +283,37 @@ public class AqiController {
             @PathVariable String city,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             HttpServletRequest request) {
-        
-        String userId = request.getHeader("X-User-Id");
-        if (userId == null || userId.isEmpty()) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Authentication required");
-            response.put("requiresAuth", true);
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-        }
-        
         try {
-            String normalizedCity = normalizeCity(city);
-            
-            // Default to last 90 days if dates not provided - optimized for 3-year retention
-            if (endDate == null) {
-                endDate = LocalDateTime.now();
-            }
-            if (startDate == null) {
-                startDate = endDate.minusDays(90);
+            HistoricalQuery query = queryHistorical(city, startDate, endDate, ifNoneMatch, request, null);
+            if (query.errorBody != null) {
+                return ResponseEntity.status(query.errorStatus).body(query.errorBody);
             }
-            
-            // Validate date range to prevent excessive data requests
-            long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate);
-            if (daysBetween > 1095) { // More than 3 years
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "Date range cannot exceed 3 years (1095 days)");
-                response.put("maxDaysAllowed", 1095);
-                return ResponseEntity.badRequest().body(response);
-            }
-            
-            // Log warning for large ranges
-            if (daysBetween > 365) {
-                logger.warn("Large date range requested for city {}: {} days", normalizedCity, daysBetween);
-            }
-            
-            List<AqiResponse> historicalData = aqiService.getHistoricalData(normalizedCity, startDate, endDate);
-            
-            // Implement data sampling for very large datasets to improve frontend performance
-            boolean wasSampled = false;
-            if (historicalData.size() > 10000) {
-                logger.info("Sampling large dataset for city {}: {} records", normalizedCity, historicalData.size());
-                // Sample every nth record to keep dataset manageable
-                int step = Math.max(1, historicalData.size() / 10000);
-                List<AqiResponse> sampledData = new ArrayList<>();
-                for (int i = 0; i < historicalData.size(); i += step) {
-                    sampledData.add(historicalData.get(i));
-                }
-                historicalData = sampledData;
-                wasSampled = true;
-                logger.info("Sampled to {} records for better performance", historicalData.size());
+            if (query.notModified) {
+                return notModified(query.etag, query.cacheControl);
             }
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", historicalData);
-            response.put("count", historicalData.size());
-            response.put("city", normalizedCity);
-            response.put("startDate", startDate);
-            response.put("endDate", endDate);
-            response.put("daysCovered", daysBetween);
-            response.put("wasSampled", wasSampled);
+            response.put("data", query.data);
+            response.put("count", query.data.size());
+            response.put("city", query.city);
+            response.put("startDate", query.startDate);
+            response.put("endDate", query.endDate);
+            response.put("daysCovered", query.daysBetween);
+            response.put("wasSampled", query.wasSampled);
+            response.put("dominantPollutants", query.dominantPollutants);
             
-            if (wasSampled) {
+            if (query.wasSampled) {
                 response.put("note", "Large dataset was sampled for optimal performance");
             }
             
-            return ResponseEntity.ok(response);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(query.cacheControl);
+            if (query.etag != null) {
+                builder.eTag(query.etag);
+            }
+            return builder.body(response);
         } catch (Exception e) {
             logger.error("Error fetching historical data for {}: {}", city, e.getMessage());
             return ResponseEntity.badRequest()
@@ -254,11 +321,34 @@ public class AqiController {
         }
     }
 
+    // Columnar CBOR variant of the historical series, oldest reading first
+    @GetMapping(value = "/historical/{city}", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public ResponseEntity<byte[]> getHistoricalDataCompact(
+            @PathVariable String city,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request) {
+        try {
+            HistoricalQuery query = queryHistorical(city, startDate, endDate, ifNoneMatch, request, "cbor");
+            if (query.errorBody != null) {
+                return writeCbor(ResponseEntity.status(query.errorStatus), query.errorBody, null, CacheControl.noStore());
+            }
+            if (query.notModified) {
+                return notModified(query.etag, query.cacheControl);
+            }
+            return writeCbor(ResponseEntity.ok(), ColumnarAqiSeries.forCity(query.city, query.data), query.etag, query.cacheControl);
+        } catch (Exception e) {
+            logger.error("Error fetching historical data (CBOR) for {}: {}", city, e.getMessage());
+            return writeCbor(ResponseEntity.badRequest(),
+                    buildErrorResponse("Unable to fetch historical data", e.getMessage()), null, CacheControl.noStore());
+        }
+    }
+
     // Utility methods
-    private String normalizeCity(String city) {
-        return Arrays.stream(city.toLowerCase().trim().split("\\s+"))
-                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
-                .collect(Collectors.joining(" "));
+    // Canonical stored name, so "dehli" and "Delhi" share cache entries and snapshot lookups
+    private String resolveCity(String city) {
+        return cityResolverService.resolve(city);
     }
 
     private Map<String, Object> buildSuccessResponse(AqiData aqiData) {
@@ -281,11 +371,204 @@ public class AqiController {
             aqiData.getO3(),
             aqiData.getTimestamp()
         );
-        response.setCategory(openAQService.getAqiCategory(aqiData.getAqiValue()));
-        response.setDescription(openAQService.getAqiDescription(aqiData.getAqiValue()));
+        AqiStandard standard = AqiStandards.get(aqiData.getAqiStandard());
+        response.setAqiStandard(standard.getKey());
+        response.setCategory(standard.category(aqiData.getAqiValue()));
+        response.setDescription(standard.description(aqiData.getAqiValue()));
+        response.setDominantPollutant(aqiData.getDominantPollutant());
+        response.setSubIndices(AQICalculator.subIndices(aqiData));
         return response;
     }
 
+    // Readings change once per ingestion cycle, so clients may reuse them until the next run is due
+    private CacheControl cacheControlFor(LocalDateTime lastReading) {
+        return CacheControl.maxAge(clientMaxAge(lastReading)).cachePublic();
+    }
+
+    // Same lifetime for per-user responses, which shared caches must not store
+    private CacheControl privateCacheControlFor(LocalDateTime lastReading) {
+        return CacheControl.maxAge(clientMaxAge(lastReading)).cachePrivate();
+    }
+
+    private Duration clientMaxAge(LocalDateTime lastReading) {
+        long intervalSeconds = Math.max(MIN_CLIENT_CACHE_SECONDS, ingestionIntervalMs / 1000);
+        long remainingSeconds = MIN_CLIENT_CACHE_SECONDS;
+        if (lastReading != null) {
+            long ageSeconds = Duration.between(lastReading, LocalDateTime.now()).getSeconds();
+            remainingSeconds = Math.max(MIN_CLIENT_CACHE_SECONDS, Math.min(intervalSeconds, intervalSeconds - ageSeconds));
+        }
+        return Duration.ofSeconds(remainingSeconds);
+    }
+
+    private ResponseEntity.BodyBuilder withCaching(ResponseEntity.BodyBuilder builder, String etag, LocalDateTime lastReading) {
+        builder.cacheControl(cacheControlFor(lastReading));
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder;
+    }
+
+    // Writes pre-serialized bytes, picking the gzip variant when the client accepts it
+    private ResponseEntity<byte[]> writePayload(SerializedPayload payload, String acceptEncoding, CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (payload.getEtag() != null) {
+            builder.eTag(payload.getEtag());
+        }
+        if (payload.hasGzip() && SerializedPayload.acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return builder.body(payload.getJson());
+    }
+
+    private ResponseEntity<byte[]> writeCbor(ResponseEntity.BodyBuilder builder, Object body, String etag, CacheControl cacheControl) {
+        try {
+            builder.contentType(MediaType.APPLICATION_CBOR).cacheControl(cacheControl);
+            if (etag != null) {
+                builder.eTag(etag);
+            }
+            return builder.body(cborMapper.writeValueAsBytes(body));
+        } catch (Exception e) {
+            logger.error("Unable to encode CBOR response: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Current reading of each requested city, fetched in parallel and kept in request order;
+    // cities that cannot be loaded are left out
+    private Map<String, AqiResponse> loadCurrentReadings(List<String> cities) {
+        List<AqiResponse> rows = cities.parallelStream()
+                .map(city -> {
+                    try {
+                        return buildAqiResponse(openAQService.getCurrentAqiData(resolveCity(city)));
+                    } catch (Exception e) {
+                        logger.warn("Failed to get data for city: {}", city);
+                        return null;
+                    }
+                })
+                .collect(Collectors.toList());
+        Map<String, AqiResponse> byCity = new LinkedHashMap<>();
+        for (int i = 0; i < cities.size(); i++) {
+            if (rows.get(i) != null) {
+                byCity.putIfAbsent(cities.get(i), rows.get(i));
+            }
+        }
+        return byCity;
+    }
+
+    // Authentication, date defaults, range validation, caching and sampling for the historical
+    // endpoints, which only differ in how they encode the result
+    private HistoricalQuery queryHistorical(String city, LocalDateTime startDate, LocalDateTime endDate,
+                                            String ifNoneMatch, HttpServletRequest request, String variant) {
+        String userId = request.getHeader("X-User-Id");
+        if (userId == null || userId.isEmpty()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Authentication required");
+            response.put("requiresAuth", true);
+            return HistoricalQuery.failed(HttpStatus.UNAUTHORIZED, response);
+        }
+        
+        HistoricalQuery query = new HistoricalQuery();
+        query.city = resolveCity(city);
+        ReadingsVersion version = historicalVersion(query.city, startDate, endDate);
+        query.etag = variantEtag(version.getEtag(), variant);
+        query.cacheControl = privateCacheControlFor(version.getLastReading());
+        if (HttpCacheUtils.matches(ifNoneMatch, query.etag)) {
+            query.notModified = true;
+            return query;
+        }
+        
+        // Default to last 90 days if dates not provided - optimized for 3-year retention
+        query.endDate = endDate != null ? endDate : LocalDateTime.now();
+        query.startDate = startDate != null ? startDate : query.endDate.minusDays(90);
+        
+        // Validate date range to prevent excessive data requests
+        query.daysBetween = java.time.temporal.ChronoUnit.DAYS.between(query.startDate, query.endDate);
+        if (query.daysBetween > 1095) { // More than 3 years
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Date range cannot exceed 3 years (1095 days)");
+            response.put("maxDaysAllowed", 1095);
+            return HistoricalQuery.failed(HttpStatus.BAD_REQUEST, response);
+        }
+        
+        // Log warning for large ranges
+        if (query.daysBetween > 365) {
+            logger.warn("Large date range requested for city {}: {} days", query.city, query.daysBetween);
+        }
+        
+        List<AqiResponse> historicalData = aqiService.getHistoricalData(query.city, query.startDate, query.endDate);
+        
+        // How often each pollutant drove the AQI, from the stored dominant pollutant (before sampling)
+        for (AqiResponse reading : historicalData) {
+            if (reading.getDominantPollutant() != null) {
+                query.dominantPollutants.merge(reading.getDominantPollutant(), 1L, Long::sum);
+            }
+        }
+        
+        // Implement data sampling for very large datasets to improve frontend performance
+        if (historicalData.size() > 10000) {
+            logger.info("Sampling large dataset for city {}: {} records", query.city, historicalData.size());
+            // Sample every nth record to keep dataset manageable
+            int step = Math.max(1, historicalData.size() / 10000);
+            List<AqiResponse> sampledData = new ArrayList<>();
+            for (int i = 0; i < historicalData.size(); i += step) {
+                sampledData.add(historicalData.get(i));
+            }
+            historicalData = sampledData;
+            query.wasSampled = true;
+            logger.info("Sampled to {} records for better performance", historicalData.size());
+        }
+        query.data = historicalData;
+        return query;
+    }
+
+    // Representations of the same data need distinct tags
+    private static String variantEtag(String etag, String variant) {
+        return etag != null && variant != null ? HttpCacheUtils.combine(etag, variant) : etag;
+    }
+
+    // Tag is only available when every requested city has a recent stored reading
+    private ReadingsVersion multipleCitiesVersion(List<String> cities) {
+        List<Object> cityTags = new ArrayList<>();
+        LocalDateTime oldestReading = null;
+        for (String city : cities) {
+            Optional<AqiData> latest = latestReadingsSnapshotService.getLatest(resolveCity(city));
+            if (latest.isEmpty() || !openAQService.isRecentData(latest.get().getTimestamp())) {
+                return new ReadingsVersion(null, null);
+            }
+            cityTags.add(city);
+            cityTags.add(HttpCacheUtils.readingEtag(latest.get().getId(), latest.get().getTimestamp()));
+            if (oldestReading == null || latest.get().getTimestamp().isBefore(oldestReading)) {
+                oldestReading = latest.get().getTimestamp();
+            }
+        }
+        return new ReadingsVersion(HttpCacheUtils.combine(cityTags.toArray()), oldestReading);
+    }
+
+    // The window only changes with a new reading; defaulted windows also roll over daily
+    private ReadingsVersion historicalVersion(String normalizedCity, LocalDateTime startDate, LocalDateTime endDate) {
+        Optional<AqiData> latest = latestReadingsSnapshotService.getLatest(normalizedCity);
+        if (latest.isEmpty()) {
+            return new ReadingsVersion(null, null);
+        }
+        LocalDateTime latestTimestamp = latest.get().getTimestamp();
+        String etag = HttpCacheUtils.combine(
+                normalizedCity,
+                HttpCacheUtils.readingEtag(latest.get().getId(), latestTimestamp),
+                startDate != null ? startDate : "default",
+                endDate != null ? endDate : "default",
+                startDate == null || endDate == null ? LocalDate.now() : "fixed");
+        return new ReadingsVersion(etag, latestTimestamp);
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+
     private Map<String, Object> buildErrorResponse(String message, String error) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", false);
@@ -294,22 +577,74 @@ public class AqiController {
         return response;
     }
 
-    // Inner class for caching
+    // Outcome of queryHistorical: an error, a cache hit, or the (possibly sampled) readings
+    private static class HistoricalQuery {
+        HttpStatus errorStatus;
+        Map<String, Object> errorBody;
+        boolean notModified;
+        String city;
+        String etag;
+        CacheControl cacheControl;
+        LocalDateTime startDate;
+        LocalDateTime endDate;
+        long daysBetween;
+        List<AqiResponse> data;
+        boolean wasSampled;
+        final Map<String, Long> dominantPollutants = new TreeMap<>();
+
+        static HistoricalQuery failed(HttpStatus status, Map<String, Object> body) {
+            HistoricalQuery query = new HistoricalQuery();
+            query.errorStatus = status;
+            query.errorBody = body;
+            return query;
+        }
+    }
+
+    // ETag plus the reading timestamp that drives Cache-Control
+    private static class ReadingsVersion {
+        private final String etag;
+        private final LocalDateTime lastReading;
+
+        public ReadingsVersion(String etag, LocalDateTime lastReading) {
+            this.etag = etag;
+            this.lastReading = lastReading;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public LocalDateTime getLastReading() {
+            return lastReading;
+        }
+    }
+
+    // Inner class for caching serialized responses
     private static class CachedResponse {
-        private final Map<String, Object> data;
+        private final SerializedPayload payload;
+        private final LocalDateTime readingTimestamp;
         private final LocalDateTime timestamp;
 
-        public CachedResponse(Map<String, Object> data) {
-            this.data = data;
+        public CachedResponse(SerializedPayload payload, LocalDateTime readingTimestamp) {
+            this.payload = payload;
+            this.readingTimestamp = readingTimestamp;
             this.timestamp = LocalDateTime.now();
         }
 
-        public boolean isExpired() {
-            return timestamp.isBefore(LocalDateTime.now().minusMinutes(CACHE_DURATION_MINUTES));
+        // Valid while it matches the latest stored reading; untracked data falls back to a TTL
+        public boolean isCurrent(String latestEtag) {
+            if (latestEtag != null) {
+                return latestEtag.equals(payload.getEtag());
+            }
+            return timestamp.isAfter(LocalDateTime.now().minusMinutes(CACHE_DURATION_MINUTES));
+        }
+
+        public SerializedPayload getPayload() {
+            return payload;
         }
 
-        public Map<String, Object> getData() {
-            return data;
+        public LocalDateTime getReadingTimestamp() {
+            return readingTimestamp;
         }
     }
 }
@@ -3,6 +3,8 @@ package com.air.airquality.controller;
 import com.air.airquality.dto.AqiResponse;
 import com.air.airquality.services.AqiService;
 import com.air.airquality.services.OpenAQService;
+import com.air.airquality.services.StatisticsSketchService;
+import com.air.airquality.util.AqiStandards;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/export")
@@ -30,6 +33,9 @@ public class DataExportController {
     @Autowired
     private OpenAQService openAQService;
 
+    @Autowired
+    private StatisticsSketchService statisticsSketchService;
+
     @GetMapping("/pdf")
     public ResponseEntity<byte[]> exportToPDF(
             @RequestParam String city,
@@ -82,7 +88,7 @@ public class DataExportController {
 
                 addTableRow(currentTable, "City", currentData.getCity());
                 addTableRow(currentTable, "AQI Value", String.valueOf(currentData.getAqiValue()));
-                addTableRow(currentTable, "Category", openAQService.getAqiCategory(currentData.getAqiValue()));
+                addTableRow(currentTable, "Category", AqiStandards.get(currentData.getAqiStandard()).category(currentData.getAqiValue()));
                 addTableRow(currentTable, "PM2.5 (µg/m³)", formatValue(currentData.getPm25()));
                 addTableRow(currentTable, "PM10 (µg/m³)", formatValue(currentData.getPm10()));
                 addTableRow(currentTable, "NO2 (µg/m³)", formatValue(currentData.getNo2()));
@@ -96,25 +102,25 @@ public class DataExportController {
             }
 
             try {
-                List<AqiResponse> historicalData = aqiService.getHistoricalData(city, startDate, endDate);
-                if (!historicalData.isEmpty()) {
+                Map<String, Object> stats = statisticsSketchService.getStatistics(city, startDate, endDate);
+                if (((Number) stats.get("total_records")).longValue() > 0) {
                     Font sectionFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, BaseColor.BLACK);
                     Paragraph historySection = new Paragraph("Historical Data Summary", sectionFont);
                     historySection.setSpacingBefore(20);
                     historySection.setSpacingAfter(10);
                     document.add(historySection);
 
-                    double avgAqi = historicalData.stream().mapToInt(AqiResponse::getAqiValue).average().orElse(0.0);
-                    int maxAqi = historicalData.stream().mapToInt(AqiResponse::getAqiValue).max().orElse(0);
-                    int minAqi = historicalData.stream().mapToInt(AqiResponse::getAqiValue).min().orElse(0);
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> percentiles = (Map<String, Object>) stats.get("percentiles");
 
                     PdfPTable statsTable = new PdfPTable(2);
                     statsTable.setWidthPercentage(100);
 
-                    addTableRow(statsTable, "Total Records", String.valueOf(historicalData.size()));
-                    addTableRow(statsTable, "Average AQI", String.format("%.1f", avgAqi));
-                    addTableRow(statsTable, "Maximum AQI", String.valueOf(maxAqi));
-                    addTableRow(statsTable, "Minimum AQI", String.valueOf(minAqi));
+                    addTableRow(statsTable, "Total Records", String.valueOf(stats.get("total_records")));
+                    addTableRow(statsTable, "Average AQI", String.format("%.1f", (Double) stats.get("avg_aqi")));
+                    addTableRow(statsTable, "Maximum AQI", String.valueOf(stats.get("max_aqi")));
+                    addTableRow(statsTable, "Minimum AQI", String.valueOf(stats.get("min_aqi")));
+                    addTableRow(statsTable, "95th Percentile AQI", String.format("%.1f", (Double) percentiles.get("p95")));
 
                     document.add(statsTable);
                 }
@@ -176,7 +182,7 @@ public class DataExportController {
                 csv.append(data.getTimestamp().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
                         .append(",").append(data.getCity())
                         .append(",").append(data.getAqiValue())
-                        .append(",").append(openAQService.getAqiCategory(data.getAqiValue()))
+                        .append(",").append(data.getAqiCategory())
                         .append(",").append(formatValue(data.getPm25()))
                         .append(",").append(formatValue(data.getPm10()))
                         .append(",").append(formatValue(data.getNo2()))
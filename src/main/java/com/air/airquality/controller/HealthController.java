@@ -2,10 +2,12 @@ package com.air.airquality.controller;
 
 import com.air.airquality.services.AqiService;
 import com.air.airquality.services.OpenAQService;
+import com.air.airquality.services.StartupSeedingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -22,6 +24,9 @@ public class HealthController {
     @Autowired
     private OpenAQService openAQService;
     
+    @Autowired
+    private StartupSeedingService startupSeedingService;
+    
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> health = new HashMap<>();
@@ -69,21 +74,43 @@ public class HealthController {
         }
     }
     
+    // Liveness: the process is up and serving requests; no database or network calls
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, Object>> live() {
+        Map<String, Object> live = new HashMap<>();
+        live.put("status", "UP");
+        live.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.ok(live);
+    }
+    
     @GetMapping("/ready")
-    public ResponseEntity<Map<String, Object>> ready() {
+    public ResponseEntity<Map<String, Object>> ready(@RequestParam(defaultValue = "sample-data") String stage) {
         Map<String, Object> ready = new HashMap<>();
         
         try {
-            // More thorough readiness check
+            StartupSeedingService.Stage requiredStage;
+            try {
+                requiredStage = StartupSeedingService.Stage.fromId(stage);
+            } catch (IllegalArgumentException e) {
+                ready.put("status", "ERROR");
+                ready.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(ready);
+            }
+            
+            // More thorough readiness check; the external API is only probed when the database is down
             boolean databaseReady = aqiService.isDatabaseReady();
-            boolean apiReady = openAQService.isApiHealthy();
+            boolean apiReady = !databaseReady && openAQService.isApiHealthy();
+            boolean seedingReady = startupSeedingService.isFinished(requiredStage);
+            boolean isReady = (databaseReady || apiReady) && seedingReady;
             
-            ready.put("status", (databaseReady || apiReady) ? "READY" : "NOT_READY");
+            ready.put("status", isReady ? "READY" : "NOT_READY");
             ready.put("timestamp", LocalDateTime.now());
             ready.put("database", databaseReady ? "READY" : "NOT_READY");
-            ready.put("externalAPI", apiReady ? "READY" : "NOT_READY");
+            ready.put("externalAPI", databaseReady ? "NOT_CHECKED" : apiReady ? "READY" : "NOT_READY");
+            ready.put("requiredStage", requiredStage.getId());
+            ready.put("seeding", startupSeedingService.getStatus());
             
-            if (databaseReady || apiReady) {
+            if (isReady) {
                 return ResponseEntity.ok(ready);
             } else {
                 return ResponseEntity.status(503).body(ready);
@@ -0,0 +1,185 @@
+package com.air.airquality.controller;
+
+import com.air.airquality.dto.NearbyStation;
+import com.air.airquality.services.InterpolationGridService;
+import com.air.airquality.services.StationLocatorService;
+import com.air.airquality.util.AQICalculator;
+import com.air.airquality.util.HttpCacheUtils;
+import com.air.airquality.util.IdwGrid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Location-based AQI lookups, served from the in-memory station index
+@RestController
+@RequestMapping("/api/aqi")
+public class StationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StationController.class);
+
+    private static final int MAX_NEAREST = 50;
+
+    @Autowired
+    private StationLocatorService stationLocatorService;
+
+    @Autowired
+    private InterpolationGridService interpolationGridService;
+
+    @GetMapping("/nearest")
+    public ResponseEntity<Map<String, Object>> getNearest(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5") int k) {
+        if (!isValidLatitude(lat) || !isValidLongitude(lon)) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("lat must be within [-90, 90] and lon within [-180, 180]"));
+        }
+        if (k < 1 || k > MAX_NEAREST) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("k must be between 1 and " + MAX_NEAREST));
+        }
+
+        try {
+            List<NearbyStation> stations = stationLocatorService.findNearest(lat, lon, k);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("stations", stations);
+            response.put("count", stations.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Nearest station lookup failed for ({}, {}): {}", lat, lon, e.getMessage());
+            return ResponseEntity.status(500).body(buildErrorResponse("Unable to find nearby stations"));
+        }
+    }
+
+    // A box with minLon > maxLon crosses the antimeridian
+    @GetMapping("/within")
+    public ResponseEntity<Map<String, Object>> getWithinBox(
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon) {
+        if (!isValidLatitude(minLat) || !isValidLatitude(maxLat) || minLat > maxLat
+                || !isValidLongitude(minLon) || !isValidLongitude(maxLon)) {
+            return ResponseEntity.badRequest().body(buildErrorResponse(
+                    "Latitudes must be within [-90, 90] with minLat <= maxLat, longitudes within [-180, 180]"));
+        }
+
+        try {
+            List<NearbyStation> stations = stationLocatorService.findWithin(minLat, minLon, maxLat, maxLon);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("stations", stations);
+            response.put("count", stations.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Bounding box lookup failed: {}", e.getMessage());
+            return ResponseEntity.status(500).body(buildErrorResponse("Unable to search stations in area"));
+        }
+    }
+
+    @GetMapping("/grid")
+    public ResponseEntity<Map<String, Object>> getGridInfo() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("grid", interpolationGridService.getStatus());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Grid status lookup failed: {}", e.getMessage());
+            return ResponseEntity.status(500).body(buildErrorResponse("Unable to read AQI grid"));
+        }
+    }
+
+    // Interpolated AQI at an arbitrary point, read from the in-memory grid
+    @GetMapping("/grid/point")
+    public ResponseEntity<Map<String, Object>> getGridPoint(@RequestParam double lat, @RequestParam double lon) {
+        if (!isValidLatitude(lat) || !isValidLongitude(lon)) {
+            return ResponseEntity.badRequest().body(buildErrorResponse("lat must be within [-90, 90] and lon within [-180, 180]"));
+        }
+
+        try {
+            Optional<Float> value = interpolationGridService.getValueAt(lat, lon);
+            if (value.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(buildErrorResponse("No monitored city close enough to estimate AQI here"));
+            }
+            int aqi = Math.round(value.get());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("latitude", lat);
+            response.put("longitude", lon);
+            response.put("aqi", aqi);
+            response.put("category", AQICalculator.getAqiCategory(aqi));
+            response.put("interpolated", true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Grid point lookup failed for ({}, {}): {}", lat, lon, e.getMessage());
+            return ResponseEntity.status(500).body(buildErrorResponse("Unable to estimate AQI at this point"));
+        }
+    }
+
+    // One tile of the raster; values are row-major from the north-west corner, null where there is no estimate
+    @GetMapping("/grid/tiles/{tileRow}/{tileCol}")
+    public ResponseEntity<Map<String, Object>> getGridTile(
+            @PathVariable int tileRow,
+            @PathVariable int tileCol,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            // Tagged by content, so replicas and restarts agree on it
+            String etag = tileEtag(tileRow, tileCol, interpolationGridService.getTileHash(tileRow, tileCol));
+            if (HttpCacheUtils.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            IdwGrid.Tile tile = interpolationGridService.getTile(tileRow, tileCol);
+            List<Float> values = new ArrayList<>(tile.getValues().length);
+            for (float value : tile.getValues()) {
+                values.add(Float.isNaN(value) ? null : Math.round(value * 10) / 10f);
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("tileRow", tile.getTileRow());
+            response.put("tileCol", tile.getTileCol());
+            response.put("north", tile.getNorth());
+            response.put("west", tile.getWest());
+            response.put("resolutionDegrees", tile.getResolution());
+            response.put("rows", tile.getRows());
+            response.put("cols", tile.getCols());
+            response.put("values", values);
+            return ResponseEntity.ok().eTag(tileEtag(tileRow, tileCol, tile.getContentHash())).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(buildErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Grid tile {}/{} lookup failed: {}", tileRow, tileCol, e.getMessage());
+            return ResponseEntity.status(500).body(buildErrorResponse("Unable to read AQI grid tile"));
+        }
+    }
+
+    private static boolean isValidLatitude(double lat) {
+        return lat >= -90 && lat <= 90;
+    }
+
+    private static boolean isValidLongitude(double lon) {
+        return lon >= -180 && lon <= 180;
+    }
+
+    private static String tileEtag(int tileRow, int tileCol, long contentHash) {
+        return HttpCacheUtils.combine("grid", tileRow, tileCol, Long.toHexString(contentHash));
+    }
+
+    private Map<String, Object> buildErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
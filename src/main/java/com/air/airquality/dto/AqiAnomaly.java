@@ -0,0 +1,60 @@
+package com.air.airquality.dto;
+
+import java.time.LocalDateTime;
+
+// A reading the ingestion-time detector flagged as a spike, drop or probable sensor error
+public class AqiAnomaly {
+    private String city;
+    private Long readingId;
+    private LocalDateTime timestamp;
+    private Integer aqiValue;
+    private Double expectedAqi;
+    private Double zScore;
+    private String kind;
+    private String reason;
+    private LocalDateTime detectedAt;
+    
+    // Constructors
+    public AqiAnomaly() {}
+    
+    public AqiAnomaly(String city, Long readingId, LocalDateTime timestamp, Integer aqiValue,
+                      Double expectedAqi, Double zScore, String kind, String reason) {
+        this.city = city;
+        this.readingId = readingId;
+        this.timestamp = timestamp;
+        this.aqiValue = aqiValue;
+        this.expectedAqi = expectedAqi;
+        this.zScore = zScore;
+        this.kind = kind;
+        this.reason = reason;
+        this.detectedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+    
+    public Long getReadingId() { return readingId; }
+    public void setReadingId(Long readingId) { this.readingId = readingId; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    
+    public Integer getAqiValue() { return aqiValue; }
+    public void setAqiValue(Integer aqiValue) { this.aqiValue = aqiValue; }
+    
+    public Double getExpectedAqi() { return expectedAqi; }
+    public void setExpectedAqi(Double expectedAqi) { this.expectedAqi = expectedAqi; }
+    
+    public Double getZScore() { return zScore; }
+    public void setZScore(Double zScore) { this.zScore = zScore; }
+    
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+    public void setDetectedAt(LocalDateTime detectedAt) { this.detectedAt = detectedAt; }
+}
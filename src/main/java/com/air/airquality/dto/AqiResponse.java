@@ -1,6 +1,9 @@
 package com.air.airquality.dto;
 
+import com.air.airquality.util.AqiStandards;
+
 import java.time.LocalDateTime;
+import java.util.Map;
 
 public class AqiResponse {
     private String city;
@@ -15,6 +18,9 @@ public class AqiResponse {
     private LocalDateTime timestamp;
     private String category;
     private String description;
+    private String dominantPollutant;
+    private Map<String, Integer> subIndices;
+    private String aqiStandard;
     
     // Constructors
     public AqiResponse() {}
@@ -33,13 +39,9 @@ public class AqiResponse {
         this.timestamp = timestamp;
     }
     
+    // Readings scored before per-city standards carry no key and are EPA
     private String getAqiCategory(Integer aqi) {
-        if (aqi <= 50) return "Good";
-        else if (aqi <= 100) return "Moderate";
-        else if (aqi <= 150) return "Unhealthy for Sensitive Groups";
-        else if (aqi <= 200) return "Unhealthy";
-        else if (aqi <= 300) return "Very Unhealthy";
-        else return "Hazardous";
+        return AqiStandards.get(aqiStandard).category(aqi);
     }
     
     // Getters and Setters
@@ -88,4 +90,18 @@ public class AqiResponse {
     public void setDescription(String description) {
         this.description = description;
     }
+    
+    public String getDominantPollutant() { return dominantPollutant; }
+    public void setDominantPollutant(String dominantPollutant) { this.dominantPollutant = dominantPollutant; }
+    
+    public Map<String, Integer> getSubIndices() { return subIndices; }
+    public void setSubIndices(Map<String, Integer> subIndices) { this.subIndices = subIndices; }
+    
+    public String getAqiStandard() { return aqiStandard; }
+    public void setAqiStandard(String aqiStandard) {
+        this.aqiStandard = aqiStandard;
+        if (aqiValue != null) {
+            this.aqiCategory = getAqiCategory(aqiValue);
+        }
+    }
 }
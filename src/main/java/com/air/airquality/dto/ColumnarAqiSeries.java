@@ -0,0 +1,98 @@
+package com.air.airquality.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Column-oriented view of AQI readings for the binary (CBOR) wire format.
+ * One array per field instead of one object per row; missing pollutant values are NaN
+ * and timestamps are epoch seconds, so clients can decode straight into arrays.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnarAqiSeries {
+    private String city;
+    private String[] cities;
+    private long[] timestamps;
+    private int[] aqi;
+    private float[] pm25;
+    private float[] pm10;
+    private float[] no2;
+    private float[] so2;
+    private float[] co;
+    private float[] o3;
+
+    public ColumnarAqiSeries() {}
+
+    /**
+     * Series for a single city, ordered oldest first
+     */
+    public static ColumnarAqiSeries forCity(String city, List<AqiResponse> readings) {
+        ColumnarAqiSeries series = fromReadings(readings, true);
+        series.city = city;
+        return series;
+    }
+
+    /**
+     * One row per city, with the city names in their own column
+     */
+    public static ColumnarAqiSeries forCities(List<AqiResponse> readings) {
+        ColumnarAqiSeries series = fromReadings(readings, false);
+        series.cities = new String[readings.size()];
+        for (int i = 0; i < readings.size(); i++) {
+            series.cities[i] = readings.get(i).getCity();
+        }
+        return series;
+    }
+
+    private static ColumnarAqiSeries fromReadings(List<AqiResponse> readings, boolean oldestFirst) {
+        int size = readings.size();
+        ColumnarAqiSeries series = new ColumnarAqiSeries();
+        series.timestamps = new long[size];
+        series.aqi = new int[size];
+        series.pm25 = new float[size];
+        series.pm10 = new float[size];
+        series.no2 = new float[size];
+        series.so2 = new float[size];
+        series.co = new float[size];
+        series.o3 = new float[size];
+
+        boolean reverse = oldestFirst && size > 1
+                && readings.get(0).getTimestamp().isAfter(readings.get(size - 1).getTimestamp());
+        for (int i = 0; i < size; i++) {
+            AqiResponse reading = readings.get(reverse ? size - 1 - i : i);
+            series.timestamps[i] = toEpochSecond(reading.getTimestamp());
+            series.aqi[i] = reading.getAqiValue() != null ? reading.getAqiValue() : 0;
+            series.pm25[i] = toFloat(reading.getPm25());
+            series.pm10[i] = toFloat(reading.getPm10());
+            series.no2[i] = toFloat(reading.getNo2());
+            series.so2[i] = toFloat(reading.getSo2());
+            series.co[i] = toFloat(reading.getCo());
+            series.o3[i] = toFloat(reading.getO3());
+        }
+        return series;
+    }
+
+    // Readings are stamped with LocalDateTime.now(), i.e. in the server's zone
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toEpochSecond() : 0L;
+    }
+
+    private static float toFloat(Double value) {
+        return value != null ? value.floatValue() : Float.NaN;
+    }
+
+    // Getters
+    public String getCity() { return city; }
+    public String[] getCities() { return cities; }
+    public long[] getTimestamps() { return timestamps; }
+    public int[] getAqi() { return aqi; }
+    public float[] getPm25() { return pm25; }
+    public float[] getPm10() { return pm10; }
+    public float[] getNo2() { return no2; }
+    public float[] getSo2() { return so2; }
+    public float[] getCo() { return co; }
+    public float[] getO3() { return o3; }
+}
@@ -0,0 +1,37 @@
+package com.air.airquality.dto;
+
+// A located city with its latest reading, as returned by the nearest and bounding-box queries
+public class NearbyStation {
+    private String city;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+    private AqiResponse reading;
+    
+    // Constructors
+    public NearbyStation() {}
+    
+    public NearbyStation(String city, Double latitude, Double longitude, Double distanceKm, AqiResponse reading) {
+        this.city = city;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceKm = distanceKm;
+        this.reading = reading;
+    }
+    
+    // Getters and Setters
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
+    
+    public AqiResponse getReading() { return reading; }
+    public void setReading(AqiResponse reading) { this.reading = reading; }
+}
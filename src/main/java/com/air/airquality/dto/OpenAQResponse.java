@@ -14,6 +14,7 @@ public class OpenAQResponse {
     public static class OpenAQResult {
         private String city;
         private String country;
+        private Coordinates coordinates;
         private List<Measurement> measurements;
         
         public String getCity() { return city; }
@@ -22,10 +23,25 @@ public class OpenAQResponse {
         public String getCountry() { return country; }
         public void setCountry(String country) { this.country = country; }
         
+        public Coordinates getCoordinates() { return coordinates; }
+        public void setCoordinates(Coordinates coordinates) { this.coordinates = coordinates; }
+        
         public List<Measurement> getMeasurements() { return measurements; }
         public void setMeasurements(List<Measurement> measurements) { this.measurements = measurements; }
     }
     
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Coordinates {
+        private Double latitude;
+        private Double longitude;
+        
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+    }
+    
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Measurement {
         private String parameter;
@@ -0,0 +1,20 @@
+package com.air.airquality.event;
+
+import com.air.airquality.dto.AqiAnomaly;
+
+/**
+ * Published when an ingested reading is flagged as anomalous, so alerting (and anything
+ * else interested) can react without polling.
+ */
+public class AqiAnomalyEvent {
+
+    private final AqiAnomaly anomaly;
+
+    public AqiAnomalyEvent(AqiAnomaly anomaly) {
+        this.anomaly = anomaly;
+    }
+
+    public AqiAnomaly getAnomaly() {
+        return anomaly;
+    }
+}
@@ -0,0 +1,26 @@
+package com.air.airquality.event;
+
+import com.air.airquality.model.AqiData;
+
+import java.util.List;
+
+/**
+ * Published after one or more AQI readings have been persisted, so in-memory
+ * views (latest snapshot, indexes, statistics) can update without re-reading the table.
+ */
+public class AqiDataIngestedEvent {
+
+    private final List<AqiData> readings;
+
+    public AqiDataIngestedEvent(List<AqiData> readings) {
+        this.readings = List.copyOf(readings);
+    }
+
+    public static AqiDataIngestedEvent of(AqiData reading) {
+        return new AqiDataIngestedEvent(List.of(reading));
+    }
+
+    public List<AqiData> getReadings() {
+        return readings;
+    }
+}
@@ -0,0 +1,44 @@
+package com.air.airquality.event;
+
+/**
+ * Published on this node when another replica invalidated a cache entry, so local
+ * caches can drop the same key. A null key means the whole cache.
+ */
+public class CacheInvalidationEvent {
+
+    // Latest reading of a city changed (key: city name)
+    public static final String CITY_READINGS = "city-readings";
+
+    // Stored readings of a city were re-scored in place (key: city name)
+    public static final String CITY_SCORES = "city-scores";
+
+    // User profile changed or was deleted (key: user id)
+    public static final String USERS = "users";
+
+    // Alert history of a user changed (key: user id)
+    public static final String USER_ALERTS = "user-alerts";
+
+    private final String cacheName;
+    private final String key;
+
+    public CacheInvalidationEvent(String cacheName, String key) {
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+
+    public boolean isFor(String name) {
+        return cacheName.equals(name);
+    }
+
+    public boolean isWholeCache() {
+        return key == null;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,96 @@
+package com.air.airquality.model;
+
+import com.air.airquality.dto.AqiAnomaly;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// A flagged reading, written by the node that ingested it so every replica serves the same list
+@Entity
+@Table(name = "aqi_anomalies", indexes = {
+    @Index(name = "idx_anomaly_city_timestamp", columnList = "city, timestamp"),
+    @Index(name = "idx_anomaly_timestamp", columnList = "timestamp")
+})
+public class AqiAnomalyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String city;
+    
+    @Column(name = "reading_id")
+    private Long readingId;
+    
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+    
+    @Column(name = "aqi_value", nullable = false)
+    private Integer aqiValue;
+    
+    @Column(name = "expected_aqi")
+    private Double expectedAqi;
+    
+    @Column(name = "z_score")
+    private Double zScore;
+    
+    @Column(nullable = false, length = 16)
+    private String kind;
+    
+    private String reason;
+    
+    @Column(name = "detected_at")
+    private LocalDateTime detectedAt;
+    
+    // Constructors
+    public AqiAnomalyRecord() {}
+    
+    public AqiAnomalyRecord(AqiAnomaly anomaly) {
+        this.city = anomaly.getCity();
+        this.readingId = anomaly.getReadingId();
+        this.timestamp = anomaly.getTimestamp();
+        this.aqiValue = anomaly.getAqiValue();
+        this.expectedAqi = anomaly.getExpectedAqi();
+        this.zScore = anomaly.getZScore();
+        this.kind = anomaly.getKind();
+        this.reason = anomaly.getReason();
+        this.detectedAt = anomaly.getDetectedAt();
+    }
+    
+    public AqiAnomaly toAnomaly() {
+        AqiAnomaly anomaly = new AqiAnomaly(city, readingId, timestamp, aqiValue, expectedAqi, zScore, kind, reason);
+        anomaly.setDetectedAt(detectedAt);
+        return anomaly;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+    
+    public Long getReadingId() { return readingId; }
+    public void setReadingId(Long readingId) { this.readingId = readingId; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    
+    public Integer getAqiValue() { return aqiValue; }
+    public void setAqiValue(Integer aqiValue) { this.aqiValue = aqiValue; }
+    
+    public Double getExpectedAqi() { return expectedAqi; }
+    public void setExpectedAqi(Double expectedAqi) { this.expectedAqi = expectedAqi; }
+    
+    public Double getZScore() { return zScore; }
+    public void setZScore(Double zScore) { this.zScore = zScore; }
+    
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+    public void setDetectedAt(LocalDateTime detectedAt) { this.detectedAt = detectedAt; }
+}
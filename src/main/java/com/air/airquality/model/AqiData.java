@@ -4,7 +4,10 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "aqi_data")
+@Table(name = "aqi_data", indexes = {
+    @Index(name = "idx_city_timestamp", columnList = "city, timestamp"),
+    @Index(name = "idx_timestamp", columnList = "timestamp")
+})
 public class AqiData {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +31,37 @@ public class AqiData {
     
     private String source = "openaq";
     
+    // Station coordinates when the source reports them
+    private Double latitude;
+    private Double longitude;
+    
+    // Per-pollutant sub-indices, computed at ingestion; null when the pollutant wasn't reported
+    @Column(name = "aqi_pm25")
+    private Integer aqiPm25;
+    
+    @Column(name = "aqi_pm10")
+    private Integer aqiPm10;
+    
+    @Column(name = "aqi_no2")
+    private Integer aqiNo2;
+    
+    @Column(name = "aqi_so2")
+    private Integer aqiSo2;
+    
+    @Column(name = "aqi_co")
+    private Integer aqiCo;
+    
+    @Column(name = "aqi_o3")
+    private Integer aqiO3;
+    
+    // Key of the pollutant with the highest sub-index, e.g. "pm25"
+    @Column(name = "dominant_pollutant", length = 8)
+    private String dominantPollutant;
+    
+    // Versioned key of the standard the sub-indices were computed with, e.g. "EPA-2012"
+    @Column(name = "aqi_standard", length = 16)
+    private String aqiStandard;
+    
     // Constructors
     public AqiData() {
         this.timestamp = LocalDateTime.now();
@@ -79,4 +113,34 @@ public class AqiData {
     
     public String getSource() { return source; }
     public void setSource(String source) { this.source = source; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public Integer getAqiPm25() { return aqiPm25; }
+    public void setAqiPm25(Integer aqiPm25) { this.aqiPm25 = aqiPm25; }
+    
+    public Integer getAqiPm10() { return aqiPm10; }
+    public void setAqiPm10(Integer aqiPm10) { this.aqiPm10 = aqiPm10; }
+    
+    public Integer getAqiNo2() { return aqiNo2; }
+    public void setAqiNo2(Integer aqiNo2) { this.aqiNo2 = aqiNo2; }
+    
+    public Integer getAqiSo2() { return aqiSo2; }
+    public void setAqiSo2(Integer aqiSo2) { this.aqiSo2 = aqiSo2; }
+    
+    public Integer getAqiCo() { return aqiCo; }
+    public void setAqiCo(Integer aqiCo) { this.aqiCo = aqiCo; }
+    
+    public Integer getAqiO3() { return aqiO3; }
+    public void setAqiO3(Integer aqiO3) { this.aqiO3 = aqiO3; }
+    
+    public String getDominantPollutant() { return dominantPollutant; }
+    public void setDominantPollutant(String dominantPollutant) { this.dominantPollutant = dominantPollutant; }
+    
+    public String getAqiStandard() { return aqiStandard; }
+    public void setAqiStandard(String aqiStandard) { this.aqiStandard = aqiStandard; }
 }
\ No newline at end of file
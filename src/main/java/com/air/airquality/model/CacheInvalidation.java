@@ -0,0 +1,46 @@
+package com.air.airquality.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Change-log row read by every replica's CacheInvalidationBus; a null key invalidates the whole cache
+@Entity
+@Table(name = "cache_invalidations", indexes = {
+    @Index(name = "idx_cache_invalidations_created_at", columnList = "created_at")
+})
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "cache_name", nullable = false, length = 64)
+    private String cacheName;
+    
+    @Column(name = "cache_key")
+    private String cacheKey;
+    
+    @Column(name = "origin_node", nullable = false, length = 128)
+    private String originNode;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public CacheInvalidation() {}
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getCacheName() { return cacheName; }
+    public void setCacheName(String cacheName) { this.cacheName = cacheName; }
+    
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+    
+    public String getOriginNode() { return originNode; }
+    public void setOriginNode(String originNode) { this.originNode = originNode; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,111 @@
+package com.air.airquality.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "retention_job_state")
+public class RetentionJobState {
+
+    public enum Status { RUNNING, STOPPED, COMPLETED, FAILED }
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+    
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+    
+    // Highest id deleted so far; the next chunk starts after it
+    @Column(name = "last_deleted_id", nullable = false)
+    private Long lastDeletedId = 0L;
+    
+    @Column(name = "rows_deleted", nullable = false)
+    private Long rowsDeleted = 0L;
+    
+    @Column(name = "chunks_completed", nullable = false)
+    private Long chunksCompleted = 0L;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+    
+    @Column(name = "last_error")
+    private String lastError;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    // Optimistic lock: a replica writing from a stale copy fails instead of overwriting the checkpoint
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+    
+    // Constructors
+    public RetentionJobState() {}
+    
+    public RetentionJobState(String jobName, LocalDateTime cutoff) {
+        this.jobName = jobName;
+        this.cutoff = cutoff;
+        this.status = Status.RUNNING;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+    }
+    
+    // Detached copy, so a checkpoint can be advanced without touching the one in use
+    public RetentionJobState copy() {
+        RetentionJobState copy = new RetentionJobState();
+        copy.jobName = jobName;
+        copy.cutoff = cutoff;
+        copy.lastDeletedId = lastDeletedId;
+        copy.rowsDeleted = rowsDeleted;
+        copy.chunksCompleted = chunksCompleted;
+        copy.status = status;
+        copy.lastError = lastError;
+        copy.startedAt = startedAt;
+        copy.updatedAt = updatedAt;
+        copy.finishedAt = finishedAt;
+        copy.version = version;
+        return copy;
+    }
+    
+    // Getters and Setters
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+    
+    public LocalDateTime getCutoff() { return cutoff; }
+    public void setCutoff(LocalDateTime cutoff) { this.cutoff = cutoff; }
+    
+    public Long getLastDeletedId() { return lastDeletedId; }
+    public void setLastDeletedId(Long lastDeletedId) { this.lastDeletedId = lastDeletedId; }
+    
+    public Long getRowsDeleted() { return rowsDeleted; }
+    public void setRowsDeleted(Long rowsDeleted) { this.rowsDeleted = rowsDeleted; }
+    
+    public Long getChunksCompleted() { return chunksCompleted; }
+    public void setChunksCompleted(Long chunksCompleted) { this.chunksCompleted = chunksCompleted; }
+    
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
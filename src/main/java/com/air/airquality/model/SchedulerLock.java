@@ -0,0 +1,39 @@
+package com.air.airquality.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// One row per scheduled job; maintained by SchedulerLockService with conditional updates
+@Entity
+@Table(name = "scheduler_locks")
+public class SchedulerLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+    
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+    
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+    
+    // Constructors
+    public SchedulerLock() {}
+    
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    
+    public LocalDateTime getLockedAt() { return lockedAt; }
+    public void setLockedAt(LocalDateTime lockedAt) { this.lockedAt = lockedAt; }
+    
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+}
@@ -25,6 +25,7 @@ public class User {
     
     private String city;
     
+    // EPA AQI, independent of the standard the user's city is scored under
     @Column(name = "alert_threshold")
     private Integer alertThreshold = 100;
     
@@ -0,0 +1,16 @@
+package com.air.airquality.repository;
+
+import com.air.airquality.model.AqiAnomalyRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AqiAnomalyRecordRepository extends JpaRepository<AqiAnomalyRecord, Long> {
+    
+    List<AqiAnomalyRecord> findByCityOrderByTimestampDesc(String city, Pageable pageable);
+    
+    List<AqiAnomalyRecord> findAllByOrderByTimestampDesc(Pageable pageable);
+}
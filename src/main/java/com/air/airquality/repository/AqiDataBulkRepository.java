@@ -0,0 +1,105 @@
+package com.air.airquality.repository;
+
+import com.air.airquality.model.AqiData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Bulk insert path for aqi_data that bypasses Hibernate.
+ *
+ * AqiData keeps IDENTITY ids (existing MySQL tables, and the partitioned primary key,
+ * rely on auto_increment), and Hibernate never batches IDENTITY inserts. Here rows are
+ * sent as JDBC batches instead - Connector/J turns each batch into multi-row INSERTs when
+ * the URL has rewriteBatchedStatements=true - and the generated ids are read back so the
+ * ingestion event carries complete readings.
+ */
+@Repository
+public class AqiDataBulkRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(AqiDataBulkRepository.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO aqi_data (city, aqi_value, pm25, pm10, no2, so2, co, o3, timestamp, source, latitude, longitude, " +
+            "aqi_pm25, aqi_pm10, aqi_no2, aqi_so2, aqi_co, aqi_o3, dominant_pollutant, aqi_standard) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.bulk-insert.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Inserts the readings in JDBC batches within one transaction and sets their ids
+     *
+     * @return the same readings, for chaining into an ingestion event
+     */
+    @Transactional
+    public List<AqiData> insertAll(List<AqiData> readings) {
+        if (readings.isEmpty()) {
+            return readings;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < readings.size(); from += batchSize) {
+                    List<AqiData> batch = readings.subList(from, Math.min(readings.size(), from + batchSize));
+                    for (AqiData reading : batch) {
+                        statement.setString(1, reading.getCity());
+                        statement.setInt(2, reading.getAqiValue());
+                        statement.setObject(3, reading.getPm25(), Types.DOUBLE);
+                        statement.setObject(4, reading.getPm10(), Types.DOUBLE);
+                        statement.setObject(5, reading.getNo2(), Types.DOUBLE);
+                        statement.setObject(6, reading.getSo2(), Types.DOUBLE);
+                        statement.setObject(7, reading.getCo(), Types.DOUBLE);
+                        statement.setObject(8, reading.getO3(), Types.DOUBLE);
+                        statement.setTimestamp(9, Timestamp.valueOf(reading.getTimestamp()));
+                        statement.setString(10, reading.getSource());
+                        statement.setObject(11, reading.getLatitude(), Types.DOUBLE);
+                        statement.setObject(12, reading.getLongitude(), Types.DOUBLE);
+                        statement.setObject(13, reading.getAqiPm25(), Types.INTEGER);
+                        statement.setObject(14, reading.getAqiPm10(), Types.INTEGER);
+                        statement.setObject(15, reading.getAqiNo2(), Types.INTEGER);
+                        statement.setObject(16, reading.getAqiSo2(), Types.INTEGER);
+                        statement.setObject(17, reading.getAqiCo(), Types.INTEGER);
+                        statement.setObject(18, reading.getAqiO3(), Types.INTEGER);
+                        statement.setString(19, reading.getDominantPollutant());
+                        statement.setString(20, reading.getAqiStandard());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    assignGeneratedIds(statement, batch);
+                }
+            }
+            return null;
+        });
+        return readings;
+    }
+
+    // Drivers return keys in insert order; if a driver returns fewer, those readings keep a null id
+    private void assignGeneratedIds(PreparedStatement statement, List<AqiData> batch) {
+        int index = 0;
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next() && index < batch.size()) {
+                batch.get(index++).setId(keys.getLong(1));
+            }
+        } catch (Exception e) {
+            logger.debug("Generated keys unavailable for bulk insert: {}", e.getMessage());
+        }
+        if (index < batch.size()) {
+            logger.debug("Bulk insert returned {} of {} generated ids", index, batch.size());
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.air.airquality.repository;
 
 import com.air.airquality.model.AqiData;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,23 +21,16 @@ public interface AqiDataRepository extends JpaRepository<AqiData, Long> {
                                                @Param("startDate") LocalDateTime startDate, 
                                                @Param("endDate") LocalDateTime endDate);
     
+    // Rows stored after a known id, in insertion order (catching up on other replicas' writes)
+    List<AqiData> findByCityAndIdGreaterThanOrderByIdAsc(String city, Long id);
+    
+    @Query("SELECT MAX(a.id) FROM AqiData a WHERE a.city = :city")
+    Long findMaxIdByCity(@Param("city") String city);
+    
     // Optimized distinct cities query
     @Query("SELECT DISTINCT a.city FROM AqiData a ORDER BY a.city")
     List<String> findDistinctCities();
     
     // Check if city exists (for optimization)
     boolean existsByCity(String city);
-    
-    // Cleanup old data (for maintenance)
-    @Modifying
-    @Query("DELETE FROM AqiData a WHERE a.timestamp < :cutoffDate")
-    void deleteOldData(@Param("cutoffDate") LocalDateTime cutoffDate);
-    
-    // Get latest data for all cities (for dashboard)
-    @Query("""
-        SELECT a FROM AqiData a WHERE a.timestamp = 
-        (SELECT MAX(a2.timestamp) FROM AqiData a2 WHERE a2.city = a.city)
-        ORDER BY a.city
-        """)
-    List<AqiData> findLatestDataForAllCities();
 }
\ No newline at end of file
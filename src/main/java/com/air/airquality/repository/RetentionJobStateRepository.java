@@ -0,0 +1,9 @@
+package com.air.airquality.repository;
+
+import com.air.airquality.model.RetentionJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RetentionJobStateRepository extends JpaRepository<RetentionJobState, String> {
+}
@@ -0,0 +1,9 @@
+package com.air.airquality.repository;
+
+import com.air.airquality.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+}
@@ -17,6 +17,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     
+    List<User> findByCity(String city);
+    
     @Query("SELECT u FROM User u WHERE u.city = :city AND u.alertThreshold <= :aqiValue")
     List<User> findUsersForAlert(@Param("city") String city, @Param("aqiValue") Integer aqiValue);
+    
+    // Users monitoring each city, as (city, count) rows - seeds city search popularity
+    @Query("SELECT u.city, COUNT(u) FROM User u WHERE u.city IS NOT NULL GROUP BY u.city")
+    List<Object[]> countUsersByCity();
 }
\ No newline at end of file
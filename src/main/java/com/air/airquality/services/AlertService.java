@@ -1,17 +1,25 @@
 package com.air.airquality.services;
 
+import com.air.airquality.dto.AqiAnomaly;
+import com.air.airquality.event.AqiAnomalyEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
 import com.air.airquality.model.AqiData;
 import com.air.airquality.model.User;
 import com.air.airquality.model.UserAlert;
 import com.air.airquality.repository.UserAlertRepository;
 import com.air.airquality.repository.UserRepository;
+import com.air.airquality.util.AQICalculator;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.EwmaAnomalyDetector;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +42,24 @@ public class AlertService {
     @Autowired
     private OpenAQService openAQService;
     
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
+    
+    // Minimum gap between spike alerts for the same city
+    @Value("${app.anomaly.alert-cooldown-minutes:180}")
+    private long anomalyAlertCooldownMinutes;
+    
+    // Spikes below this category level are not worth an SMS (2 = EPA "Unhealthy for Sensitive
+    // Groups", NAQI "Moderate", CAQI "Medium")
+    @Value("${app.anomaly.alert-min-category:2}")
+    private int anomalyAlertMinCategory;
+    
+    // City -> time of its last spike alert
+    private final ConcurrentHashMap<String, LocalDateTime> lastSpikeAlerts = new ConcurrentHashMap<>();
+    
     @Value("${twilio.account.sid:}")
     private String accountSid;
     
@@ -80,10 +106,14 @@ public class AlertService {
             if (aqiData == null || aqiData.getAqiValue() == null) return;
             
             Integer currentAqi = aqiData.getAqiValue();
+            String dominantPollutant = aqiData.getDominantPollutant();
+            // Thresholds are EPA numbers whatever standard the city is scored under
+            Integer epaAqi = AqiStandards.epaAqi(aqiData);
+            if (epaAqi == null) return;
             
             // Filter users who need alerts using streams
             List<User> usersToAlert = users.stream()
-                    .filter(user -> currentAqi >= user.getAlertThreshold())
+                    .filter(user -> epaAqi >= user.getAlertThreshold())
                     .collect(Collectors.toList());
             
             if (!usersToAlert.isEmpty()) {
@@ -92,7 +122,7 @@ public class AlertService {
                 
                 // Send alerts in parallel
                 usersToAlert.parallelStream()
-                          .forEach(user -> sendAlert(user, city, currentAqi));
+                          .forEach(user -> sendAlert(user, city, currentAqi, dominantPollutant));
             }
             
         } catch (Exception e) {
@@ -100,6 +130,7 @@ public class AlertService {
         }
     }
     
+    // aqiValue is on the EPA scale, like the users' thresholds
     public void checkAndSendAlerts(String city, Integer aqiValue) {
         try {
             List<User> usersToAlert = userRepository.findUsersForAlert(city, aqiValue);
@@ -114,23 +145,23 @@ public class AlertService {
             
             // Process alerts in parallel for better performance
             usersToAlert.parallelStream()
-                       .forEach(user -> sendAlert(user, city, aqiValue));
+                       .forEach(user -> sendAlert(user, city, aqiValue, null));
             
         } catch (Exception e) {
             logger.error("Error checking and sending alerts for city {}: {}", city, e.getMessage());
         }
     }
     
-    private void sendAlert(User user, String city, Integer aqiValue) {
+    private void sendAlert(User user, String city, Integer aqiValue, String dominantPollutant) {
         try {
             boolean alertSent = false;
             
             if (twilioEnabled) {
-                sendSmsAlert(user, city, aqiValue);
+                sendSmsAlert(user, city, aqiValue, dominantPollutant);
                 alertSent = true;
                 logger.info("SMS alert sent to user: {} for city: {}", user.getUsername(), city);
             } else {
-                logAlert(user, city, aqiValue);
+                logAlert(user, city, aqiValue, dominantPollutant);
                 alertSent = true;
                 logger.info("Alert logged for user: {} for city: {} (SMS disabled)", 
                           user.getUsername(), city);
@@ -139,6 +170,7 @@ public class AlertService {
             // Save alert record and invalidate cache
             saveAlertRecord(user, city, aqiValue, alertSent);
             userAlertsCache.remove(user.getId());
+            cacheInvalidationBus.publish(CacheInvalidationEvent.USER_ALERTS, user.getId());
             
         } catch (Exception e) {
             logger.error("Failed to send alert to user {}: {}", user.getUsername(), e.getMessage());
@@ -146,6 +178,70 @@ public class AlertService {
         }
     }
     
+    // Spikes go to everyone monitoring the city, below their threshold too; other anomalies are only logged
+    @EventListener
+    public void onAqiAnomaly(AqiAnomalyEvent event) {
+        AqiAnomaly anomaly = event.getAnomaly();
+        if (!EwmaAnomalyDetector.Kind.SPIKE.name().equals(anomaly.getKind())) {
+            if (EwmaAnomalyDetector.Kind.SENSOR_ERROR.name().equals(anomaly.getKind())) {
+                logger.warn("Possible sensor error in {}: AQI {} at {} ({})", anomaly.getCity(),
+                        anomaly.getAqiValue(), anomaly.getTimestamp(), anomaly.getReason());
+            }
+            return;
+        }
+        // Backfilled and seeded history is not news
+        if (!openAQService.isRecentData(anomaly.getTimestamp())) {
+            return;
+        }
+        // A jump within clean air (15 -> 40) is statistically unusual but harmless
+        if (aqiStandardService.standardFor(anomaly.getCity()).categoryLevel(anomaly.getAqiValue()) < anomalyAlertMinCategory) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime previous = lastSpikeAlerts.get(anomaly.getCity());
+        if (previous != null && previous.isAfter(now.minusMinutes(anomalyAlertCooldownMinutes))) {
+            return;
+        }
+        lastSpikeAlerts.put(anomaly.getCity(), now);
+        CompletableFuture.runAsync(() -> sendSpikeAlerts(anomaly));
+    }
+    
+    private void sendSpikeAlerts(AqiAnomaly anomaly) {
+        try {
+            List<User> users = userRepository.findByCity(anomaly.getCity());
+            if (users.isEmpty()) {
+                return;
+            }
+            logger.info("Alerting {} users of an AQI spike in {}: {}", users.size(), anomaly.getCity(), anomaly.getAqiValue());
+            users.parallelStream().forEach(user -> sendSpikeAlert(user, anomaly));
+        } catch (Exception e) {
+            logger.error("Error sending spike alerts for city {}: {}", anomaly.getCity(), e.getMessage());
+        }
+    }
+    
+    private void sendSpikeAlert(User user, AqiAnomaly anomaly) {
+        String message = String.format(
+            "AQI SPIKE in %s: %d (expected around %.0f), Category: %s",
+            anomaly.getCity(), anomaly.getAqiValue(), anomaly.getExpectedAqi(),
+            aqiStandardService.standardFor(anomaly.getCity()).category(anomaly.getAqiValue())
+        );
+        boolean alertSent = false;
+        try {
+            if (twilioEnabled) {
+                // Placeholder for actual Twilio SMS sending
+                logger.info("SMS Alert for {}: {}", user.getPhoneNumber(), message);
+            } else {
+                logger.warn("AIR QUALITY ALERT: User {} ({}) - {}", user.getUsername(), user.getPhoneNumber(), message);
+            }
+            alertSent = true;
+        } catch (Exception e) {
+            logger.error("Failed to send spike alert to user {}: {}", user.getUsername(), e.getMessage());
+        }
+        saveAlertRecord(user, anomaly.getCity(), anomaly.getAqiValue(), alertSent);
+        userAlertsCache.remove(user.getId());
+        cacheInvalidationBus.publish(CacheInvalidationEvent.USER_ALERTS, user.getId());
+    }
+    
     private void saveAlertRecord(User user, String city, Integer aqiValue, boolean alertSent) {
         try {
             UserAlert alert = new UserAlert(user, city, aqiValue, user.getAlertThreshold());
@@ -156,11 +252,12 @@ public class AlertService {
         }
     }
     
-    private void sendSmsAlert(User user, String city, Integer aqiValue) {
+    private void sendSmsAlert(User user, String city, Integer aqiValue, String dominantPollutant) {
         String messageBody = String.format(
             "🚨 AIR QUALITY ALERT!\nCity: %s\nCurrent AQI: %d\nYour threshold: %d\n" +
-            "Category: %s\nPlease take necessary precautions!\n- AirSight Monitoring",
-            city, aqiValue, user.getAlertThreshold(), openAQService.getAqiCategory(aqiValue)
+            "Category: %s%s\nPlease take necessary precautions!\n- AirSight Monitoring",
+            city, aqiValue, user.getAlertThreshold(), aqiStandardService.standardFor(city).category(aqiValue),
+            mainPollutantNote(dominantPollutant, "\nMain pollutant: ")
         );
         
         try {
@@ -174,16 +271,23 @@ public class AlertService {
         }
     }
     
-    private void logAlert(User user, String city, Integer aqiValue) {
+    private void logAlert(User user, String city, Integer aqiValue, String dominantPollutant) {
         String alertMessage = String.format(
-            "ALERT: User %s (%s) - City: %s, AQI: %d (threshold: %d), Category: %s",
+            "ALERT: User %s (%s) - City: %s, AQI: %d (threshold: %d), Category: %s%s",
             user.getUsername(), user.getPhoneNumber(), city, aqiValue,
-            user.getAlertThreshold(), openAQService.getAqiCategory(aqiValue)
+            user.getAlertThreshold(), aqiStandardService.standardFor(city).category(aqiValue),
+            mainPollutantNote(dominantPollutant, ", Main pollutant: ")
         );
         
         logger.warn("AIR QUALITY ALERT: {}", alertMessage);
     }
     
+    // Label of the pollutant driving the AQI, from the sub-indices stored at ingestion
+    private String mainPollutantNote(String dominantPollutant, String prefix) {
+        AQICalculator.Pollutant pollutant = AQICalculator.Pollutant.fromKey(dominantPollutant);
+        return pollutant != null ? prefix + pollutant.getLabel() : "";
+    }
+    
     public List<UserAlert> getUserAlerts(Long userId) {
         // Use cache for O(1) lookup
         return userAlertsCache.computeIfAbsent(userId, id -> {
@@ -202,6 +306,7 @@ public class AlertService {
             if (alert != null) {
                 userAlertRepository.delete(alert);
                 userAlertsCache.remove(userId); // Invalidate cache
+                cacheInvalidationBus.publish(CacheInvalidationEvent.USER_ALERTS, userId);
                 logger.info("Deleted alert {} for user {}", alertId, userId);
             } else {
                 logger.warn("Alert {} not found for user {}", alertId, userId);
@@ -210,4 +315,17 @@ public class AlertService {
             logger.error("Error deleting alert {} for user {}: {}", alertId, userId, e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    // Alerts recorded or deleted on other replicas
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.USER_ALERTS)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            userAlertsCache.clear();
+        } else {
+            userAlertsCache.remove(Long.valueOf(event.getKey()));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.air.airquality.services;
+
+import com.air.airquality.dto.AqiAnomaly;
+import com.air.airquality.event.AqiAnomalyEvent;
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiAnomalyRecord;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiAnomalyRecordRepository;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.util.AQICalculator;
+import com.air.airquality.util.EwmaAnomalyDetector;
+import com.air.airquality.util.EwmaAnomalyDetector.Kind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Flags anomalous readings as they are ingested: one {@link EwmaAnomalyDetector} per city,
+ * fed from ingestion events in timestamp order, so detection is O(1) per reading and never
+ * scans aqi_data. The baseline warms up from the stream itself.
+ *
+ * Every replica keeps a baseline for every city: readings stored elsewhere arrive as
+ * CITY_READINGS invalidations and are read back from aqi_data, so baselines survive cities
+ * moving between nodes. Only the node that ingested a reading stores what it flags in
+ * aqi_anomalies and publishes the {@link AqiAnomalyEvent}, so each anomaly is recorded and
+ * alerted once. A detector restarts when its city's readings switch to another AQI standard,
+ * since the old baseline is on a different scale.
+ */
+@Service
+public class AnomalyDetectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnomalyDetectionService.class);
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AqiAnomalyRecordRepository anomalyRecordRepository;
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    // Weight of the newest reading in the baseline; 0.1 is roughly the last 10 readings (5 days at 12h)
+    @Value("${app.anomaly.alpha:0.1}")
+    private double alpha;
+
+    @Value("${app.anomaly.z-threshold:3.5}")
+    private double zThreshold;
+
+    @Value("${app.anomaly.sensor-error-z:10}")
+    private double sensorErrorZ;
+
+    @Value("${app.anomaly.warm-up:10}")
+    private int warmUp;
+
+    @Value("${app.anomaly.stuck-count:8}")
+    private int stuckCount;
+
+    @Value("${app.anomaly.min-deviation:5}")
+    private double minDeviation;
+
+    private final Map<String, CityDetector> detectors = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        for (AqiData reading : event.getReadings()) {
+            AqiAnomaly anomaly = observe(reading);
+            if (anomaly != null) {
+                logger.info("AQI anomaly in {}: {} {} at {} ({})", anomaly.getCity(), anomaly.getKind(),
+                        anomaly.getAqiValue(), anomaly.getTimestamp(), anomaly.getReason());
+                record(anomaly);
+                eventPublisher.publishEvent(new AqiAnomalyEvent(anomaly));
+            }
+        }
+    }
+
+    // Another replica stored readings for the city: catch the baseline up without recording or alerting
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS) || event.isWholeCache()) {
+            return;
+        }
+        try {
+            for (AqiData reading : newReadings(event.getKey())) {
+                observe(reading);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not update anomaly baseline for {}: {}", event.getKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * The city's flagged readings, newest first
+     */
+    public List<AqiAnomaly> getAnomalies(String city, int limit) {
+        return toAnomalies(anomalyRecordRepository.findByCityOrderByTimestampDesc(city, PageRequest.of(0, limit)));
+    }
+
+    /**
+     * Flagged readings of all cities, newest first
+     */
+    public List<AqiAnomaly> getRecentAnomalies(int limit) {
+        return toAnomalies(anomalyRecordRepository.findAllByOrderByTimestampDesc(PageRequest.of(0, limit)));
+    }
+
+    /**
+     * The city's current baseline, empty before its first reading
+     */
+    public Optional<Map<String, Object>> getBaseline(String city) {
+        CityDetector detector = detectors.get(city);
+        return detector != null ? Optional.of(detector.describe()) : Optional.empty();
+    }
+
+    private AqiAnomaly observe(AqiData reading) {
+        if (reading.getCity() == null || reading.getTimestamp() == null || reading.getAqiValue() == null) {
+            return null;
+        }
+        return detectors.computeIfAbsent(reading.getCity(), city -> new CityDetector()).offer(reading);
+    }
+
+    // Readings after the city's last observed one, oldest first; just the newest when the city is new here
+    private List<AqiData> newReadings(String city) {
+        CityDetector detector = detectors.get(city);
+        LocalDateTime after = detector != null ? detector.lastTimestamp() : null;
+        if (after == null) {
+            return aqiDataRepository.findTopByCityOrderByTimestampDesc(city).map(List::of).orElse(List.of());
+        }
+        List<AqiData> readings = new ArrayList<>(
+                aqiDataRepository.findByCityAndTimestampBetween(city, after.plusNanos(1000), LocalDateTime.now()));
+        Collections.reverse(readings);
+        return readings;
+    }
+
+    private void record(AqiAnomaly anomaly) {
+        try {
+            anomalyRecordRepository.save(new AqiAnomalyRecord(anomaly));
+        } catch (Exception e) {
+            logger.warn("Could not store anomaly for {}: {}", anomaly.getCity(), e.getMessage());
+        }
+    }
+
+    private static List<AqiAnomaly> toAnomalies(List<AqiAnomalyRecord> records) {
+        return records.stream().map(AqiAnomalyRecord::toAnomaly).collect(Collectors.toList());
+    }
+
+    private EwmaAnomalyDetector newDetector() {
+        return new EwmaAnomalyDetector(alpha, zThreshold, sensorErrorZ, warmUp, stuckCount,
+                minDeviation, AQICalculator.MAX_AQI);
+    }
+
+    private class CityDetector {
+        EwmaAnomalyDetector detector = newDetector();
+        String standard;
+        LocalDateTime lastTimestamp;
+
+        synchronized AqiAnomaly offer(AqiData reading) {
+            // Replays and out-of-order batches would distort the baseline
+            if (lastTimestamp != null && !reading.getTimestamp().isAfter(lastTimestamp)) {
+                return null;
+            }
+            if (lastTimestamp != null && !Objects.equals(standard, reading.getAqiStandard())) {
+                detector = newDetector();
+            }
+            lastTimestamp = reading.getTimestamp();
+            standard = reading.getAqiStandard();
+
+            Kind kind = detector.update(reading.getAqiValue());
+            if (kind == Kind.NONE) {
+                return null;
+            }
+            double z = detector.getLastZScore();
+            double expected = detector.getLastExpected();
+            return new AqiAnomaly(reading.getCity(), reading.getId(), reading.getTimestamp(),
+                    reading.getAqiValue(), Double.isNaN(expected) ? null : Math.round(expected * 10) / 10.0,
+                    Double.isNaN(z) ? null : Math.round(z * 100) / 100.0, kind.name(), detector.getLastReason());
+        }
+
+        synchronized LocalDateTime lastTimestamp() {
+            return lastTimestamp;
+        }
+
+        synchronized Map<String, Object> describe() {
+            Map<String, Object> baseline = new LinkedHashMap<>();
+            baseline.put("readings", detector.getCount());
+            baseline.put("warmedUp", detector.isWarmedUp());
+            baseline.put("expectedAqi", detector.getCount() > 0 ? Math.round(detector.getMean() * 10) / 10.0 : null);
+            baseline.put("deviation", Math.round(detector.getStandardDeviation() * 10) / 10.0);
+            baseline.put("lastReading", lastTimestamp);
+            baseline.put("standard", standard);
+            return baseline;
+        }
+    }
+}
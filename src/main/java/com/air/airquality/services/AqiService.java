@@ -3,9 +3,10 @@ package com.air.airquality.services;
 import com.air.airquality.dto.AqiResponse;
 import com.air.airquality.model.AqiData;
 import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.store.AqiDataStore;
+import com.air.airquality.util.AQICalculator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +23,15 @@ public class AqiService {
     @Autowired
     private AqiDataRepository aqiDataRepository;
     
+    @Autowired
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+    
+    @Autowired
+    private RetentionJobService retentionJobService;
+    
+    @Autowired
+    private AqiDataStore aqiDataStore;
+    
     public AqiResponse getCurrentAqi(String city) {
         Optional<AqiData> latestData = aqiDataRepository.findTopByCityOrderByTimestampDesc(city);
         
@@ -33,7 +43,7 @@ public class AqiService {
     }
     
     public List<AqiResponse> getHistoricalData(String city, LocalDateTime startDate, LocalDateTime endDate) {
-        List<AqiData> historicalData = aqiDataRepository.findByCityAndTimestampBetween(city, startDate, endDate);
+        List<AqiData> historicalData = aqiDataStore.findByCityAndTimestampBetween(city, startDate, endDate);
         
         return historicalData.stream()
                 .map(this::convertToResponse)
@@ -44,34 +54,23 @@ public class AqiService {
         return aqiDataRepository.findDistinctCities();
     }
     
-    // Get latest data for all cities (optimized for dashboard)
+    // Get latest data for all cities (served from the in-memory snapshot)
     public List<AqiResponse> getAllCitiesLatestData() {
-        return aqiDataRepository.findLatestDataForAllCities()
-                .stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return latestReadingsSnapshotService.getLatestForAllCities();
     }
     
-    // Cleanup old data (maintenance method)
-    @Transactional
-    public void cleanupOldData(int daysToKeep) {
-        try {
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysToKeep);
-            long recordsBefore = aqiDataRepository.count();
-            aqiDataRepository.deleteOldData(cutoffDate);
-            long recordsAfter = aqiDataRepository.count();
-            long deletedRecords = recordsBefore - recordsAfter;
-            
-            logger.info("Cleaned up {} AQI records older than {} days (cutoff: {})", 
-                       deletedRecords, daysToKeep, cutoffDate);
-        } catch (Exception e) {
-            logger.error("Error cleaning up old data: {}", e.getMessage(), e);
-            throw e; // Re-throw to ensure transaction rollback
-        }
+    // Cleanup old data (maintenance method) - chunked, throttled and resumable
+    public long cleanupOldData(int daysToKeep) throws Exception {
+        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(daysToKeep);
+        long deletedRecords = retentionJobService.runToCompletion(cutoffDate);
+        
+        logger.info("Cleaned up {} AQI records older than {} days (cutoff: {})", 
+                   deletedRecords, daysToKeep, cutoffDate);
+        return deletedRecords;
     }
     
     private AqiResponse convertToResponse(AqiData data) {
-        return new AqiResponse(
+        AqiResponse response = new AqiResponse(
             data.getCity(),
             data.getAqiValue(),
             data.getPm25(),
@@ -82,6 +81,10 @@ public class AqiService {
             data.getO3(),
             data.getTimestamp()
         );
+        response.setDominantPollutant(data.getDominantPollutant());
+        response.setSubIndices(AQICalculator.subIndices(data));
+        response.setAqiStandard(data.getAqiStandard());
+        return response;
     }
     
     // Health check methods for deployment readiness
@@ -94,6 +97,10 @@ public class AqiService {
         }
     }
     
+    public String getStorageEngine() {
+        return aqiDataStore.getEngine();
+    }
+    
     public boolean isDatabaseReady() {
         try {
             aqiDataRepository.count();
@@ -0,0 +1,380 @@
+package com.air.airquality.services;
+
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.util.AQICalculator.Pollutant;
+import com.air.airquality.util.AqiStandard;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.CityNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Chooses the AQI standard each city is scored with and re-scores stored history when that
+ * choice changes.
+ *
+ * Cities without an entry in app.aqi.standard.cities use the default standard. Re-scoring
+ * walks aqi_data in id order, one chunk per transaction: a chunk is read into primitive
+ * columns, the sub-indices are computed a pollutant column at a time against the compiled
+ * tables, and the results are written back with one batched UPDATE. Rows that already carry
+ * the target standard's key are skipped, so an interrupted run can simply be started again.
+ */
+@Service
+public class AqiStandardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AqiStandardService.class);
+
+    private static final String LOCK_NAME = "aqi-rescore";
+
+    private static final Pollutant[] POLLUTANTS = Pollutant.values();
+
+    private static final String UPDATE_SQL =
+            "UPDATE aqi_data SET aqi_value = COALESCE(?, aqi_value), aqi_pm25 = ?, aqi_pm10 = ?, aqi_no2 = ?, " +
+            "aqi_so2 = ?, aqi_co = ?, aqi_o3 = ?, dominant_pollutant = ?, aqi_standard = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.aqi.standard.default:EPA}")
+    private String defaultStandardId;
+
+    // City=STANDARD pairs, e.g. Delhi=NAQI,Paris=CAQI
+    @Value("${app.aqi.standard.cities:}")
+    private String cityStandardConfig;
+
+    @Value("${app.aqi.rescore.chunk-size:5000}")
+    private int chunkSize;
+
+    private AqiStandard defaultStandard = AqiStandards.EPA;
+
+    // Normalized city -> standard
+    private final Map<String, AqiStandard> standardByCity = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aqi-rescore");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private Future<?> currentRun;
+
+    // Progress of the last run on this node
+    private volatile String runCity;
+    private volatile String runStatus = "NEVER_RUN";
+    private volatile long rowsScanned;
+    private volatile long rowsUpdated;
+    private volatile long lastId;
+    private volatile long activeNanos;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AqiStandard configured = AqiStandards.find(defaultStandardId);
+        if (configured != null) {
+            defaultStandard = configured;
+        } else {
+            logger.warn("Unknown default AQI standard '{}', using {}", defaultStandardId, AqiStandards.EPA.getKey());
+        }
+        if (cityStandardConfig == null || cityStandardConfig.isBlank()) {
+            return;
+        }
+        for (String pair : cityStandardConfig.split(",")) {
+            String[] parts = pair.split("=", 2);
+            AqiStandard standard = parts.length == 2 ? AqiStandards.find(parts[1]) : null;
+            if (standard != null && !parts[0].isBlank()) {
+                standardByCity.put(CityNames.normalize(parts[0]), standard);
+            } else {
+                logger.warn("Ignoring malformed AQI standard mapping '{}'", pair);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public AqiStandard standardFor(String city) {
+        if (city == null) {
+            return defaultStandard;
+        }
+        return standardByCity.getOrDefault(CityNames.normalize(city), defaultStandard);
+    }
+
+    /**
+     * Scores a reading with its city's standard
+     *
+     * @return true when at least one sub-index was computed
+     */
+    public boolean score(AqiData data) {
+        return standardFor(data.getCity()).score(data);
+    }
+
+    public AqiStandard getDefaultStandard() {
+        return defaultStandard;
+    }
+
+    public Map<String, String> getCityStandards() {
+        Map<String, String> mapping = new TreeMap<>();
+        standardByCity.forEach((city, standard) -> mapping.put(city, standard.getKey()));
+        return mapping;
+    }
+
+    public List<Map<String, Object>> describeStandards() {
+        List<Map<String, Object>> standards = new ArrayList<>();
+        for (AqiStandard standard : AqiStandards.all()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", standard.getId());
+            entry.put("key", standard.getKey());
+            entry.put("name", standard.getName());
+            entry.put("maxIndex", standard.getMaxIndex());
+            entry.put("categories", standard.getCategoryNames());
+            entry.put("categoryUpperBounds", standard.getCategoryUpperBounds());
+            standards.add(entry);
+        }
+        return standards;
+    }
+
+    /**
+     * Starts re-scoring stored readings (of one city, or all when city is null) with their
+     * cities' current standards in the background
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean startRescore(String city) {
+        synchronized (lock) {
+            if (isRunning()) {
+                return false;
+            }
+            runCity = city != null ? CityNames.normalize(city) : null;
+            runStatus = "RUNNING";
+            rowsScanned = 0;
+            rowsUpdated = 0;
+            lastId = 0;
+            activeNanos = 0;
+            lastError = null;
+            startedAt = LocalDateTime.now();
+            finishedAt = null;
+            currentRun = executor.submit(this::runRescore);
+            return true;
+        }
+    }
+
+    public boolean isRunning() {
+        synchronized (lock) {
+            return currentRun != null && !currentRun.isDone();
+        }
+    }
+
+    public Map<String, Object> getRescoreStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("status", runStatus);
+        status.put("city", runCity);
+        status.put("rowsScanned", rowsScanned);
+        status.put("rowsUpdated", rowsUpdated);
+        status.put("lastId", lastId);
+        long nanos = activeNanos;
+        status.put("rowsPerSecond", nanos > 0 ? Math.round(rowsScanned * 1_000_000_000.0 / nanos) : 0);
+        status.put("chunkSize", chunkSize);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        if (lastError != null) {
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+
+    // Only one replica rewrites history at a time
+    private void runRescore() {
+        if (!schedulerLockService.runWithLease(LOCK_NAME, Duration.ZERO, this::rescoreWithLease)) {
+            runStatus = "SKIPPED";
+            finishedAt = LocalDateTime.now();
+            logger.info("AQI re-scoring is running on another instance");
+        }
+    }
+
+    private void rescoreWithLease(SchedulerLockService.Lease lease) {
+        Set<String> affectedCities = new TreeSet<>();
+        Chunk chunk = new Chunk(chunkSize);
+        try {
+            while (lease.isHeld() && !Thread.currentThread().isInterrupted()) {
+                long started = System.nanoTime();
+                Integer read = transactionTemplate.execute(tx -> rescoreChunk(chunk, affectedCities));
+                activeNanos += System.nanoTime() - started;
+                if (read == null || read == 0) {
+                    runStatus = "COMPLETED";
+                    logger.info("AQI re-scoring completed: {} of {} rows updated in {} cities",
+                            rowsUpdated, rowsScanned, affectedCities.size());
+                    return;
+                }
+            }
+            runStatus = "STOPPED";
+            logger.warn("AQI re-scoring stopped at id {}; starting it again skips rows already done", lastId);
+        } catch (Exception e) {
+            runStatus = "FAILED";
+            lastError = e.getMessage();
+            logger.error("AQI re-scoring failed at id {}: {}", lastId, e.getMessage(), e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            // Cached latest readings and responses still hold the old values
+            for (String city : affectedCities) {
+                eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.CITY_READINGS, city));
+                cacheInvalidationBus.publish(CacheInvalidationEvent.CITY_READINGS, city);
+                eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.CITY_SCORES, city));
+                cacheInvalidationBus.publish(CacheInvalidationEvent.CITY_SCORES, city);
+            }
+        }
+    }
+
+    // Reads the next chunk after lastId, scores it and writes back the rows whose standard changed
+    private int rescoreChunk(Chunk chunk, Set<String> affectedCities) {
+        chunk.count = 0;
+        String sql = "SELECT id, city, aqi_standard, pm25, pm10, no2, so2, co, o3 FROM aqi_data WHERE id > ?" +
+                (runCity != null ? " AND city = ?" : "") + " ORDER BY id LIMIT ?";
+        Object[] args = runCity != null
+                ? new Object[] {lastId, runCity, chunkSize}
+                : new Object[] {lastId, chunkSize};
+        jdbcTemplate.query(sql, rs -> {
+            int i = chunk.count++;
+            chunk.ids[i] = rs.getLong(1);
+            chunk.cities[i] = rs.getString(2);
+            chunk.storedStandards[i] = rs.getString(3);
+            for (int p = 0; p < POLLUTANTS.length; p++) {
+                double value = rs.getDouble(4 + p);
+                chunk.concentrations[p][i] = rs.wasNull() ? Double.NaN : value;
+            }
+        }, args);
+        if (chunk.count == 0) {
+            return 0;
+        }
+
+        // Group the rows by target standard and score each group column by column
+        Map<String, AqiStandard> standardByCityInChunk = new HashMap<>();
+        Set<AqiStandard> standardsInChunk = new LinkedHashSet<>();
+        for (int i = 0; i < chunk.count; i++) {
+            AqiStandard standard = standardByCityInChunk.computeIfAbsent(chunk.cities[i], this::standardFor);
+            chunk.targets[i] = standard;
+            if (!standard.getKey().equals(chunk.storedStandards[i])) {
+                standardsInChunk.add(standard);
+            }
+        }
+        List<Integer> changedRows = new ArrayList<>();
+        for (AqiStandard standard : standardsInChunk) {
+            for (int i = 0; i < chunk.count; i++) {
+                chunk.selected[i] = chunk.targets[i] == standard && !standard.getKey().equals(chunk.storedStandards[i]);
+                if (chunk.selected[i]) {
+                    changedRows.add(i);
+                }
+            }
+            standard.subIndices(chunk.concentrations, chunk.count, chunk.selected, chunk.subIndices);
+        }
+
+        if (!changedRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int index) throws SQLException {
+                    int i = changedRows.get(index);
+                    int highest = -1;
+                    Pollutant dominant = null;
+                    for (int p = 0; p < POLLUTANTS.length; p++) {
+                        int subIndex = chunk.subIndices[p][i];
+                        statement.setObject(2 + p, subIndex >= 0 ? subIndex : null, Types.INTEGER);
+                        // Ties go to the pollutant listed first, as when scoring a single reading
+                        if (subIndex > highest) {
+                            highest = subIndex;
+                            dominant = POLLUTANTS[p];
+                        }
+                    }
+                    statement.setObject(1, highest >= 0 ? highest : null, Types.INTEGER);
+                    statement.setString(8, dominant != null ? dominant.getKey() : null);
+                    statement.setString(9, chunk.targets[i].getKey());
+                    statement.setLong(10, chunk.ids[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return changedRows.size();
+                }
+            });
+            for (int i : changedRows) {
+                affectedCities.add(chunk.cities[i]);
+            }
+        }
+
+        rowsScanned += chunk.count;
+        rowsUpdated += changedRows.size();
+        lastId = chunk.ids[chunk.count - 1];
+        return chunk.count;
+    }
+
+    // Column buffers reused across chunks
+    private static class Chunk {
+        final long[] ids;
+        final String[] cities;
+        final String[] storedStandards;
+        final AqiStandard[] targets;
+        final boolean[] selected;
+        final double[][] concentrations;
+        final int[][] subIndices;
+        int count;
+
+        Chunk(int capacity) {
+            ids = new long[capacity];
+            cities = new String[capacity];
+            storedStandards = new String[capacity];
+            targets = new AqiStandard[capacity];
+            selected = new boolean[capacity];
+            concentrations = new double[POLLUTANTS.length][capacity];
+            subIndices = new int[POLLUTANTS.length][capacity];
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.air.airquality.services;
+
+import com.air.airquality.config.NodeIdentity;
+import com.air.airquality.event.CacheInvalidationEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts cache invalidations between replicas through the cache_invalidations table,
+ * without any message broker.
+ *
+ * A node that changes cached data invalidates its own caches directly and records the key
+ * here. Every node polls the table past its high-water mark and republishes other nodes'
+ * entries as {@link CacheInvalidationEvent}s, so stale entries elsewhere are dropped within
+ * one poll interval. Auto-increment ids can commit out of order, so the mark only moves
+ * past rows older than a settle window; newer rows are delivered once and remembered until
+ * the mark passes them. Invalidations are idempotent, so a repeat is harmless anyway.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    // Longer than any insert transaction stays open; rows older than this can't gain a lower-id sibling
+    private static final int SETTLE_SECONDS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NodeIdentity nodeIdentity;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.invalidation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.cache.invalidation.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // Highest id at or below which every row has been seen; -1 until the first poll
+    private volatile long highWaterMark = -1;
+
+    // Ids above the mark that were already delivered (only touched by the polling thread)
+    private final TreeSet<Long> deliveredAboveMark = new TreeSet<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+
+    /**
+     * Records an invalidation for the other replicas; a null key invalidates the whole cache.
+     * Failures are logged, not thrown - the caller's own change has already succeeded.
+     */
+    public void publish(String cacheName, Object key) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO cache_invalidations (cache_name, cache_key, origin_node, created_at) " +
+                    "VALUES (?, ?, ?, LOCALTIMESTAMP)",
+                    cacheName, key != null ? key.toString() : null, nodeIdentity.getId());
+            published.incrementAndGet();
+        } catch (Exception e) {
+            logger.warn("Could not broadcast invalidation of {} {}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (highWaterMark < 0) {
+                // Caches start empty, so there is nothing older to replay
+                Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cache_invalidations", Long.class);
+                highWaterMark = maxId != null ? maxId : 0;
+                return;
+            }
+            deliverNewEntries();
+        } catch (Exception e) {
+            logger.warn("Cache invalidation poll failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 600000, initialDelay = 600000) // Every 10 minutes
+    public void purgeOldEntries() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM cache_invalidations WHERE created_at < TIMESTAMPADD(MINUTE, ?, LOCALTIMESTAMP)",
+                    -retentionMinutes);
+            if (deleted > 0) {
+                logger.debug("Purged {} old cache invalidations", deleted);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not purge cache invalidations: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("highWaterMark", highWaterMark);
+        status.put("published", published.get());
+        status.put("received", received.get());
+        return status;
+    }
+
+    private void deliverNewEntries() {
+        List<Entry> entries = jdbcTemplate.query(
+                "SELECT id, cache_name, cache_key, origin_node, " +
+                "CASE WHEN created_at < TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP) THEN 1 ELSE 0 END AS settled " +
+                "FROM cache_invalidations WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Entry(rs.getLong("id"), rs.getString("cache_name"), rs.getString("cache_key"),
+                        rs.getString("origin_node"), rs.getInt("settled") == 1),
+                -SETTLE_SECONDS, highWaterMark, batchSize);
+
+        long mark = highWaterMark;
+        boolean contiguous = true;
+        String self = nodeIdentity.getId();
+        for (Entry entry : entries) {
+            if (deliveredAboveMark.add(entry.id) && !self.equals(entry.originNode)) {
+                received.incrementAndGet();
+                eventPublisher.publishEvent(new CacheInvalidationEvent(entry.cacheName, entry.cacheKey));
+            }
+            contiguous &= entry.settled;
+            if (contiguous) {
+                mark = entry.id;
+            }
+        }
+        deliveredAboveMark.headSet(mark, true).clear();
+        highWaterMark = mark;
+    }
+
+    private static class Entry {
+        final long id;
+        final String cacheName;
+        final String cacheKey;
+        final String originNode;
+        final boolean settled;
+
+        Entry(long id, String cacheName, String cacheKey, String originNode, boolean settled) {
+            this.id = id;
+            this.cacheName = cacheName;
+            this.cacheKey = cacheKey;
+            this.originNode = originNode;
+            this.settled = settled;
+        }
+    }
+}
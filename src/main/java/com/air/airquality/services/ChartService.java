@@ -0,0 +1,304 @@
+package com.air.airquality.services;
+
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.store.AqiDataStore;
+import com.air.airquality.util.AqiStandard;
+import com.air.airquality.util.ChartCanvas;
+import com.air.airquality.util.ChartRenderer;
+import com.air.airquality.util.PngChartCanvas;
+import com.air.airquality.util.SeriesDownsampler;
+import com.air.airquality.util.SvgChartCanvas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Analytics charts (trend_chart, bar_chart, pie_chart, dist_chart) rendered in the JVM as PNG
+ * or SVG, replacing the per-chart Python process.
+ *
+ * The requested range is widened to whole range buckets, and rendered charts are cached by
+ * (city, chart type, format, bucketed range, city data version). The version moves on every
+ * ingested reading or invalidation for the city, so a repeated dashboard load costs a map
+ * lookup and a new reading makes the next load render afresh. Trend series longer than
+ * app.chart.max-points are downsampled with LTTB, which keeps the peaks.
+ */
+@Service
+public class ChartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartService.class);
+
+    public static final String TREND = "trend_chart";
+    public static final String BAR = "bar_chart";
+    public static final String PIE = "pie_chart";
+    public static final String DISTRIBUTION = "dist_chart";
+
+    private static final Set<String> CHART_TYPES = Set.of(TREND, BAR, PIE, DISTRIBUTION);
+
+    public static final String PNG = "png";
+    public static final String SVG = "svg";
+
+    private static final String[] POLLUTANT_LABELS = {"PM2.5", "PM10", "NO2", "SO2", "CO", "O3"};
+    private static final String[] POLLUTANT_KEYS = {"pm25", "pm10", "no2", "so2", "co", "o3"};
+    private static final Color[] POLLUTANT_COLORS = {
+            Color.decode("#54a0ff"), Color.decode("#5f27cd"), Color.decode("#ff9ff3"),
+            Color.decode("#ff6b6b"), Color.decode("#10ac84"), Color.decode("#feca57")
+    };
+
+    // Fixed AQI ranges of the distribution chart; the last one is open-ended
+    private static final String[] LEVEL_LABELS = {"Very Low\n(0-50)", "Low\n(51-100)", "Medium\n(101-150)",
+            "High\n(151-200)", "Very High\n(201-300)", "Extreme\n(301+)"};
+    private static final int[] LEVEL_UPPER = {50, 100, 150, 200, 300, Integer.MAX_VALUE};
+
+    @Autowired
+    private AqiDataStore aqiDataStore;
+
+    @Autowired
+    private StatisticsSketchService statisticsSketchService;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
+
+    @Value("${app.chart.max-points:600}")
+    private int maxPoints;
+
+    @Value("${app.chart.range-bucket-minutes:15}")
+    private int rangeBucketMinutes;
+
+    @Value("${app.chart.cache-size:500}")
+    private int cacheSize;
+
+    private final Map<String, Chart> cache = new ConcurrentHashMap<>();
+
+    // Per-city data version; whole-cache invalidations move the epoch instead
+    private final Map<String, AtomicLong> cityVersions = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public static boolean isChartType(String chartType) {
+        return CHART_TYPES.contains(chartType);
+    }
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        Set<String> cities = new HashSet<>();
+        for (AqiData reading : event.getReadings()) {
+            if (reading.getCity() != null) {
+                cities.add(reading.getCity());
+            }
+        }
+        cities.forEach(this::bumpVersion);
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            epoch.incrementAndGet();
+            cache.clear();
+        } else {
+            bumpVersion(event.getKey());
+        }
+    }
+
+    /**
+     * The chart for the city over the bucketed range, from the cache when the city's data has
+     * not changed since it was rendered; empty when there is no data to draw
+     */
+    public Optional<Chart> getChart(String city, String chartType, String format,
+                                    LocalDateTime startDate, LocalDateTime endDate) {
+        long bucketSeconds = rangeBucketMinutes * 60L;
+        long start = Math.floorDiv(startDate.toEpochSecond(ZoneOffset.UTC), bucketSeconds) * bucketSeconds;
+        long end = -Math.floorDiv(-endDate.toEpochSecond(ZoneOffset.UTC), bucketSeconds) * bucketSeconds;
+        // Version read before rendering: a reading arriving meanwhile leaves this entry behind, never stale
+        long version = cityVersions.computeIfAbsent(city, c -> new AtomicLong()).get();
+        String key = city + "|" + chartType + "|" + format + "|" + start + "|" + end + "|" + epoch.get() + "." + version;
+
+        Chart cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long started = System.nanoTime();
+        Chart chart = render(city, chartType, format,
+                LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC), LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC));
+        if (chart == null) {
+            return Optional.empty();
+        }
+        if (cache.size() >= cacheSize) {
+            cache.clear();
+        }
+        cache.put(key, chart);
+        logger.debug("Rendered {} {} for {} in {} ms", chartType, format, city, (System.nanoTime() - started) / 1_000_000);
+        return Optional.of(chart);
+    }
+
+    private void bumpVersion(String city) {
+        cityVersions.computeIfAbsent(city, c -> new AtomicLong()).incrementAndGet();
+        String prefix = city + "|";
+        cache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private Chart render(String city, String chartType, String format, LocalDateTime start, LocalDateTime end) {
+        switch (chartType) {
+            case TREND: return renderTrend(city, format, start, end);
+            case BAR: return renderPollutants(city, format, start, end);
+            case PIE: return renderCategories(city, format, start, end);
+            case DISTRIBUTION: return renderDistribution(city, format, start, end);
+            default: throw new IllegalArgumentException("Unknown chart type: " + chartType);
+        }
+    }
+
+    private Chart renderTrend(String city, String format, LocalDateTime start, LocalDateTime end) {
+        List<AqiData> readings = aqiDataStore.findByCityAndTimestampBetween(city, start, end);
+        double[] times = new double[readings.size()];
+        double[] aqi = new double[readings.size()];
+        int count = 0;
+        // The store returns newest first
+        for (int i = readings.size() - 1; i >= 0; i--) {
+            AqiData reading = readings.get(i);
+            if (reading.getTimestamp() != null && reading.getAqiValue() != null) {
+                times[count] = reading.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+                aqi[count] = reading.getAqiValue();
+                count++;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        int[] kept = SeriesDownsampler.lttb(times, aqi, count, maxPoints);
+        for (int i = 0; i < kept.length; i++) {
+            times[i] = times[kept[i]];
+            aqi[i] = aqi[kept[i]];
+        }
+
+        ChartCanvas canvas = canvas(format, 1200, 600);
+        ChartRenderer.trend(canvas, "AQI Trend Over Time - " + city, times, aqi, kept.length,
+                aqiStandardService.standardFor(city).getCategoryUpperBounds());
+        return finish(canvas);
+    }
+
+    private Chart renderPollutants(String city, String format, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> stats = statisticsSketchService.getStatistics(city, start, end);
+        if (((Number) stats.get("total_records")).longValue() == 0) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> averages = (Map<String, Object>) stats.get("pollutant_averages");
+        double[] values = new double[POLLUTANT_KEYS.length];
+        for (int i = 0; i < POLLUTANT_KEYS.length; i++) {
+            Object average = averages.get(POLLUTANT_KEYS[i]);
+            values[i] = average != null ? ((Number) average).doubleValue() : 0;
+        }
+
+        ChartCanvas canvas = canvas(format, 1000, 600);
+        ChartRenderer.bars(canvas, "Average Pollutant Levels - " + city, "Pollutants",
+                "Average Concentration (µg/m³)", POLLUTANT_LABELS, values, POLLUTANT_COLORS, false);
+        return finish(canvas);
+    }
+
+    private Chart renderCategories(String city, String format, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> stats = statisticsSketchService.getStatistics(city, start, end);
+        if (((Number) stats.get("total_records")).longValue() == 0) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> distribution = (Map<String, Integer>) stats.get("category_distribution");
+
+        // The city's scale order first, then any categories from readings scored under another standard
+        AqiStandard standard = aqiStandardService.standardFor(city);
+        String[] names = standard.getCategoryNames();
+        List<String> labels = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        for (int c = 0; c < names.length; c++) {
+            if (distribution.containsKey(names[c])) {
+                labels.add(names[c]);
+                colors.add(ChartRenderer.categoryColor(c));
+            }
+        }
+        for (String category : distribution.keySet()) {
+            if (!labels.contains(category)) {
+                labels.add(category);
+                colors.add(Color.decode("#888888"));
+            }
+        }
+        double[] values = new double[labels.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = distribution.get(labels.get(i));
+        }
+
+        ChartCanvas canvas = canvas(format, 1000, 800);
+        ChartRenderer.pie(canvas, "AQI Category Distribution - " + city,
+                labels.toArray(new String[0]), values, colors.toArray(new Color[0]));
+        return finish(canvas);
+    }
+
+    private Chart renderDistribution(String city, String format, LocalDateTime start, LocalDateTime end) {
+        double[] counts = new double[LEVEL_UPPER.length];
+        int total = 0;
+        for (AqiData reading : aqiDataStore.findByCityAndTimestampBetween(city, start, end)) {
+            if (reading.getAqiValue() == null) {
+                continue;
+            }
+            int level = 0;
+            while (reading.getAqiValue() > LEVEL_UPPER[level]) {
+                level++;
+            }
+            counts[level]++;
+            total++;
+        }
+        if (total == 0) {
+            return null;
+        }
+        Color[] colors = new Color[LEVEL_UPPER.length];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = ChartRenderer.categoryColor(i);
+        }
+
+        ChartCanvas canvas = canvas(format, 1000, 600);
+        ChartRenderer.bars(canvas, "Pollution Level Distribution - " + city, "Pollution Levels",
+                "Number of Readings", LEVEL_LABELS, counts, colors, true);
+        return finish(canvas);
+    }
+
+    private static ChartCanvas canvas(String format, int width, int height) {
+        return SVG.equals(format) ? new SvgChartCanvas(width, height) : new PngChartCanvas(width, height);
+    }
+
+    private static Chart finish(ChartCanvas canvas) {
+        if (canvas instanceof SvgChartCanvas) {
+            return new Chart(((SvgChartCanvas) canvas).toSvg().getBytes(StandardCharsets.UTF_8), "image/svg+xml");
+        }
+        return new Chart(((PngChartCanvas) canvas).toPng(), "image/png");
+    }
+
+    public static class Chart {
+        private final byte[] content;
+        private final String contentType;
+
+        Chart(byte[] content, String contentType) {
+            this.content = content;
+            this.contentType = contentType;
+        }
+
+        public byte[] getContent() { return content; }
+        public String getContentType() { return contentType; }
+    }
+}
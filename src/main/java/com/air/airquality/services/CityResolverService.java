@@ -0,0 +1,220 @@
+package com.air.airquality.services;
+
+import com.air.airquality.util.BkTree;
+import com.air.airquality.util.CityNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves user-typed city names to the canonical name used as cache and database key.
+ *
+ * Resolution tries, in order: the exact match key (case, spacing and "new-york" style
+ * separators ignored), configured aliases such as Bombay -> Mumbai, the key with spaces
+ * removed ("newyork"), and finally a typo-tolerant BK-tree lookup over all known names
+ * and aliases. Known names are the stored cities from {@link CitySearchService} plus the
+ * fallback cities. Results, including misses, are cached per match key until the search
+ * index reports a new version of its city set.
+ */
+@Service
+public class CityResolverService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CityResolverService.class);
+
+    @Autowired
+    private CitySearchService citySearchService;
+
+    // Comma separated alias=Canonical pairs
+    @Value("${app.city.aliases:}")
+    private String aliasConfig;
+
+    @Value("${app.city.resolver.cache-size:10000}")
+    private int cacheSize;
+
+    // Alias -> canonical name, in configuration order
+    private final Map<String, String> aliases = new LinkedHashMap<>();
+
+    // Names registered through addKnownCities (the fallback cities), kept across rebuilds
+    private final Set<String> extraCities = ConcurrentHashMap.newKeySet();
+
+    private volatile KnownNames known = new KnownNames();
+
+    // Input match key -> resolved name
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+    private volatile long syncedVersion = -1;
+
+    @PostConstruct
+    public void loadAliases() {
+        if (aliasConfig == null || aliasConfig.isBlank()) {
+            return;
+        }
+        for (String pair : aliasConfig.split(",")) {
+            String[] parts = pair.split("=", 2);
+            if (parts.length == 2 && !parts[0].isBlank() && !parts[1].isBlank()) {
+                String canonical = CityNames.normalize(parts[1]);
+                aliases.put(parts[0], canonical);
+                known.register(canonical, canonical);
+                known.register(parts[0], canonical);
+            } else {
+                logger.warn("Ignoring malformed city alias '{}'", pair);
+            }
+        }
+    }
+
+    /**
+     * Registers names as canonical cities; names already known are ignored
+     */
+    public synchronized void addKnownCities(Collection<String> cities) {
+        boolean added = false;
+        for (String city : cities) {
+            extraCities.add(city);
+            added |= known.register(city, city);
+        }
+        if (added) {
+            // Earlier misses (or fuzzy guesses) may now resolve differently
+            resolved.clear();
+        }
+    }
+
+    /**
+     * Canonical name for the city, correcting typos; unknown names are only normalized
+     */
+    public String resolve(String city) {
+        String key = CityNames.matchKey(city);
+        if (key.isEmpty()) {
+            return CityNames.normalize(city);
+        }
+        syncKnownCities();
+        String cached = resolved.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String canonical = lookup(key, true).orElseGet(() -> CityNames.normalize(city));
+        if (resolved.size() >= cacheSize) {
+            resolved.clear();
+        }
+        resolved.put(key, canonical);
+        return canonical;
+    }
+
+    /**
+     * Canonical name from exact and alias matches only, for adding cities: a new city must
+     * not be "corrected" into a similarly spelled one that is already monitored
+     */
+    public String resolveExact(String city) {
+        String key = CityNames.matchKey(city);
+        syncKnownCities();
+        return lookup(key, false).orElseGet(() -> CityNames.normalize(city));
+    }
+
+    /**
+     * The known city closest to the input, if any is within the typo tolerance
+     */
+    public Optional<String> findClosest(String city) {
+        syncKnownCities();
+        return lookup(CityNames.matchKey(city), true);
+    }
+
+    private Optional<String> lookup(String key, boolean fuzzy) {
+        KnownNames current = known;
+        String canonical = current.canonicalByKey.get(key);
+        if (canonical == null) {
+            canonical = current.canonicalBySquashedKey.get(key.replace(" ", ""));
+        }
+        if (canonical == null && fuzzy) {
+            canonical = closest(current, key);
+        }
+        return Optional.ofNullable(canonical);
+    }
+
+    // Best candidate by transposition-aware distance; ties between different cities are too ambiguous to guess
+    private String closest(KnownNames current, String key) {
+        int maxDistance = key.length() < 5 ? 0 : key.length() < 9 ? 1 : 2;
+        if (maxDistance == 0) {
+            return null;
+        }
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        boolean ambiguous = false;
+        // One extra Levenshtein edit so swapped letters (two Levenshtein edits) are still found
+        for (String candidate : current.keys.search(key, maxDistance + 1)) {
+            // Typos rarely hit the first letter, and trusting it keeps Bangalore from becoming Mangalore
+            if (candidate.charAt(0) != key.charAt(0)) {
+                continue;
+            }
+            int distance = BkTree.transpositionDistance(key, candidate);
+            if (distance > maxDistance) {
+                continue;
+            }
+            String canonical = current.canonicalByKey.get(candidate);
+            if (distance < bestDistance) {
+                best = canonical;
+                bestDistance = distance;
+                ambiguous = false;
+            } else if (distance == bestDistance && !canonical.equals(best)) {
+                ambiguous = true;
+            }
+        }
+        return ambiguous ? null : best;
+    }
+
+    private void syncKnownCities() {
+        long version = citySearchService.getVersion();
+        if (version != syncedVersion) {
+            rebuild(version);
+        }
+    }
+
+    // Rebuilt rather than added to, so a city dropped from the index is forgotten as well
+    private synchronized void rebuild(long version) {
+        if (version == syncedVersion) {
+            return;
+        }
+        KnownNames next = new KnownNames();
+        aliases.forEach((alias, canonical) -> {
+            next.register(canonical, canonical);
+            next.register(alias, canonical);
+        });
+        for (String city : extraCities) {
+            next.register(city, city);
+        }
+        for (String city : citySearchService.getCities()) {
+            next.register(city, city);
+        }
+        known = next;
+        resolved.clear();
+        syncedVersion = version;
+    }
+
+    private static class KnownNames {
+
+        // Match key (of a name or alias) -> canonical name
+        final Map<String, String> canonicalByKey = new ConcurrentHashMap<>();
+
+        // Match key without spaces -> canonical name
+        final Map<String, String> canonicalBySquashedKey = new ConcurrentHashMap<>();
+
+        final BkTree keys = new BkTree();
+
+        boolean register(String name, String canonical) {
+            String key = CityNames.matchKey(name);
+            if (key.isEmpty() || canonicalByKey.putIfAbsent(key, canonical) != null) {
+                return false;
+            }
+            canonicalBySquashedKey.putIfAbsent(key.replace(" ", ""), canonical);
+            keys.add(key);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.air.airquality.services;
+
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.repository.UserRepository;
+import com.air.airquality.util.CitySearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves the city list and typeahead search from an in-memory {@link CitySearchIndex}.
+ * The index is loaded once from the distinct cities in aqi_data and then grows from
+ * ingestion events (and other replicas' invalidations), so searches never hit the database.
+ * Popularity starts at the number of users monitoring a city and grows with lookups.
+ */
+@Service
+public class CitySearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CitySearchService.class);
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final CitySearchIndex index = new CitySearchIndex();
+
+    private volatile boolean loaded = false;
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        // Also runs before the initial load, so a city saved while it runs isn't missed.
+        // Seeding batches repeat a few cities thousands of times; index each once
+        Set<String> cities = new HashSet<>();
+        for (AqiData reading : event.getReadings()) {
+            if (reading.getCity() != null) {
+                cities.add(reading.getCity());
+            }
+        }
+        addCities(cities);
+    }
+
+    // A city first stored on another replica
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFor(CacheInvalidationEvent.CITY_READINGS) && !event.isWholeCache()) {
+            addCities(Set.of(event.getKey()));
+        }
+    }
+
+    /**
+     * Indexed cities in alphabetical order; empty if none are stored (or the index couldn't load)
+     */
+    public List<String> getCities() {
+        ensureLoaded();
+        return index.getCities();
+    }
+
+    /**
+     * Version of the indexed city set; differs whenever {@link #getCities()} would
+     */
+    public long getVersion() {
+        ensureLoaded();
+        return index.getVersion();
+    }
+
+    public List<String> search(String query, int limit) {
+        ensureLoaded();
+        return index.search(query, limit);
+    }
+
+    // Only indexed cities are counted, so arbitrary lookups can't grow the popularity map
+    public void recordLookup(String city) {
+        if (loaded && index.contains(city)) {
+            index.addPopularity(city, 1);
+        }
+    }
+
+    private void addCities(Set<String> cities) {
+        Set<String> unknown = new HashSet<>();
+        for (String city : cities) {
+            if (!index.contains(city)) {
+                unknown.add(city);
+            }
+        }
+        if (!unknown.isEmpty() && index.addAll(unknown) > 0) {
+            logger.debug("Added {} new cities to the search index", unknown.size());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                index.addAll(aqiDataRepository.findDistinctCities());
+                for (Object[] row : userRepository.countUsersByCity()) {
+                    if (row[0] != null && index.contains((String) row[0])) {
+                        index.addPopularity((String) row[0], ((Number) row[1]).longValue());
+                    }
+                }
+                loaded = true;
+                logger.info("City search index loaded with {} cities", index.size());
+            } catch (Exception e) {
+                logger.error("Failed to load city search index: {}", e.getMessage());
+            }
+        }
+    }
+}
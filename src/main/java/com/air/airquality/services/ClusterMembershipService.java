@@ -0,0 +1,170 @@
+package com.air.airquality.services;
+
+import com.air.airquality.config.NodeIdentity;
+import com.air.airquality.util.ConsistentHashRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks live replicas through heartbeats in the cluster_nodes table and shards city
+ * ingestion across them with a consistent-hash ring.
+ *
+ * Every node writes a heartbeat on a fixed rate and rebuilds the ring from the nodes whose
+ * heartbeat is newer than the TTL. A node that stops heartbeating drops out after the TTL
+ * and its cities move to the remaining nodes; a joining node takes over about 1/N of the
+ * cities. If the table can't be read, the last known ring is kept (it always contains this
+ * node), so a database hiccup never leaves cities without an owner on a single replica.
+ */
+@Service
+public class ClusterMembershipService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembershipService.class);
+
+    // Rows this many TTLs old belong to nodes that died without leaving and are deleted
+    private static final int STALE_ROW_TTLS = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NodeIdentity nodeIdentity;
+
+    @Value("${app.cluster.sharding.enabled:true}")
+    private boolean shardingEnabled;
+
+    // A node missing heartbeats for this long is treated as gone
+    @Value("${app.cluster.node-ttl-seconds:45}")
+    private long nodeTtlSeconds;
+
+    @Value("${app.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void join() {
+        heartbeat();
+        logger.info("Node {} joined cluster with members {}", nodeIdentity.getId(), getRing().getNodes());
+    }
+
+    @Scheduled(fixedRateString = "${app.cluster.heartbeat-ms:15000}", initialDelayString = "${app.cluster.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!shardingEnabled) {
+            return;
+        }
+        try {
+            writeHeartbeat();
+            refreshMembers();
+        } catch (Exception e) {
+            logger.warn("Cluster heartbeat failed, keeping members {}: {}", getRing().getNodes(), e.getMessage());
+        }
+    }
+
+    // Leaving explicitly lets the other nodes pick up this node's cities without waiting for the TTL
+    @PreDestroy
+    public void leave() {
+        if (!shardingEnabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("DELETE FROM cluster_nodes WHERE node_id = ?", nodeIdentity.getId());
+        } catch (Exception e) {
+            logger.debug("Could not remove node {} from cluster_nodes: {}", nodeIdentity.getId(), e.getMessage());
+        }
+    }
+
+    public boolean isShardingEnabled() {
+        return shardingEnabled;
+    }
+
+    /**
+     * Returns the cities this node should ingest, in their original order; all of them when sharding is off
+     */
+    public List<String> ownedShard(List<String> cities) {
+        if (!shardingEnabled) {
+            return cities;
+        }
+        ConsistentHashRing current = getRing();
+        String self = nodeIdentity.getId();
+        return cities.stream()
+                .filter(city -> self.equals(current.nodeFor(shardKey(city))))
+                .collect(Collectors.toList());
+    }
+
+    public boolean owns(String city) {
+        return !shardingEnabled || nodeIdentity.getId().equals(getRing().nodeFor(shardKey(city)));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("shardingEnabled", shardingEnabled);
+        status.put("nodeId", nodeIdentity.getId());
+        status.put("members", getRing().getNodes());
+        status.put("nodeTtlSeconds", nodeTtlSeconds);
+        return status;
+    }
+
+    private void writeHeartbeat() {
+        String self = nodeIdentity.getId();
+        int updated = jdbcTemplate.update(
+                "UPDATE cluster_nodes SET last_heartbeat = LOCALTIMESTAMP WHERE node_id = ?", self);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO cluster_nodes (node_id, last_heartbeat, joined_at) VALUES (?, LOCALTIMESTAMP, LOCALTIMESTAMP)",
+                        self);
+            } catch (DuplicateKeyException e) {
+                // Inserted concurrently by this node's own startup heartbeat; the row is fresh either way
+            }
+        }
+    }
+
+    private void refreshMembers() {
+        Set<String> members = new TreeSet<>(jdbcTemplate.queryForList(
+                "SELECT node_id FROM cluster_nodes WHERE last_heartbeat > TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP)",
+                String.class, -nodeTtlSeconds));
+        members.add(nodeIdentity.getId());
+
+        ConsistentHashRing current = ring;
+        if (current == null || !current.getNodes().equals(members)) {
+            if (current != null) {
+                logger.info("Cluster membership changed from {} to {}, rebalancing city shards",
+                        current.getNodes(), members);
+            }
+            ring = new ConsistentHashRing(members, virtualNodes);
+        }
+
+        jdbcTemplate.update("DELETE FROM cluster_nodes WHERE last_heartbeat < TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP)",
+                -nodeTtlSeconds * STALE_ROW_TTLS);
+    }
+
+    private ConsistentHashRing getRing() {
+        ConsistentHashRing current = ring;
+        if (current == null) {
+            current = new ConsistentHashRing(List.of(nodeIdentity.getId()), virtualNodes);
+            ring = current;
+        }
+        return current;
+    }
+
+    // City names reach ingestion in different casings; all replicas must hash the same key
+    private static String shardKey(String city) {
+        return city.trim().toLowerCase();
+    }
+}
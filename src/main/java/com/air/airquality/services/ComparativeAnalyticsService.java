@@ -0,0 +1,314 @@
+package com.air.airquality.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Side-by-side analytics for many cities in one call: per-city statistics, a ranking, trend
+ * deltas and the correlation of their daily mean AQI.
+ *
+ * Cities may be scored under different standards (EPA, NAQI, CAQI), whose indices are not
+ * comparable, so the ranking, trends and correlations use every reading re-scored to the EPA
+ * scale. Each city's own statistics stay on its standard, which is reported next to them.
+ *
+ * Each city is one task on a bounded thread pool and reads its per-day sketches from
+ * {@link StatisticsSketchService}, so a comparison costs about as much as its slowest city.
+ * Cities that fail or miss the deadline are reported under "errors" instead of failing the
+ * whole comparison; tasks past the deadline are interrupted so they give their thread back
+ * rather than holding up later comparisons.
+ */
+@Service
+public class ComparativeAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComparativeAnalyticsService.class);
+
+    // Fewer common days than this give no correlation
+    private static final int MIN_COMMON_DAYS = 3;
+
+    @Autowired
+    private StatisticsSketchService statisticsSketchService;
+
+    @Autowired
+    private CityResolverService cityResolverService;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
+
+    // 0 = available cores, at most 8
+    @Value("${app.analytics.compare.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${app.analytics.compare.max-cities:50}")
+    private int maxCities;
+
+    @Value("${app.analytics.compare.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ExecutorService pool;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = configuredParallelism > 0 ? configuredParallelism
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        AtomicInteger threadCount = new AtomicInteger();
+        // Plain threads rather than fork-join: cancelling a timed-out task interrupts its thread
+        pool = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "compare-analytics-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public int getMaxCities() {
+        return maxCities;
+    }
+
+    /**
+     * Comparison of the cities (names are resolved and de-duplicated) over start..end
+     */
+    public Map<String, Object> compare(List<String> requestedCities, LocalDateTime start, LocalDateTime end)
+            throws InterruptedException {
+        long started = System.nanoTime();
+        Set<String> cities = new LinkedHashSet<>();
+        for (String city : requestedCities) {
+            if (city != null && !city.isBlank()) {
+                cities.add(cityResolverService.resolve(city.trim()));
+            }
+        }
+        if (cities.size() > maxCities) {
+            throw new IllegalArgumentException("At most " + maxCities + " cities can be compared at once");
+        }
+
+        List<String> order = new ArrayList<>(cities);
+        List<Callable<CityResult>> tasks = new ArrayList<>();
+        for (String city : order) {
+            tasks.add(() -> summarize(city, start, end));
+        }
+        // invokeAll with a timeout cancels, and so interrupts, whatever has not finished by the deadline
+        List<Future<CityResult>> futures = pool.invokeAll(tasks, timeoutMs, TimeUnit.MILLISECONDS);
+
+        List<CityResult> results = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            String city = order.get(i);
+            try {
+                CityResult result = futures.get(i).get();
+                if (result.records == 0) {
+                    missing.add(city);
+                } else if (result.means.length == 0) {
+                    errors.put(city, "No readings can be converted to the EPA scale");
+                } else {
+                    results.add(result);
+                }
+            } catch (CancellationException e) {
+                errors.put(city, "Timed out after " + timeoutMs + " ms");
+            } catch (ExecutionException e) {
+                logger.warn("Comparative analytics failed for {}: {}", city, e.getCause().getMessage());
+                errors.put(city, e.getCause().getMessage());
+            }
+        }
+
+        // Cleanest first on the EPA scale; ties broken by the 95th percentile
+        results.sort(Comparator.comparingDouble((CityResult r) -> r.avgAqi).thenComparingDouble(r -> r.p95Aqi));
+        Map<String, Object> perCity = new LinkedHashMap<>();
+        List<Map<String, Object>> ranking = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            CityResult result = results.get(i);
+            result.stats.put("rank", i + 1);
+            perCity.put(result.city, result.stats);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("rank", i + 1);
+            entry.put("city", result.city);
+            entry.put("aqi_standard", result.stats.get("aqi_standard"));
+            entry.put("epa_avg_aqi", result.avgAqi);
+            entry.put("epa_p95_aqi", result.p95Aqi);
+            entry.put("trend_delta", result.stats.get("trend_delta"));
+            ranking.add(entry);
+        }
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("start_date", start);
+        comparison.put("end_date", end);
+        comparison.put("cities", perCity);
+        comparison.put("ranking_scale", "EPA");
+        comparison.put("ranking", ranking);
+        comparison.put("correlation", correlations(results));
+        comparison.put("missing", missing);
+        comparison.put("errors", errors);
+        comparison.put("elapsed_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return comparison;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CityResult summarize(String city, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> stats = statisticsSketchService.getStatisticsWithDailyMeans(city, start, end);
+        // The caller has given up on this city; don't spend the thread on the rest
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Comparison deadline passed for " + city);
+        }
+        CityResult result = new CityResult(city);
+        result.records = ((Number) stats.get("total_records")).longValue();
+        if (result.records == 0) {
+            return result;
+        }
+        stats.remove("daily_means");
+        Map<LocalDate, Double> dailyMeans = (Map<LocalDate, Double>) stats.remove("epa_daily_means");
+        result.days = new long[dailyMeans.size()];
+        result.means = new double[dailyMeans.size()];
+        int i = 0;
+        for (Map.Entry<LocalDate, Double> day : dailyMeans.entrySet()) {
+            result.days[i] = day.getKey().toEpochDay();
+            result.means[i] = day.getValue();
+            i++;
+        }
+        Number epaAvg = (Number) stats.get("epa_avg_aqi");
+        Number epaP95 = (Number) stats.get("epa_p95_aqi");
+        result.avgAqi = epaAvg != null ? epaAvg.doubleValue() : Double.NaN;
+        result.p95Aqi = epaP95 != null ? epaP95.doubleValue() : Double.NaN;
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("aqi_standard", aqiStandardService.standardFor(city).getKey());
+        summary.put("total_records", result.records);
+        summary.put("avg_aqi", stats.get("avg_aqi"));
+        summary.put("min_aqi", stats.get("min_aqi"));
+        summary.put("max_aqi", stats.get("max_aqi"));
+        summary.put("std_aqi", stats.get("std_aqi"));
+        summary.put("percentiles", stats.get("percentiles"));
+        summary.put("category_distribution", stats.get("category_distribution"));
+        summary.put("trend", stats.get("trend"));
+        summary.put("epa_avg_aqi", epaAvg);
+        summary.put("epa_p95_aqi", epaP95);
+        // Trend figures are in EPA points, like the ranking
+        summary.put("trend_slope_per_day", result.days.length > 1 ? round(slope(result.days, result.means)) : null);
+        summary.put("trend_delta", result.days.length > 1 ? round(halfDelta(result.means)) : null);
+        summary.put("days_with_data", result.days.length);
+        result.stats = summary;
+        return result;
+    }
+
+    // Pearson correlation of daily means over the days both cities have
+    private Map<String, Map<String, Double>> correlations(List<CityResult> results) {
+        Map<String, Map<String, Double>> matrix = new LinkedHashMap<>();
+        for (CityResult result : results) {
+            matrix.put(result.city, new LinkedHashMap<>());
+        }
+        for (int a = 0; a < results.size(); a++) {
+            CityResult first = results.get(a);
+            matrix.get(first.city).put(first.city, 1.0);
+            for (int b = a + 1; b < results.size(); b++) {
+                CityResult second = results.get(b);
+                Double r = pearson(first, second);
+                matrix.get(first.city).put(second.city, r);
+                matrix.get(second.city).put(first.city, r);
+            }
+        }
+        return matrix;
+    }
+
+    // Both day arrays are ascending, so the common days are found with one merge pass
+    private static Double pearson(CityResult first, CityResult second) {
+        int i = 0, j = 0, n = 0;
+        double sumX = 0, sumY = 0, sumXX = 0, sumYY = 0, sumXY = 0;
+        while (i < first.days.length && j < second.days.length) {
+            if (first.days[i] < second.days[j]) {
+                i++;
+            } else if (first.days[i] > second.days[j]) {
+                j++;
+            } else {
+                double x = first.means[i++], y = second.means[j++];
+                n++;
+                sumX += x;
+                sumY += y;
+                sumXX += x * x;
+                sumYY += y * y;
+                sumXY += x * y;
+            }
+        }
+        if (n < MIN_COMMON_DAYS) {
+            return null;
+        }
+        double covariance = n * sumXY - sumX * sumY;
+        double variance = (n * sumXX - sumX * sumX) * (n * sumYY - sumY * sumY);
+        if (variance <= 0) {
+            return null;
+        }
+        return Math.round(covariance / Math.sqrt(variance) * 1000) / 1000.0;
+    }
+
+    // Least-squares slope of the daily means, in AQI per day
+    private static double slope(long[] days, double[] means) {
+        int n = days.length;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int i = 0; i < n; i++) {
+            double x = days[i] - days[0];
+            sumX += x;
+            sumY += means[i];
+            sumXY += x * means[i];
+            sumXX += x * x;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    // Mean of the later half of the days minus the mean of the earlier half
+    private static double halfDelta(double[] means) {
+        int half = means.length / 2;
+        double early = 0, late = 0;
+        for (int i = 0; i < half; i++) {
+            early += means[i];
+        }
+        for (int i = means.length - half; i < means.length; i++) {
+            late += means[i];
+        }
+        return (late - early) / half;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static class CityResult {
+        final String city;
+        long records;
+        double avgAqi;
+        double p95Aqi;
+        long[] days;
+        double[] means;
+        Map<String, Object> stats;
+
+        CityResult(String city) {
+            this.city = city;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.air.airquality.services;
 
+import com.air.airquality.event.AqiDataIngestedEvent;
 import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataBulkRepository;
 import com.air.airquality.repository.AqiDataRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.annotation.Order;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,24 +15,53 @@ import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-@Order(1) // Execute early in the startup process
-public class HistoricalDataSeederService implements CommandLineRunner {
+public class HistoricalDataSeederService {
     
     private static final Logger logger = LoggerFactory.getLogger(HistoricalDataSeederService.class);
     
     @Autowired
     private AqiDataRepository aqiDataRepository;
     
+    @Autowired
+    private AqiDataBulkRepository aqiDataBulkRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
+    
     // Flag to prevent concurrent seeding operations
-    private volatile boolean isSeeding = false;
+    private final AtomicBoolean isSeeding = new AtomicBoolean(false);
+    
+    // Progress of the current generation run
+    private final AtomicLong progressRows = new AtomicLong();
+    private volatile long expectedRows;
     
     // Configuration to disable seeding in test environment
     @Value("${app.historical-data.seed.enabled:true}")
     private boolean seedingEnabled;
     
+    // Fixed seed so seeded datasets are reproducible
+    @Value("${app.historical-data.seed.rng-seed:42}")
+    private long rngSeed;
+    
+    // Worker threads for generation (0 = number of cores, at most 8)
+    @Value("${app.historical-data.seed.parallelism:0}")
+    private int configuredParallelism;
+    
+    @Value("${app.historical-data.seed.batch-size:2000}")
+    private int batchSize;
+    
     // Cities with their typical AQI ranges and seasonal patterns
     private final Map<String, CityProfile> cityProfiles = Map.of(
         "Delhi", new CityProfile(120, 80, 0.7, 0.4), // High pollution, high variation, seasonal
@@ -46,106 +76,183 @@ public class HistoricalDataSeederService implements CommandLineRunner {
         "Sydney", new CityProfile(45, 28, 0.25, 0.15)
     );
     
-    @Override
-    public void run(String... args) throws Exception {
+    /**
+     * Seeds three years of history when the table is nearly empty (runs in the background at startup)
+     *
+     * @return true if data was generated
+     */
+    public boolean seedIfNeeded() {
         // Skip seeding if disabled (e.g., in test environment)
         if (!seedingEnabled) {
             logger.info("Historical data seeding is disabled");
-            return;
+            return false;
         }
         
-        try {
-            // Check if we already have historical data
-            long existingRecords = aqiDataRepository.count();
-            LocalDateTime threeYearsAgo = LocalDateTime.now().minus(3, ChronoUnit.YEARS);
-            
-            // Only seed if we have very limited data (changed threshold)
-            if (existingRecords < 1000) { // Reduced threshold to prevent excessive seeding
-                logger.info("Database has {} records, starting historical data seeding for past 3 years...", existingRecords);
-                generateHistoricalData(threeYearsAgo, LocalDateTime.now());
-                logger.info("Historical data seeding completed successfully");
-            } else {
-                logger.info("Database already has {} records, skipping historical data seeding", existingRecords);
-            }
-        } catch (Exception e) {
-            logger.error("Error during historical data seeding: {}", e.getMessage(), e);
-            // Don't fail the application startup
+        // Check if we already have historical data
+        long existingRecords = aqiDataRepository.count();
+        LocalDateTime threeYearsAgo = LocalDateTime.now().minus(3, ChronoUnit.YEARS);
+        
+        // Only seed if we have very limited data (changed threshold)
+        if (existingRecords < 1000) { // Reduced threshold to prevent excessive seeding
+            logger.info("Database has {} records, starting historical data seeding for past 3 years...", existingRecords);
+            generateHistoricalData(threeYearsAgo, LocalDateTime.now());
+            logger.info("Historical data seeding completed successfully");
+            return true;
         }
+        logger.info("Database already has {} records, skipping historical data seeding", existingRecords);
+        return false;
     }
     
+    /**
+     * Seeds the built-in cities at the regular ingestion cadence (every 12-24 hours)
+     */
     public void generateHistoricalData(LocalDateTime startDate, LocalDateTime endDate) {
+        GenerationResult result = generate(new TreeMap<>(cityProfiles), startDate, endDate, 0, rngSeed, true);
+        if (result != null) {
+            logger.info("Generated {} total historical records for date range {} to {}", result.getRows(), startDate, endDate);
+        }
+    }
+    
+    /**
+     * Builds a synthetic dataset for load tests: the built-in cities plus generated ones,
+     * at a fixed interval ending at the current hour. The same seed yields the same data.
+     *
+     * @return null if another generation is already running
+     */
+    public GenerationResult generateBenchmarkDataset(int cities, int years, int intervalHours, long seed, boolean persist) {
+        return generateBenchmarkDataset(cities, years, intervalHours, seed, persist,
+                LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+    }
+    
+    GenerationResult generateBenchmarkDataset(int cities, int years, int intervalHours, long seed, boolean persist,
+                                              LocalDateTime endDate) {
+        SplittableRandom profileRandom = new SplittableRandom(seed);
+        Map<String, CityProfile> profiles = new TreeMap<>();
+        new TreeMap<>(cityProfiles).entrySet().stream().limit(cities)
+                .forEach(entry -> profiles.put(entry.getKey(), entry.getValue()));
+        for (int i = profiles.size() + 1; profiles.size() < cities; i++) {
+            double average = 40 + profileRandom.nextDouble() * 100;
+            profiles.put(String.format("Bench City %04d", i), new CityProfile(average, average * 0.6,
+                    0.2 + profileRandom.nextDouble() * 0.5, 0.1 + profileRandom.nextDouble() * 0.3));
+        }
+        return generate(profiles, endDate.minusYears(years), endDate, intervalHours, seed, persist);
+    }
+    
+    public boolean isSeeding() {
+        return isSeeding.get();
+    }
+    
+    // Rows written by the current (or last) generation run
+    public long getProgressRows() {
+        return progressRows.get();
+    }
+    
+    // Estimated rows for the current (or last) generation run
+    public long getExpectedRows() {
+        return expectedRows;
+    }
+    
+    // One fork-join task per city; each gets its own RNG split off the seed in city order, so output is deterministic
+    private GenerationResult generate(Map<String, CityProfile> profiles, LocalDateTime startDate, LocalDateTime endDate,
+                                      int intervalHours, long seed, boolean persist) {
         // Prevent concurrent seeding operations
-        if (isSeeding) {
+        if (!isSeeding.compareAndSet(false, true)) {
             logger.warn("Historical data generation already in progress, skipping request");
-            return;
+            return null;
         }
         
-        isSeeding = true;
+        int parallelism = configuredParallelism > 0 ? configuredParallelism
+                : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long started = System.nanoTime();
         
         try {
-            // Check if we already have data in this range to avoid duplicates
-            long existingDataInRange = aqiDataRepository.count();
+            logger.info("Generating data for {} cities from {} to {} with parallelism {}",
+                    profiles.size(), startDate, endDate, parallelism);
             
-            List<AqiData> batchData = new ArrayList<>();
-            int batchSize = 500; // Reduced batch size for better performance
-            int totalRecords = 0;
+            // Jittered cadence averages one reading per 17.5 hours
+            double hoursPerReading = intervalHours > 0 ? intervalHours : 17.5;
+            expectedRows = (long) (profiles.size() * ChronoUnit.HOURS.between(startDate, endDate) / hoursPerReading);
+            progressRows.set(0);
             
-            logger.info("Starting data generation with batch size: {}", batchSize);
-            
-            for (String city : cityProfiles.keySet()) {
-                logger.info("Generating historical data for {} from {} to {}", city, startDate, endDate);
-                
-                LocalDateTime currentTime = startDate;
-                CityProfile profile = cityProfiles.get(city);
-                int cityRecords = 0;
-                
-                while (currentTime.isBefore(endDate) && cityRecords < 1000) { // Limit records per city
-                    AqiData data = generateDataPoint(city, currentTime, profile);
-                    batchData.add(data);
-                    cityRecords++;
-                    
-                    // Save in batches for performance
-                    if (batchData.size() >= batchSize) {
-                        try {
-                            aqiDataRepository.saveAll(batchData);
-                            totalRecords += batchData.size();
-                            batchData.clear();
-                            
-                            if (totalRecords % 1000 == 0) {
-                                logger.info("Generated {} historical records so far...", totalRecords);
-                            }
-                        } catch (Exception e) {
-                            logger.warn("Error saving batch of historical data: {}", e.getMessage());
-                            batchData.clear(); // Clear the problematic batch and continue
-                        }
-                    }
-                    
-                    // Generate data every 12-24 hours to match our update schedule
-                    currentTime = currentTime.plusHours(12 + (int)(Math.random() * 12));
-                }
-                
-                logger.info("Generated {} records for city: {}", cityRecords, city);
+            SplittableRandom root = new SplittableRandom(seed);
+            List<Callable<CityOutput>> tasks = new ArrayList<>();
+            for (Map.Entry<String, CityProfile> entry : profiles.entrySet()) {
+                SplittableRandom cityRandom = root.split();
+                tasks.add(() -> generateCity(entry.getKey(), entry.getValue(), cityRandom,
+                        startDate, endDate, intervalHours, persist, progressRows));
             }
             
-            // Save remaining data
-            if (!batchData.isEmpty()) {
+            long rows = 0;
+            long fingerprint = 0;
+            for (Future<CityOutput> task : pool.invokeAll(tasks)) {
                 try {
-                    aqiDataRepository.saveAll(batchData);
-                    totalRecords += batchData.size();
-                } catch (Exception e) {
-                    logger.warn("Error saving final batch of historical data: {}", e.getMessage());
+                    CityOutput output = task.get();
+                    rows += output.rows;
+                    fingerprint = fingerprint * 31 + output.fingerprint;
+                } catch (ExecutionException e) {
+                    logger.warn("Error generating historical data: {}", e.getCause().getMessage());
                 }
             }
             
-            logger.info("Generated {} total historical records for date range {} to {}", totalRecords, startDate, endDate);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return new GenerationResult(profiles.size(), rows, progressRows.get(), elapsedMs, seed, parallelism,
+                    Long.toHexString(fingerprint));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         } finally {
-            isSeeding = false;
+            pool.shutdown();
+            isSeeding.set(false);
         }
     }
     
-    private AqiData generateDataPoint(String city, LocalDateTime timestamp, CityProfile profile) {
-        Random random = ThreadLocalRandom.current();
+    private CityOutput generateCity(String city, CityProfile profile, SplittableRandom random, LocalDateTime startDate,
+                              LocalDateTime endDate, int intervalHours, boolean persist, AtomicLong persistedRows) {
+        List<AqiData> batchData = new ArrayList<>(batchSize);
+        long cityRecords = 0;
+        long fingerprint = 0;
+        LocalDateTime currentTime = startDate;
+        
+        while (currentTime.isBefore(endDate)) {
+            AqiData data = generateDataPoint(city, currentTime, profile, random);
+            batchData.add(data);
+            cityRecords++;
+            fingerprint = fingerprint * 31 + Objects.hash(data.getCity(), data.getTimestamp(), data.getAqiValue(),
+                    data.getPm25(), data.getPm10(), data.getNo2(), data.getSo2(), data.getCo(), data.getO3());
+            
+            if (batchData.size() >= batchSize) {
+                saveBatch(batchData, persist, persistedRows);
+            }
+            
+            // Fixed interval for benchmarks; otherwise every 12-24 hours to match our update schedule
+            currentTime = currentTime.plusHours(intervalHours > 0 ? intervalHours : 12 + random.nextInt(12));
+        }
+        saveBatch(batchData, persist, persistedRows);
         
+        logger.debug("Generated {} records for city: {}", cityRecords, city);
+        return new CityOutput(cityRecords, fingerprint);
+    }
+    
+    private void saveBatch(List<AqiData> batchData, boolean persist, AtomicLong persistedRows) {
+        if (batchData.isEmpty()) {
+            return;
+        }
+        if (persist) {
+            try {
+                eventPublisher.publishEvent(new AqiDataIngestedEvent(aqiDataBulkRepository.insertAll(batchData)));
+                long total = persistedRows.addAndGet(batchData.size());
+                if (total / 10000 != (total - batchData.size()) / 10000) {
+                    logger.info("Generated {} historical records so far...", total);
+                }
+            } catch (Exception e) {
+                logger.warn("Error saving batch of historical data: {}", e.getMessage());
+            }
+        }
+        batchData.clear();
+    }
+    
+    private AqiData generateDataPoint(String city, LocalDateTime timestamp, CityProfile profile, SplittableRandom random) {
         // Base AQI with seasonal and time-of-day variations
         double seasonalMultiplier = getSeasonalMultiplier(timestamp, profile.seasonalVariation);
         double timeOfDayMultiplier = getTimeOfDayMultiplier(timestamp.getHour());
@@ -162,13 +269,15 @@ public class HistoricalDataSeederService implements CommandLineRunner {
         data.setAqiValue(aqi);
         
         // Generate realistic pollutant values
-        data.setPm25(generatePollutant(aqi, 0.4, 5.0, 150.0));
-        data.setPm10(generatePollutant(aqi, 0.6, 10.0, 250.0));
-        data.setNo2(generatePollutant(aqi, 0.3, 5.0, 100.0));
-        data.setSo2(generatePollutant(aqi, 0.2, 2.0, 80.0));
-        data.setCo(generatePollutant(aqi, 0.1, 0.5, 20.0));
-        data.setO3(generatePollutant(aqi, 0.35, 10.0, 200.0));
+        data.setPm25(generatePollutant(random, aqi, 0.4, 5.0, 150.0));
+        data.setPm10(generatePollutant(random, aqi, 0.6, 10.0, 250.0));
+        data.setNo2(generatePollutant(random, aqi, 0.3, 5.0, 100.0));
+        data.setSo2(generatePollutant(random, aqi, 0.2, 2.0, 80.0));
+        data.setCo(generatePollutant(random, aqi, 0.1, 0.5, 20.0));
+        data.setO3(generatePollutant(random, aqi, 0.35, 10.0, 200.0));
         
+        // Store sub-indices like live ingestion does; the AQI becomes the highest of them
+        aqiStandardService.score(data);
         return data;
     }
     
@@ -206,9 +315,7 @@ public class HistoricalDataSeederService implements CommandLineRunner {
         }
     }
     
-    private Double generatePollutant(int aqi, double factor, double minValue, double maxValue) {
-        Random random = ThreadLocalRandom.current();
-        
+    private Double generatePollutant(SplittableRandom random, int aqi, double factor, double minValue, double maxValue) {
         // Base value proportional to AQI
         double baseValue = (aqi * factor) + minValue;
         
@@ -220,6 +327,48 @@ public class HistoricalDataSeederService implements CommandLineRunner {
         return random.nextDouble() < 0.95 ? Math.round(finalValue * 100.0) / 100.0 : null;
     }
     
+    // Summary of one generation run
+    public static class GenerationResult {
+        private final int cities;
+        private final long rows;
+        private final long persistedRows;
+        private final long elapsedMs;
+        private final long seed;
+        private final int parallelism;
+        private final String fingerprint;
+        
+        public GenerationResult(int cities, long rows, long persistedRows, long elapsedMs, long seed, int parallelism,
+                                String fingerprint) {
+            this.cities = cities;
+            this.rows = rows;
+            this.persistedRows = persistedRows;
+            this.elapsedMs = elapsedMs;
+            this.seed = seed;
+            this.parallelism = parallelism;
+            this.fingerprint = fingerprint;
+        }
+        
+        public int getCities() { return cities; }
+        public long getRows() { return rows; }
+        public long getPersistedRows() { return persistedRows; }
+        public long getElapsedMs() { return elapsedMs; }
+        public long getSeed() { return seed; }
+        public int getParallelism() { return parallelism; }
+        // Hash of the generated rows in city order; equal runs produce equal fingerprints
+        public String getFingerprint() { return fingerprint; }
+        public long getRowsPerSecond() { return elapsedMs > 0 ? rows * 1000 / elapsedMs : rows; }
+    }
+    
+    private static class CityOutput {
+        final long rows;
+        final long fingerprint;
+        
+        CityOutput(long rows, long fingerprint) {
+            this.rows = rows;
+            this.fingerprint = fingerprint;
+        }
+    }
+    
     // Helper class to define city characteristics
     private static class CityProfile {
         final double averageAqi;
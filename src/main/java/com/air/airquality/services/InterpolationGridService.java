@@ -0,0 +1,233 @@
+package com.air.airquality.services;
+
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.GeoIndex;
+import com.air.airquality.util.IdwGrid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps an interpolated (EPA) AQI raster ({@link IdwGrid}) over all located cities for the map view.
+ *
+ * Ingestion only flags the grid as stale; a background refresh then compares each city's
+ * location and latest AQI with what the raster was last computed from and recomputes just
+ * the cells around the cities that changed. Point and tile queries read the raster in memory.
+ */
+@Service
+public class InterpolationGridService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterpolationGridService.class);
+
+    @Autowired
+    private StationLocatorService stationLocatorService;
+
+    @Autowired
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+
+    @Value("${app.grid.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.grid.resolution-degrees:0.25}")
+    private double resolutionDegrees;
+
+    @Value("${app.grid.radius-km:250}")
+    private double radiusKm;
+
+    @Value("${app.grid.power:2}")
+    private double power;
+
+    @Value("${app.grid.max-neighbors:8}")
+    private int maxNeighbors;
+
+    private volatile IdwGrid grid;
+
+    // City -> the station state the raster currently reflects
+    private volatile Map<String, Station> applied = new HashMap<>();
+
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+
+    private volatile LocalDateTime lastRefresh;
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        stale.set(true);
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isFor(CacheInvalidationEvent.CITY_READINGS)) {
+            stale.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.grid.refresh-ms:30000}", initialDelayString = "${app.grid.refresh-ms:30000}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Brings the raster up to date with the current readings
+     *
+     * @return number of cells whose value changed
+     */
+    public synchronized int refresh() {
+        if (!stale.getAndSet(false)) {
+            return 0;
+        }
+        try {
+            IdwGrid current = getGrid();
+            Map<String, Station> stations = currentStations();
+
+            List<double[]> changedPositions = new ArrayList<>();
+            for (Map.Entry<String, Station> entry : stations.entrySet()) {
+                Station previous = applied.get(entry.getKey());
+                if (!entry.getValue().equals(previous)) {
+                    changedPositions.add(entry.getValue().position());
+                    if (previous != null && !previous.samePosition(entry.getValue())) {
+                        changedPositions.add(previous.position());
+                    }
+                }
+            }
+            for (Map.Entry<String, Station> entry : applied.entrySet()) {
+                if (!stations.containsKey(entry.getKey())) {
+                    changedPositions.add(entry.getValue().position());
+                }
+            }
+            if (changedPositions.isEmpty()) {
+                lastRefresh = LocalDateTime.now();
+                return 0;
+            }
+
+            List<GeoIndex.Point<Float>> points = new ArrayList<>(stations.size());
+            stations.values().forEach(station -> points.add(new GeoIndex.Point<>(station.latitude, station.longitude, station.aqi)));
+            long start = System.nanoTime();
+            int changedCells = current.update(new GeoIndex<>(points), changedPositions);
+            applied = stations;
+            lastRefresh = LocalDateTime.now();
+            logger.debug("AQI grid refreshed: {} changed stations, {} cells updated in {} ms",
+                    changedPositions.size(), changedCells, (System.nanoTime() - start) / 1_000_000);
+            return changedCells;
+        } catch (RuntimeException e) {
+            stale.set(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Interpolated AQI at the point, empty when no city is within the interpolation radius
+     */
+    public Optional<Float> getValueAt(double latitude, double longitude) {
+        float value = readyGrid().valueAt(latitude, longitude);
+        return Float.isNaN(value) ? Optional.empty() : Optional.of(value);
+    }
+
+    public IdwGrid.Tile getTile(int tileRow, int tileCol) {
+        return readyGrid().tile(tileRow, tileCol);
+    }
+
+    public long getTileHash(int tileRow, int tileCol) {
+        return readyGrid().tileHash(tileRow, tileCol);
+    }
+
+    public Map<String, Object> getStatus() {
+        IdwGrid current = readyGrid();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("resolutionDegrees", current.getResolution());
+        status.put("rows", current.getRows());
+        status.put("cols", current.getCols());
+        status.put("tileSize", IdwGrid.TILE_SIZE);
+        status.put("tileRows", current.getTileRows());
+        status.put("tileCols", current.getTileCols());
+        status.put("radiusKm", current.getRadiusKm());
+        status.put("version", current.getVersion());
+        status.put("stations", applied.size());
+        status.put("lastRefresh", lastRefresh);
+        return status;
+    }
+
+    // The scheduled refresh may not have run yet (or scheduling is off); build on first use
+    private IdwGrid readyGrid() {
+        if (lastRefresh == null) {
+            refresh();
+        }
+        return getGrid();
+    }
+
+    private IdwGrid getGrid() {
+        if (grid == null) {
+            synchronized (this) {
+                if (grid == null) {
+                    grid = new IdwGrid(resolutionDegrees, radiusKm, power, maxNeighbors);
+                }
+            }
+        }
+        return grid;
+    }
+
+    private Map<String, Station> currentStations() {
+        Map<String, Station> stations = new HashMap<>();
+        for (Map.Entry<String, double[]> entry : stationLocatorService.getLocations().entrySet()) {
+            Optional<AqiData> latest = latestReadingsSnapshotService.getLatest(entry.getKey());
+            // Cities may be scored under different standards; the raster interpolates them all on the EPA scale
+            Integer aqi = latest.map(AqiStandards::epaAqi).orElse(null);
+            if (aqi != null) {
+                double[] coordinates = entry.getValue();
+                stations.put(entry.getKey(), new Station(coordinates[0], coordinates[1], aqi));
+            }
+        }
+        return stations;
+    }
+
+    private static class Station {
+        final double latitude;
+        final double longitude;
+        final float aqi;
+
+        Station(double latitude, double longitude, float aqi) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.aqi = aqi;
+        }
+
+        double[] position() {
+            return new double[] {latitude, longitude};
+        }
+
+        boolean samePosition(Station other) {
+            return latitude == other.latitude && longitude == other.longitude;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Station)) {
+                return false;
+            }
+            Station other = (Station) o;
+            return samePosition(other) && aqi == other.aqi;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(latitude) * 31 + Double.hashCode(longitude) * 17 + Float.hashCode(aqi);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.air.airquality.services;
+
+import com.air.airquality.dto.AqiResponse;
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.util.AQICalculator;
+import com.air.airquality.util.HttpCacheUtils;
+import com.air.airquality.util.SerializedPayload;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the latest reading per city in memory. The map is seeded once from the
+ * (city, timestamp) index and then kept current from ingestion events, so the dashboard
+ * never has to run a "latest row per group" query against aqi_data.
+ */
+@Service
+public class LatestReadingsSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestReadingsSnapshotService.class);
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, AqiData> latestByCity = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+
+    // Bumped after every change to the snapshot (and to its set of cities). Derived values
+    // remember the version they were built from, so a change that races with a rebuild
+    // leaves a stale value behind instead of being overwritten by it.
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private final AtomicLong citiesVersion = new AtomicLong();
+
+    // Serialized dashboard document, rebuilt lazily after the snapshot changes
+    private volatile Versioned<SerializedPayload> dashboardDocument;
+    
+    // Tag over the set of known cities, rebuilt when a new city shows up
+    private volatile Versioned<String> citiesEtag;
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        for (AqiData reading : event.getReadings()) {
+            offer(reading);
+        }
+    }
+
+    // Readings stored by other replicas don't raise local ingestion events; re-read the city instead
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS) || event.isWholeCache() || !loaded) {
+            return;
+        }
+        try {
+            aqiDataRepository.findTopByCityOrderByTimestampDesc(event.getKey())
+                    .ifPresent(reading -> onAqiDataIngested(AqiDataIngestedEvent.of(reading)));
+        } catch (Exception e) {
+            logger.warn("Could not refresh latest reading for {}: {}", event.getKey(), e.getMessage());
+        }
+    }
+
+    public Optional<String> getCityEtag(String city) {
+        return getLatest(city).map(data -> HttpCacheUtils.readingEtag(data.getId(), data.getTimestamp()));
+    }
+
+    public String getCitiesEtag() {
+        ensureLoaded();
+        long version = citiesVersion.get();
+        Versioned<String> etag = citiesEtag;
+        if (etag == null || etag.version != version) {
+            etag = new Versioned<>(version, HttpCacheUtils.combine(new TreeSet<>(latestByCity.keySet())));
+            citiesEtag = etag;
+        }
+        return etag.value;
+    }
+
+    // Newest reading timestamp across all cities, used to align Cache-Control with ingestion
+    public Optional<LocalDateTime> getLastUpdated() {
+        ensureLoaded();
+        return latestByCity.values().stream()
+                .map(AqiData::getTimestamp)
+                .max(Comparator.naturalOrder());
+    }
+
+    public Optional<AqiData> getLatest(String city) {
+        ensureLoaded();
+        return Optional.ofNullable(latestByCity.get(city));
+    }
+
+    public List<AqiData> getLatestReadings() {
+        ensureLoaded();
+        return new ArrayList<>(latestByCity.values());
+    }
+
+    public List<AqiResponse> getLatestForAllCities() {
+        ensureLoaded();
+        return latestByCity.values().stream()
+                .sorted(Comparator.comparing(AqiData::getCity))
+                .map(LatestReadingsSnapshotService::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    public SerializedPayload getDashboardDocument() {
+        Versioned<SerializedPayload> document = dashboardDocument;
+        if (document != null && document.version == snapshotVersion.get()) {
+            return document.value;
+        }
+        synchronized (this) {
+            // Read the version before building: a reading offered during the build bumps it,
+            // so the next call rebuilds rather than serving this document indefinitely
+            long version = snapshotVersion.get();
+            document = dashboardDocument;
+            if (document == null || document.version != version) {
+                document = new Versioned<>(version, buildDashboardDocument());
+                dashboardDocument = document;
+            }
+            return document.value;
+        }
+    }
+
+    private SerializedPayload buildDashboardDocument() {
+        List<AqiResponse> latest = getLatestForAllCities();
+        LocalDateTime lastUpdated = latest.stream()
+                .map(AqiResponse::getTimestamp)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", true);
+        body.put("data", latest);
+        body.put("count", latest.size());
+        body.put("lastUpdated", lastUpdated);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            // Content-derived tag so every replica hands out the same ETag for the same data
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+            logger.debug("Rebuilt dashboard snapshot: {} cities, {} bytes", latest.size(), json.length);
+            return SerializedPayload.of(json, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize dashboard snapshot", e);
+        }
+    }
+
+    private void offer(AqiData reading) {
+        if (reading == null || reading.getCity() == null || reading.getTimestamp() == null) {
+            return;
+        }
+        boolean newCity = !latestByCity.containsKey(reading.getCity());
+        AqiData latest = latestByCity.compute(reading.getCity(), (city, current) ->
+                current == null || !reading.getTimestamp().isBefore(current.getTimestamp()) ? reading : current);
+        if (latest != reading) {
+            return;
+        }
+        if (newCity) {
+            citiesVersion.incrementAndGet();
+        }
+        snapshotVersion.incrementAndGet();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                // One index seek per city instead of a correlated MAX(timestamp) scan
+                for (String city : aqiDataRepository.findDistinctCities()) {
+                    aqiDataRepository.findTopByCityOrderByTimestampDesc(city).ifPresent(this::offer);
+                }
+                logger.info("Latest readings snapshot loaded for {} cities", latestByCity.size());
+                loaded = true;
+                snapshotVersion.incrementAndGet();
+                citiesVersion.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("Failed to load latest readings snapshot: {}", e.getMessage());
+            }
+        }
+    }
+
+    public static AqiResponse toResponse(AqiData data) {
+        AqiResponse response = new AqiResponse(
+            data.getCity(),
+            data.getAqiValue(),
+            data.getPm25(),
+            data.getPm10(),
+            data.getNo2(),
+            data.getSo2(),
+            data.getCo(),
+            data.getO3(),
+            data.getTimestamp()
+        );
+        response.setDominantPollutant(data.getDominantPollutant());
+        response.setSubIndices(AQICalculator.subIndices(data));
+        response.setAqiStandard(data.getAqiStandard());
+        return response;
+    }
+
+    private static class Versioned<T> {
+        final long version;
+        final T value;
+
+        Versioned(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.air.airquality.services;
+
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.util.AQICalculator.Pollutant;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.NowCastWindow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EPA NowCast for particulates, kept per city in a {@link NowCastWindow}.
+ *
+ * A city's window is loaded from the 12 hours before its latest reading the first time it is
+ * asked for, then updated from ingestion events, so serving the NowCast never queries
+ * aqi_data. Readings stored by other replicas (or re-scored) only arrive as invalidations;
+ * those drop the window and the next request reloads it.
+ */
+@Service
+public class NowCastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NowCastService.class);
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+
+    private final Map<String, CityWindow> windows = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        for (AqiData reading : event.getReadings()) {
+            CityWindow window = reading.getCity() != null ? windows.get(reading.getCity()) : null;
+            // Cities nobody asked for yet pick the reading up when their window is loaded
+            if (window != null && reading.getTimestamp() != null) {
+                window.offer(reading);
+            }
+        }
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            windows.clear();
+        } else {
+            windows.remove(event.getKey());
+        }
+    }
+
+    /**
+     * NowCast concentrations and the AQI they give (EPA), as of the city's newest hour; empty
+     * when the city has no reading in two of its last three hours
+     */
+    public Optional<Map<String, Object>> getNowCast(String city) {
+        CityWindow window = windows.computeIfAbsent(city, CityWindow::new);
+        return window.describe(this);
+    }
+
+    private void load(CityWindow window) {
+        Optional<AqiData> latest = latestReadingsSnapshotService.getLatest(window.city);
+        if (latest.isEmpty()) {
+            return;
+        }
+        LocalDateTime end = latest.get().getTimestamp();
+        for (AqiData reading : aqiDataRepository.findByCityAndTimestampBetween(
+                window.city, end.minusHours(NowCastWindow.HOURS), end)) {
+            window.add(reading);
+        }
+        logger.debug("NowCast window for {} loaded up to {}", window.city, end);
+    }
+
+    private static class CityWindow {
+        final String city;
+        final NowCastWindow readings = new NowCastWindow();
+        boolean loaded = false;
+        // Readings up to this id came from the initial load; events for them are duplicates
+        long loadedMaxId = 0;
+
+        CityWindow(String city) {
+            this.city = city;
+        }
+
+        synchronized void offer(AqiData reading) {
+            if (loaded && (reading.getId() == null || reading.getId() > loadedMaxId)) {
+                readings.add(reading.getTimestamp(), reading.getPm25(), reading.getPm10());
+            }
+        }
+
+        // Called only while loading, with the lock held
+        void add(AqiData reading) {
+            readings.add(reading.getTimestamp(), reading.getPm25(), reading.getPm10());
+            if (reading.getId() != null) {
+                loadedMaxId = Math.max(loadedMaxId, reading.getId());
+            }
+        }
+
+        synchronized Optional<Map<String, Object>> describe(NowCastService service) {
+            if (!loaded) {
+                try {
+                    service.load(this);
+                    loaded = true;
+                } catch (Exception e) {
+                    logger.warn("Could not load NowCast window for {}: {}", city, e.getMessage());
+                    return Optional.empty();
+                }
+            }
+            // EPA truncates NowCast PM2.5 to 0.1 µg/m³ and PM10 to whole µg/m³ before indexing
+            double pm25 = Math.floor(readings.nowCast(NowCastWindow.PM25) * 10) / 10;
+            double pm10 = Math.floor(readings.nowCast(NowCastWindow.PM10));
+            int pm25Index = Double.isNaN(pm25) ? -1 : AqiStandards.EPA.subIndex(Pollutant.PM25, pm25);
+            int pm10Index = Double.isNaN(pm10) ? -1 : AqiStandards.EPA.subIndex(Pollutant.PM10, pm10);
+            if (pm25Index < 0 && pm10Index < 0) {
+                return Optional.empty();
+            }
+
+            Map<String, Object> nowCast = new LinkedHashMap<>();
+            int aqi = Math.max(pm25Index, pm10Index);
+            nowCast.put("aqi", aqi);
+            nowCast.put("category", AqiStandards.EPA.category(aqi));
+            nowCast.put("dominantPollutant", pm25Index >= pm10Index ? Pollutant.PM25.getKey() : Pollutant.PM10.getKey());
+            nowCast.put("pm25", pm25Index >= 0 ? pm25 : null);
+            nowCast.put("pm10", pm10Index >= 0 ? pm10 : null);
+            nowCast.put("hoursWithData", Math.max(readings.hoursWithData(NowCastWindow.PM25),
+                    readings.hoursWithData(NowCastWindow.PM10)));
+            nowCast.put("asOf", readings.getNewestHour());
+            nowCast.put("standard", AqiStandards.EPA.getKey());
+            return Optional.of(nowCast);
+        }
+    }
+}
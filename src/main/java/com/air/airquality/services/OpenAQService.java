@@ -1,10 +1,17 @@
 package com.air.airquality.services;
 
 import com.air.airquality.dto.OpenAQResponse;
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
 import com.air.airquality.model.AqiData;
 import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.CityCoordinates;
+import com.air.airquality.util.CityNames;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -13,6 +20,7 @@ import org.springframework.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,11 +34,37 @@ public class OpenAQService {
     @Autowired
     private AqiDataRepository aqiDataRepository;
     
+    @Autowired
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ClusterMembershipService clusterMembershipService;
+    
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Autowired
+    private CitySearchService citySearchService;
+    
+    @Autowired
+    private CityResolverService cityResolverService;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
+    
     @Value("${openaq.api.url:https://api.openaq.org/v2/latest}")
     private String openAQApiUrl;
     
     private final RestTemplate restTemplate = new RestTemplate();
     
+    private static final int SEARCH_RESULT_LIMIT = 10;
+
+    // AQI for a reading that reports none of the six pollutants
+    private static final int DEFAULT_AQI = 50;
+    
     // Optimized fallback data using ConcurrentHashMap for thread safety
     private static final Map<String, Integer> FALLBACK_AQI = new ConcurrentHashMap<String, Integer>() {{
         put("delhi", 152); put("mumbai", 89); put("bangalore", 67); put("chennai", 78);
@@ -81,7 +115,9 @@ public class OpenAQService {
     }
     
     public AqiData getCurrentAqiData(String city) {
-        String normalizedCity = normalizeCity(city);
+        // Typos and aliases resolve to the stored name, so they hit the cache and database instead of the API
+        String normalizedCity = cityResolverService.resolve(city);
+        citySearchService.recordLookup(normalizedCity);
         
         // 1. Check cache first (O(1) lookup)
         CachedAqiData cached = apiCache.get(normalizedCity.toLowerCase());
@@ -90,8 +126,8 @@ public class OpenAQService {
             return cached.getData();
         }
         
-        // 2. Try database (optimized query)
-        Optional<AqiData> dbData = aqiDataRepository.findTopByCityOrderByTimestampDesc(normalizedCity);
+        // 2. Try the latest-reading snapshot (kept in sync with the database on ingest)
+        Optional<AqiData> dbData = latestReadingsSnapshotService.getLatest(normalizedCity);
         if (dbData.isPresent() && isRecentData(dbData.get().getTimestamp())) {
             return dbData.get();
         }
@@ -113,8 +149,20 @@ public class OpenAQService {
         return generateFallbackData(normalizedCity);
     }
 
+    // Fallback cities resolve like stored ones, e.g. when the database is still empty
+    @PostConstruct
+    public void registerFallbackCities() {
+        cityResolverService.addKnownCities(FALLBACK_DATA.keySet());
+    }
+
     public List<String> getAvailableCities() {
         try {
+            // Served from the search index; the database is only read when the index is empty
+            List<String> indexedCities = citySearchService.getCities();
+            if (!indexedCities.isEmpty()) {
+                return indexedCities;
+            }
+            
             List<String> dbCities = aqiDataRepository.findDistinctCities();
             if (!dbCities.isEmpty()) {
                 return dbCities.stream()
@@ -124,14 +172,14 @@ public class OpenAQService {
             
             // Return fallback cities if database is empty
             return FALLBACK_AQI.keySet().stream()
-                    .map(this::capitalizeCity)
+                    .map(CityNames::normalize)
                     .sorted()
                     .collect(Collectors.toList());
                     
         } catch (Exception e) {
             logger.error("Error getting cities from database: {}", e.getMessage());
             return FALLBACK_AQI.keySet().stream()
-                    .map(this::capitalizeCity)
+                    .map(CityNames::normalize)
                     .sorted()
                     .collect(Collectors.toList());
         }
@@ -142,19 +190,27 @@ public class OpenAQService {
             return getAvailableCities();
         }
         
-        String normalizedQuery = query.toLowerCase().trim();
-        List<String> allCities = getAvailableCities();
+        // Prefix and n-gram index lookup, ranked by match quality and popularity
+        List<String> matches = citySearchService.search(query, SEARCH_RESULT_LIMIT);
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        if (!citySearchService.getCities().isEmpty()) {
+            // Nothing contains the query; offer the city it is most likely a misspelling of
+            return cityResolverService.findClosest(query).map(List::of).orElse(List.of());
+        }
         
-        // Use parallel stream for faster processing with large city lists
-        return allCities.parallelStream()
+        // No stored cities yet: search the fallback list
+        String normalizedQuery = query.toLowerCase().trim();
+        return getAvailableCities().stream()
                 .filter(city -> city.toLowerCase().contains(normalizedQuery))
-                .limit(10)
+                .limit(SEARCH_RESULT_LIMIT)
                 .collect(Collectors.toList());
     }
 
     public boolean addCityToMonitoring(String city) {
         try {
-            String normalizedCity = normalizeCity(city);
+            String normalizedCity = cityResolverService.resolveExact(city);
             
             // Check if city already exists
             if (aqiDataRepository.existsByCity(normalizedCity)) {
@@ -179,28 +235,21 @@ public class OpenAQService {
         }
     }
 
+    // EPA wording; readings scored under another standard use AqiStandards.get(data.getAqiStandard())
     public String getAqiCategory(Integer aqi) {
-        if (aqi <= 50) return "Good";
-        else if (aqi <= 100) return "Moderate";
-        else if (aqi <= 150) return "Unhealthy for Sensitive Groups";
-        else if (aqi <= 200) return "Unhealthy";
-        else if (aqi <= 300) return "Very Unhealthy";
-        else return "Hazardous";
+        return AqiStandards.EPA.category(aqi);
     }
 
     public String getAqiDescription(Integer aqi) {
-        if (aqi <= 50) return "Air quality is good. Ideal for outdoor activities.";
-        else if (aqi <= 100) return "Air quality is acceptable for most people.";
-        else if (aqi <= 150) return "Sensitive groups may experience minor issues.";
-        else if (aqi <= 200) return "Everyone may experience health effects.";
-        else if (aqi <= 300) return "Health alert: everyone may experience serious effects.";
-        else return "Health warning: emergency conditions affect everyone.";
+        return AqiStandards.EPA.description(aqi);
     }
 
     // Optimized batch processing for scheduled updates
+    // Each replica ingests only its shard of the city list, so throughput grows with replica count
     public void updateAllCitiesData() {
-        List<String> cities = getAvailableCities();
-        logger.info("Updating data for {} cities", cities.size());
+        List<String> allCities = getAvailableCities();
+        List<String> cities = clusterMembershipService.ownedShard(allCities);
+        logger.info("Updating data for {} of {} cities on this node", cities.size(), allCities.size());
         
         // Process cities sequentially to avoid overwhelming the API
         for (String city : cities) {
@@ -216,7 +265,7 @@ public class OpenAQService {
             }
         }
         
-        logger.info("Completed updating all cities data");
+        logger.info("Completed updating data for this node's cities");
     }
 
     // Private helper methods
@@ -247,11 +296,10 @@ public class OpenAQService {
             }
             
             Double pm25 = pollutants.getOrDefault("pm25", 25.0);
-            Integer aqi = calculateAQI(pm25);
             
-            return new AqiData(
+            AqiData data = new AqiData(
                 city,
-                aqi,
+                null,
                 pm25,
                 pollutants.get("pm10"),
                 pollutants.get("no2"),
@@ -259,6 +307,15 @@ public class OpenAQService {
                 pollutants.get("co"),
                 pollutants.get("o3")
             );
+            scoreReading(data);
+            
+            // Keep the station location for nearest-station queries
+            OpenAQResponse.Coordinates coordinates = result.getCoordinates();
+            if (coordinates != null && CityCoordinates.isValid(coordinates.getLatitude(), coordinates.getLongitude())) {
+                data.setLatitude(coordinates.getLatitude());
+                data.setLongitude(coordinates.getLongitude());
+            }
+            return data;
         } catch (Exception e) {
             logger.error("Error parsing API response for {}: {}", city, e.getMessage());
             return null;
@@ -279,52 +336,44 @@ public class OpenAQService {
         fallbackData.setPm25(aqi * 0.6); // Realistic PM2.5 estimation
         fallbackData.setPm10(aqi * 0.8);
         fallbackData.setTimestamp(LocalDateTime.now());
+        scoreReading(fallbackData);
         
         return fallbackData;
     }
 
     private void saveToDatabase(AqiData data) {
         try {
-            aqiDataRepository.save(data);
+            AqiData saved = aqiDataRepository.save(data);
+            eventPublisher.publishEvent(AqiDataIngestedEvent.of(saved));
+            cacheInvalidationBus.publish(CacheInvalidationEvent.CITY_READINGS, saved.getCity());
         } catch (Exception e) {
             logger.error("Failed to save AQI data for {}: {}", data.getCity(), e.getMessage());
         }
     }
 
-    private boolean isRecentData(LocalDateTime timestamp) {
-        // With 12-hour update schedule, consider data recent if it's within 24 hours
-        return timestamp.isAfter(LocalDateTime.now().minusHours(24));
-    }
-
-    private String normalizeCity(String city) {
-        return Arrays.stream(city.toLowerCase().trim().split("\\s+"))
-                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1))
-                .collect(Collectors.joining(" "));
+    // A newer reading was stored by another replica; drop ours so the next request reads it
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            apiCache.clear();
+        } else {
+            apiCache.remove(event.getKey().toLowerCase());
+        }
     }
 
-    private String capitalizeCity(String city) {
-        return Arrays.stream(city.split("\\s+"))
-                .map(word -> word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase())
-                .collect(Collectors.joining(" "));
+    public boolean isRecentData(LocalDateTime timestamp) {
+        // With 12-hour update schedule, consider data recent if it's within 24 hours
+        return timestamp.isAfter(LocalDateTime.now().minusHours(24));
     }
 
-    // Optimized AQI calculation using binary search approach
-    private Integer calculateAQI(Double pm25) {
-        if (pm25 == null || pm25 < 0) return 50;
-        
-        // EPA breakpoints for PM2.5
-        double[] breakpoints = {0, 12.0, 35.4, 55.4, 150.4, 250.4, 350.4, 500.4};
-        int[] aqiValues = {0, 50, 100, 150, 200, 300, 400, 500};
-        
-        for (int i = 0; i < breakpoints.length - 1; i++) {
-            if (pm25 >= breakpoints[i] && pm25 <= breakpoints[i + 1]) {
-                return (int) Math.round(
-                    ((aqiValues[i + 1] - aqiValues[i]) / (breakpoints[i + 1] - breakpoints[i])) 
-                    * (pm25 - breakpoints[i]) + aqiValues[i]
-                );
-            }
+    // Sub-indices, dominant pollutant and overall AQI under the city's standard
+    private void scoreReading(AqiData data) {
+        if (!aqiStandardService.score(data) && data.getAqiValue() == null) {
+            data.setAqiValue(DEFAULT_AQI);
         }
-        return 500; // Maximum AQI
     }
 
     // Inner class for caching
@@ -370,12 +419,9 @@ public class OpenAQService {
                         pollutants.put(measurement.getParameter().toLowerCase(), measurement.getValue());
                     }
                     
-                    // Calculate AQI based on PM2.5 (US EPA standard)
-                    Integer aqiValue = calculateAQI(pollutants.get("pm25"));
-                    
                     aqiData = new AqiData(
                         result.getCity(),
-                        aqiValue,
+                        null,
                         pollutants.get("pm25"),
                         pollutants.get("pm10"),
                         pollutants.get("no2"),
@@ -383,6 +429,7 @@ public class OpenAQService {
                         pollutants.get("co"),
                         pollutants.get("o3")
                     );
+                    scoreReading(aqiData);
                     
                     logger.info("Successfully fetched data from OpenAQ API for city: {}", city);
                 }
@@ -407,13 +454,16 @@ public class OpenAQService {
                     fallbackData.getCo() != null ? fallbackData.getCo() * variation : null,
                     fallbackData.getO3() != null ? fallbackData.getO3() * variation : null
                 );
+                scoreReading(aqiData);
                 
                 logger.info("Using fallback data with variation for city: {}", city);
             }
             
             // If we have data (either from API or fallback), save it
             if (aqiData != null) {
-                aqiDataRepository.save(aqiData);
+                AqiData saved = aqiDataRepository.save(aqiData);
+                eventPublisher.publishEvent(AqiDataIngestedEvent.of(saved));
+                cacheInvalidationBus.publish(CacheInvalidationEvent.CITY_READINGS, saved.getCity());
                 logger.info("AQI data saved for city: {} with AQI: {}", city, aqiData.getAqiValue());
             } else {
                 logger.warn("No data available for city: {}", city);
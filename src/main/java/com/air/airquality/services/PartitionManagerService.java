@@ -0,0 +1,226 @@
+package com.air.airquality.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Manages the monthly time partitions of aqi_data.
+ *
+ * On MySQL the table is RANGE COLUMNS partitioned by month (see database_partitioning.sql):
+ * partitions are created a few months ahead by splitting the catch-all partition, and
+ * retention drops whole expired partitions, which is a metadata-only operation. Rows older
+ * than the first monthly partition live in p_old, which retention trims with a range
+ * delete until it has expired as a whole.
+ * H2 has no table partitioning, so there the same monthly layout is treated as logical
+ * segments and an expired segment is removed with one month-bounded range delete.
+ */
+@Service
+public class PartitionManagerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionManagerService.class);
+
+    private static final String TABLE = "aqi_data";
+    private static final String CATCH_ALL_PARTITION = "pmax";
+    private static final String OLD_PARTITION = "p_old";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    private volatile String databaseProduct;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            ensureFuturePartitions();
+        }
+    }
+
+    public boolean isMySql() {
+        return getDatabaseProduct().toLowerCase().contains("mysql");
+    }
+
+    public boolean isH2() {
+        return getDatabaseProduct().toLowerCase().contains("h2");
+    }
+
+    /**
+     * True when aqi_data is physically partitioned, so retention can drop partitions
+     */
+    public boolean isPartitioned() {
+        if (!enabled || !isMySql()) {
+            return false;
+        }
+        return !listMonthlyPartitions().isEmpty();
+    }
+
+    /**
+     * Creates monthly partitions up to monthsAhead in the future by splitting the
+     * (empty) catch-all partition, so inserts never land in pmax
+     */
+    public synchronized int ensureFuturePartitions() {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        NavigableSet<YearMonth> existing = new TreeSet<>(listMonthlyPartitions().keySet());
+        YearMonth target = YearMonth.now().plusMonths(monthsAhead);
+        int created = 0;
+        for (YearMonth month = existing.last().plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            String sql = "ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + CATCH_ALL_PARTITION + " INTO ("
+                    + "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + upperBound(month) + "'), "
+                    + "PARTITION " + CATCH_ALL_PARTITION + " VALUES LESS THAN (MAXVALUE))";
+            jdbcTemplate.execute(sql);
+            created++;
+            logger.info("Created partition {} for {}", month.format(PARTITION_NAME), month);
+        }
+        return created;
+    }
+
+    /**
+     * Drops every partition (or H2 segment) that lies entirely before the cutoff.
+     * Rows of the month containing the cutoff are kept until that month expires as a whole.
+     */
+    public synchronized RetentionResult dropExpired(LocalDateTime cutoff) {
+        YearMonth firstKept = YearMonth.from(cutoff);
+        if (isPartitioned()) {
+            Map<String, Long> allPartitions = listPartitions();
+            Map<YearMonth, Long> partitions = monthlyPartitions(allPartitions);
+            List<String> dropped = new ArrayList<>();
+            long estimatedRows = 0;
+            if (allPartitions.containsKey(OLD_PARTITION)) {
+                // p_old ends where the first monthly partition starts
+                if (!partitions.keySet().iterator().next().isAfter(firstKept)) {
+                    dropped.add(OLD_PARTITION);
+                    estimatedRows += allPartitions.get(OLD_PARTITION);
+                } else {
+                    int rows = jdbcTemplate.update("DELETE FROM " + TABLE + " PARTITION (" + OLD_PARTITION + ") WHERE timestamp < ?",
+                            Timestamp.valueOf(firstKept.atDay(1).atStartOfDay()));
+                    if (rows > 0) {
+                        logger.info("Removed {} expired rows from {}", rows, OLD_PARTITION);
+                    }
+                    estimatedRows += rows;
+                }
+            }
+            int droppedMonths = 0;
+            for (Map.Entry<YearMonth, Long> partition : partitions.entrySet()) {
+                // Always keep at least one monthly partition so the table stays partitioned
+                if (partition.getKey().isBefore(firstKept) && droppedMonths < partitions.size() - 1) {
+                    dropped.add(partition.getKey().format(PARTITION_NAME));
+                    estimatedRows += partition.getValue();
+                    droppedMonths++;
+                }
+            }
+            if (!dropped.isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", dropped));
+                logger.info("Dropped {} expired partitions ({} rows estimated): {}", dropped.size(), estimatedRows, dropped);
+            }
+            return new RetentionResult("partition-drop", dropped, estimatedRows);
+        }
+
+        // H2 / unpartitioned fallback: one month-bounded delete per expired segment
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM " + TABLE, Timestamp.class);
+        List<String> dropped = new ArrayList<>();
+        long deletedRows = 0;
+        if (oldest != null) {
+            for (YearMonth month = YearMonth.from(oldest.toLocalDateTime()); month.isBefore(firstKept); month = month.plusMonths(1)) {
+                int rows = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE timestamp >= ? AND timestamp < ?",
+                        Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                        Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+                dropped.add(month.format(PARTITION_NAME));
+                deletedRows += rows;
+            }
+            if (!dropped.isEmpty()) {
+                logger.info("Removed {} expired segments ({} rows)", dropped.size(), deletedRows);
+            }
+        }
+        return new RetentionResult("segment-delete", dropped, deletedRows);
+    }
+
+    /**
+     * Monthly partitions and their estimated row counts (MySQL only; empty elsewhere)
+     */
+    public Map<YearMonth, Long> listMonthlyPartitions() {
+        return monthlyPartitions(listPartitions());
+    }
+
+    // Every partition of aqi_data by lower-case name, with estimated row counts
+    private Map<String, Long> listPartitions() {
+        if (!isMySql()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT PARTITION_NAME, TABLE_ROWS FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                rs -> {
+                    partitions.put(rs.getString("PARTITION_NAME").toLowerCase(), rs.getLong("TABLE_ROWS"));
+                },
+                TABLE);
+        return partitions;
+    }
+
+    private Map<YearMonth, Long> monthlyPartitions(Map<String, Long> partitions) {
+        Map<YearMonth, Long> monthly = new TreeMap<>();
+        for (Map.Entry<String, Long> partition : partitions.entrySet()) {
+            String name = partition.getKey();
+            if (CATCH_ALL_PARTITION.equals(name) || OLD_PARTITION.equals(name)) {
+                continue;
+            }
+            try {
+                monthly.put(YearMonth.parse(name, PARTITION_NAME), partition.getValue());
+            } catch (Exception e) {
+                logger.warn("Ignoring partition with unexpected name: {}", name);
+            }
+        }
+        return monthly;
+    }
+
+    private String getDatabaseProduct() {
+        if (databaseProduct == null) {
+            databaseProduct = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        }
+        return databaseProduct;
+    }
+
+    private static String upperBound(YearMonth month) {
+        return month.plusMonths(1).atDay(1).atStartOfDay().format(BOUND_FORMAT);
+    }
+
+    // Summary of one retention pass
+    public static class RetentionResult {
+        private final String strategy;
+        private final List<String> droppedSegments;
+        private final long rows;
+
+        public RetentionResult(String strategy, List<String> droppedSegments, long rows) {
+            this.strategy = strategy;
+            this.droppedSegments = droppedSegments;
+            this.rows = rows;
+        }
+
+        public String getStrategy() { return strategy; }
+        public List<String> getDroppedSegments() { return droppedSegments; }
+        public long getRows() { return rows; }
+    }
+}
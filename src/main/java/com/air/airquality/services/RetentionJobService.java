@@ -0,0 +1,322 @@
+package com.air.airquality.services;
+
+import com.air.airquality.model.RetentionJobState;
+import com.air.airquality.repository.RetentionJobStateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row-level retention for deployments where aqi_data is not partitioned.
+ *
+ * Expired rows are deleted in keyed chunks (ids above the last checkpoint, in id order),
+ * one transaction per chunk, with the checkpoint saved in the same transaction so a
+ * restarted node resumes exactly where the previous run stopped. Between chunks the job
+ * sleeps in proportion to how long the last chunk took, which backs off automatically
+ * when the database is busy.
+ */
+@Service
+public class RetentionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionJobService.class);
+
+    private static final String JOB_NAME = "aqi_data_retention";
+    private static final String LOCK_NAME = "retention-job";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RetentionJobStateRepository stateRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Value("${app.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    // Pause after each chunk = last chunk latency * factor, bounded below and above
+    @Value("${app.retention.pause-factor:1.0}")
+    private double pauseFactor;
+
+    @Value("${app.retention.min-pause-ms:20}")
+    private long minPauseMs;
+
+    @Value("${app.retention.max-pause-ms:5000}")
+    private long maxPauseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aqi-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private Future<?> currentRun;
+    private volatile boolean stopRequested = false;
+
+    // Progress of the current process; the persisted state survives restarts
+    private volatile long runRowsDeleted;
+    private volatile long runActiveNanos;
+    private volatile long lastChunkLatencyMs;
+    private volatile long lastPauseMs;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        executor.shutdownNow();
+    }
+
+    // Pick up a run that was interrupted by a restart
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        try {
+            Optional<RetentionJobState> state = stateRepository.findById(JOB_NAME);
+            if (state.isPresent() && state.get().getStatus() == RetentionJobState.Status.RUNNING) {
+                logger.info("Resuming retention job from id {} (cutoff {})",
+                        state.get().getLastDeletedId(), state.get().getCutoff());
+                submit();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not check for an interrupted retention job: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts deleting rows older than the cutoff in the background. A run that was stopped,
+     * failed or interrupted continues from its checkpoint (with the later of the two cutoffs);
+     * rows it skipped are picked up by the next fresh run.
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start(LocalDateTime cutoff) {
+        synchronized (lock) {
+            if (isRunning()) {
+                return false;
+            }
+            RetentionJobState state = stateRepository.findById(JOB_NAME).orElse(null);
+            if (state == null || state.getStatus() == RetentionJobState.Status.COMPLETED) {
+                RetentionJobState fresh = new RetentionJobState(JOB_NAME, cutoff);
+                if (state != null) {
+                    // Replaces the finished run's row, so it must carry that row's version
+                    fresh.setVersion(state.getVersion());
+                }
+                state = fresh;
+            } else if (cutoff.isAfter(state.getCutoff())) {
+                state.setCutoff(cutoff);
+            }
+            state.setStatus(RetentionJobState.Status.RUNNING);
+            state.setLastError(null);
+            state.setFinishedAt(null);
+            state.setUpdatedAt(LocalDateTime.now());
+            try {
+                stateRepository.save(state);
+            } catch (OptimisticLockingFailureException e) {
+                // Another replica moved the checkpoint between our read and write; it owns the run
+                logger.info("Retention job state changed concurrently, not starting: {}", e.getMessage());
+                return false;
+            }
+            submit();
+            return true;
+        }
+    }
+
+    /**
+     * Starts the job (or joins the run in progress) and blocks until it finishes
+     */
+    public long runToCompletion(LocalDateTime cutoff) throws Exception {
+        if (!start(cutoff)) {
+            logger.info("Retention job already running, waiting for it to finish");
+        }
+        Future<?> run;
+        synchronized (lock) {
+            run = currentRun;
+        }
+        if (run != null) {
+            run.get();
+        }
+        return stateRepository.findById(JOB_NAME).map(RetentionJobState::getRowsDeleted).orElse(0L);
+    }
+
+    /**
+     * Asks the running job to stop after the current chunk; it can be resumed later
+     */
+    public boolean stop() {
+        synchronized (lock) {
+            if (!isRunning()) {
+                return false;
+            }
+            stopRequested = true;
+            return true;
+        }
+    }
+
+    public boolean isRunning() {
+        synchronized (lock) {
+            return currentRun != null && !currentRun.isDone();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        Optional<RetentionJobState> persisted = stateRepository.findById(JOB_NAME);
+        status.put("running", isRunning());
+        if (persisted.isEmpty()) {
+            status.put("status", "NEVER_RUN");
+            return status;
+        }
+
+        RetentionJobState state = persisted.get();
+        status.put("status", state.getStatus());
+        status.put("cutoff", state.getCutoff());
+        status.put("rowsDeleted", state.getRowsDeleted());
+        status.put("chunksCompleted", state.getChunksCompleted());
+        status.put("lastDeletedId", state.getLastDeletedId());
+        status.put("startedAt", state.getStartedAt());
+        status.put("updatedAt", state.getUpdatedAt());
+        status.put("finishedAt", state.getFinishedAt());
+        if (state.getLastError() != null) {
+            status.put("lastError", state.getLastError());
+        }
+
+        long activeNanos = runActiveNanos;
+        status.put("rowsPerSecond", activeNanos > 0
+                ? Math.round(runRowsDeleted * 1_000_000_000.0 / activeNanos) : 0);
+        status.put("chunkSize", chunkSize);
+        status.put("lastChunkLatencyMs", lastChunkLatencyMs);
+        status.put("currentPauseMs", lastPauseMs);
+        return status;
+    }
+
+    private void submit() {
+        synchronized (lock) {
+            stopRequested = false;
+            runRowsDeleted = 0;
+            runActiveNanos = 0;
+            currentRun = executor.submit(this::runChunks);
+        }
+    }
+
+    // Only one replica works through the checkpoint at a time
+    private void runChunks() {
+        if (!schedulerLockService.runWithLease(LOCK_NAME, Duration.ZERO, this::runChunksWithLease)) {
+            logger.info("Retention job is running on another instance");
+        }
+    }
+
+    private void runChunksWithLease(SchedulerLockService.Lease lease) {
+        RetentionJobState state = stateRepository.findById(JOB_NAME).orElse(null);
+        if (state == null) {
+            return;
+        }
+        try {
+            while (!stopRequested && lease.isHeld()) {
+                long started = System.nanoTime();
+                final RetentionJobState checkpoint = state;
+                RetentionJobState next = transactionTemplate.execute(tx -> deleteChunk(checkpoint));
+                long elapsed = System.nanoTime() - started;
+
+                runActiveNanos += elapsed;
+                lastChunkLatencyMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+
+                if (next == null) {
+                    finish(state, RetentionJobState.Status.COMPLETED, null);
+                    logger.info("Retention job completed: {} rows older than {} deleted in {} chunks",
+                            state.getRowsDeleted(), state.getCutoff(), state.getChunksCompleted());
+                    return;
+                }
+                runRowsDeleted += next.getRowsDeleted() - state.getRowsDeleted();
+                // Adopt the new checkpoint only once its transaction has committed
+                state = next;
+
+                long pause = Math.max(minPauseMs, Math.min(maxPauseMs, Math.round(lastChunkLatencyMs * pauseFactor)));
+                lastPauseMs = pause;
+                Thread.sleep(pause);
+            }
+            if (!lease.isHeld()) {
+                // Another instance took over the lock and continues from the checkpoint
+                logger.warn("Retention job lock lost at id {}, leaving the job to its new owner", state.getLastDeletedId());
+                return;
+            }
+            finish(state, RetentionJobState.Status.STOPPED, null);
+            logger.info("Retention job stopped at id {} after {} rows", state.getLastDeletedId(), state.getRowsDeleted());
+        } catch (InterruptedException e) {
+            // Shutdown: leave the state RUNNING so the next start resumes from the checkpoint
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Retention job failed at id {}: {}", state.getLastDeletedId(), e.getMessage(), e);
+            finish(state, RetentionJobState.Status.FAILED, e.getMessage());
+        }
+    }
+
+    // One chunk: the next N expired ids after the checkpoint, deleted together with the checkpoint update.
+    // The update goes to a copy so a rolled-back chunk leaves the caller's checkpoint as it was.
+    private RetentionJobState deleteChunk(RetentionJobState checkpoint) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM aqi_data WHERE id > ? AND timestamp < ? ORDER BY id LIMIT ?",
+                Long.class, checkpoint.getLastDeletedId(), Timestamp.valueOf(checkpoint.getCutoff()), chunkSize);
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        int deleted = namedParameterJdbcTemplate.update("DELETE FROM aqi_data WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+
+        RetentionJobState next = checkpoint.copy();
+        next.setLastDeletedId(ids.get(ids.size() - 1));
+        next.setRowsDeleted(next.getRowsDeleted() + deleted);
+        next.setChunksCompleted(next.getChunksCompleted() + 1);
+        next.setUpdatedAt(LocalDateTime.now());
+        // A checkpoint written meanwhile by another replica fails the save and rolls the chunk back
+        return stateRepository.save(next);
+    }
+
+    private void finish(RetentionJobState state, RetentionJobState.Status status, String error) {
+        try {
+            state.setStatus(status);
+            state.setLastError(error != null && error.length() > 255 ? error.substring(0, 255) : error);
+            state.setUpdatedAt(LocalDateTime.now());
+            state.setFinishedAt(LocalDateTime.now());
+            stateRepository.save(state);
+        } catch (Exception e) {
+            logger.error("Could not record retention job state: {}", e.getMessage());
+        }
+    }
+}
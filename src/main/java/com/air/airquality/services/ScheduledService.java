@@ -1,11 +1,13 @@
 package com.air.airquality.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 import java.util.List;
@@ -15,6 +17,9 @@ public class ScheduledService {
     
     private static final Logger logger = LoggerFactory.getLogger(ScheduledService.class);
     
+    // Covers clock skew between replicas for cron jobs that fire at the same wall-clock time
+    private static final Duration LOCK_AT_LEAST_FOR_DAILY_JOBS = Duration.ofMinutes(5);
+    
     @Autowired
     private OpenAQService openAQService;
     
@@ -27,12 +32,35 @@ public class ScheduledService {
     @Autowired
     private HistoricalDataSeederService historicalDataSeederService;
     
+    @Autowired
+    private PartitionManagerService partitionManagerService;
+    
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+    
+    @Autowired
+    private ClusterMembershipService clusterMembershipService;
+    
+    @Value("${aqi.ingestion.interval-ms:43200000}")
+    private long ingestionIntervalMs;
+    
     // Flag to prevent overlapping executions
     private volatile boolean isUpdating = false;
     
     // Fixed scheduled task - properly waits for completion
-    @Scheduled(fixedRate = 43200000, initialDelay = 60000) // Every 12 hours (43200000ms), 1 minute initial delay
+    @Scheduled(fixedRateString = "${aqi.ingestion.interval-ms:43200000}", initialDelay = 60000) // Every 12 hours by default, 1 minute initial delay
     public void updateAqiData() {
+        // Replicas start at different times, so hold the lock for most of the interval to get one run per interval
+        Duration lockAtLeastFor = Duration.ofMillis(Math.max(0, ingestionIntervalMs - 60000));
+        if (clusterMembershipService.isShardingEnabled()) {
+            // Every replica ingests its own shard of cities; only the alert sweep needs the cluster-wide lock
+            runAqiUpdate(() -> schedulerLockService.runWithLock("alert-processing", lockAtLeastFor, alertService::processAlerts));
+        } else if (!schedulerLockService.runWithLock("aqi-ingestion", lockAtLeastFor, () -> runAqiUpdate(alertService::processAlerts))) {
+            logger.info("Skipping scheduled AQI update - another instance holds the ingestion lock");
+        }
+    }
+    
+    private void runAqiUpdate(Runnable alertSweep) {
         // Prevent overlapping executions
         if (isUpdating) {
             logger.warn("Previous update still in progress, skipping this execution");
@@ -54,7 +82,7 @@ public class ScheduledService {
             
             CompletableFuture<Void> alertTask = CompletableFuture.runAsync(() -> {
                 try {
-                    alertService.processAlerts();
+                    alertSweep.run();
                 } catch (Exception e) {
                     logger.error("Error in alert task: {}", e.getMessage(), e);
                 }
@@ -74,15 +102,47 @@ public class ScheduledService {
     // Cleanup old data daily - maintain 3 years of data
     @Scheduled(cron = "0 0 3 * * *") // Every day at 3 AM
     public void cleanupOldData() {
+        if (!schedulerLockService.runWithLock("data-retention", LOCK_AT_LEAST_FOR_DAILY_JOBS, this::runCleanup)) {
+            logger.info("Skipping daily cleanup - another instance holds the retention lock");
+        }
+    }
+    
+    private void runCleanup() {
         logger.info("Starting daily data cleanup - maintaining 3 years of data");
         try {
-            aqiService.cleanupOldData(1095); // Keep 3 years of data (3 * 365 = 1095 days)
-            logger.info("Daily cleanup completed - data older than 3 years removed");
+            // Keep 3 years of data (3 * 365 = 1095 days)
+            if (partitionManagerService.isPartitioned() || partitionManagerService.isH2()) {
+                // Whole expired months go at once: partition drop on MySQL, segment delete on H2
+                PartitionManagerService.RetentionResult result =
+                        partitionManagerService.dropExpired(LocalDateTime.now().minusDays(1095));
+                logger.info("Daily cleanup completed via {} - {} segments, {} rows",
+                        result.getStrategy(), result.getDroppedSegments().size(), result.getRows());
+            } else {
+                long deleted = aqiService.cleanupOldData(1095);
+                logger.info("Daily cleanup completed via chunked delete - {} rows older than 3 years removed", deleted);
+            }
         } catch (Exception e) {
             logger.error("Error during cleanup: {}", e.getMessage());
         }
     }
     
+    // Keep monthly partitions created ahead of incoming data
+    @Scheduled(cron = "0 30 2 * * *") // Every day at 2:30 AM
+    public void maintainPartitions() {
+        schedulerLockService.runWithLock("partition-maintenance", LOCK_AT_LEAST_FOR_DAILY_JOBS, this::runPartitionMaintenance);
+    }
+    
+    private void runPartitionMaintenance() {
+        try {
+            int created = partitionManagerService.ensureFuturePartitions();
+            if (created > 0) {
+                logger.info("Partition maintenance created {} new monthly partitions", created);
+            }
+        } catch (Exception e) {
+            logger.error("Error during partition maintenance: {}", e.getMessage());
+        }
+    }
+    
     // Ensure we maintain 3 years of historical data - weekly check (disabled temporarily)
     // @Scheduled(cron = "0 0 4 * * SUN") // Every Sunday at 4 AM  
     public void ensureHistoricalDataIntegrity() {
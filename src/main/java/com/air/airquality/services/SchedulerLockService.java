@@ -0,0 +1,186 @@
+package com.air.airquality.services;
+
+import com.air.airquality.config.NodeIdentity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lease-based locks for scheduled jobs, shared by all replicas through the scheduler_locks table.
+ *
+ * A lock is acquired with one conditional UPDATE (or an INSERT for a new name) that only
+ * succeeds when the current lease has expired, so exactly one node wins. While the job runs,
+ * the lease is renewed in the background; if the node dies, renewals stop and another node
+ * takes over once the lease runs out. All lease times come from the database clock, so
+ * replicas with skewed clocks still agree on who holds a lock.
+ */
+@Service
+public class SchedulerLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NodeIdentity nodeIdentity;
+
+    @Value("${app.scheduler.lock.enabled:true}")
+    private boolean enabled;
+
+    // Lease length; held leases are renewed every third of it
+    @Value("${app.scheduler.lock.lease-seconds:120}")
+    private long leaseSeconds;
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-lock-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    /**
+     * Runs the task if this node can take the lock; returns false if another node holds it
+     *
+     * @param lockAtLeastFor keep the lock this long after the task starts, so replicas whose
+     *                       schedules fire slightly later don't run the same job again
+     */
+    public boolean runWithLock(String name, Duration lockAtLeastFor, Runnable task) {
+        return runWithLease(name, lockAtLeastFor, lease -> task.run());
+    }
+
+    /**
+     * Like runWithLock, for long tasks that should stop early when {@link Lease#isHeld()} turns false
+     */
+    public boolean runWithLease(String name, Duration lockAtLeastFor, Consumer<Lease> task) {
+        if (!enabled) {
+            task.accept(new Lease(name, nodeIdentity.getId()));
+            return true;
+        }
+        Optional<Lease> lease = tryAcquire(name, Duration.ofSeconds(leaseSeconds));
+        if (lease.isEmpty()) {
+            logger.debug("Lock {} is held by another node, skipping", name);
+            return false;
+        }
+        try {
+            task.accept(lease.get());
+        } finally {
+            release(lease.get(), lockAtLeastFor);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the lock if its lease has expired (or it never existed) and starts renewing it
+     */
+    public Optional<Lease> tryAcquire(String name, Duration leaseDuration) {
+        String owner = nodeIdentity.getId();
+        long seconds = Math.max(1, leaseDuration.getSeconds());
+        try {
+            int updated = jdbcTemplate.update(
+                    "UPDATE scheduler_locks SET locked_until = TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP), " +
+                    "locked_at = LOCALTIMESTAMP, locked_by = ? WHERE name = ? AND locked_until <= LOCALTIMESTAMP",
+                    seconds, owner, name);
+            if (updated == 0) {
+                jdbcTemplate.update(
+                        "INSERT INTO scheduler_locks (name, locked_until, locked_at, locked_by) " +
+                        "VALUES (?, TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP), LOCALTIMESTAMP, ?)",
+                        name, seconds, owner);
+            }
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        } catch (DataAccessException e) {
+            // Database unreachable, lock wait timeout or table not there yet: not acquired, callers retry later
+            logger.warn("Could not acquire lock {}: {}", name, e.getMessage());
+            return Optional.empty();
+        }
+
+        Lease lease = new Lease(name, owner);
+        long periodMs = Math.max(200, TimeUnit.SECONDS.toMillis(seconds) / 3);
+        lease.renewal = renewer.scheduleAtFixedRate(() -> renew(lease, seconds), periodMs, periodMs, TimeUnit.MILLISECONDS);
+        logger.debug("Node {} acquired lock {}", owner, name);
+        return Optional.of(lease);
+    }
+
+    /**
+     * Stops renewing and frees the lock, keeping it until lockedAt + lockAtLeastFor if that is later
+     */
+    public void release(Lease lease, Duration lockAtLeastFor) {
+        lease.stopRenewal();
+        if (!lease.isHeld()) {
+            return;
+        }
+        lease.held = false;
+        try {
+            jdbcTemplate.update(
+                    "UPDATE scheduler_locks SET locked_until = " +
+                    "GREATEST(LOCALTIMESTAMP, TIMESTAMPADD(SECOND, ?, locked_at)) WHERE name = ? AND locked_by = ?",
+                    Math.max(0, lockAtLeastFor.getSeconds()), lease.getName(), lease.getOwner());
+        } catch (Exception e) {
+            // The lease simply expires on its own
+            logger.warn("Could not release lock {}: {}", lease.getName(), e.getMessage());
+        }
+    }
+
+    private void renew(Lease lease, long seconds) {
+        if (!lease.isHeld()) {
+            return;
+        }
+        try {
+            int updated = jdbcTemplate.update(
+                    "UPDATE scheduler_locks SET locked_until = TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP) " +
+                    "WHERE name = ? AND locked_by = ? AND locked_until > LOCALTIMESTAMP",
+                    seconds, lease.getName(), lease.getOwner());
+            if (updated == 0) {
+                logger.warn("Lost lock {}: lease expired or taken over by another node", lease.getName());
+                lease.held = false;
+                lease.stopRenewal();
+            }
+        } catch (Exception e) {
+            // Keep trying; the lease is only lost once it actually expires
+            logger.warn("Could not renew lock {}: {}", lease.getName(), e.getMessage());
+        }
+    }
+
+    // A held lock; renewal runs until release or until the lease is lost
+    public static class Lease {
+        private final String name;
+        private final String owner;
+        private volatile boolean held = true;
+        private volatile ScheduledFuture<?> renewal;
+
+        Lease(String name, String owner) {
+            this.name = name;
+            this.owner = owner;
+        }
+
+        public String getName() { return name; }
+        public String getOwner() { return owner; }
+        public boolean isHeld() { return held; }
+
+        private void stopRenewal() {
+            ScheduledFuture<?> future = renewal;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
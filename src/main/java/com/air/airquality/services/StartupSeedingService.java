@@ -0,0 +1,179 @@
+package com.air.airquality.services;
+
+import com.air.airquality.config.DataLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs startup seeding in the background once the application is up, so the process
+ * accepts traffic (and passes liveness) immediately. Each stage reports its state, and
+ * /api/ready can be gated on the stage a deployment needs before receiving traffic.
+ */
+@Service
+public class StartupSeedingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupSeedingService.class);
+
+    private static final long LOCK_RETRY_MS = 5000;
+
+    public enum Stage {
+        SAMPLE_DATA("sample-data"),
+        HISTORICAL_DATA("historical-data");
+
+        private final String id;
+
+        Stage(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public static Stage fromId(String id) {
+            for (Stage stage : values()) {
+                if (stage.id.equalsIgnoreCase(id)) {
+                    return stage;
+                }
+            }
+            throw new IllegalArgumentException("Unknown seeding stage: " + id);
+        }
+    }
+
+    public enum State {
+        PENDING, RUNNING, DONE, SKIPPED, FAILED;
+
+        // A failed stage counts as finished so readiness is not blocked forever; the error is reported
+        public boolean isFinished() {
+            return this == DONE || this == SKIPPED || this == FAILED;
+        }
+    }
+
+    @Autowired
+    private DataLoader dataLoader;
+
+    @Autowired
+    private HistoricalDataSeederService historicalDataSeederService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    private final Map<Stage, StageStatus> stages = new EnumMap<>(Stage.class);
+
+    private volatile boolean shuttingDown = false;
+
+    public StartupSeedingService() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageStatus());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSeeding() {
+        Thread seedingThread = new Thread(() -> {
+            runStageExclusively(Stage.SAMPLE_DATA, dataLoader::loadIfEmpty);
+            runStageExclusively(Stage.HISTORICAL_DATA, historicalDataSeederService::seedIfNeeded);
+        }, "startup-seeding");
+        seedingThread.setDaemon(true);
+        seedingThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+    }
+
+    public boolean isFinished(Stage stage) {
+        return stages.get(stage).state.isFinished();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (Map.Entry<Stage, StageStatus> entry : stages.entrySet()) {
+            StageStatus stage = entry.getValue();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", stage.state);
+            details.put("startedAt", stage.startedAt);
+            details.put("finishedAt", stage.finishedAt);
+            if (stage.error != null) {
+                details.put("error", stage.error);
+            }
+            if (entry.getKey() == Stage.HISTORICAL_DATA && stage.state != State.SKIPPED) {
+                details.put("rowsWritten", historicalDataSeederService.getProgressRows());
+                details.put("expectedRows", historicalDataSeederService.getExpectedRows());
+            }
+            status.put(entry.getKey().getId(), details);
+        }
+        return status;
+    }
+
+    // Replicas starting together take turns; once one has seeded, the others find the data and skip
+    private void runStageExclusively(Stage stage, Callable<Boolean> work) {
+        String lockName = "seed-" + stage.getId();
+        while (!shuttingDown && !isFinished(stage)) {
+            try {
+                if (schedulerLockService.runWithLock(lockName, Duration.ZERO, () -> runStage(stage, work))) {
+                    return;
+                }
+            } catch (Exception e) {
+                // Never let the seeding thread die and leave the stage PENDING; try again next round
+                logger.warn("Startup seeding stage {} could not take its lock: {}", stage.getId(), e.getMessage());
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                markFailed(stage, "Interrupted while waiting for lock " + lockName);
+                return;
+            }
+        }
+    }
+
+    private void markFailed(Stage stage, String error) {
+        StageStatus status = stages.get(stage);
+        status.error = error;
+        status.state = State.FAILED;
+        status.finishedAt = LocalDateTime.now();
+        logger.warn("Startup seeding stage {} failed: {}", stage.getId(), error);
+    }
+
+    private void runStage(Stage stage, Callable<Boolean> work) {
+        StageStatus status = stages.get(stage);
+        status.startedAt = LocalDateTime.now();
+        status.state = State.RUNNING;
+        try {
+            boolean didWork = work.call();
+            status.state = didWork ? State.DONE : State.SKIPPED;
+        } catch (Exception e) {
+            if (shuttingDown) {
+                logger.debug("Startup seeding stage {} interrupted by shutdown", stage.getId());
+            } else {
+                logger.error("Startup seeding stage {} failed: {}", stage.getId(), e.getMessage(), e);
+            }
+            status.error = e.getMessage();
+            status.state = State.FAILED;
+        } finally {
+            status.finishedAt = LocalDateTime.now();
+        }
+        logger.info("Startup seeding stage {} finished: {}", stage.getId(), status.state);
+    }
+
+    private static class StageStatus {
+        volatile State state = State.PENDING;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+    }
+}
@@ -0,0 +1,178 @@
+package com.air.airquality.services;
+
+import com.air.airquality.dto.NearbyStation;
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.util.CityCoordinates;
+import com.air.airquality.util.GeoIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "AQI near me" queries from an in-memory {@link GeoIndex} of city locations.
+ *
+ * A city's location comes from the coordinates on its readings, or from the built-in
+ * reference table when the source reported none. The k-d tree is rebuilt only when a city
+ * appears or moves (rare); AQI values are read from the latest-readings snapshot at query
+ * time, so every ingested reading is reflected without touching the tree.
+ */
+@Service
+public class StationLocatorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StationLocatorService.class);
+
+    @Autowired
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+
+    // City -> {latitude, longitude}; kept once known, even if a later reading has no coordinates
+    private final Map<String, double[]> locations = new ConcurrentHashMap<>();
+
+    // Cities stored by other replicas, located on the next query
+    private final Set<String> pendingCities = ConcurrentHashMap.newKeySet();
+
+    private volatile GeoIndex<String> index = new GeoIndex<>(List.of());
+
+    private volatile boolean loaded = false;
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        // Located even before the initial load, so a city saved while it runs isn't missed
+        boolean moved = false;
+        for (AqiData reading : event.getReadings()) {
+            moved |= locate(reading);
+        }
+        if (moved && loaded) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (loaded && event.isFor(CacheInvalidationEvent.CITY_READINGS) && !event.isWholeCache()) {
+            pendingCities.add(event.getKey());
+        }
+    }
+
+    /**
+     * The k located cities closest to the point, nearest first
+     */
+    public List<NearbyStation> findNearest(double latitude, double longitude, int k) {
+        GeoIndex<String> current = currentIndex();
+        List<NearbyStation> stations = new ArrayList<>();
+        for (GeoIndex.Neighbor<String> neighbor : current.nearest(latitude, longitude, k)) {
+            toStation(neighbor.getPoint(), neighbor.getDistanceKm()).ifPresent(stations::add);
+        }
+        return stations;
+    }
+
+    /**
+     * Located cities inside the box; minLongitude > maxLongitude means the box crosses the antimeridian
+     */
+    public List<NearbyStation> findWithin(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        GeoIndex<String> current = currentIndex();
+        List<NearbyStation> stations = new ArrayList<>();
+        for (GeoIndex.Point<String> point : current.within(minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+            toStation(point, null).ifPresent(stations::add);
+        }
+        return stations;
+    }
+
+    public int getLocatedCityCount() {
+        return currentIndex().size();
+    }
+
+    /**
+     * Copy of the located cities, as city -> {latitude, longitude}
+     */
+    public Map<String, double[]> getLocations() {
+        currentIndex();
+        Map<String, double[]> copy = new HashMap<>();
+        locations.forEach((city, coordinates) -> copy.put(city, coordinates.clone()));
+        return copy;
+    }
+
+    private Optional<NearbyStation> toStation(GeoIndex.Point<String> point, Double distanceKm) {
+        return latestReadingsSnapshotService.getLatest(point.getValue())
+                .map(reading -> new NearbyStation(point.getValue(), point.getLatitude(), point.getLongitude(),
+                        distanceKm != null ? Math.round(distanceKm * 100) / 100.0 : null,
+                        LatestReadingsSnapshotService.toResponse(reading)));
+    }
+
+    private GeoIndex<String> currentIndex() {
+        ensureLoaded();
+        if (!pendingCities.isEmpty()) {
+            boolean moved = false;
+            for (Iterator<String> it = pendingCities.iterator(); it.hasNext(); ) {
+                String city = it.next();
+                it.remove();
+                Optional<AqiData> latest = latestReadingsSnapshotService.getLatest(city);
+                moved |= latest.isPresent() ? locate(latest.get()) : locate(city, null, null);
+            }
+            if (moved) {
+                rebuild();
+            }
+        }
+        return index;
+    }
+
+    // Returns true when the city was placed for the first time or moved
+    private boolean locate(AqiData reading) {
+        return reading.getCity() != null && locate(reading.getCity(), reading.getLatitude(), reading.getLongitude());
+    }
+
+    private boolean locate(String city, Double latitude, Double longitude) {
+        double[] coordinates;
+        if (CityCoordinates.isValid(latitude, longitude)) {
+            coordinates = new double[] {latitude, longitude};
+        } else if (!locations.containsKey(city)) {
+            coordinates = CityCoordinates.lookup(city).orElse(null);
+        } else {
+            return false;
+        }
+        if (coordinates == null) {
+            return false;
+        }
+        double[] previous = locations.put(city, coordinates);
+        return previous == null || !Arrays.equals(previous, coordinates);
+    }
+
+    private synchronized void rebuild() {
+        List<GeoIndex.Point<String>> points = new ArrayList<>(locations.size());
+        for (Map.Entry<String, double[]> entry : locations.entrySet()) {
+            points.add(new GeoIndex.Point<>(entry.getValue()[0], entry.getValue()[1], entry.getKey()));
+        }
+        index = new GeoIndex<>(points);
+        logger.debug("Rebuilt station index with {} located cities", points.size());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (AqiData reading : latestReadingsSnapshotService.getLatestReadings()) {
+                locate(reading);
+            }
+            rebuild();
+            loaded = true;
+            logger.info("Station index loaded with {} located cities", locations.size());
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.air.airquality.services;
+
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.store.AqiDataStore;
+import com.air.airquality.util.AQICalculator.Pollutant;
+import com.air.airquality.util.AqiStandards;
+import com.air.airquality.util.RunningStats;
+import com.air.airquality.util.TDigest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Range statistics (mean, spread, percentiles, category counts) answered from per-city,
+ * per-day summaries instead of raw rows.
+ *
+ * Each day keeps a {@link RunningStats} and a {@link TDigest} of the AQI plus running stats
+ * per pollutant. A city's days are built with one scan the first time the city is asked for
+ * and then follow ingestion events. A range query merges the summaries of the whole days it
+ * covers and scans raw readings only for the partial days at either end. Readings stored by
+ * other replicas are caught up on by id on the next query; re-scoring drops the city so it is
+ * rebuilt on next use.
+ */
+@Service
+public class StatisticsSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsSketchService.class);
+
+    private static final Pollutant[] POLLUTANTS = Pollutant.values();
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    @Autowired
+    private AqiDataStore aqiDataStore;
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Value("${app.stats.retention-days:1095}")
+    private int retentionDays;
+
+    // Centroid budget per digest; 100 keeps p99 within a fraction of a percent
+    @Value("${app.stats.digest-compression:100}")
+    private double compression;
+
+    private final Map<String, CityDays> cities = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        for (AqiData reading : event.getReadings()) {
+            CityDays days = reading.getCity() != null ? cities.get(reading.getCity()) : null;
+            // Cities not built yet include the reading when they are
+            if (days != null) {
+                days.offer(reading);
+            }
+        }
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.CITY_READINGS) && !event.isFor(CacheInvalidationEvent.CITY_SCORES)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            cities.clear();
+        } else if (event.isFor(CacheInvalidationEvent.CITY_SCORES)) {
+            // Stored values changed in place, so the summaries can't be patched
+            cities.remove(event.getKey());
+        } else {
+            // New rows only: read past the last known id on next use instead of rebuilding
+            CityDays days = cities.get(event.getKey());
+            if (days != null) {
+                days.behind = true;
+            }
+        }
+    }
+
+    /**
+     * Statistics of the city's readings with start <= timestamp <= end; total_records is 0
+     * when there are none
+     */
+    public Map<String, Object> getStatistics(String city, LocalDateTime start, LocalDateTime end) {
+        return summarize(city, start, end).toMap(false);
+    }
+
+    /**
+     * {@link #getStatistics} plus daily_means, the mean AQI of each day with readings (date to
+     * value, ascending), for comparing cities day by day, and the same figures on the EPA scale
+     * (epa_avg_aqi, epa_p95_aqi, epa_daily_means) for comparing cities scored under different
+     * standards
+     */
+    public Map<String, Object> getStatisticsWithDailyMeans(String city, LocalDateTime start, LocalDateTime end) {
+        return summarize(city, start, end).toMap(true);
+    }
+
+    private Summary summarize(String city, LocalDateTime start, LocalDateTime end) {
+        Summary total = new Summary(compression);
+        if (end.isBefore(start)) {
+            return total;
+        }
+        // Whole days in the range come from the summaries, the partial ones at the ends from raw readings
+        LocalDate firstWholeDay = start.equals(start.toLocalDate().atStartOfDay())
+                ? start.toLocalDate() : start.toLocalDate().plusDays(1);
+        // Days older than the retention window have no summary; scan them like an edge
+        LocalDate oldestRetained = LocalDate.now().minusDays(retentionDays - 1);
+        if (firstWholeDay.isBefore(oldestRetained)) {
+            firstWholeDay = oldestRetained;
+        }
+        LocalDate lastWholeDay = end.toLocalDate().minusDays(1);
+        if (firstWholeDay.isAfter(lastWholeDay)) {
+            addReadings(total, city, start, end);
+            return total;
+        }
+        if (start.isBefore(firstWholeDay.atStartOfDay())) {
+            addReadings(total, city, start, firstWholeDay.atStartOfDay().minusNanos(1));
+        }
+        CityDays days = cities.computeIfAbsent(city, CityDays::new);
+        int merged = days.mergeInto(total, firstWholeDay, lastWholeDay);
+        addReadings(total, city, lastWholeDay.plusDays(1).atStartOfDay(), end);
+        logger.debug("Statistics for {}: merged {} daily summaries", city, merged);
+        return total;
+    }
+
+    private void addReadings(Summary summary, String city, LocalDateTime start, LocalDateTime end) {
+        for (AqiData reading : aqiDataStore.findByCityAndTimestampBetween(city, start, end)) {
+            summary.add(reading);
+        }
+    }
+
+    private void load(CityDays days) {
+        LocalDateTime now = LocalDateTime.now();
+        // Taken before the scan; engines that don't return ids still know where catching up starts
+        Long maxId = aqiDataRepository.findMaxIdByCity(days.city);
+        List<AqiData> readings = aqiDataStore.findByCityAndTimestampBetween(
+                days.city, now.toLocalDate().minusDays(retentionDays).atStartOfDay(), now.plusDays(1));
+        for (AqiData reading : readings) {
+            days.add(reading);
+        }
+        if (maxId != null) {
+            days.loadedMaxId = Math.max(days.loadedMaxId, maxId);
+        }
+        days.days.values().forEach(Summary::compact);
+        logger.info("Daily statistics for {} built from {} readings ({} days)",
+                days.city, readings.size(), days.days.size());
+    }
+
+    private void catchUp(CityDays days) {
+        List<AqiData> readings = aqiDataRepository.findByCityAndIdGreaterThanOrderByIdAsc(days.city, days.loadedMaxId);
+        int added = 0;
+        for (AqiData reading : readings) {
+            // Readings ingested here already came in through offer
+            if (!days.offeredIds.contains(reading.getId())) {
+                days.add(reading);
+                added++;
+            }
+            days.loadedMaxId = Math.max(days.loadedMaxId, reading.getId());
+        }
+        long caughtUpTo = days.loadedMaxId;
+        days.offeredIds.removeIf(id -> id <= caughtUpTo);
+        days.trim();
+        logger.debug("Daily statistics for {} caught up on {} readings", days.city, added);
+    }
+
+    private class CityDays {
+        final String city;
+        final TreeMap<LocalDate, Summary> days = new TreeMap<>();
+        boolean loaded = false;
+        // Readings up to this id are included; events for them are duplicates
+        long loadedMaxId = 0;
+        // Readings past loadedMaxId already added from ingestion events
+        final Set<Long> offeredIds = new HashSet<>();
+        // Other replicas stored readings since the last catch-up
+        volatile boolean behind = false;
+
+        CityDays(String city) {
+            this.city = city;
+        }
+
+        synchronized void offer(AqiData reading) {
+            if (!loaded) {
+                return;
+            }
+            if (reading.getId() == null || (reading.getId() > loadedMaxId && offeredIds.add(reading.getId()))) {
+                add(reading);
+                trim();
+            }
+        }
+
+        // Keep memory bounded to the retention window
+        void trim() {
+            while (days.size() > retentionDays + 1) {
+                days.pollFirstEntry();
+            }
+        }
+
+        // Called while loading (lock held) or from offer
+        void add(AqiData reading) {
+            if (reading.getTimestamp() == null || reading.getAqiValue() == null) {
+                return;
+            }
+            days.computeIfAbsent(reading.getTimestamp().toLocalDate(), day -> new Summary(compression)).add(reading);
+            if (!loaded && reading.getId() != null) {
+                loadedMaxId = Math.max(loadedMaxId, reading.getId());
+            }
+        }
+
+        synchronized int mergeInto(Summary total, LocalDate from, LocalDate to) {
+            if (!loaded) {
+                behind = false;
+                load(this);
+                loaded = true;
+            } else if (behind) {
+                behind = false;
+                catchUp(this);
+            }
+            NavigableMap<LocalDate, Summary> range = days.subMap(from, true, to, true);
+            for (Summary day : range.values()) {
+                total.merge(day);
+            }
+            return range.size();
+        }
+    }
+
+    // Mergeable summary of a set of readings: one day, or a whole query range
+    private static class Summary {
+        final double compression;
+        final RunningStats aqi = new RunningStats();
+        final TDigest aqiDigest;
+        final RunningStats[] pollutants = new RunningStats[POLLUTANTS.length];
+        final Map<String, Integer> categories = new TreeMap<>();
+        LocalDateTime first;
+        LocalDateTime last;
+        LocalDateTime peak;
+        double peakAqi = Double.NEGATIVE_INFINITY;
+        // Per-day means for the trend line: epoch day -> (sum, count)
+        final TreeMap<Long, double[]> dailyMeans = new TreeMap<>();
+        // The AQI on the EPA scale; only kept once a reading scored under another standard is
+        // added, since until then the fields above already are on that scale
+        EpaScale epaScale;
+
+        Summary(double compression) {
+            this.compression = compression;
+            aqiDigest = new TDigest(compression);
+            for (int p = 0; p < pollutants.length; p++) {
+                pollutants[p] = new RunningStats();
+            }
+        }
+
+        void add(AqiData reading) {
+            if (reading.getTimestamp() == null || reading.getAqiValue() == null) {
+                return;
+            }
+            int value = reading.getAqiValue();
+            boolean epaScored = AqiStandards.get(reading.getAqiStandard()) == AqiStandards.EPA;
+            if (!epaScored && epaScale == null) {
+                epaScale = new EpaScale(this);
+            }
+            if (epaScale != null) {
+                Integer epaValue = epaScored ? Integer.valueOf(value) : AqiStandards.epaAqi(reading);
+                if (epaValue != null) {
+                    epaScale.add(epaValue, reading.getTimestamp());
+                }
+            }
+            aqi.add(value);
+            aqiDigest.add(value);
+            addPollutant(Pollutant.PM25, reading.getPm25());
+            addPollutant(Pollutant.PM10, reading.getPm10());
+            addPollutant(Pollutant.NO2, reading.getNo2());
+            addPollutant(Pollutant.SO2, reading.getSo2());
+            addPollutant(Pollutant.CO, reading.getCo());
+            addPollutant(Pollutant.O3, reading.getO3());
+            categories.merge(AqiStandards.get(reading.getAqiStandard()).category(value), 1, Integer::sum);
+
+            LocalDateTime timestamp = reading.getTimestamp();
+            if (first == null || timestamp.isBefore(first)) first = timestamp;
+            if (last == null || timestamp.isAfter(last)) last = timestamp;
+            if (value > peakAqi) {
+                peakAqi = value;
+                peak = timestamp;
+            }
+            double[] day = dailyMeans.computeIfAbsent(timestamp.toLocalDate().toEpochDay(), d -> new double[2]);
+            day[0] += value;
+            day[1]++;
+        }
+
+        void merge(Summary other) {
+            if (epaScale != null || other.epaScale != null) {
+                if (epaScale == null) {
+                    epaScale = new EpaScale(this);
+                }
+                epaScale.merge(other.epaScale != null ? other.epaScale : new EpaScale(other));
+            }
+            aqi.merge(other.aqi);
+            aqiDigest.merge(other.aqiDigest);
+            for (int p = 0; p < pollutants.length; p++) {
+                pollutants[p].merge(other.pollutants[p]);
+            }
+            other.categories.forEach((category, count) -> categories.merge(category, count, Integer::sum));
+            if (other.first != null && (first == null || other.first.isBefore(first))) first = other.first;
+            if (other.last != null && (last == null || other.last.isAfter(last))) last = other.last;
+            if (other.peakAqi > peakAqi) {
+                peakAqi = other.peakAqi;
+                peak = other.peak;
+            }
+            other.dailyMeans.forEach((day, sums) -> {
+                double[] target = dailyMeans.computeIfAbsent(day, d -> new double[2]);
+                target[0] += sums[0];
+                target[1] += sums[1];
+            });
+        }
+
+        void compact() {
+            aqiDigest.compress();
+            if (epaScale != null) {
+                epaScale.digest.compress();
+            }
+        }
+
+        private void addPollutant(Pollutant pollutant, Double value) {
+            if (value != null) {
+                pollutants[pollutant.ordinal()].add(value);
+            }
+        }
+
+        Map<String, Object> toMap(boolean withDailyMeans) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("total_records", aqi.getCount());
+            if (aqi.getCount() == 0) {
+                return stats;
+            }
+            stats.put("avg_aqi", round(aqi.getMean()));
+            stats.put("max_aqi", (int) aqi.getMax());
+            stats.put("min_aqi", (int) aqi.getMin());
+            stats.put("std_aqi", round(aqi.getStandardDeviation()));
+
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", round(aqiDigest.quantile(0.50)));
+            percentiles.put("p90", round(aqiDigest.quantile(0.90)));
+            percentiles.put("p95", round(aqiDigest.quantile(0.95)));
+            percentiles.put("p99", round(aqiDigest.quantile(0.99)));
+            stats.put("percentiles", percentiles);
+
+            stats.put("start_date", first.format(DATE_FORMAT));
+            stats.put("end_date", last.format(DATE_FORMAT));
+            stats.put("duration_hours", round(ChronoUnit.SECONDS.between(first, last) / 3600.0));
+            stats.put("category_distribution", categories);
+
+            Map<String, Object> averages = new LinkedHashMap<>();
+            for (Pollutant pollutant : POLLUTANTS) {
+                RunningStats values = pollutants[pollutant.ordinal()];
+                averages.put(pollutant.getKey(), values.getCount() > 0 ? round(values.getMean()) : null);
+            }
+            stats.put("pollutant_averages", averages);
+            stats.put("peak_pollution_hour", peak.getHour());
+            stats.put("trend", trend());
+            if (withDailyMeans) {
+                Map<LocalDate, Double> means = new LinkedHashMap<>();
+                dailyMeans.forEach((day, sums) -> means.put(LocalDate.ofEpochDay(day), sums[0] / sums[1]));
+                stats.put("daily_means", means);
+
+                EpaScale epa = epaScale != null ? epaScale : new EpaScale(this);
+                Map<LocalDate, Double> epaMeans = new LinkedHashMap<>();
+                epa.dailyMeans.forEach((day, sums) -> epaMeans.put(LocalDate.ofEpochDay(day), sums[0] / sums[1]));
+                stats.put("epa_avg_aqi", epa.stats.getCount() > 0 ? round(epa.stats.getMean()) : null);
+                stats.put("epa_p95_aqi", epa.stats.getCount() > 0 ? round(epa.digest.quantile(0.95)) : null);
+                stats.put("epa_daily_means", epaMeans);
+            }
+            return stats;
+        }
+
+        // Least-squares slope of the daily means, in AQI per day
+        private String trend() {
+            if (dailyMeans.size() < 2) {
+                return "Insufficient data";
+            }
+            double n = dailyMeans.size();
+            double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+            long origin = dailyMeans.firstKey();
+            for (Map.Entry<Long, double[]> entry : dailyMeans.entrySet()) {
+                double x = entry.getKey() - origin;
+                double y = entry.getValue()[0] / entry.getValue()[1];
+                sumX += x;
+                sumY += y;
+                sumXY += x * y;
+                sumXX += x * x;
+            }
+            double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+            return slope > 0.5 ? "Increasing" : slope < -0.5 ? "Decreasing" : "Stable";
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+
+    // AQI stats, digest and daily means of a summary's readings re-scored to EPA
+    private static class EpaScale {
+        final RunningStats stats = new RunningStats();
+        final TDigest digest;
+        final TreeMap<Long, double[]> dailyMeans = new TreeMap<>();
+
+        // Starts from a summary whose readings were all EPA-scored
+        EpaScale(Summary summary) {
+            digest = new TDigest(summary.compression);
+            stats.merge(summary.aqi);
+            digest.merge(summary.aqiDigest);
+            summary.dailyMeans.forEach((day, sums) -> dailyMeans.put(day, sums.clone()));
+        }
+
+        void add(int value, LocalDateTime timestamp) {
+            stats.add(value);
+            digest.add(value);
+            double[] day = dailyMeans.computeIfAbsent(timestamp.toLocalDate().toEpochDay(), d -> new double[2]);
+            day[0] += value;
+            day[1]++;
+        }
+
+        void merge(EpaScale other) {
+            stats.merge(other.stats);
+            digest.merge(other.digest);
+            other.dailyMeans.forEach((day, sums) -> {
+                double[] target = dailyMeans.computeIfAbsent(day, d -> new double[2]);
+                target[0] += sums[0];
+                target[1] += sums[1];
+            });
+        }
+    }
+}
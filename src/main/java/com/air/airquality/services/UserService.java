@@ -1,10 +1,12 @@
 package com.air.airquality.services;
 
 import com.air.airquality.dto.UserRegistrationRequest;
+import com.air.airquality.event.CacheInvalidationEvent;
 import com.air.airquality.model.User;
 import com.air.airquality.repository.UserRepository;
 import com.air.airquality.validator.UserValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
@@ -29,6 +31,9 @@ public class UserService {
     @Autowired
     private UserValidator userValidator;
     
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(12); // Stronger encoding
     
     public User registerUser(UserRegistrationRequest request) {
@@ -111,8 +116,9 @@ public class UserService {
         
         User savedUser = userRepository.save(existingUser);
         
-        // Update cache
+        // Update cache here and drop the stale copy on other replicas
         cacheUser(savedUser);
+        cacheInvalidationBus.publish(CacheInvalidationEvent.USERS, userId);
         
         logger.info("Successfully updated user: {}", userId);
         return savedUser;
@@ -171,6 +177,7 @@ public class UserService {
                 if (removedUser != null) {
                     usernameCache.remove(removedUser.getUsername());
                 }
+                cacheInvalidationBus.publish(CacheInvalidationEvent.USERS, userId);
                 
                 logger.info("Successfully deleted user: {}", userId);
                 return true;
@@ -190,8 +197,29 @@ public class UserService {
     }
     
     public void clearCache() {
+        evictAll();
+        cacheInvalidationBus.publish(CacheInvalidationEvent.USERS, null);
+        logger.info("User cache cleared");
+    }
+    
+    // Changes made on other replicas
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isFor(CacheInvalidationEvent.USERS)) {
+            return;
+        }
+        if (event.isWholeCache()) {
+            evictAll();
+            return;
+        }
+        User removedUser = userCache.remove(Long.valueOf(event.getKey()));
+        if (removedUser != null) {
+            usernameCache.remove(removedUser.getUsername());
+        }
+    }
+    
+    private void evictAll() {
         userCache.clear();
         usernameCache.clear();
-        logger.info("User cache cleared");
     }
 }
\ No newline at end of file
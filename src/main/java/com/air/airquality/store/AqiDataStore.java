@@ -0,0 +1,23 @@
+package com.air.airquality.store;
+
+import com.air.airquality.model.AqiData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read path for raw readings. The JPA table stays the system of record; an engine
+ * may keep its own copy of the readings, laid out for fast per-city range scans.
+ */
+public interface AqiDataStore {
+
+    /**
+     * Readings for a city with start <= timestamp <= end, newest first
+     */
+    List<AqiData> findByCityAndTimestampBetween(String city, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Short engine name for status endpoints
+     */
+    String getEngine();
+}
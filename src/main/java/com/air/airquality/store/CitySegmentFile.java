@@ -0,0 +1,172 @@
+package com.air.airquality.store;
+
+import com.air.airquality.model.AqiData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One append-only segment file holding every reading of a city as a sequence of blocks.
+ *
+ * Reads go through a read-only memory mapping of the file plus an in-memory block index
+ * (offset and time range per block), both swapped atomically after each append, so scans
+ * never lock and only decode the blocks that overlap the requested range. Appends are
+ * serialized per file. A torn trailing block left by a crash is truncated on open.
+ */
+final class CitySegmentFile implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CitySegmentFile.class);
+
+    private final String city;
+    private final Path path;
+    private FileChannel channel;
+    private volatile View view;
+
+    CitySegmentFile(String city, Path path) throws IOException {
+        this.city = city;
+        this.path = path;
+        open();
+    }
+
+    String getCity() {
+        return city;
+    }
+
+    int getBlockCount() {
+        return view.blocks.size();
+    }
+
+    long getReadingCount() {
+        long total = 0;
+        for (SegmentBlockCodec.BlockRef block : view.blocks) {
+            total += block.count;
+        }
+        return total;
+    }
+
+    long getSizeBytes() {
+        return view.buffer.limit();
+    }
+
+    /**
+     * Appends readings in time order, as blocks of at most maxBlockReadings
+     */
+    synchronized void append(List<AqiData> readings, int maxBlockReadings) throws IOException {
+        if (readings.isEmpty()) {
+            return;
+        }
+        List<AqiData> sorted = new ArrayList<>(readings);
+        sorted.sort(Comparator.comparing(AqiData::getTimestamp));
+        long position = channel.size();
+        for (int from = 0; from < sorted.size(); from += maxBlockReadings) {
+            byte[] block = SegmentBlockCodec.encode(sorted.subList(from, Math.min(sorted.size(), from + maxBlockReadings)));
+            ByteBuffer source = ByteBuffer.wrap(block);
+            while (source.hasRemaining()) {
+                position += channel.write(source, position);
+            }
+        }
+        view = index(view.blocks);
+    }
+
+    /**
+     * Readings with start <= timestamp <= end, in no particular order
+     */
+    List<AqiData> scan(LocalDateTime start, LocalDateTime end) {
+        return scan(SegmentBlockCodec.toMicros(start), SegmentBlockCodec.toMicros(end));
+    }
+
+    private List<AqiData> scan(long from, long to) {
+        View current = view;
+        List<AqiData> result = new ArrayList<>();
+        for (SegmentBlockCodec.BlockRef block : current.blocks) {
+            if (!block.overlaps(from, to)) {
+                continue;
+            }
+            for (AqiData reading : SegmentBlockCodec.decode(current.buffer, block, city)) {
+                long micros = SegmentBlockCodec.toMicros(reading.getTimestamp());
+                if (micros >= from && micros <= to) {
+                    result.add(reading);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rewrites the file as full, time-ordered blocks, dropping readings older than retainAfter
+     */
+    synchronized void compact(LocalDateTime retainAfter, int maxBlockReadings) throws IOException {
+        List<AqiData> retained = scan(SegmentBlockCodec.toMicros(retainAfter), Long.MAX_VALUE);
+        retained.sort(Comparator.comparing(AqiData::getTimestamp));
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int from = 0; from < retained.size(); from += maxBlockReadings) {
+                ByteBuffer source = ByteBuffer.wrap(SegmentBlockCodec.encode(
+                        retained.subList(from, Math.min(retained.size(), from + maxBlockReadings))));
+                while (source.hasRemaining()) {
+                    out.write(source);
+                }
+            }
+            out.force(true);
+        }
+        // Existing mappings stay valid after the swap, so in-flight scans are unaffected
+        channel.close();
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        view = index(Collections.emptyList());
+    }
+
+    // Maps the current file and indexes any blocks past the already known ones
+    private View index(List<SegmentBlockCodec.BlockRef> known) throws IOException {
+        long size = channel.size();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        List<SegmentBlockCodec.BlockRef> blocks = new ArrayList<>(known);
+        int offset = blocks.isEmpty() ? 0 : blocks.get(blocks.size() - 1).end();
+        SegmentBlockCodec.BlockRef block;
+        while ((block = SegmentBlockCodec.readHeader(buffer, offset)) != null) {
+            blocks.add(block);
+            offset = block.end();
+        }
+        if (offset < size) {
+            logger.warn("Truncating {} trailing bytes of incomplete block in {}", size - offset, path);
+            channel.truncate(offset);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, offset);
+        }
+        return new View(buffer, Collections.unmodifiableList(blocks));
+    }
+
+    private static final class View {
+        final MappedByteBuffer buffer;
+        final List<SegmentBlockCodec.BlockRef> blocks;
+
+        View(MappedByteBuffer buffer, List<SegmentBlockCodec.BlockRef> blocks) {
+            this.buffer = buffer;
+            this.blocks = blocks;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.air.airquality.store;
+
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Default engine: range scans go straight to aqi_data over the (city, timestamp) index
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaAqiDataStore implements AqiDataStore {
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Override
+    public List<AqiData> findByCityAndTimestampBetween(String city, LocalDateTime start, LocalDateTime end) {
+        return aqiDataRepository.findByCityAndTimestampBetween(city, start, end);
+    }
+
+    @Override
+    public String getEngine() {
+        return "jpa";
+    }
+}
@@ -0,0 +1,249 @@
+package com.air.airquality.store;
+
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.services.AqiStandardService;
+import com.air.airquality.util.AqiStandard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded engine: one append-only, memory-mapped segment file per city (see CitySegmentFile
+ * and SegmentBlockCodec for the layout). New readings arrive through ingestion events.
+ *
+ * On first start the files are backfilled from aqi_data up to the highest id present at
+ * startup; readings ingested meanwhile are appended by the event listener, and range scans
+ * fall back to JPA until the backfill is done. After that the files only follow this node's
+ * own ingestion, never aqi_data itself, so the engine refuses to start when sharding spreads
+ * ingestion across replicas. Readings older than the retention window are never served, as
+ * the retention job or a partition drop has removed them from the table.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.engine", havingValue = "segment")
+public class SegmentAqiDataStore implements AqiDataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentAqiDataStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String BACKFILL_MARKER = "backfill.done";
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AqiStandardService aqiStandardService;
+
+    @Value("${app.storage.segment.directory:./data/segments}")
+    private String directory;
+
+    // Readings per block when backfilling or compacting
+    @Value("${app.storage.segment.block-size:4096}")
+    private int blockSize;
+
+    // Compact a city file once it has accumulated this many blocks
+    @Value("${app.storage.segment.compact-threshold:256}")
+    private int compactThreshold;
+
+    @Value("${app.storage.segment.retention-days:1095}")
+    private int retentionDays;
+
+    @Value("${app.cluster.sharding.enabled:true}")
+    private boolean shardingEnabled;
+
+    private final Map<String, CitySegmentFile> segments = new ConcurrentHashMap<>();
+
+    private Path root;
+    private volatile boolean ready = false;
+    private volatile boolean invalidated = false;
+    private long backfillWatermark;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (shardingEnabled) {
+            throw new IllegalStateException("app.storage.engine=segment is single-node only: other replicas' "
+                    + "readings never reach the local files. Set app.cluster.sharding.enabled=false or use the jpa engine");
+        }
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+        if (Files.exists(root.resolve(BACKFILL_MARKER))) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String city = URLDecoder.decode(name.substring(0, name.length() - SEGMENT_SUFFIX.length()),
+                            StandardCharsets.UTF_8);
+                    segments.put(city, new CitySegmentFile(city, file));
+                }
+            }
+            ready = true;
+            logger.info("Opened {} city segment files from {}", segments.size(), root.toAbsolutePath());
+        } else {
+            // Incomplete or missing backfill: start over from the table
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM aqi_data", Long.class);
+            backfillWatermark = maxId != null ? maxId : 0L;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (CitySegmentFile segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Error closing segment for {}: {}", segment.getCity(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!ready) {
+            Thread backfillThread = new Thread(this::backfill, "aqi-segment-backfill");
+            backfillThread.setDaemon(true);
+            backfillThread.start();
+        }
+    }
+
+    @EventListener
+    public void onAqiDataIngested(AqiDataIngestedEvent event) {
+        Map<String, List<AqiData>> byCity = new LinkedHashMap<>();
+        for (AqiData reading : event.getReadings()) {
+            if (reading.getCity() != null && reading.getTimestamp() != null) {
+                byCity.computeIfAbsent(reading.getCity(), city -> new ArrayList<>()).add(reading);
+            }
+        }
+        for (Map.Entry<String, List<AqiData>> entry : byCity.entrySet()) {
+            try {
+                CitySegmentFile segment = segmentFor(entry.getKey());
+                segment.append(entry.getValue(), blockSize);
+                if (segment.getBlockCount() > compactThreshold) {
+                    segment.compact(LocalDateTime.now().minusDays(retentionDays), blockSize);
+                }
+            } catch (IOException e) {
+                invalidate("append for " + entry.getKey() + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public List<AqiData> findByCityAndTimestampBetween(String city, LocalDateTime start, LocalDateTime end) {
+        if (!ready) {
+            return aqiDataRepository.findByCityAndTimestampBetween(city, start, end);
+        }
+        CitySegmentFile segment = segments.get(city);
+        if (segment == null) {
+            return new ArrayList<>();
+        }
+        // Files are compacted lazily; anything past retention is already gone from the table
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<AqiData> readings = segment.scan(start.isBefore(cutoff) ? cutoff : start, end);
+        // Blocks keep only concentrations; sub-indices follow the city's current standard
+        AqiStandard standard = aqiStandardService.standardFor(city);
+        for (AqiData reading : readings) {
+            standard.score(reading);
+        }
+        readings.sort(Comparator.comparing(AqiData::getTimestamp).reversed());
+        return readings;
+    }
+
+    @Override
+    public String getEngine() {
+        return ready ? "segment" : "segment (backfilling, served by jpa)";
+    }
+
+    private void backfill() {
+        long started = System.currentTimeMillis();
+        long total = 0;
+        try {
+            List<String> cities = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT city FROM aqi_data WHERE id <= ?", String.class, backfillWatermark);
+            for (String city : cities) {
+                List<AqiData> readings = jdbcTemplate.query(
+                        "SELECT city, aqi_value, pm25, pm10, no2, so2, co, o3, timestamp FROM aqi_data " +
+                        "WHERE city = ? AND id <= ? ORDER BY timestamp",
+                        (rs, rowNum) -> {
+                            AqiData reading = new AqiData();
+                            reading.setCity(rs.getString("city"));
+                            reading.setAqiValue(rs.getInt("aqi_value"));
+                            reading.setPm25(rs.getObject("pm25", Double.class));
+                            reading.setPm10(rs.getObject("pm10", Double.class));
+                            reading.setNo2(rs.getObject("no2", Double.class));
+                            reading.setSo2(rs.getObject("so2", Double.class));
+                            reading.setCo(rs.getObject("co", Double.class));
+                            reading.setO3(rs.getObject("o3", Double.class));
+                            reading.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+                            return reading;
+                        },
+                        city, backfillWatermark);
+                segmentFor(city).append(readings, blockSize);
+                total += readings.size();
+            }
+            if (invalidated) {
+                return;
+            }
+            Files.writeString(root.resolve(BACKFILL_MARKER), String.valueOf(backfillWatermark));
+            ready = true;
+            logger.info("Segment store backfilled {} readings for {} cities in {} ms",
+                    total, cities.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("Segment store backfill failed, historical reads stay on JPA: {}", e.getMessage(), e);
+        }
+    }
+
+    private CitySegmentFile segmentFor(String city) throws IOException {
+        CitySegmentFile segment = segments.get(city);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (segments) {
+            segment = segments.get(city);
+            if (segment == null) {
+                Path file = root.resolve(URLEncoder.encode(city, StandardCharsets.UTF_8) + SEGMENT_SUFFIX);
+                segment = new CitySegmentFile(city, file);
+                segments.put(city, segment);
+            }
+            return segment;
+        }
+    }
+
+    // The files no longer mirror the table: serve from JPA and rebuild on next start
+    private void invalidate(String reason) {
+        invalidated = true;
+        ready = false;
+        logger.error("Segment store disabled until restart: {}", reason);
+        try {
+            Files.deleteIfExists(root.resolve(BACKFILL_MARKER));
+        } catch (IOException e) {
+            logger.warn("Could not remove backfill marker: {}", e.getMessage());
+        }
+    }
+}
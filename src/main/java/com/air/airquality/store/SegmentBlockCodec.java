@@ -0,0 +1,363 @@
+package com.air.airquality.store;
+
+import com.air.airquality.model.AqiData;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes a run of readings (oldest first) as one self-describing block:
+ *
+ *   header: magic, count, min/max timestamp (epoch micros, UTC), compressed and raw payload length
+ *   payload (deflated): timestamp deltas, AQI deltas, then one column per pollutant
+ *
+ * A pollutant column is a presence bitmap followed by the present values, either as
+ * zig-zag deltas of the value scaled to its decimal precision (when every value in the
+ * block has at most four decimals) or as XOR of consecutive IEEE-754 bit patterns.
+ * Both forms are lossless.
+ */
+final class SegmentBlockCodec {
+
+    static final int MAGIC = 0x41514931; // "AQI1"
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private static final int MODE_EMPTY = 0;
+    private static final int MODE_SCALED = 1;
+    private static final int MODE_XOR = 2;
+    private static final int MAX_SCALE_DIGITS = 4;
+
+    private static final List<Function<AqiData, Double>> POLLUTANT_GETTERS = List.of(
+            AqiData::getPm25, AqiData::getPm10, AqiData::getNo2, AqiData::getSo2, AqiData::getCo, AqiData::getO3);
+    private static final List<BiConsumer<AqiData, Double>> POLLUTANT_SETTERS = List.of(
+            AqiData::setPm25, AqiData::setPm10, AqiData::setNo2, AqiData::setSo2, AqiData::setCo, AqiData::setO3);
+
+    private SegmentBlockCodec() {}
+
+    /**
+     * Encodes readings that are already sorted by timestamp, oldest first
+     */
+    static byte[] encode(List<AqiData> readings) {
+        int count = readings.size();
+        long[] micros = new long[count];
+        for (int i = 0; i < count; i++) {
+            micros[i] = toMicros(readings.get(i).getTimestamp());
+        }
+
+        ByteWriter out = new ByteWriter(count * 24 + 16);
+        long previous = micros[0];
+        for (long value : micros) {
+            out.writeVarLong(value - previous);
+            previous = value;
+        }
+        long previousAqi = 0;
+        for (AqiData reading : readings) {
+            long aqi = reading.getAqiValue() != null ? reading.getAqiValue() : 0;
+            out.writeVarLong(zigZag(aqi - previousAqi));
+            previousAqi = aqi;
+        }
+        for (Function<AqiData, Double> getter : POLLUTANT_GETTERS) {
+            Double[] column = new Double[count];
+            for (int i = 0; i < count; i++) {
+                column[i] = getter.apply(readings.get(i));
+            }
+            encodeColumn(out, column);
+        }
+
+        byte[] raw = out.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed;
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteWriter packed = new ByteWriter(raw.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                packed.write(chunk, length);
+            }
+            compressed = packed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(HEADER_SIZE + compressed.length);
+        block.putInt(MAGIC).putInt(count).putLong(micros[0]).putLong(micros[count - 1])
+                .putInt(compressed.length).putInt(raw.length).put(compressed);
+        return block.array();
+    }
+
+    /**
+     * Reads the header at the given offset, or returns null if no complete block starts there
+     */
+    static BlockRef readHeader(ByteBuffer buffer, int offset) {
+        if (offset + HEADER_SIZE > buffer.limit() || buffer.getInt(offset) != MAGIC) {
+            return null;
+        }
+        BlockRef ref = new BlockRef(offset, buffer.getInt(offset + 4), buffer.getLong(offset + 8),
+                buffer.getLong(offset + 16), buffer.getInt(offset + 24), buffer.getInt(offset + 28));
+        if (ref.count <= 0 || ref.compressedLength < 0 || ref.end() > buffer.limit()) {
+            return null;
+        }
+        return ref;
+    }
+
+    /**
+     * Decodes every reading of a block, oldest first
+     */
+    static List<AqiData> decode(ByteBuffer buffer, BlockRef ref, String city) {
+        byte[] raw = new byte[ref.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(ref.offset + HEADER_SIZE, ref.compressedLength));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt segment block at offset " + ref.offset, e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteReader in = new ByteReader(raw);
+        int count = ref.count;
+        List<AqiData> readings = new ArrayList<>(count);
+        long micros = ref.minMicros;
+        for (int i = 0; i < count; i++) {
+            micros += in.readVarLong();
+            AqiData reading = new AqiData();
+            reading.setCity(city);
+            reading.setSource(null);
+            reading.setTimestamp(fromMicros(micros));
+            readings.add(reading);
+        }
+        long aqi = 0;
+        for (AqiData reading : readings) {
+            aqi += unZigZag(in.readVarLong());
+            reading.setAqiValue((int) aqi);
+        }
+        for (BiConsumer<AqiData, Double> setter : POLLUTANT_SETTERS) {
+            Double[] column = decodeColumn(in, count);
+            for (int i = 0; i < count; i++) {
+                setter.accept(readings.get(i), column[i]);
+            }
+        }
+        return readings;
+    }
+
+    static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void encodeColumn(ByteWriter out, Double[] column) {
+        byte[] presence = new byte[(column.length + 7) / 8];
+        int present = 0;
+        for (int i = 0; i < column.length; i++) {
+            if (column[i] != null) {
+                presence[i >> 3] |= (byte) (1 << (i & 7));
+                present++;
+            }
+        }
+        if (present == 0) {
+            out.writeByte(MODE_EMPTY);
+            return;
+        }
+
+        int scaleDigits = detectScale(column);
+        out.writeByte(scaleDigits >= 0 ? MODE_SCALED : MODE_XOR);
+        out.write(presence, presence.length);
+        if (scaleDigits >= 0) {
+            out.writeByte(scaleDigits);
+            double scale = Math.pow(10, scaleDigits);
+            long previous = 0;
+            for (Double value : column) {
+                if (value != null) {
+                    long scaled = Math.round(value * scale);
+                    out.writeVarLong(zigZag(scaled - previous));
+                    previous = scaled;
+                }
+            }
+        } else {
+            long previous = 0;
+            for (Double value : column) {
+                if (value != null) {
+                    long bits = Double.doubleToRawLongBits(value);
+                    out.writeVarLong(bits ^ previous);
+                    previous = bits;
+                }
+            }
+        }
+    }
+
+    private static Double[] decodeColumn(ByteReader in, int count) {
+        Double[] column = new Double[count];
+        int mode = in.readByte();
+        if (mode == MODE_EMPTY) {
+            return column;
+        }
+        byte[] presence = in.readBytes((count + 7) / 8);
+        if (mode == MODE_SCALED) {
+            double scale = Math.pow(10, in.readByte());
+            long scaled = 0;
+            for (int i = 0; i < count; i++) {
+                if ((presence[i >> 3] & (1 << (i & 7))) != 0) {
+                    scaled += unZigZag(in.readVarLong());
+                    column[i] = scaled / scale;
+                }
+            }
+        } else {
+            long bits = 0;
+            for (int i = 0; i < count; i++) {
+                if ((presence[i >> 3] & (1 << (i & 7))) != 0) {
+                    bits ^= in.readVarLong();
+                    column[i] = Double.longBitsToDouble(bits);
+                }
+            }
+        }
+        return column;
+    }
+
+    // Smallest number of decimals (0..4) at which every value survives scale-and-round exactly, or -1
+    private static int detectScale(Double[] column) {
+        for (int digits = 0; digits <= MAX_SCALE_DIGITS; digits++) {
+            double scale = Math.pow(10, digits);
+            boolean exact = true;
+            for (Double value : column) {
+                if (value != null) {
+                    double scaled = value * scale;
+                    if (Double.isNaN(scaled) || Math.abs(scaled) > (1L << 52)
+                            || Math.round(scaled) / scale != value
+                            || Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(-0.0)) {
+                        exact = false;
+                        break;
+                    }
+                }
+            }
+            if (exact) {
+                return digits;
+            }
+        }
+        return -1;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Location and summary of one block inside a segment file
+    static final class BlockRef {
+        final int offset;
+        final int count;
+        final long minMicros;
+        final long maxMicros;
+        final int compressedLength;
+        final int rawLength;
+
+        BlockRef(int offset, int count, long minMicros, long maxMicros, int compressedLength, int rawLength) {
+            this.offset = offset;
+            this.count = count;
+            this.minMicros = minMicros;
+            this.maxMicros = maxMicros;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+        }
+
+        int end() {
+            return offset + HEADER_SIZE + compressedLength;
+        }
+
+        boolean overlaps(long fromMicros, long toMicros) {
+            return maxMicros >= fromMicros && minMicros <= toMicros;
+        }
+    }
+
+    private static final class ByteWriter {
+        private byte[] bytes;
+        private int size;
+
+        ByteWriter(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void write(byte[] source, int length) {
+            ensure(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        // Unsigned LEB128
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class ByteReader {
+        private final byte[] bytes;
+        private int position;
+
+        ByteReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        byte[] readBytes(int length) {
+            byte[] result = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return result;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+    }
+}
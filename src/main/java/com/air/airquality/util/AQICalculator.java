@@ -1,157 +1,119 @@
 package com.air.airquality.util;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Arrays;
+import com.air.airquality.model.AqiData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Optimized AQI Calculator using lookup tables and caching for better performance
+ * US EPA AQI engine: one sub-index per pollutant, the overall AQI being the highest.
+ *
+ * The breakpoint tables live in {@link AqiStandards#EPA}; this class keeps the static entry
+ * points used across the application, and the pollutant keys shared by every standard.
+ * Readings scored under another standard go through {@link AqiStandard} directly.
  */
 public class AQICalculator {
-    
-    // Cache for calculated AQI values to avoid recomputation
-    private static final ConcurrentHashMap<String, Integer> aqiCache = new ConcurrentHashMap<>();
-    
-    // AQI breakpoint tables for O(1) lookup instead of multiple if-else chains
-    private static final double[][] PM25_BREAKPOINTS = {
-        {0.0, 12.0, 0, 50},
-        {12.1, 35.4, 51, 100},
-        {35.5, 55.4, 101, 150},
-        {55.5, 150.4, 151, 200},
-        {150.5, 250.4, 201, 300},
-        {250.5, 350.4, 301, 400},
-        {350.5, 500.4, 401, 500}
-    };
-    
-    private static final double[][] PM10_BREAKPOINTS = {
-        {0, 54, 0, 50},
-        {55, 154, 51, 100},
-        {155, 254, 101, 150},
-        {255, 354, 151, 200},
-        {355, 424, 201, 300},
-        {425, 504, 301, 400},
-        {505, 604, 401, 500}
-    };
-    
-    public static int calculateAQI(Double pm25, Double pm10, Double no2, Double so2, Double co, Double o3) {
-        // Create cache key for memoization
-        String cacheKey = String.format("%.2f,%.2f,%.2f,%.2f,%.2f,%.2f", 
-            pm25, pm10, no2, so2, co, o3);
-        
-        return aqiCache.computeIfAbsent(cacheKey, key -> {
-            // Calculate all AQI values in parallel using streams
-            int[] aqiValues = {
-                calculatePM25AQI(pm25),
-                calculatePM10AQI(pm10),
-                calculateNO2AQI(no2),
-                calculateSO2AQI(so2),
-                calculateCOAQI(co),
-                calculateO3AQI(o3)
-            };
-            
-            // Return maximum using optimized approach
-            return Arrays.stream(aqiValues).max().orElse(0);
-        });
-    }
-    
-    private static int calculatePM25AQI(Double pm25) {
-        if (pm25 == null || pm25 < 0) return 0;
-        return calculateAQIFromBreakpoints(pm25, PM25_BREAKPOINTS);
-    }
-    
-    private static int calculatePM10AQI(Double pm10) {
-        if (pm10 == null || pm10 < 0) return 0;
-        return calculateAQIFromBreakpoints(pm10, PM10_BREAKPOINTS);
-    }
-    
-    private static int calculateNO2AQI(Double no2) {
-        if (no2 == null || no2 < 0) return 0;
-        
-        // Convert μg/m³ to ppb with optimized calculation
-        double no2ppb = no2 * 0.53;
-        
-        return calculateLinearAQI(no2ppb, new double[]{53, 100, 360, 649, 1249, 2049}, 
-                                 new int[]{50, 100, 150, 200, 300, 400, 500});
-    }
-    
-    private static int calculateSO2AQI(Double so2) {
-        if (so2 == null || so2 < 0) return 0;
-        
-        double so2ppb = so2 * 0.38;
-        
-        return calculateLinearAQI(so2ppb, new double[]{35, 75, 185, 304, 604, 1004}, 
-                                 new int[]{50, 100, 150, 200, 300, 400, 500});
-    }
-    
-    private static int calculateCOAQI(Double co) {
-        if (co == null || co < 0) return 0;
-        
-        double coppm = co * 0.87;
-        
-        return calculateLinearAQI(coppm, new double[]{4.4, 9.4, 12.4, 15.4, 30.4, 40.4}, 
-                                 new int[]{50, 100, 150, 200, 300, 400, 500});
+
+    private AQICalculator() {}
+
+    // Highest index on the scale; concentrations beyond the last breakpoint map here
+    public static final int MAX_AQI = 500;
+
+    public enum Pollutant {
+        PM25("pm25", "PM2.5"),
+        PM10("pm10", "PM10"),
+        NO2("no2", "NO2"),
+        SO2("so2", "SO2"),
+        CO("co", "CO"),
+        O3("o3", "O3");
+
+        private static final Pollutant[] ALL = values();
+
+        private final String key;
+        private final String label;
+
+        Pollutant(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        public String getKey() { return key; }
+        public String getLabel() { return label; }
+
+        /**
+         * EPA sub-index for a concentration in the ingestion unit, or -1 when there is no reading
+         */
+        public int subIndex(Double concentration) {
+            return AqiStandards.EPA.subIndex(this, concentration);
+        }
+
+        public static Pollutant fromKey(String key) {
+            for (Pollutant pollutant : ALL) {
+                if (pollutant.key.equalsIgnoreCase(key)) {
+                    return pollutant;
+                }
+            }
+            return null;
+        }
     }
-    
-    private static int calculateO3AQI(Double o3) {
-        if (o3 == null || o3 < 0) return 0;
-        
-        double o3ppb = o3 * 0.51;
-        
-        return calculateLinearAQI(o3ppb, new double[]{54, 70, 85, 105, 200, 300}, 
-                                 new int[]{50, 100, 150, 200, 300, 400, 500});
+
+    /**
+     * Overall AQI from the concentrations; pollutants without a reading are skipped, and
+     * 0 is returned when none has one
+     */
+    public static int calculateAQI(Double pm25, Double pm10, Double no2, Double so2, Double co, Double o3) {
+        int aqi = Math.max(Pollutant.PM25.subIndex(pm25), Pollutant.PM10.subIndex(pm10));
+        aqi = Math.max(aqi, Pollutant.NO2.subIndex(no2));
+        aqi = Math.max(aqi, Pollutant.SO2.subIndex(so2));
+        aqi = Math.max(aqi, Pollutant.CO.subIndex(co));
+        aqi = Math.max(aqi, Pollutant.O3.subIndex(o3));
+        return Math.max(aqi, 0);
     }
-    
+
     /**
-     * Optimized method to calculate AQI from breakpoint table using binary search
+     * Computes the six EPA sub-indices of the reading in one pass and stores them with the
+     * dominant pollutant; the reading's AQI becomes the highest sub-index. A reading with no
+     * pollutant values keeps its AQI and gets no sub-indices.
+     *
+     * @return true when at least one sub-index was computed
      */
-    private static int calculateAQIFromBreakpoints(double concentration, double[][] breakpoints) {
-        for (double[] breakpoint : breakpoints) {
-            if (concentration >= breakpoint[0] && concentration <= breakpoint[1]) {
-                return (int) Math.round(
-                    ((breakpoint[3] - breakpoint[2]) / (breakpoint[1] - breakpoint[0])) 
-                    * (concentration - breakpoint[0]) + breakpoint[2]
-                );
-            }
-        }
-        return 500; // Hazardous level if above all breakpoints
+    public static boolean score(AqiData data) {
+        return AqiStandards.EPA.score(data);
     }
-    
+
     /**
-     * Linear interpolation for AQI calculation - more efficient than multiple if-else
+     * Stores the EPA sub-indices and dominant pollutant without touching the reading's AQI
+     *
+     * @return the highest sub-index, or -1 when the reading has no pollutant values
      */
-    private static int calculateLinearAQI(double value, double[] thresholds, int[] aqiValues) {
-        for (int i = 0; i < thresholds.length; i++) {
-            if (value <= thresholds[i]) {
-                if (i == 0) {
-                    return (int) Math.round(value * aqiValues[i] / thresholds[i]);
-                } else {
-                    double prevThreshold = (i > 0) ? thresholds[i - 1] : 0;
-                    int prevAQI = (i > 0) ? aqiValues[i - 1] : 0;
-                    
-                    return (int) Math.round(prevAQI + 
-                           (value - prevThreshold) * (aqiValues[i] - prevAQI) / 
-                           (thresholds[i] - prevThreshold));
-                }
-            }
-        }
-        return 500; // Maximum AQI
+    public static int fillSubIndices(AqiData data) {
+        return AqiStandards.EPA.fillSubIndices(data);
     }
-    
+
     /**
-     * Get AQI category with O(1) lookup
+     * The stored sub-indices of a reading keyed by pollutant, skipping those without a value
      */
-    public static String getAqiCategory(int aqi) {
-        if (aqi <= 50) return "Good";
-        if (aqi <= 100) return "Moderate"; 
-        if (aqi <= 150) return "Unhealthy for Sensitive Groups";
-        if (aqi <= 200) return "Unhealthy";
-        if (aqi <= 300) return "Very Unhealthy";
-        return "Hazardous";
+    public static Map<String, Integer> subIndices(AqiData data) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        putIfPresent(result, Pollutant.PM25, data.getAqiPm25());
+        putIfPresent(result, Pollutant.PM10, data.getAqiPm10());
+        putIfPresent(result, Pollutant.NO2, data.getAqiNo2());
+        putIfPresent(result, Pollutant.SO2, data.getAqiSo2());
+        putIfPresent(result, Pollutant.CO, data.getAqiCo());
+        putIfPresent(result, Pollutant.O3, data.getAqiO3());
+        return result;
     }
-    
+
     /**
-     * Clear cache when needed (for memory management)
+     * EPA category of an AQI value
      */
-    public static void clearCache() {
-        aqiCache.clear();
+    public static String getAqiCategory(int aqi) {
+        return AqiStandards.EPA.category(aqi);
+    }
+
+    private static void putIfPresent(Map<String, Integer> result, Pollutant pollutant, Integer value) {
+        if (value != null) {
+            result.put(pollutant.key, value);
+        }
     }
 }
@@ -0,0 +1,291 @@
+package com.air.airquality.util;
+
+import com.air.airquality.model.AqiData;
+import com.air.airquality.util.AQICalculator.Pollutant;
+
+import java.util.Arrays;
+
+/**
+ * One national air quality index, compiled into flat lookup tables.
+ *
+ * Breakpoints are declared in the standard's own units and converted once, at build time,
+ * to the units readings are ingested in (µg/m³, CO in mg/m³), so a lookup is a short scan of
+ * a double[] with no unit arithmetic. All pollutants share one bounds array and one index
+ * array; {@code offsets[p]} marks where pollutant p's segments start. A segment starts where
+ * the previous one ends, so the index is continuous in the concentration. Past the last
+ * breakpoint the top segment is extended up to the standard's ceiling (for scales like CAQI
+ * that report values above their last bound) and capped there.
+ */
+public final class AqiStandard {
+
+    private static final int POLLUTANTS = Pollutant.values().length;
+
+    private final String id;
+    private final String version;
+    private final String name;
+    private final int maxIndex;
+
+    private final double[] bounds;
+    private final double[] indexAt;
+    private final int[] offsets;
+
+    private final int[] categoryUpper;
+    private final String[] categoryNames;
+    private final String[] categoryDescriptions;
+
+    private AqiStandard(Builder builder) {
+        this.id = builder.id;
+        this.version = builder.version;
+        this.name = builder.name;
+        this.maxIndex = builder.maxIndex;
+        this.offsets = new int[POLLUTANTS + 1];
+        int total = 0;
+        for (int p = 0; p < POLLUTANTS; p++) {
+            offsets[p] = total;
+            total += builder.pollutantBounds[p] != null ? builder.pollutantBounds[p].length : 0;
+        }
+        offsets[POLLUTANTS] = total;
+        this.bounds = new double[total];
+        this.indexAt = new double[total];
+        for (int p = 0; p < POLLUTANTS; p++) {
+            double[] declared = builder.pollutantBounds[p];
+            if (declared == null) {
+                continue;
+            }
+            for (int i = 0; i < declared.length; i++) {
+                bounds[offsets[p] + i] = declared[i] / builder.unitFactors[p];
+                indexAt[offsets[p] + i] = builder.indexBounds[i];
+            }
+        }
+        this.categoryUpper = builder.categoryUpper;
+        this.categoryNames = builder.categoryNames;
+        this.categoryDescriptions = builder.categoryDescriptions;
+    }
+
+    public static Builder builder(String id, String version, String name) {
+        return new Builder(id, version, name);
+    }
+
+    // Stored with each scored reading, e.g. "EPA-2012"
+    public String getKey() { return id + "-" + version; }
+    public String getId() { return id; }
+    public String getVersion() { return version; }
+    public String getName() { return name; }
+    public int getMaxIndex() { return maxIndex; }
+
+    public boolean covers(Pollutant pollutant) {
+        return offsets[pollutant.ordinal() + 1] > offsets[pollutant.ordinal()];
+    }
+
+    /**
+     * Sub-index for a concentration in ingestion units; -1 when there is no reading or the
+     * standard doesn't rate the pollutant
+     */
+    public int subIndex(Pollutant pollutant, double concentration) {
+        int p = pollutant.ordinal();
+        int from = offsets[p];
+        int to = offsets[p + 1];
+        // NaN (missing) fails this comparison too
+        if (!(concentration >= 0) || from == to) {
+            return -1;
+        }
+        double lowConcentration = 0;
+        double lowIndex = 0;
+        for (int i = from; i < to; i++) {
+            if (concentration <= bounds[i]) {
+                return (int) Math.round(lowIndex + (concentration - lowConcentration) * (indexAt[i] - lowIndex)
+                        / (bounds[i] - lowConcentration));
+            }
+            lowConcentration = bounds[i];
+            lowIndex = indexAt[i];
+        }
+        double slope = to - from > 1
+                ? (indexAt[to - 1] - indexAt[to - 2]) / (bounds[to - 1] - bounds[to - 2])
+                : indexAt[to - 1] / bounds[to - 1];
+        return (int) Math.min(maxIndex, Math.round(lowIndex + (concentration - lowConcentration) * slope));
+    }
+
+    public int subIndex(Pollutant pollutant, Double concentration) {
+        return concentration != null ? subIndex(pollutant, concentration.doubleValue()) : -1;
+    }
+
+    /**
+     * Scores the reading under this standard: stores the sub-indices, dominant pollutant and
+     * standard key, and makes the AQI the highest sub-index. A reading with no rated
+     * pollutant keeps its AQI.
+     *
+     * @return true when at least one sub-index was computed
+     */
+    public boolean score(AqiData data) {
+        int highest = fillSubIndices(data);
+        if (highest >= 0) {
+            data.setAqiValue(highest);
+        }
+        data.setAqiStandard(getKey());
+        return highest >= 0;
+    }
+
+    /**
+     * Stores the sub-indices and dominant pollutant without touching the reading's AQI
+     *
+     * @return the highest sub-index, or -1 when no pollutant could be rated
+     */
+    public int fillSubIndices(AqiData data) {
+        int pm25 = subIndex(Pollutant.PM25, data.getPm25());
+        int pm10 = subIndex(Pollutant.PM10, data.getPm10());
+        int no2 = subIndex(Pollutant.NO2, data.getNo2());
+        int so2 = subIndex(Pollutant.SO2, data.getSo2());
+        int co = subIndex(Pollutant.CO, data.getCo());
+        int o3 = subIndex(Pollutant.O3, data.getO3());
+
+        data.setAqiPm25(orNull(pm25));
+        data.setAqiPm10(orNull(pm10));
+        data.setAqiNo2(orNull(no2));
+        data.setAqiSo2(orNull(so2));
+        data.setAqiCo(orNull(co));
+        data.setAqiO3(orNull(o3));
+
+        // Ties go to the pollutant listed first (PM2.5 before PM10, and so on)
+        Pollutant dominant = pm25 >= 0 ? Pollutant.PM25 : null;
+        int highest = pm25;
+        if (pm10 > highest) { highest = pm10; dominant = Pollutant.PM10; }
+        if (no2 > highest) { highest = no2; dominant = Pollutant.NO2; }
+        if (so2 > highest) { highest = so2; dominant = Pollutant.SO2; }
+        if (co > highest) { highest = co; dominant = Pollutant.CO; }
+        if (o3 > highest) { highest = o3; dominant = Pollutant.O3; }
+
+        data.setDominantPollutant(dominant != null ? dominant.getKey() : null);
+        return highest;
+    }
+
+    /**
+     * Column-at-a-time sub-indices for a batch: {@code concentrations[p][i]} is pollutant p of
+     * row i (NaN when missing) and {@code subIndices[p][i]} receives its sub-index or -1. Only
+     * rows with {@code selected[i]} set are written; the others belong to another standard.
+     */
+    public void subIndices(double[][] concentrations, int count, boolean[] selected, int[][] subIndices) {
+        for (int p = 0; p < POLLUTANTS; p++) {
+            Pollutant pollutant = Pollutant.values()[p];
+            double[] column = concentrations[p];
+            int[] out = subIndices[p];
+            for (int i = 0; i < count; i++) {
+                if (selected[i]) {
+                    out[i] = subIndex(pollutant, column[i]);
+                }
+            }
+        }
+    }
+
+    public String category(int index) {
+        return categoryNames[categoryOf(index)];
+    }
+
+    public String description(int index) {
+        return categoryDescriptions[categoryOf(index)];
+    }
+
+    // Position of the index's category, 0 for the cleanest
+    public int categoryLevel(int index) {
+        return categoryOf(index);
+    }
+
+    public String[] getCategoryNames() {
+        return categoryNames.clone();
+    }
+
+    public int[] getCategoryUpperBounds() {
+        return categoryUpper.clone();
+    }
+
+    private int categoryOf(int index) {
+        for (int i = 0; i < categoryUpper.length; i++) {
+            if (index <= categoryUpper[i]) {
+                return i;
+            }
+        }
+        return categoryUpper.length;
+    }
+
+    private static Integer orNull(int subIndex) {
+        return subIndex >= 0 ? subIndex : null;
+    }
+
+    public static class Builder {
+        private final String id;
+        private final String version;
+        private final String name;
+        private int maxIndex;
+        private double[] indexBounds;
+        private final double[][] pollutantBounds = new double[POLLUTANTS][];
+        private final double[] unitFactors = new double[POLLUTANTS];
+        private int[] categoryUpper = new int[0];
+        private String[] categoryNames;
+        private String[] categoryDescriptions;
+
+        private Builder(String id, String version, String name) {
+            this.id = id;
+            this.version = version;
+            this.name = name;
+        }
+
+        /**
+         * Index value at the upper end of each segment; the last one is the top of the scale
+         * unless a higher ceiling is set
+         */
+        public Builder indexBounds(double... indexBounds) {
+            this.indexBounds = indexBounds;
+            this.maxIndex = (int) indexBounds[indexBounds.length - 1];
+            return this;
+        }
+
+        /**
+         * Highest reported index, reached by extending the top segment past the last breakpoint
+         */
+        public Builder ceiling(int maxIndex) {
+            this.maxIndex = maxIndex;
+            return this;
+        }
+
+        /**
+         * Segment upper bounds in the standard's unit; unitFactor converts an ingested value
+         * to that unit (e.g. 0.53 for NO2 µg/m³ to ppb)
+         */
+        public Builder pollutant(Pollutant pollutant, double unitFactor, double... upperBounds) {
+            if (indexBounds == null || upperBounds.length > indexBounds.length) {
+                throw new IllegalArgumentException(id + ": more " + pollutant.getKey() + " breakpoints than index bounds");
+            }
+            for (int i = 1; i < upperBounds.length; i++) {
+                if (upperBounds[i] <= upperBounds[i - 1]) {
+                    throw new IllegalArgumentException(id + ": " + pollutant.getKey() + " breakpoints must increase");
+                }
+            }
+            pollutantBounds[pollutant.ordinal()] = upperBounds.clone();
+            unitFactors[pollutant.ordinal()] = unitFactor;
+            return this;
+        }
+
+        /**
+         * Category names with their descriptions; upper bounds has one entry less, the last
+         * category being open-ended
+         */
+        public Builder categories(int[] upperBounds, String[] names, String[] descriptions) {
+            if (names.length != upperBounds.length + 1 || descriptions.length != names.length) {
+                throw new IllegalArgumentException(id + ": need one more category name than bound");
+            }
+            this.categoryUpper = upperBounds.clone();
+            this.categoryNames = names.clone();
+            this.categoryDescriptions = descriptions.clone();
+            return this;
+        }
+
+        public AqiStandard build() {
+            if (indexBounds == null || categoryNames == null) {
+                throw new IllegalStateException(id + ": index bounds and categories are required");
+            }
+            if (Arrays.stream(pollutantBounds).allMatch(b -> b == null)) {
+                throw new IllegalStateException(id + ": no pollutant breakpoints");
+            }
+            return new AqiStandard(this);
+        }
+    }
+}
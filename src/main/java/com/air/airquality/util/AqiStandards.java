@@ -0,0 +1,128 @@
+package com.air.airquality.util;
+
+import com.air.airquality.model.AqiData;
+import com.air.airquality.util.AQICalculator.Pollutant;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AQI standards the application can score readings with, compiled once at class load.
+ *
+ * Breakpoints follow the published tables: US EPA (2012 PM2.5 revision), India's National
+ * AQI (CPCB, 2014) and the European CAQI hourly background index. NAQI uses 24-hour and
+ * 8-hour averaging periods in its definition; like EPA here, it is applied to the
+ * concentrations as ingested.
+ */
+public final class AqiStandards {
+
+    private AqiStandards() {}
+
+    public static final AqiStandard EPA = AqiStandard.builder("EPA", "2012", "US EPA Air Quality Index")
+            .indexBounds(50, 100, 150, 200, 300, 400, 500)
+            .pollutant(Pollutant.PM25, 1.0, 12.0, 35.4, 55.4, 150.4, 250.4, 350.4, 500.4)
+            .pollutant(Pollutant.PM10, 1.0, 54, 154, 254, 354, 424, 504, 604)
+            // Gases in ppb (CO in ppm), converted from µg/m³ (mg/m³) at 25 °C
+            .pollutant(Pollutant.NO2, 0.53, 53, 100, 360, 649, 1249, 1649, 2049)
+            .pollutant(Pollutant.SO2, 0.38, 35, 75, 185, 304, 604, 804, 1004)
+            .pollutant(Pollutant.CO, 0.87, 4.4, 9.4, 12.4, 15.4, 30.4, 40.4, 50.4)
+            .pollutant(Pollutant.O3, 0.51, 54, 70, 85, 105, 200, 300)
+            .categories(new int[] {50, 100, 150, 200, 300},
+                    new String[] {"Good", "Moderate", "Unhealthy for Sensitive Groups", "Unhealthy",
+                            "Very Unhealthy", "Hazardous"},
+                    new String[] {
+                            "Air quality is good. Ideal for outdoor activities.",
+                            "Air quality is acceptable for most people.",
+                            "Sensitive groups may experience minor issues.",
+                            "Everyone may experience health effects.",
+                            "Health alert: everyone may experience serious effects.",
+                            "Health warning: emergency conditions affect everyone."})
+            .build();
+
+    public static final AqiStandard NAQI = AqiStandard.builder("NAQI", "2014", "India National Air Quality Index")
+            .indexBounds(50, 100, 200, 300, 400, 500)
+            .pollutant(Pollutant.PM25, 1.0, 30, 60, 90, 120, 250, 380)
+            .pollutant(Pollutant.PM10, 1.0, 50, 100, 250, 350, 430, 510)
+            .pollutant(Pollutant.NO2, 1.0, 40, 80, 180, 280, 400, 800)
+            .pollutant(Pollutant.SO2, 1.0, 40, 80, 380, 800, 1600, 2400)
+            .pollutant(Pollutant.CO, 1.0, 1.0, 2.0, 10, 17, 34, 50)
+            .pollutant(Pollutant.O3, 1.0, 50, 100, 168, 208, 748, 1000)
+            .categories(new int[] {50, 100, 200, 300, 400},
+                    new String[] {"Good", "Satisfactory", "Moderate", "Poor", "Very Poor", "Severe"},
+                    new String[] {
+                            "Minimal impact.",
+                            "May cause minor breathing discomfort to sensitive people.",
+                            "May cause breathing discomfort to people with lung disease such as asthma, and discomfort to people with heart disease, children and older adults.",
+                            "May cause breathing discomfort to people on prolonged exposure, and discomfort to people with heart disease.",
+                            "May cause respiratory illness to people on prolonged exposure. Effect may be more pronounced in people with lung and heart diseases.",
+                            "May cause respiratory issues in healthy people, and serious health impacts on people with lung or heart disease."})
+            .build();
+
+    public static final AqiStandard CAQI = AqiStandard.builder("CAQI", "2012", "European Common Air Quality Index (hourly)")
+            .indexBounds(25, 50, 75, 100)
+            // Values above 100 are reported as "Very high" rather than clipped
+            .ceiling(200)
+            .pollutant(Pollutant.PM25, 1.0, 15, 30, 55, 110)
+            .pollutant(Pollutant.PM10, 1.0, 25, 50, 90, 180)
+            .pollutant(Pollutant.NO2, 1.0, 50, 100, 200, 400)
+            .pollutant(Pollutant.SO2, 1.0, 50, 100, 350, 500)
+            // CAQI rates CO in µg/m³; readings arrive in mg/m³
+            .pollutant(Pollutant.CO, 1000.0, 5000, 7500, 10000, 20000)
+            .pollutant(Pollutant.O3, 1.0, 60, 120, 180, 240)
+            .categories(new int[] {25, 50, 75, 100},
+                    new String[] {"Very low", "Low", "Medium", "High", "Very high"},
+                    new String[] {
+                            "Air pollution is very low.",
+                            "Air pollution is low.",
+                            "Air pollution is medium; sensitive people may notice effects.",
+                            "Air pollution is high; sensitive people should reduce outdoor activity.",
+                            "Air pollution is very high; everyone should reduce outdoor activity."})
+            .build();
+
+    private static final Map<String, AqiStandard> BY_ID;
+
+    static {
+        Map<String, AqiStandard> byId = new LinkedHashMap<>();
+        for (AqiStandard standard : new AqiStandard[] {EPA, NAQI, CAQI}) {
+            byId.put(standard.getId(), standard);
+            byId.put(standard.getKey(), standard);
+        }
+        BY_ID = Collections.unmodifiableMap(byId);
+    }
+
+    /**
+     * Standard by id ("NAQI") or versioned key ("NAQI-2014"), ignoring case; EPA when the id
+     * is null or unknown
+     */
+    public static AqiStandard get(String id) {
+        AqiStandard standard = find(id);
+        return standard != null ? standard : EPA;
+    }
+
+    /**
+     * Standard by id or versioned key, or null when there is none
+     */
+    public static AqiStandard find(String id) {
+        return id != null ? BY_ID.get(id.trim().toUpperCase()) : null;
+    }
+
+    /**
+     * The reading's AQI on the EPA scale: as stored when it was EPA-scored, otherwise
+     * recomputed from its concentrations (null when it has none)
+     */
+    public static Integer epaAqi(AqiData data) {
+        if (get(data.getAqiStandard()) == EPA) {
+            return data.getAqiValue();
+        }
+        int aqi = AQICalculator.calculateAQI(data.getPm25(), data.getPm10(), data.getNo2(),
+                data.getSo2(), data.getCo(), data.getO3());
+        return aqi > 0 ? aqi : null;
+    }
+
+    public static Collection<AqiStandard> all() {
+        return List.of(EPA, NAQI, CAQI);
+    }
+}
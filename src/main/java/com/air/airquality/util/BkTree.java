@@ -0,0 +1,140 @@
+package com.air.airquality.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BK-tree over strings under Levenshtein distance, for "every term within distance d" queries.
+ *
+ * Each child hangs off its parent at their exact distance, so by the triangle inequality a
+ * query only descends into children whose edge lies within [distance - d, distance + d];
+ * for short city names and d <= 2 that is a small fraction of the tree. Children are kept
+ * in concurrent maps, so lookups can run while terms are added (adds are serialized).
+ */
+public class BkTree {
+
+    private volatile Node root;
+
+    private int size;
+
+    /**
+     * Adds the term; returns false if it is already present
+     */
+    public synchronized boolean add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = levenshtein(term, node.term, Integer.MAX_VALUE);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns all terms within maxDistance of the query, in no particular order
+     */
+    public List<String> search(String query, int maxDistance) {
+        List<String> matches = new ArrayList<>();
+        Node start = root;
+        if (start == null) {
+            return matches;
+        }
+        List<Node> pending = new ArrayList<>();
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = levenshtein(query, node.term, Integer.MAX_VALUE);
+            if (distance <= maxDistance) {
+                matches.add(node.term);
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.add(child.getValue());
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Levenshtein distance with two rolling rows; gives up early (returning limit + 1) once
+     * every cell of a row exceeds the limit
+     */
+    public static int levenshtein(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Optimal string alignment distance: Levenshtein plus adjacent transpositions, so "dehli"
+     * is one edit from "delhi". Not a metric, so it only ranks candidates the tree returned.
+     */
+    public static int transpositionDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static class Node {
+        final String term;
+        final Map<Integer, Node> children = new ConcurrentHashMap<>();
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.air.airquality.util;
+
+import java.awt.Color;
+
+/**
+ * The few drawing primitives the charts need, so one drawing routine in {@link ChartRenderer}
+ * produces both raster (PNG) and vector (SVG) output. Coordinates are pixels from the top left.
+ */
+public interface ChartCanvas {
+
+    enum Align { LEFT, CENTER, RIGHT }
+
+    int getWidth();
+
+    int getHeight();
+
+    void fillRect(double x, double y, double width, double height, Color color, float alpha);
+
+    void strokeRect(double x, double y, double width, double height, Color color, float lineWidth);
+
+    void line(double x1, double y1, double x2, double y2, Color color, float lineWidth, float alpha);
+
+    // Connected line through the first count points
+    void polyline(double[] xs, double[] ys, int count, Color color, float lineWidth, float alpha);
+
+    void fillCircle(double cx, double cy, double radius, Color color, float alpha);
+
+    // Pie slice; angles in degrees, counter-clockwise from 3 o'clock
+    void fillWedge(double cx, double cy, double radius, double startAngle, double extent, Color color, Color edge);
+
+    // Text whose baseline starts (LEFT), centres (CENTER) or ends (RIGHT) at x
+    void text(String text, double x, double y, float size, boolean bold, Color color, Align align);
+
+    // Text rotated 90 degrees counter-clockwise, centred on (x, y), for vertical axis titles
+    void verticalText(String text, double x, double y, float size, Color color);
+}
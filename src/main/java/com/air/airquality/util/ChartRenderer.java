@@ -0,0 +1,239 @@
+package com.air.airquality.util;
+
+import com.air.airquality.util.ChartCanvas.Align;
+
+import java.awt.Color;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Draws the analytics charts (AQI trend, bar charts, pie) onto a {@link ChartCanvas}, in the
+ * dark palette the dashboard and the former matplotlib charts use. Rendering is pure
+ * computation over arrays, so a chart costs milliseconds instead of a Python process.
+ */
+public final class ChartRenderer {
+
+    public static final Color BACKGROUND = Color.decode("#0f0f23");
+    public static final Color PLOT_BACKGROUND = Color.decode("#1a1a2e");
+    public static final Color LINE = Color.decode("#54a0ff");
+
+    // Category colours from the best band to the worst
+    private static final Color[] CATEGORY_COLORS = {
+            Color.decode("#00ff88"), Color.decode("#ffff00"), Color.decode("#ff8800"),
+            Color.decode("#ff0000"), Color.decode("#8800ff"), Color.decode("#880000")
+    };
+
+    private static final int MARGIN_LEFT = 80;
+    private static final int MARGIN_RIGHT = 30;
+    private static final int MARGIN_TOP = 60;
+    private static final int MARGIN_BOTTOM = 80;
+    private static final int Y_TICKS = 6;
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("MM-dd");
+    private static final DateTimeFormatter DAY_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm");
+
+    private ChartRenderer() {
+    }
+
+    /**
+     * Colour of the i-th category (0 = best); scales with fewer categories use the first ones
+     */
+    public static Color categoryColor(int index) {
+        return CATEGORY_COLORS[Math.max(0, Math.min(index, CATEGORY_COLORS.length - 1))];
+    }
+
+    /**
+     * AQI line over time with points coloured by category and the category bands shaded behind.
+     * times are epoch seconds (UTC-based LocalDateTime), ascending.
+     */
+    public static void trend(ChartCanvas canvas, String title, double[] times, double[] aqi, int count,
+                             int[] categoryUpper) {
+        frame(canvas, title);
+        double yMax = niceCeiling(Math.max(max(aqi, count), 50));
+        double xMin = times[0];
+        double xMax = count > 1 ? times[count - 1] : times[0] + 3600;
+        Plot plot = new Plot(canvas, xMin, xMax, 0, yMax);
+
+        // Category bands behind the data
+        double lower = 0;
+        for (int c = 0; c < categoryUpper.length && lower < yMax; c++) {
+            double upper = Math.min(categoryUpper[c], yMax);
+            plot.band(lower, upper, categoryColor(c));
+            lower = categoryUpper[c];
+        }
+        plot.yAxis(yMax, false);
+        timeAxis(plot, xMin, xMax);
+
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = plot.x(times[i]);
+            ys[i] = plot.y(aqi[i]);
+        }
+        canvas.polyline(xs, ys, count, LINE, 3f, 0.8f);
+        // Markers only while they stay distinguishable
+        if (count <= 400) {
+            for (int i = 0; i < count; i++) {
+                canvas.fillCircle(xs[i], ys[i], 3.5, categoryColor(categoryIndex(aqi[i], categoryUpper)), 0.8f);
+            }
+        }
+        axisTitles(canvas, plot, "Time", "AQI Value");
+    }
+
+    /**
+     * Vertical bars with their values printed on top; labels may contain '\n'
+     */
+    public static void bars(ChartCanvas canvas, String title, String xTitle, String yTitle,
+                            String[] labels, double[] values, Color[] colors, boolean wholeNumbers) {
+        frame(canvas, title);
+        double yMax = niceCeiling(Math.max(max(values, values.length), 1) * 1.08);
+        Plot plot = new Plot(canvas, 0, labels.length, 0, yMax);
+        plot.yAxis(yMax, true);
+
+        double slot = plot.width / labels.length;
+        for (int i = 0; i < labels.length; i++) {
+            double left = plot.left + slot * (i + 0.1);
+            double top = plot.y(values[i]);
+            if (values[i] > 0) {
+                canvas.fillRect(left, top, slot * 0.8, plot.bottom - top, colors[i % colors.length], 0.8f);
+                canvas.strokeRect(left, top, slot * 0.8, plot.bottom - top, Color.WHITE, 1f);
+                String value = wholeNumbers ? String.valueOf(Math.round(values[i])) : String.format("%.1f", values[i]);
+                canvas.text(value, left + slot * 0.4, top - 6, 12, true, Color.WHITE, Align.CENTER);
+            }
+            String[] lines = labels[i].split("\n");
+            for (int line = 0; line < lines.length; line++) {
+                canvas.text(lines[line], left + slot * 0.4, plot.bottom + 20 + line * 15, 12, false, Color.WHITE, Align.CENTER);
+            }
+        }
+        axisTitles(canvas, plot, xTitle, yTitle);
+    }
+
+    /**
+     * Pie of the non-zero values, starting at 12 o'clock, with percentages on the slices
+     */
+    public static void pie(ChartCanvas canvas, String title, String[] labels, double[] values, Color[] colors) {
+        canvas.fillRect(0, 0, canvas.getWidth(), canvas.getHeight(), BACKGROUND, 1f);
+        canvas.text(title, canvas.getWidth() / 2.0, 40, 20, true, Color.WHITE, Align.CENTER);
+        double total = 0;
+        for (double value : values) {
+            total += Math.max(0, value);
+        }
+        if (total <= 0) {
+            return;
+        }
+        double cx = canvas.getWidth() / 2.0;
+        double cy = (canvas.getHeight() + 60) / 2.0;
+        double radius = Math.min(canvas.getWidth(), canvas.getHeight() - 60) * 0.32;
+        double angle = 90;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] <= 0) {
+                continue;
+            }
+            // Clockwise like matplotlib's counterclock=False from 90 degrees
+            double extent = -360 * values[i] / total;
+            canvas.fillWedge(cx, cy, radius, angle, extent, colors[i % colors.length], BACKGROUND);
+            double middle = Math.toRadians(angle + extent / 2);
+            double cos = Math.cos(middle), sin = Math.sin(middle);
+            canvas.text(String.format("%.1f%%", 100 * values[i] / total),
+                    cx + radius * 0.6 * cos, cy - radius * 0.6 * sin + 5, 13, true, Color.BLACK, Align.CENTER);
+            canvas.text(labels[i], cx + radius * 1.1 * cos, cy - radius * 1.1 * sin + 5, 13, false, Color.WHITE,
+                    Math.abs(cos) < 0.2 ? Align.CENTER : cos > 0 ? Align.LEFT : Align.RIGHT);
+            angle += extent;
+        }
+    }
+
+    private static void frame(ChartCanvas canvas, String title) {
+        canvas.fillRect(0, 0, canvas.getWidth(), canvas.getHeight(), BACKGROUND, 1f);
+        canvas.fillRect(MARGIN_LEFT, MARGIN_TOP, canvas.getWidth() - MARGIN_LEFT - MARGIN_RIGHT,
+                canvas.getHeight() - MARGIN_TOP - MARGIN_BOTTOM, PLOT_BACKGROUND, 1f);
+        canvas.text(title, canvas.getWidth() / 2.0, 38, 20, true, Color.WHITE, Align.CENTER);
+    }
+
+    private static void axisTitles(ChartCanvas canvas, Plot plot, String xTitle, String yTitle) {
+        canvas.text(xTitle, plot.left + plot.width / 2, canvas.getHeight() - 18, 14, false, Color.WHITE, Align.CENTER);
+        canvas.verticalText(yTitle, 22, plot.top + plot.height / 2, 14, Color.WHITE);
+    }
+
+    private static void timeAxis(Plot plot, double xMin, double xMax) {
+        DateTimeFormatter format = xMax - xMin > 3 * 86400 ? DAY : DAY_TIME;
+        int ticks = 6;
+        for (int i = 0; i <= ticks; i++) {
+            double t = xMin + (xMax - xMin) * i / ticks;
+            double x = plot.x(t);
+            plot.canvas.line(x, plot.top, x, plot.bottom, Color.WHITE, 1f, 0.15f);
+            String label = LocalDateTime.ofEpochSecond((long) t, 0, ZoneOffset.UTC).format(format);
+            plot.canvas.text(label, x, plot.bottom + 22, 12, false, Color.WHITE, Align.CENTER);
+        }
+    }
+
+    private static int categoryIndex(double aqi, int[] categoryUpper) {
+        for (int c = 0; c < categoryUpper.length; c++) {
+            if (aqi <= categoryUpper[c]) {
+                return c;
+            }
+        }
+        return categoryUpper.length - 1;
+    }
+
+    private static double max(double[] values, int count) {
+        double max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    // Smallest 1, 2 or 5 times a power of ten, times the tick count, that covers the value
+    private static double niceCeiling(double value) {
+        double rawStep = value / (Y_TICKS - 1);
+        double magnitude = Math.pow(10, Math.floor(Math.log10(rawStep)));
+        double step = rawStep / magnitude <= 1 ? magnitude
+                : rawStep / magnitude <= 2 ? 2 * magnitude
+                : rawStep / magnitude <= 5 ? 5 * magnitude : 10 * magnitude;
+        return step * (Y_TICKS - 1);
+    }
+
+    // Data-to-pixel mapping of the plot area
+    private static class Plot {
+        final ChartCanvas canvas;
+        final double left, top, width, height, bottom;
+        final double xMin, xSpan, yMin, ySpan;
+
+        Plot(ChartCanvas canvas, double xMin, double xMax, double yMin, double yMax) {
+            this.canvas = canvas;
+            left = MARGIN_LEFT;
+            top = MARGIN_TOP;
+            width = canvas.getWidth() - MARGIN_LEFT - MARGIN_RIGHT;
+            height = canvas.getHeight() - MARGIN_TOP - MARGIN_BOTTOM;
+            bottom = top + height;
+            this.xMin = xMin;
+            this.xSpan = Math.max(xMax - xMin, 1e-9);
+            this.yMin = yMin;
+            this.ySpan = Math.max(yMax - yMin, 1e-9);
+        }
+
+        double x(double value) {
+            return left + (value - xMin) / xSpan * width;
+        }
+
+        double y(double value) {
+            return bottom - (value - yMin) / ySpan * height;
+        }
+
+        void band(double from, double to, Color color) {
+            canvas.fillRect(left, y(to), width, y(from) - y(to), color, 0.1f);
+        }
+
+        void yAxis(double yMax, boolean decimals) {
+            for (int i = 0; i < Y_TICKS; i++) {
+                double value = yMax * i / (Y_TICKS - 1);
+                double y = y(value);
+                canvas.line(left, y, left + width, y, Color.WHITE, 1f, 0.3f);
+                String label = decimals && value != Math.rint(value) ? String.format("%.1f", value)
+                        : String.valueOf(Math.round(value));
+                canvas.text(label, left - 8, y + 4, 12, false, Color.WHITE, Align.RIGHT);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.air.airquality.util;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reference coordinates for the built-in cities (sample, fallback and seeded data), used
+ * to place cities whose readings came without coordinates from the upstream API
+ */
+public class CityCoordinates {
+
+    private static final Map<String, double[]> COORDINATES = Map.ofEntries(
+            Map.entry("delhi", new double[] {28.6139, 77.2090}),
+            Map.entry("mumbai", new double[] {19.0760, 72.8777}),
+            Map.entry("bangalore", new double[] {12.9716, 77.5946}),
+            Map.entry("chennai", new double[] {13.0827, 80.2707}),
+            Map.entry("kolkata", new double[] {22.5726, 88.3639}),
+            Map.entry("hyderabad", new double[] {17.3850, 78.4867}),
+            Map.entry("pune", new double[] {18.5204, 73.8567}),
+            Map.entry("jaipur", new double[] {26.9124, 75.7873}),
+            Map.entry("lucknow", new double[] {26.8467, 80.9462}),
+            Map.entry("kanpur", new double[] {26.4499, 80.3319}),
+            Map.entry("ahmedabad", new double[] {23.0225, 72.5714}),
+            Map.entry("nagpur", new double[] {21.1458, 79.0882}),
+            Map.entry("new york", new double[] {40.7128, -74.0060}),
+            Map.entry("london", new double[] {51.5074, -0.1278}),
+            Map.entry("paris", new double[] {48.8566, 2.3522}),
+            Map.entry("tokyo", new double[] {35.6762, 139.6503}),
+            Map.entry("beijing", new double[] {39.9042, 116.4074}),
+            Map.entry("sydney", new double[] {-33.8688, 151.2093}),
+            Map.entry("singapore", new double[] {1.3521, 103.8198}),
+            Map.entry("dubai", new double[] {25.2048, 55.2708})
+    );
+
+    private CityCoordinates() {}
+
+    /**
+     * {latitude, longitude} of a built-in city
+     */
+    public static Optional<double[]> lookup(String city) {
+        double[] coordinates = city != null ? COORDINATES.get(CityNames.matchKey(city)) : null;
+        return Optional.ofNullable(coordinates).map(double[]::clone);
+    }
+
+    public static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+}
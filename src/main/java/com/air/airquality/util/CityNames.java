@@ -0,0 +1,35 @@
+package com.air.airquality.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * City name normalization shared by controllers and services
+ */
+public class CityNames {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-_.,]+");
+
+    private CityNames() {}
+
+    /**
+     * Display form used as the cache and database key: trimmed, single spaces, each word capitalized
+     */
+    public static String normalize(String city) {
+        return Arrays.stream(WHITESPACE.split(city.toLowerCase(Locale.ROOT).trim()))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1))
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Matching form for lookups: lower case, with hyphens, underscores, dots and commas read as spaces
+     * ("new-york" and "New  York" give the same key)
+     */
+    public static String matchKey(String city) {
+        return SEPARATORS.matcher(city.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
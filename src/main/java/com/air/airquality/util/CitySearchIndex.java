@@ -0,0 +1,235 @@
+package com.air.airquality.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory typeahead index over city names.
+ *
+ * Prefix matches come from a binary search over the sorted lower-cased names; infix matches
+ * come from n-gram postings (every 1-3 character substring maps to the names containing it),
+ * so a query never scans the full list. Results are ranked by match quality - name prefix,
+ * then word prefix, then anywhere - and then by popularity, keeping only the top k.
+ *
+ * The searchable data is an immutable snapshot replaced on each add (copy-on-write), so
+ * lookups take no locks; adds only touch the postings of the new name's n-grams.
+ */
+public class CitySearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new String[0], Map.of(), Map.of());
+
+    private final Map<String, LongAdder> popularity = new ConcurrentHashMap<>();
+
+    private volatile long version = 0;
+
+    public CitySearchIndex() {
+    }
+
+    public CitySearchIndex(Collection<String> cities) {
+        addAll(cities);
+    }
+
+    /**
+     * Adds cities not yet indexed; names differing only in case or spacing count as one city
+     *
+     * @return number of cities added
+     */
+    public synchronized int addAll(Collection<String> cities) {
+        Snapshot current = snapshot;
+        Map<String, String> added = new HashMap<>();
+        for (String city : cities) {
+            if (city == null || city.isBlank()) {
+                continue;
+            }
+            String key = normalize(city);
+            if (Arrays.binarySearch(current.keys, key) < 0) {
+                added.putIfAbsent(key, city.trim());
+            }
+        }
+        if (!added.isEmpty()) {
+            snapshot = current.with(added);
+            version++;
+        }
+        return added.size();
+    }
+
+    public boolean add(String city) {
+        return !contains(city) && addAll(List.of(city)) > 0;
+    }
+
+    public boolean contains(String city) {
+        return city != null && Arrays.binarySearch(snapshot.keys, normalize(city)) >= 0;
+    }
+
+    // Changes whenever the indexed cities do, so callers can tell a changed set from one of equal size
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return snapshot.keys.length;
+    }
+
+    // Display names in case-insensitive alphabetical order
+    public List<String> getCities() {
+        return Collections.unmodifiableList(Arrays.asList(snapshot.names));
+    }
+
+    public void addPopularity(String city, long delta) {
+        popularity.computeIfAbsent(normalize(city), key -> new LongAdder()).add(delta);
+    }
+
+    public long getPopularity(String city) {
+        LongAdder counter = popularity.get(normalize(city));
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Returns up to limit cities containing the query, best matches first
+     */
+    public List<String> search(String query, int limit) {
+        String q = query != null ? normalize(query) : "";
+        Snapshot current = snapshot;
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Match.ORDER.reversed());
+
+        // Prefix tier: contiguous range of the sorted keys
+        int from = Arrays.binarySearch(current.keys, q);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        for (int i = from; i < current.keys.length && current.keys[i].startsWith(q); i++) {
+            offer(best, new Match(current.names[i], 0, popularityOf(current.keys[i])), limit);
+        }
+
+        // Infix tiers: candidates from the rarest n-gram of the query, verified with contains
+        for (String key : candidates(current, q)) {
+            if (!key.startsWith(q) && key.contains(q)) {
+                int tier = key.contains(" " + q) ? 1 : 2;
+                offer(best, new Match(current.nameByKey.get(key), tier, popularityOf(key)), limit);
+            }
+        }
+
+        List<String> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().name);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public static String normalize(String city) {
+        return CityNames.matchKey(city);
+    }
+
+    private long popularityOf(String key) {
+        LongAdder counter = popularity.get(key);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    private static String[] candidates(Snapshot current, String q) {
+        if (q.length() <= MAX_GRAM) {
+            return current.postings.getOrDefault(q, new String[0]);
+        }
+        String[] rarest = null;
+        for (int i = 0; i + MAX_GRAM <= q.length(); i++) {
+            String[] postings = current.postings.get(q.substring(i, i + MAX_GRAM));
+            if (postings == null) {
+                return new String[0];
+            }
+            if (rarest == null || postings.length < rarest.length) {
+                rarest = postings;
+            }
+        }
+        return rarest;
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (Match.ORDER.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    private static class Match {
+        // Better matches sort first: lower tier, then more popular, then alphabetical
+        static final Comparator<Match> ORDER = Comparator.<Match>comparingInt(m -> m.tier)
+                .thenComparing(m -> -m.popularity)
+                .thenComparing(m -> m.name, String.CASE_INSENSITIVE_ORDER);
+
+        final String name;
+        final int tier;
+        final long popularity;
+
+        Match(String name, int tier, long popularity) {
+            this.name = name;
+            this.tier = tier;
+            this.popularity = popularity;
+        }
+    }
+
+    private static class Snapshot {
+        final String[] keys;
+        final String[] names;
+        final Map<String, String> nameByKey;
+        final Map<String, String[]> postings;
+
+        Snapshot(String[] keys, String[] names, Map<String, String> nameByKey, Map<String, String[]> postings) {
+            this.keys = keys;
+            this.names = names;
+            this.nameByKey = nameByKey;
+            this.postings = postings;
+        }
+
+        // New snapshot with the added keys merged in; untouched postings arrays are shared
+        Snapshot with(Map<String, String> added) {
+            Map<String, String> mergedNames = new HashMap<>(nameByKey);
+            mergedNames.putAll(added);
+
+            String[] mergedKeys = mergedNames.keySet().toArray(new String[0]);
+            Arrays.sort(mergedKeys);
+            String[] mergedDisplay = new String[mergedKeys.length];
+            for (int i = 0; i < mergedKeys.length; i++) {
+                mergedDisplay[i] = mergedNames.get(mergedKeys[i]);
+            }
+
+            Map<String, List<String>> newPostings = new HashMap<>();
+            for (String key : added.keySet()) {
+                for (int length = 1; length <= MAX_GRAM; length++) {
+                    for (int i = 0; i + length <= key.length(); i++) {
+                        List<String> list = newPostings.computeIfAbsent(key.substring(i, i + length), g -> new ArrayList<>());
+                        if (list.isEmpty() || !list.get(list.size() - 1).equals(key)) {
+                            list.add(key);
+                        }
+                    }
+                }
+            }
+            Map<String, String[]> mergedPostings = new HashMap<>(postings);
+            for (Map.Entry<String, List<String>> entry : newPostings.entrySet()) {
+                String[] existing = mergedPostings.getOrDefault(entry.getKey(), new String[0]);
+                String[] merged = Arrays.copyOf(existing, existing.length + entry.getValue().size());
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    merged[existing.length + i] = entry.getValue().get(i);
+                }
+                mergedPostings.put(entry.getKey(), merged);
+            }
+            return new Snapshot(mergedKeys, mergedDisplay, mergedNames, mergedPostings);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.air.airquality.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping keys (city names) to nodes.
+ *
+ * Each node is placed on the ring at several virtual points so shards stay even with few
+ * nodes; a key belongs to the first point at or after its hash. When a node joins or leaves,
+ * only the keys between its points and their predecessors move, roughly 1/N of all keys.
+ * Hashes come from MD5 so every replica builds the same ring from the same member list.
+ */
+public class ConsistentHashRing {
+
+    private final Set<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes per member must be positive");
+        }
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+
+        long[][] entries = new long[this.nodes.size() * virtualNodes][];
+        String[] members = this.nodes.toArray(new String[0]);
+        int count = 0;
+        for (int member = 0; member < members.length; member++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                entries[count++] = new long[] {hash(members[member] + "#" + replica), member};
+            }
+        }
+        // Sort by point; ties (practically impossible) are broken by member name order
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        this.points = new long[count];
+        this.owners = new String[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = entries[i][0];
+            owners[i] = members[(int) entries[i][1]];
+        }
+    }
+
+    /**
+     * Returns the node that owns the key, or null if the ring has no nodes
+     */
+    public String nodeFor(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    // First 8 bytes of MD5: well spread and identical on every JVM, unlike String.hashCode
+    private static long hash(String value) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,117 @@
+package com.air.airquality.util;
+
+/**
+ * Online anomaly detector for one series in constant space: an exponentially weighted
+ * mean and variance, and the z-score of each new value against them.
+ *
+ * Until warmUp values have been seen the weights fall back to a plain running mean and
+ * nothing is flagged. After that a value more than threshold deviations above (below) the
+ * mean is a spike (drop). Values that are impossible (out of range), implausibly far out
+ * (sensorErrorThreshold) or repeated unchanged stuckCount times are reported as sensor errors.
+ * Flagged values enter the baseline clamped to the threshold, so one spike neither drags the
+ * mean nor widens the band enough to hide the next one.
+ */
+public class EwmaAnomalyDetector {
+
+    public enum Kind { NONE, SPIKE, DROP, SENSOR_ERROR }
+
+    private final double alpha;
+    private final double threshold;
+    private final double sensorErrorThreshold;
+    private final int warmUp;
+    private final int stuckCount;
+    private final double minDeviation;
+    private final double maxValue;
+
+    private long count;
+    private double mean;
+    private double variance;
+    private double lastValue = Double.NaN;
+    private int repeats;
+
+    // Outcome of the last update, for reporting
+    private double lastZScore = Double.NaN;
+    private double lastExpected = Double.NaN;
+    private String lastReason;
+
+    /**
+     * @param minDeviation floor of the deviation used for z-scores, so a very steady series
+     *                     does not flag ordinary noise
+     * @param maxValue     largest valid value; above it (or below zero) is a sensor error
+     */
+    public EwmaAnomalyDetector(double alpha, double threshold, double sensorErrorThreshold, int warmUp,
+                               int stuckCount, double minDeviation, double maxValue) {
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.sensorErrorThreshold = sensorErrorThreshold;
+        this.warmUp = warmUp;
+        this.stuckCount = stuckCount;
+        this.minDeviation = minDeviation;
+        this.maxValue = maxValue;
+    }
+
+    public Kind update(double value) {
+        lastExpected = count > 0 ? mean : Double.NaN;
+        lastZScore = Double.NaN;
+        lastReason = null;
+        if (Double.isNaN(value) || value < 0 || value > maxValue) {
+            // Not folded into the baseline
+            lastReason = "Value out of range";
+            return Kind.SENSOR_ERROR;
+        }
+
+        repeats = value == lastValue ? repeats + 1 : 0;
+        lastValue = value;
+
+        Kind kind = Kind.NONE;
+        double deviation = Math.max(Math.sqrt(variance), minDeviation);
+        double included = value;
+        if (count >= warmUp) {
+            lastZScore = (value - mean) / deviation;
+            if (Math.abs(lastZScore) >= sensorErrorThreshold) {
+                lastReason = String.format("%.1f deviations from the expected %.0f", lastZScore, mean);
+                kind = Kind.SENSOR_ERROR;
+            } else if (Math.abs(lastZScore) >= threshold) {
+                lastReason = String.format("%.1f deviations from the expected %.0f", lastZScore, mean);
+                kind = lastZScore > 0 ? Kind.SPIKE : Kind.DROP;
+            }
+            if (kind != Kind.NONE) {
+                included = mean + Math.copySign(threshold * deviation, value - mean);
+            }
+        }
+        if (kind == Kind.NONE && stuckCount > 1 && repeats + 1 == stuckCount) {
+            lastReason = "Unchanged for " + stuckCount + " readings";
+            kind = Kind.SENSOR_ERROR;
+        }
+        // A wild jump stays out of the baseline; a stuck but plausible value still counts
+        if (kind != Kind.SENSOR_ERROR || repeats > 0) {
+            fold(included);
+        }
+        return kind;
+    }
+
+    // Incremental exponentially weighted mean and variance (Finch); plain averaging while warming up.
+    // The spread adapts four times slower than the level: a short-window variance is often
+    // underestimated, which shows up as false spikes.
+    private void fold(double value) {
+        count++;
+        double weight = Math.max(alpha, 1.0 / count);
+        double varianceWeight = Math.max(alpha / 4, 1.0 / count);
+        double diff = value - mean;
+        mean += weight * diff;
+        variance = (1 - varianceWeight) * (variance + varianceWeight * diff * diff);
+    }
+
+    public long getCount() { return count; }
+    public double getMean() { return count > 0 ? mean : Double.NaN; }
+    public double getStandardDeviation() { return Math.sqrt(variance); }
+    public boolean isWarmedUp() { return count >= warmUp; }
+
+    // z-score of the last value (NaN while warming up or for invalid values)
+    public double getLastZScore() { return lastZScore; }
+
+    // Baseline mean the last value was compared against
+    public double getLastExpected() { return lastExpected; }
+
+    public String getLastReason() { return lastReason; }
+}
@@ -0,0 +1,243 @@
+package com.air.airquality.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable k-d tree over points on the globe, for nearest-k and bounding-box queries.
+ *
+ * Points are stored as 3-D unit vectors rather than raw lat/lon, so there are no seams at
+ * the antimeridian or the poles: the straight-line (chord) distance between two vectors
+ * grows monotonically with great-circle distance, which makes plain Euclidean k-d pruning
+ * exact. The tree is implicit - each subrange of the arrays has its median as the node -
+ * so it needs no node objects.
+ */
+public class GeoIndex<T> {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final Point<T>[] points;
+    private final double[][] vectors;
+
+    @SuppressWarnings("unchecked")
+    public GeoIndex(List<Point<T>> input) {
+        this.points = input.toArray((Point<T>[]) new Point<?>[0]);
+        this.vectors = new double[points.length][];
+        Integer[] order = new Integer[points.length];
+        double[][] unordered = new double[points.length][];
+        for (int i = 0; i < points.length; i++) {
+            order[i] = i;
+            unordered[i] = toVector(points[i].latitude, points[i].longitude);
+        }
+        build(order, unordered, 0, points.length, 0);
+
+        Point<T>[] sorted = (Point<T>[]) new Point<?>[points.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = input.get(order[i]);
+            vectors[i] = unordered[order[i]];
+        }
+        System.arraycopy(sorted, 0, points, 0, sorted.length);
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * Up to k points closest to the location, nearest first
+     */
+    public List<Neighbor<T>> nearest(double latitude, double longitude, int k) {
+        List<Neighbor<T>> result = new ArrayList<>();
+        if (k <= 0 || points.length == 0) {
+            return result;
+        }
+        double[] target = toVector(latitude, longitude);
+        // Max-heap on squared chord length, holding the best k so far
+        PriorityQueue<double[]> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble((double[] e) -> e[0]).reversed());
+        nearest(target, 0, points.length, 0, k, best);
+
+        double[][] ordered = best.toArray(new double[0][]);
+        Arrays.sort(ordered, Comparator.comparingDouble(e -> e[0]));
+        for (double[] entry : ordered) {
+            double chord = Math.sqrt(entry[0]);
+            double distanceKm = 2 * Math.asin(Math.min(1, chord / 2)) * EARTH_RADIUS_KM;
+            result.add(new Neighbor<>(points[(int) entry[1]], distanceKm));
+        }
+        return result;
+    }
+
+    /**
+     * Points inside the box; a box with minLongitude > maxLongitude wraps across the antimeridian
+     */
+    public List<Point<T>> within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        List<Point<T>> result = new ArrayList<>();
+        if (points.length == 0 || minLatitude > maxLatitude) {
+            return result;
+        }
+        double[][] bounds = enclosingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        within(bounds, 0, points.length, 0, minLatitude, minLongitude, maxLatitude, maxLongitude, result);
+        return result;
+    }
+
+    /**
+     * Great-circle distance in kilometres (haversine)
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Sorts each subrange on the splitting axis and recurses into both halves around the median
+    private static void build(Integer[] order, double[][] vectors, int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        Arrays.sort(order, from, to, Comparator.comparingDouble(i -> vectors[i][axis]));
+        int mid = (from + to) >>> 1;
+        build(order, vectors, from, mid, (axis + 1) % 3);
+        build(order, vectors, mid + 1, to, (axis + 1) % 3);
+    }
+
+    private void nearest(double[] target, int from, int to, int axis, int k, PriorityQueue<double[]> best) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double[] node = vectors[mid];
+        double dx = node[0] - target[0];
+        double dy = node[1] - target[1];
+        double dz = node[2] - target[2];
+        double squared = dx * dx + dy * dy + dz * dz;
+        if (best.size() < k) {
+            best.add(new double[] {squared, mid});
+        } else if (squared < best.peek()[0]) {
+            best.poll();
+            best.add(new double[] {squared, mid});
+        }
+
+        double diff = target[axis] - node[axis];
+        int next = (axis + 1) % 3;
+        if (diff < 0) {
+            nearest(target, from, mid, next, k, best);
+            if (best.size() < k || diff * diff < best.peek()[0]) {
+                nearest(target, mid + 1, to, next, k, best);
+            }
+        } else {
+            nearest(target, mid + 1, to, next, k, best);
+            if (best.size() < k || diff * diff < best.peek()[0]) {
+                nearest(target, from, mid, next, k, best);
+            }
+        }
+    }
+
+    private void within(double[][] bounds, int from, int to, int axis, double minLat, double minLon,
+                        double maxLat, double maxLon, List<Point<T>> result) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double[] node = vectors[mid];
+        if (node[0] >= bounds[0][0] && node[0] <= bounds[0][1]
+                && node[1] >= bounds[1][0] && node[1] <= bounds[1][1]
+                && node[2] >= bounds[2][0] && node[2] <= bounds[2][1]) {
+            Point<T> point = points[mid];
+            boolean inLongitude = minLon <= maxLon
+                    ? point.longitude >= minLon && point.longitude <= maxLon
+                    : point.longitude >= minLon || point.longitude <= maxLon;
+            if (point.latitude >= minLat && point.latitude <= maxLat && inLongitude) {
+                result.add(point);
+            }
+        }
+        int next = (axis + 1) % 3;
+        if (bounds[axis][0] <= node[axis]) {
+            within(bounds, from, mid, next, minLat, minLon, maxLat, maxLon, result);
+        }
+        if (bounds[axis][1] >= node[axis]) {
+            within(bounds, mid + 1, to, next, minLat, minLon, maxLat, maxLon, result);
+        }
+    }
+
+    // Axis-aligned 3-D box (slightly conservative) around the lat/lon rectangle, as {min, max} per axis
+    private static double[][] enclosingBox(double minLat, double minLon, double maxLat, double maxLon) {
+        double cosMinLat = Math.cos(Math.toRadians(minLat));
+        double cosMaxLat = Math.cos(Math.toRadians(maxLat));
+        double radiusLow = Math.min(cosMinLat, cosMaxLat);
+        double radiusHigh = minLat <= 0 && maxLat >= 0 ? 1 : Math.max(cosMinLat, cosMaxLat);
+
+        double start = minLon;
+        double end = minLon <= maxLon ? maxLon : maxLon + 360;
+        double[] cos = {Math.cos(Math.toRadians(start)), Math.cos(Math.toRadians(start))};
+        double[] sin = {Math.sin(Math.toRadians(start)), Math.sin(Math.toRadians(start))};
+        extend(cos, sin, end);
+        // Extremes of sin and cos also occur at the quarter turns inside the range
+        for (double quarter = Math.ceil(start / 90) * 90; quarter < end; quarter += 90) {
+            extend(cos, sin, quarter);
+        }
+
+        double margin = 1e-9;
+        return new double[][] {
+                range(radiusLow, radiusHigh, cos[0], cos[1], margin),
+                range(radiusLow, radiusHigh, sin[0], sin[1], margin),
+                {Math.sin(Math.toRadians(minLat)) - margin, Math.sin(Math.toRadians(maxLat)) + margin}
+        };
+    }
+
+    private static void extend(double[] cos, double[] sin, double degrees) {
+        double c = Math.cos(Math.toRadians(degrees));
+        double s = Math.sin(Math.toRadians(degrees));
+        cos[0] = Math.min(cos[0], c);
+        cos[1] = Math.max(cos[1], c);
+        sin[0] = Math.min(sin[0], s);
+        sin[1] = Math.max(sin[1], s);
+    }
+
+    // Range of radius * trig over both intervals; the extremes are at the corners
+    private static double[] range(double radiusLow, double radiusHigh, double trigLow, double trigHigh, double margin) {
+        double a = radiusLow * trigLow;
+        double b = radiusLow * trigHigh;
+        double c = radiusHigh * trigLow;
+        double d = radiusHigh * trigHigh;
+        return new double[] {Math.min(Math.min(a, b), Math.min(c, d)) - margin, Math.max(Math.max(a, b), Math.max(c, d)) + margin};
+    }
+
+    private static double[] toVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[] {Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    public static class Point<T> {
+        private final double latitude;
+        private final double longitude;
+        private final T value;
+
+        public Point(double latitude, double longitude, T value) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.value = value;
+        }
+
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public T getValue() { return value; }
+    }
+
+    public static class Neighbor<T> {
+        private final Point<T> point;
+        private final double distanceKm;
+
+        public Neighbor(Point<T> point, double distanceKm) {
+            this.point = point;
+            this.distanceKm = distanceKm;
+        }
+
+        public Point<T> getPoint() { return point; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
@@ -0,0 +1,61 @@
+package com.air.airquality.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Helpers for ETag based conditional requests on the read endpoints
+ */
+public class HttpCacheUtils {
+
+    private HttpCacheUtils() {}
+
+    /**
+     * Strong ETag for a single persisted reading, or null when the reading was never stored
+     */
+    public static String readingEtag(Long id, LocalDateTime timestamp) {
+        if (id == null || timestamp == null) {
+            return null;
+        }
+        return "\"" + id + "-" + timestamp.toInstant(ZoneOffset.UTC).toEpochMilli() + "\"";
+    }
+
+    /**
+     * Strong ETag derived from several parts, e.g. per-city tags plus request parameters
+     */
+    public static String combine(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            if (part == null) {
+                return null;
+            }
+            key.append(part).append('|');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Checks an If-None-Match header value (possibly a list, "*" or weak tags) against an ETag
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,320 @@
+package com.air.airquality.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Global AQI raster interpolated from station values by inverse distance weighting.
+ *
+ * The raster is an equirectangular float grid, north-up (row 0 touches latitude 90, column
+ * 0 touches longitude -180); cells with no station within the radius hold NaN. A cell's
+ * value depends only on the stations within the radius, so after stations change only the
+ * cells around their old and new positions are recomputed, and the result is identical to
+ * a full rebuild. The raster is split into square tiles, each stamped with the grid version
+ * of its last change and a hash of its cells. Versions are local to this grid; the hash is
+ * the same on every replica that holds the same cells, so it is what clients revalidate with.
+ */
+public class IdwGrid {
+
+    public static final int TILE_SIZE = 64;
+
+    private static final double KM_PER_DEGREE = Math.PI * GeoIndex.EARTH_RADIUS_KM / 180;
+
+    // Closer than this a cell takes the station value as is, avoiding a huge weight
+    private static final double COINCIDENT_KM = 0.01;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final double resolution;
+    private final int rows;
+    private final int cols;
+    private final double radiusKm;
+    private final double power;
+    private final int maxNeighbors;
+
+    private final float[] values;
+    private final long[] tileVersions;
+    private final long[] tileHashes;
+    private final int tileRows;
+    private final int tileCols;
+
+    private volatile long version = 0;
+
+    public IdwGrid(double resolutionDegrees, double radiusKm, double power, int maxNeighbors) {
+        int rowCount = resolutionDegrees > 0 ? (int) Math.round(180 / resolutionDegrees) : 0;
+        if (rowCount < 1 || Math.abs(rowCount * resolutionDegrees - 180) > 1e-9) {
+            throw new IllegalArgumentException("Resolution must divide 180 degrees: " + resolutionDegrees);
+        }
+        this.resolution = resolutionDegrees;
+        this.rows = rowCount;
+        this.cols = rows * 2;
+        this.radiusKm = radiusKm;
+        this.power = power;
+        this.maxNeighbors = Math.max(1, maxNeighbors);
+        this.values = new float[rows * cols];
+        Arrays.fill(values, Float.NaN);
+        this.tileRows = (rows + TILE_SIZE - 1) / TILE_SIZE;
+        this.tileCols = (cols + TILE_SIZE - 1) / TILE_SIZE;
+        this.tileVersions = new long[tileRows * tileCols];
+        this.tileHashes = new long[tileRows * tileCols];
+        for (int tile = 0; tile < tileHashes.length; tile++) {
+            tileHashes[tile] = hashTile(tile / tileCols, tile % tileCols);
+        }
+    }
+
+    /**
+     * Recomputes the cells within the radius of any of the positions, which should be the old
+     * and new locations of every station added, removed, moved or revalued since the last update
+     *
+     * @param stations all current stations, valued by AQI
+     * @param changedPositions {latitude, longitude} pairs
+     * @return number of cells whose value changed
+     */
+    public synchronized int update(GeoIndex<Float> stations, Collection<double[]> changedPositions) {
+        BitSet dirty = new BitSet(rows * cols);
+        for (double[] position : changedPositions) {
+            markAround(dirty, position[0], position[1]);
+        }
+
+        long nextVersion = version + 1;
+        BitSet changedTiles = new BitSet(tileVersions.length);
+        int changed = 0;
+        for (int cell = dirty.nextSetBit(0); cell >= 0; cell = dirty.nextSetBit(cell + 1)) {
+            int row = cell / cols;
+            int col = cell % cols;
+            float value = interpolate(stations, centerLatitude(row), centerLongitude(col));
+            if (Float.floatToIntBits(value) != Float.floatToIntBits(values[cell])) {
+                values[cell] = value;
+                int tile = (row / TILE_SIZE) * tileCols + col / TILE_SIZE;
+                tileVersions[tile] = nextVersion;
+                changedTiles.set(tile);
+                changed++;
+            }
+        }
+        for (int tile = changedTiles.nextSetBit(0); tile >= 0; tile = changedTiles.nextSetBit(tile + 1)) {
+            tileHashes[tile] = hashTile(tile / tileCols, tile % tileCols);
+        }
+        if (changed > 0) {
+            version = nextVersion;
+        }
+        return changed;
+    }
+
+    /**
+     * Bilinear estimate between the four surrounding cell centres, falling back to the nearest
+     * cell when any of them is empty; NaN when there is no data near the point
+     */
+    public float valueAt(double latitude, double longitude) {
+        double y = (90 - latitude) / resolution - 0.5;
+        double x = (longitude + 180) / resolution - 0.5;
+        int row0 = (int) Math.floor(y);
+        int col0 = (int) Math.floor(x);
+        double fy = y - row0;
+        double fx = x - col0;
+
+        int rowA = clampRow(row0);
+        int rowB = clampRow(row0 + 1);
+        int colA = wrapCol(col0);
+        int colB = wrapCol(col0 + 1);
+        float v00 = values[rowA * cols + colA];
+        float v01 = values[rowA * cols + colB];
+        float v10 = values[rowB * cols + colA];
+        float v11 = values[rowB * cols + colB];
+        if (Float.isNaN(v00) || Float.isNaN(v01) || Float.isNaN(v10) || Float.isNaN(v11)) {
+            return values[cellAt(latitude, longitude)];
+        }
+        double top = v00 + (v01 - v00) * fx;
+        double bottom = v10 + (v11 - v10) * fx;
+        return (float) (top + (bottom - top) * fy);
+    }
+
+    /**
+     * Copy of one tile's cells, row-major from its north-west corner; edge tiles may be smaller
+     */
+    public Tile tile(int tileRow, int tileCol) {
+        checkTile(tileRow, tileCol);
+        int firstRow = tileRow * TILE_SIZE;
+        int firstCol = tileCol * TILE_SIZE;
+        int height = Math.min(TILE_SIZE, rows - firstRow);
+        int width = Math.min(TILE_SIZE, cols - firstCol);
+        // Version read first: a concurrent update can only make the cells newer than the tag
+        long tileVersion = tileVersions[tileRow * tileCols + tileCol];
+        float[] cells = new float[height * width];
+        for (int r = 0; r < height; r++) {
+            System.arraycopy(values, (firstRow + r) * cols + firstCol, cells, r * width, width);
+        }
+        return new Tile(tileRow, tileCol, 90 - firstRow * resolution, -180 + firstCol * resolution,
+                resolution, height, width, tileVersion, hash(cells, 0, cells.length, FNV_OFFSET), cells);
+    }
+
+    public long tileVersion(int tileRow, int tileCol) {
+        checkTile(tileRow, tileCol);
+        return tileVersions[tileRow * tileCols + tileCol];
+    }
+
+    /**
+     * Hash of the tile's cells as of the last update; equals {@link Tile#getContentHash()} of the
+     * same cells on any grid
+     */
+    public long tileHash(int tileRow, int tileCol) {
+        checkTile(tileRow, tileCol);
+        return tileHashes[tileRow * tileCols + tileCol];
+    }
+
+    public double getResolution() { return resolution; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getTileRows() { return tileRows; }
+    public int getTileCols() { return tileCols; }
+    public double getRadiusKm() { return radiusKm; }
+    public long getVersion() { return version; }
+
+    public int countFilledCells() {
+        int filled = 0;
+        for (float value : values) {
+            if (!Float.isNaN(value)) {
+                filled++;
+            }
+        }
+        return filled;
+    }
+
+    // Weighted mean of the nearest stations inside the radius
+    float interpolate(GeoIndex<Float> stations, double latitude, double longitude) {
+        double weightedSum = 0;
+        double weightTotal = 0;
+        for (GeoIndex.Neighbor<Float> neighbor : stations.nearest(latitude, longitude, maxNeighbors)) {
+            double distance = neighbor.getDistanceKm();
+            if (distance > radiusKm) {
+                break;
+            }
+            if (distance < COINCIDENT_KM) {
+                return neighbor.getPoint().getValue();
+            }
+            double weight = 1 / Math.pow(distance, power);
+            weightedSum += weight * neighbor.getPoint().getValue();
+            weightTotal += weight;
+        }
+        return weightTotal > 0 ? (float) (weightedSum / weightTotal) : Float.NaN;
+    }
+
+    // Marks every cell whose centre may lie within the radius of the point (a slight superset)
+    private void markAround(BitSet dirty, double latitude, double longitude) {
+        double radiusDegrees = radiusKm / KM_PER_DEGREE;
+        int firstRow = clampRow((int) Math.floor((90 - latitude - radiusDegrees) / resolution) - 1);
+        int lastRow = clampRow((int) Math.floor((90 - latitude + radiusDegrees) / resolution) + 1);
+
+        // Widest longitude offset anywhere in the spherical cap; a cap reaching a pole spans all of them
+        double sinRadius = Math.sin(Math.toRadians(Math.min(90, radiusDegrees)));
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        if (radiusDegrees >= 90 || sinRadius >= cosLatitude) {
+            dirty.set(firstRow * cols, (lastRow + 1) * cols);
+            return;
+        }
+        double spanDegrees = Math.toDegrees(Math.asin(sinRadius / cosLatitude));
+        int firstCol = (int) Math.floor((longitude - spanDegrees + 180) / resolution) - 1;
+        int lastCol = (int) Math.floor((longitude + spanDegrees + 180) / resolution) + 1;
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (lastCol - firstCol + 1 >= cols) {
+                dirty.set(row * cols, (row + 1) * cols);
+                continue;
+            }
+            for (int col = firstCol; col <= lastCol; col++) {
+                dirty.set(row * cols + wrapCol(col));
+            }
+        }
+    }
+
+    private void checkTile(int tileRow, int tileCol) {
+        if (tileRow < 0 || tileRow >= tileRows || tileCol < 0 || tileCol >= tileCols) {
+            throw new IllegalArgumentException("No tile " + tileRow + "/" + tileCol);
+        }
+    }
+
+    private int cellAt(double latitude, double longitude) {
+        int row = clampRow((int) Math.floor((90 - latitude) / resolution));
+        int col = wrapCol((int) Math.floor((longitude + 180) / resolution));
+        return row * cols + col;
+    }
+
+    private double centerLatitude(int row) {
+        return 90 - (row + 0.5) * resolution;
+    }
+
+    private double centerLongitude(int col) {
+        return -180 + (col + 0.5) * resolution;
+    }
+
+    private long hashTile(int tileRow, int tileCol) {
+        int firstRow = tileRow * TILE_SIZE;
+        int firstCol = tileCol * TILE_SIZE;
+        int height = Math.min(TILE_SIZE, rows - firstRow);
+        int width = Math.min(TILE_SIZE, cols - firstCol);
+        long hash = FNV_OFFSET;
+        for (int r = 0; r < height; r++) {
+            int start = (firstRow + r) * cols + firstCol;
+            hash = hash(values, start, start + width, hash);
+        }
+        return hash;
+    }
+
+    // 64-bit FNV-1a over the raw float bits, row by row
+    private static long hash(float[] cells, int from, int to, long hash) {
+        for (int i = from; i < to; i++) {
+            int bits = Float.floatToIntBits(cells[i]);
+            for (int shift = 0; shift < 32; shift += 8) {
+                hash ^= (bits >>> shift) & 0xff;
+                hash *= FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    private int clampRow(int row) {
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private int wrapCol(int col) {
+        return Math.floorMod(col, cols);
+    }
+
+    public static class Tile {
+        private final int tileRow;
+        private final int tileCol;
+        private final double north;
+        private final double west;
+        private final double resolution;
+        private final int rows;
+        private final int cols;
+        private final long version;
+        private final long contentHash;
+        private final float[] values;
+
+        public Tile(int tileRow, int tileCol, double north, double west, double resolution,
+                    int rows, int cols, long version, long contentHash, float[] values) {
+            this.tileRow = tileRow;
+            this.tileCol = tileCol;
+            this.north = north;
+            this.west = west;
+            this.resolution = resolution;
+            this.rows = rows;
+            this.cols = cols;
+            this.version = version;
+            this.contentHash = contentHash;
+            this.values = values;
+        }
+
+        public int getTileRow() { return tileRow; }
+        public int getTileCol() { return tileCol; }
+        public double getNorth() { return north; }
+        public double getWest() { return west; }
+        public double getResolution() { return resolution; }
+        public int getRows() { return rows; }
+        public int getCols() { return cols; }
+        public long getVersion() { return version; }
+        public long getContentHash() { return contentHash; }
+        public float[] getValues() { return values; }
+    }
+}
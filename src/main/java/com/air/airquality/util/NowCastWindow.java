@@ -0,0 +1,153 @@
+package com.air.airquality.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * The last 12 clock hours of particulate readings for one city, for the EPA NowCast.
+ *
+ * Each hour owns a slot of a ring (epoch hour mod 12) holding a running sum and count per
+ * pollutant, so adding a reading is O(1) and never allocates; a slot still tagged with an
+ * hour older than the window simply no longer counts. The NowCast is a weighted average of
+ * the hourly means, the weight factor being min/max over the window (at least 0.5), and is
+ * only defined when two of the three most recent hours have data. Results are memoized
+ * until the next reading.
+ */
+public class NowCastWindow {
+
+    public static final int HOURS = 12;
+
+    public static final int PM25 = 0;
+    public static final int PM10 = 1;
+    private static final int POLLUTANTS = 2;
+
+    // Lowest weight factor the EPA allows for particulates
+    private static final double MIN_WEIGHT = 0.5;
+
+    private final long[] slotHours = new long[HOURS];
+    private final double[][] sums = new double[POLLUTANTS][HOURS];
+    private final int[][] counts = new int[POLLUTANTS][HOURS];
+    private long newestHour = Long.MIN_VALUE;
+
+    private final double[] nowCast = new double[POLLUTANTS];
+    private boolean nowCastCurrent = false;
+
+    public NowCastWindow() {
+        Arrays.fill(slotHours, Long.MIN_VALUE);
+    }
+
+    public static long epochHour(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    /**
+     * Adds a reading to its hour; readings older than the window are ignored
+     *
+     * @return true when the reading was counted
+     */
+    public boolean add(LocalDateTime timestamp, Double pm25, Double pm10) {
+        long hour = epochHour(timestamp);
+        if (newestHour != Long.MIN_VALUE && hour <= newestHour - HOURS) {
+            return false;
+        }
+        int slot = (int) Math.floorMod(hour, (long) HOURS);
+        if (slotHours[slot] != hour) {
+            slotHours[slot] = hour;
+            for (int p = 0; p < POLLUTANTS; p++) {
+                sums[p][slot] = 0;
+                counts[p][slot] = 0;
+            }
+        }
+        accumulate(PM25, slot, pm25);
+        accumulate(PM10, slot, pm10);
+        newestHour = Math.max(newestHour, hour);
+        nowCastCurrent = false;
+        return true;
+    }
+
+    /**
+     * NowCast concentration of the pollutant (PM25 or PM10) as of the newest hour, NaN when
+     * the recent hours are too sparse
+     */
+    public double nowCast(int pollutant) {
+        if (!nowCastCurrent) {
+            for (int p = 0; p < POLLUTANTS; p++) {
+                nowCast[p] = compute(p);
+            }
+            nowCastCurrent = true;
+        }
+        return nowCast[pollutant];
+    }
+
+    /**
+     * Hours in the window with a reading of the pollutant
+     */
+    public int hoursWithData(int pollutant) {
+        int hours = 0;
+        for (int i = 0; i < HOURS; i++) {
+            if (hourlyMean(pollutant, i) >= 0) {
+                hours++;
+            }
+        }
+        return hours;
+    }
+
+    // Start of the newest hour, or null while the window is empty
+    public LocalDateTime getNewestHour() {
+        return newestHour == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(newestHour * 3600, 0, ZoneOffset.UTC);
+    }
+
+    private void accumulate(int pollutant, int slot, Double value) {
+        if (value != null && value >= 0 && !value.isNaN()) {
+            sums[pollutant][slot] += value;
+            counts[pollutant][slot]++;
+        }
+    }
+
+    private double compute(int pollutant) {
+        int recent = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (int i = 0; i < HOURS; i++) {
+            double mean = hourlyMean(pollutant, i);
+            if (mean >= 0) {
+                min = Math.min(min, mean);
+                max = Math.max(max, mean);
+                if (i < 3) {
+                    recent++;
+                }
+            }
+        }
+        if (recent < 2) {
+            return Double.NaN;
+        }
+        double weightFactor = max > 0 ? Math.max(min / max, MIN_WEIGHT) : 1.0;
+
+        double weighted = 0;
+        double totalWeight = 0;
+        double weight = 1.0;
+        for (int i = 0; i < HOURS; i++) {
+            double mean = hourlyMean(pollutant, i);
+            if (mean >= 0) {
+                weighted += weight * mean;
+                totalWeight += weight;
+            }
+            weight *= weightFactor;
+        }
+        return weighted / totalWeight;
+    }
+
+    // Mean of the hour hoursAgo before the newest one, or -1 when it has no data
+    private double hourlyMean(int pollutant, int hoursAgo) {
+        if (newestHour == Long.MIN_VALUE) {
+            return -1;
+        }
+        long hour = newestHour - hoursAgo;
+        int slot = (int) Math.floorMod(hour, (long) HOURS);
+        if (slotHours[slot] != hour || counts[pollutant][slot] == 0) {
+            return -1;
+        }
+        return sums[pollutant][slot] / counts[pollutant][slot];
+    }
+}
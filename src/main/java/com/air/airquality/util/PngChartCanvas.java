@@ -0,0 +1,134 @@
+package com.air.airquality.util;
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * {@link ChartCanvas} drawing into an anti-aliased Java2D image, encoded as PNG
+ */
+public class PngChartCanvas implements ChartCanvas {
+
+    private final BufferedImage image;
+    private final Graphics2D g;
+
+    public PngChartCanvas(int width, int height) {
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    }
+
+    @Override
+    public int getWidth() { return image.getWidth(); }
+
+    @Override
+    public int getHeight() { return image.getHeight(); }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height, Color color, float alpha) {
+        paint(color, alpha);
+        g.fill(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double width, double height, Color color, float lineWidth) {
+        paint(color, 1f);
+        g.setStroke(new BasicStroke(lineWidth));
+        g.draw(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, Color color, float lineWidth, float alpha) {
+        paint(color, alpha);
+        g.setStroke(new BasicStroke(lineWidth));
+        g.draw(new Line2D.Double(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, Color color, float lineWidth, float alpha) {
+        if (count < 2) {
+            return;
+        }
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, count);
+        path.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < count; i++) {
+            path.lineTo(xs[i], ys[i]);
+        }
+        paint(color, alpha);
+        g.setStroke(new BasicStroke(lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g.draw(path);
+    }
+
+    @Override
+    public void fillCircle(double cx, double cy, double radius, Color color, float alpha) {
+        paint(color, alpha);
+        g.fill(new Ellipse2D.Double(cx - radius, cy - radius, 2 * radius, 2 * radius));
+    }
+
+    @Override
+    public void fillWedge(double cx, double cy, double radius, double startAngle, double extent, Color color, Color edge) {
+        Arc2D.Double wedge = new Arc2D.Double(cx - radius, cy - radius, 2 * radius, 2 * radius,
+                startAngle, extent, Arc2D.PIE);
+        paint(color, 1f);
+        g.fill(wedge);
+        paint(edge, 1f);
+        g.setStroke(new BasicStroke(1.5f));
+        g.draw(wedge);
+    }
+
+    @Override
+    public void text(String text, double x, double y, float size, boolean bold, Color color, Align align) {
+        g.setFont(font(size, bold));
+        FontMetrics metrics = g.getFontMetrics();
+        double width = metrics.stringWidth(text);
+        double left = align == Align.LEFT ? x : align == Align.CENTER ? x - width / 2 : x - width;
+        paint(color, 1f);
+        g.drawString(text, (float) left, (float) y);
+    }
+
+    @Override
+    public void verticalText(String text, double x, double y, float size, Color color) {
+        AffineTransform saved = g.getTransform();
+        g.translate(x, y);
+        g.rotate(-Math.PI / 2);
+        text(text, 0, 0, size, false, color, Align.CENTER);
+        g.setTransform(saved);
+    }
+
+    public byte[] toPng() {
+        g.dispose();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode chart", e);
+        }
+    }
+
+    private void paint(Color color, float alpha) {
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+        g.setColor(color);
+    }
+
+    private static Font font(float size, boolean bold) {
+        return new Font(Font.SANS_SERIF, bold ? Font.BOLD : Font.PLAIN, Math.round(size));
+    }
+}
@@ -0,0 +1,72 @@
+package com.air.airquality.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once to UTF-8 JSON, with an optional gzip copy, so hot
+ * endpoints can write cached bytes directly instead of re-running Jackson per request.
+ */
+public class SerializedPayload {
+
+    // Below this size gzip framing overhead outweighs the savings
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    private SerializedPayload(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    public static SerializedPayload of(ObjectMapper objectMapper, Object body, String etag) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new SerializedPayload(json, json.length >= GZIP_MIN_BYTES ? gzip(json) : null, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize response payload", e);
+        }
+    }
+
+    public static SerializedPayload of(byte[] json, String etag) {
+        return new SerializedPayload(json, json.length >= GZIP_MIN_BYTES ? gzip(json) : null, etag);
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public boolean hasGzip() {
+        return gzip != null;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.air.airquality.util;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson) of a time series for plotting.
+ *
+ * Keeps the first and last points and, from each of threshold - 2 equal buckets in between,
+ * the point forming the largest triangle with the previously kept point and the next bucket's
+ * average. Unlike averaging or stride sampling this keeps spikes, which on an AQI chart are
+ * the points that matter, while a multi-year series drops to what a chart can show.
+ */
+public final class SeriesDownsampler {
+
+    private SeriesDownsampler() {
+    }
+
+    /**
+     * Indices of the points to keep, ascending; all of them when count <= threshold.
+     * xs must be ascending.
+     */
+    public static int[] lttb(double[] xs, double[] ys, int count, int threshold) {
+        if (threshold >= count || threshold < 3) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] kept = new int[threshold];
+        int keptCount = 0;
+        kept[keptCount++] = 0;
+
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket (the last point for the final bucket)
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+            double avgX = 0, avgY = 0;
+            if (nextStart >= count - 1 || nextEnd <= nextStart) {
+                avgX = xs[count - 1];
+                avgY = ys[count - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    avgX += xs[i];
+                    avgY += ys[i];
+                }
+                avgX /= nextEnd - nextStart;
+                avgY /= nextEnd - nextStart;
+            }
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = Math.min((int) Math.floor((bucket + 1) * bucketSize) + 1, count - 1);
+            double px = xs[previous], py = ys[previous];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area; the factor does not change the choice
+                double area = Math.abs((px - avgX) * (ys[i] - py) - (px - xs[i]) * (avgY - py));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[keptCount++] = chosen;
+            previous = chosen;
+        }
+        kept[keptCount++] = count - 1;
+        return kept;
+    }
+}
@@ -0,0 +1,156 @@
+package com.air.airquality.util;
+
+import java.awt.Color;
+
+/**
+ * {@link ChartCanvas} writing SVG markup; text is laid out by the viewer (text-anchor) rather
+ * than measured here
+ */
+public class SvgChartCanvas implements ChartCanvas {
+
+    private final int width;
+    private final int height;
+    private final StringBuilder svg = new StringBuilder(16 * 1024);
+
+    public SvgChartCanvas(int width, int height) {
+        this.width = width;
+        this.height = height;
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width)
+                .append("\" height=\"").append(height).append("\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" font-family=\"DejaVu Sans, Helvetica, Arial, sans-serif\">\n");
+    }
+
+    @Override
+    public int getWidth() { return width; }
+
+    @Override
+    public int getHeight() { return height; }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height, Color color, float alpha) {
+        svg.append("<rect x=\"").append(num(x)).append("\" y=\"").append(num(y))
+                .append("\" width=\"").append(num(width)).append("\" height=\"").append(num(height)).append('"');
+        fill(color, alpha);
+        svg.append("/>\n");
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double width, double height, Color color, float lineWidth) {
+        svg.append("<rect x=\"").append(num(x)).append("\" y=\"").append(num(y))
+                .append("\" width=\"").append(num(width)).append("\" height=\"").append(num(height))
+                .append("\" fill=\"none\"");
+        stroke(color, lineWidth, 1f);
+        svg.append("/>\n");
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, Color color, float lineWidth, float alpha) {
+        svg.append("<line x1=\"").append(num(x1)).append("\" y1=\"").append(num(y1))
+                .append("\" x2=\"").append(num(x2)).append("\" y2=\"").append(num(y2)).append('"');
+        stroke(color, lineWidth, alpha);
+        svg.append("/>\n");
+    }
+
+    @Override
+    public void polyline(double[] xs, double[] ys, int count, Color color, float lineWidth, float alpha) {
+        if (count < 2) {
+            return;
+        }
+        svg.append("<polyline fill=\"none\" stroke-linejoin=\"round\" stroke-linecap=\"round\" points=\"");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) svg.append(' ');
+            svg.append(num(xs[i])).append(',').append(num(ys[i]));
+        }
+        svg.append('"');
+        stroke(color, lineWidth, alpha);
+        svg.append("/>\n");
+    }
+
+    @Override
+    public void fillCircle(double cx, double cy, double radius, Color color, float alpha) {
+        svg.append("<circle cx=\"").append(num(cx)).append("\" cy=\"").append(num(cy))
+                .append("\" r=\"").append(num(radius)).append('"');
+        fill(color, alpha);
+        svg.append("/>\n");
+    }
+
+    @Override
+    public void fillWedge(double cx, double cy, double radius, double startAngle, double extent, Color color, Color edge) {
+        if (extent >= 360) {
+            fillCircle(cx, cy, radius, color, 1f);
+            return;
+        }
+        // SVG's y axis points down, so counter-clockwise angles become negative sweeps
+        double start = Math.toRadians(startAngle);
+        double end = Math.toRadians(startAngle + extent);
+        svg.append("<path d=\"M").append(num(cx)).append(',').append(num(cy))
+                .append(" L").append(num(cx + radius * Math.cos(start))).append(',').append(num(cy - radius * Math.sin(start)))
+                .append(" A").append(num(radius)).append(',').append(num(radius))
+                .append(" 0 ").append(extent > 180 ? 1 : 0).append(",0 ")
+                .append(num(cx + radius * Math.cos(end))).append(',').append(num(cy - radius * Math.sin(end)))
+                .append(" Z\"");
+        fill(color, 1f);
+        stroke(edge, 1.5f, 1f);
+        svg.append("/>\n");
+    }
+
+    @Override
+    public void text(String text, double x, double y, float size, boolean bold, Color color, Align align) {
+        svg.append("<text x=\"").append(num(x)).append("\" y=\"").append(num(y))
+                .append("\" font-size=\"").append(num(size)).append('"');
+        if (bold) svg.append(" font-weight=\"bold\"");
+        if (align != Align.LEFT) svg.append(" text-anchor=\"").append(align == Align.CENTER ? "middle" : "end").append('"');
+        fill(color, 1f);
+        svg.append('>').append(escape(text)).append("</text>\n");
+    }
+
+    @Override
+    public void verticalText(String text, double x, double y, float size, Color color) {
+        svg.append("<text transform=\"translate(").append(num(x)).append(',').append(num(y))
+                .append(") rotate(-90)\" font-size=\"").append(num(size)).append("\" text-anchor=\"middle\"");
+        fill(color, 1f);
+        svg.append('>').append(escape(text)).append("</text>\n");
+    }
+
+    public String toSvg() {
+        return svg + "</svg>\n";
+    }
+
+    private void fill(Color color, float alpha) {
+        svg.append(" fill=\"").append(hex(color)).append('"');
+        if (alpha < 1f) svg.append(" fill-opacity=\"").append(num(alpha)).append('"');
+    }
+
+    private void stroke(Color color, float lineWidth, float alpha) {
+        svg.append(" stroke=\"").append(hex(color)).append("\" stroke-width=\"").append(num(lineWidth)).append('"');
+        if (alpha < 1f) svg.append(" stroke-opacity=\"").append(num(alpha)).append('"');
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+
+    // Two decimals are plenty for pixel coordinates and keep the markup short
+    private static String num(double value) {
+        long scaled = Math.round(value * 100);
+        if (scaled % 100 == 0) {
+            return Long.toString(scaled / 100);
+        }
+        return Double.toString(scaled / 100.0);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '&': escaped.append("&amp;"); break;
+                case '"': escaped.append("&quot;"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,215 @@
+package com.air.airquality.util;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning) for approximate quantiles of a stream.
+ *
+ * Values are buffered and periodically folded into sorted centroids (mean, weight) whose
+ * size is limited by the k1 scale function: centroids stay small near the tails, so p95 and
+ * p99 remain accurate while the whole digest holds at most a few times {@code compression}
+ * centroids. Digests merge by folding one's centroids into the other, which is what makes
+ * per-day digests combinable into any range. Arrays grow on demand, so a digest of a few
+ * dozen readings costs a few hundred bytes.
+ */
+public class TDigest {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final double compression;
+
+    // Sorted centroids
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroids;
+
+    // Unsorted values (or centroids from a merge) waiting to be folded in
+    private double[] bufferMeans = new double[INITIAL_CAPACITY];
+    private double[] bufferWeights = new double[INITIAL_CAPACITY];
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+    }
+
+    public void add(double value) {
+        if (!Double.isNaN(value)) {
+            addWeighted(value, 1);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            addWeighted(other.means[i], other.weights[i]);
+        }
+        if (other.totalWeight > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    public long size() {
+        return (long) (totalWeight + bufferedWeight());
+    }
+
+    /**
+     * Approximate value at quantile q in [0, 1], NaN when the digest is empty
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double index = q * totalWeight;
+        if (index <= 0) {
+            return min;
+        }
+        if (index >= totalWeight) {
+            return max;
+        }
+        // Below the first centroid's centre: between the minimum and that centre
+        if (index < weights[0] / 2) {
+            return min + index / (weights[0] / 2) * (means[0] - min);
+        }
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + step > index) {
+                double t = (index - cumulative) / step;
+                return means[i] + t * (means[i + 1] - means[i]);
+            }
+            cumulative += step;
+        }
+        double lastHalf = weights[centroids - 1] / 2;
+        double t = lastHalf > 0 ? Math.min(1, (index - cumulative) / lastHalf) : 1;
+        return means[centroids - 1] + t * (max - means[centroids - 1]);
+    }
+
+    /**
+     * Folds the buffer into the centroids and trims the arrays to size
+     */
+    public void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = centroids + buffered;
+        double[] allMeans = Arrays.copyOf(means, n);
+        double[] allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        for (int i = 0; i < buffered; i++) {
+            totalWeight += bufferWeights[i];
+        }
+        buffered = 0;
+        sortByMean(allMeans, allWeights, 0, n - 1);
+
+        int out = 0;
+        double weightSoFar = 0;
+        double limit = totalWeight * quantileOfK(kOfQuantile(0) + 1);
+        for (int i = 1; i < n; i++) {
+            double proposed = allWeights[out] + allWeights[i];
+            if (weightSoFar + proposed <= limit) {
+                allMeans[out] += (allMeans[i] - allMeans[out]) * allWeights[i] / proposed;
+                allWeights[out] = proposed;
+            } else {
+                weightSoFar += allWeights[out];
+                limit = totalWeight * quantileOfK(kOfQuantile(weightSoFar / totalWeight) + 1);
+                out++;
+                allMeans[out] = allMeans[i];
+                allWeights[out] = allWeights[i];
+            }
+        }
+        centroids = out + 1;
+        means = Arrays.copyOf(allMeans, centroids);
+        weights = Arrays.copyOf(allWeights, centroids);
+        if (bufferMeans.length > INITIAL_CAPACITY) {
+            bufferMeans = new double[INITIAL_CAPACITY];
+            bufferWeights = new double[INITIAL_CAPACITY];
+        }
+    }
+
+    private void addWeighted(double mean, double weight) {
+        if (buffered == bufferMeans.length) {
+            // Fold in once the buffer holds a few digests' worth; grow until then
+            if (buffered >= 5 * compression) {
+                compress();
+            } else {
+                bufferMeans = Arrays.copyOf(bufferMeans, buffered * 2);
+                bufferWeights = Arrays.copyOf(bufferWeights, buffered * 2);
+            }
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+    }
+
+    private double bufferedWeight() {
+        double weight = 0;
+        for (int i = 0; i < buffered; i++) {
+            weight += bufferWeights[i];
+        }
+        return weight;
+    }
+
+    // k1 scale function: k = delta / (2 pi) * asin(2q - 1), and its inverse
+    private double kOfQuantile(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    private double quantileOfK(double k) {
+        double bounded = Math.min(compression / 4, k);
+        return (Math.sin(bounded * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    // Quicksort of the two parallel arrays by mean, without boxing
+    private static void sortByMean(double[] keys, double[] values, int low, int high) {
+        while (low < high) {
+            if (high - low < 16) {
+                for (int i = low + 1; i <= high; i++) {
+                    double key = keys[i];
+                    double value = values[i];
+                    int j = i - 1;
+                    while (j >= low && keys[j] > key) {
+                        keys[j + 1] = keys[j];
+                        values[j + 1] = values[j];
+                        j--;
+                    }
+                    keys[j + 1] = key;
+                    values[j + 1] = value;
+                }
+                return;
+            }
+            double pivot = keys[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    double key = keys[i]; keys[i] = keys[j]; keys[j] = key;
+                    double value = values[i]; values[i] = values[j]; values[j] = value;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half, loop on the larger
+            if (j - low < high - i) {
+                sortByMean(keys, values, low, j);
+                low = i;
+            } else {
+                sortByMean(keys, values, i, high);
+                high = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.air.airquality.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket per client, implemented as GCRA: each bucket is a single
+ * "theoretical arrival time" updated by CAS, so there is no per-client lock and
+ * no background refill thread. A bucket whose arrival time is in the past is full,
+ * which means it can be evicted without losing any state.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long capacity;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxClients;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+
+    public TokenBucketRateLimiter(long capacity, long periodSeconds, int maxClients) {
+        this(capacity, periodSeconds, maxClients, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(long capacity, long periodSeconds, int maxClients, LongSupplier nanoClock) {
+        if (capacity <= 0 || periodSeconds <= 0 || maxClients <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity, period and client bound must be positive");
+        }
+        this.capacity = capacity;
+        this.emissionIntervalNanos = TimeUnit.SECONDS.toNanos(periodSeconds) / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.maxClients = maxClients;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Attempts to take {@code cost} tokens from the client's bucket
+     */
+    public Decision tryAcquire(String clientKey, int cost) {
+        long weight = Math.max(1, Math.min(cost, capacity));
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(clientKey);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) {
+                evict(now);
+            }
+            bucket = buckets.computeIfAbsent(clientKey, key -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long tat = bucket.get();
+            long base = Math.max(tat, now);
+            long newTat = base + weight * emissionIntervalNanos;
+            long allowAt = newTat - burstToleranceNanos;
+            if (allowAt > now) {
+                return new Decision(false, capacity, remaining(base, now), toSeconds(base - now), toSeconds(allowAt - now));
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return new Decision(true, capacity, remaining(newTat, now), toSeconds(newTat - now), 0);
+            }
+        }
+    }
+
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private long remaining(long tat, long now) {
+        return Math.max(0, (burstToleranceNanos - (tat - now)) / emissionIntervalNanos);
+    }
+
+    // Drop full buckets, which carries no state. If every client is still refilling, shed the
+    // tenth of buckets closest to full (earliest arrival time), never ones chosen arbitrarily.
+    private void evict(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+            if (buckets.size() < maxClients) {
+                return;
+            }
+            List<Map.Entry<String, Long>> byArrival = new ArrayList<>(buckets.size());
+            buckets.forEach((key, bucket) -> byArrival.add(Map.entry(key, bucket.get())));
+            byArrival.sort(Map.Entry.comparingByValue());
+            int toRemove = Math.max(1, maxClients / 10);
+            for (int i = 0; i < toRemove && i < byArrival.size(); i++) {
+                buckets.remove(byArrival.get(i).getKey());
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+
+    // Outcome of a single acquisition attempt, carrying the values for RateLimit-* headers
+    public static class Decision {
+        private final boolean allowed;
+        private final long limit;
+        private final long remaining;
+        private final long resetSeconds;
+        private final long retryAfterSeconds;
+
+        public Decision(boolean allowed, long limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetSeconds = resetSeconds;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public boolean isAllowed() { return allowed; }
+        public long getLimit() { return limit; }
+        public long getRemaining() { return remaining; }
+        public long getResetSeconds() { return resetSeconds; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+}
@@ -0,0 +1,62 @@
+package com.air.airquality.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "requestsPerWindow", 5L);
+        ReflectionTestUtils.setField(filter, "windowSeconds", 3600L);
+        ReflectionTestUtils.setField(filter, "maxClients", 100);
+        ReflectionTestUtils.setField(filter, "costsConfig", "");
+        filter.init();
+    }
+
+    @Test
+    public void testRotatingUserIdHeaderDoesNotResetTheLimit() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call("203.0.113.7", "user-" + i, null));
+        }
+        assertEquals(429, call("203.0.113.7", "user-fresh", null));
+        // Other addresses keep their own buckets
+        assertEquals(200, call("203.0.113.8", "user-fresh", null));
+    }
+
+    @Test
+    public void testAuthenticatedUsersAreLimitedPerUser() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call("198.51.100.1", null, "alice"));
+        }
+        assertEquals(429, call("198.51.100.2", null, "alice"));
+        // A user behind the same address is not charged for alice
+        assertEquals(200, call("198.51.100.1", null, "bob"));
+    }
+
+    private int call(String remoteAddr, String userIdHeader, String principal) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/aqi/current/Delhi");
+        request.setRemoteAddr(remoteAddr);
+        if (userIdHeader != null) {
+            request.addHeader("X-User-Id", userIdHeader);
+        }
+        if (principal != null) {
+            request.setUserPrincipal(() -> principal);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
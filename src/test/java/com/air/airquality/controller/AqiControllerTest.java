@@ -1,23 +1,45 @@
 package com.air.airquality.controller;
 
+import com.air.airquality.dto.AqiResponse;
 import com.air.airquality.services.AqiService;
+import com.air.airquality.services.CityResolverService;
+import com.air.airquality.services.LatestReadingsSnapshotService;
+import com.air.airquality.services.NowCastService;
 import com.air.airquality.services.OpenAQService;
 import com.air.airquality.model.AqiData;
 import com.air.airquality.config.TestSecurityConfig;
+import com.air.airquality.util.CityNames;
+import com.air.airquality.util.HttpCacheUtils;
+import com.air.airquality.util.SerializedPayload;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AqiController.class)
@@ -32,6 +54,21 @@ public class AqiControllerTest {
     
     @MockBean
     private OpenAQService openAQService;
+    
+    @MockBean
+    private LatestReadingsSnapshotService latestReadingsSnapshotService;
+    
+    @MockBean
+    private CityResolverService cityResolverService;
+    
+    @MockBean
+    private NowCastService nowCastService;
+    
+    @BeforeEach
+    public void setUp() {
+        when(cityResolverService.resolve(anyString()))
+                .thenAnswer(invocation -> CityNames.normalize(invocation.getArgument(0)));
+    }
 
     @Test
     public void testGetCitiesEndpoint() throws Exception {
@@ -55,4 +92,103 @@ public class AqiControllerTest {
         mockMvc.perform(get("/api/aqi/current/Delhi"))
                .andExpect(status().isOk());
     }
+
+    @Test
+    public void testDashboardHonoursIfNoneMatch() throws Exception {
+        SerializedPayload document = SerializedPayload.of("{\"success\":true}".getBytes(), "\"abc123\"");
+        when(latestReadingsSnapshotService.getDashboardDocument()).thenReturn(document);
+        
+        mockMvc.perform(get("/api/aqi/dashboard"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"abc123\""));
+        
+        mockMvc.perform(get("/api/aqi/dashboard").header("If-None-Match", "\"abc123\""))
+               .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testCurrentAqiReturnsNotModifiedBeforeLookup() throws Exception {
+        AqiData latest = new AqiData("Delhi", 85, 45.0, 65.0, 30.0, 15.0, 1.2, 80.0);
+        latest.setId(42L);
+        when(latestReadingsSnapshotService.getLatest("Delhi")).thenReturn(Optional.of(latest));
+        when(openAQService.isRecentData(any())).thenReturn(true);
+        String etag = HttpCacheUtils.readingEtag(42L, latest.getTimestamp());
+        
+        mockMvc.perform(get("/api/aqi/current/delhi").header("If-None-Match", etag))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string("ETag", etag));
+        
+        verify(openAQService, never()).getCurrentAqiData(anyString());
+    }
+
+    @Test
+    public void testMultipleCitiesNegotiatesColumnarCbor() throws Exception {
+        AqiData mockData = new AqiData("Delhi", 85, 45.0, 65.0, 30.0, 15.0, 1.2, null);
+        when(openAQService.getCurrentAqiData(anyString())).thenReturn(mockData);
+        
+        mockMvc.perform(get("/api/aqi/multiple").param("cities", "Delhi"))
+               .andExpect(status().isOk())
+               .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        
+        byte[] body = mockMvc.perform(get("/api/aqi/multiple").param("cities", "Delhi")
+                        .accept(MediaType.APPLICATION_CBOR))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+               .andReturn().getResponse().getContentAsByteArray();
+        
+        JsonNode series = new CBORMapper().readTree(body);
+        assertEquals("Delhi", series.get("cities").get(0).asText());
+        assertEquals(85, series.get("aqi").get(0).asInt());
+        // A reading taken just now is just now as an instant, whatever the server's zone
+        long age = Instant.now().getEpochSecond() - series.get("timestamps").get(0).asLong();
+        assertTrue(age >= 0 && age < 60);
+        assertTrue(Double.isNaN(series.get("o3").get(0).asDouble()));
+    }
+
+    @Test
+    public void testHistoricalResponsesAreOnlyPrivatelyCacheable() throws Exception {
+        // A reading older than the ingestion interval leaves the minimum client lifetime
+        AqiData latest = new AqiData("Delhi", 85, 45.0, 65.0, 30.0, 15.0, 1.2, 80.0);
+        latest.setId(7L);
+        latest.setTimestamp(LocalDateTime.now().minusDays(2));
+        when(latestReadingsSnapshotService.getLatest("Delhi")).thenReturn(Optional.of(latest));
+        when(aqiService.getHistoricalData(anyString(), any(), any())).thenReturn(Collections.emptyList());
+        
+        String etag = mockMvc.perform(get("/api/aqi/historical/Delhi").header("X-User-Id", "1"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("Cache-Control", "max-age=60, private"))
+               .andReturn().getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/api/aqi/historical/Delhi").header("X-User-Id", "1").header("If-None-Match", etag))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string("Cache-Control", "max-age=60, private"));
+        
+        mockMvc.perform(get("/api/aqi/historical/Delhi").header("X-User-Id", "1")
+                        .accept(MediaType.APPLICATION_CBOR))
+               .andExpect(status().isOk())
+               .andExpect(header().string("Cache-Control", "max-age=60, private"));
+    }
+
+    @Test
+    public void testCompactHistoricalSharesValidationAndSampling() throws Exception {
+        mockMvc.perform(get("/api/aqi/historical/Delhi").accept(MediaType.APPLICATION_CBOR))
+               .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/aqi/historical/Delhi").header("X-User-Id", "1")
+                        .param("startDate", "2020-01-01T00:00:00").param("endDate", "2024-01-01T00:00:00")
+                        .accept(MediaType.APPLICATION_CBOR))
+               .andExpect(status().isBadRequest());
+        
+        LocalDateTime start = LocalDateTime.now().minusDays(60);
+        List<AqiResponse> readings = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            readings.add(new AqiResponse("Delhi", 85, 45.0, 65.0, 30.0, 15.0, 1.2, 80.0, start.plusMinutes(i)));
+        }
+        when(aqiService.getHistoricalData(anyString(), any(), any())).thenReturn(readings);
+        
+        byte[] body = mockMvc.perform(get("/api/aqi/historical/Delhi").header("X-User-Id", "1")
+                        .accept(MediaType.APPLICATION_CBOR))
+               .andExpect(status().isOk())
+               .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(10000, new CBORMapper().readTree(body).get("aqi").size());
+    }
 }
@@ -0,0 +1,150 @@
+package com.air.airquality.controller;
+
+import com.air.airquality.config.DataLoader;
+import com.air.airquality.services.AqiService;
+import com.air.airquality.services.HistoricalDataSeederService;
+import com.air.airquality.services.OpenAQService;
+import com.air.airquality.services.SchedulerLockService;
+import com.air.airquality.services.StartupSeedingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class HealthControllerTest {
+
+    private final DataLoader dataLoader = mock(DataLoader.class);
+    private final HistoricalDataSeederService historicalDataSeederService = mock(HistoricalDataSeederService.class);
+    private final SchedulerLockService schedulerLockService = mock(SchedulerLockService.class);
+    private final CountDownLatch releaseSampleData = new CountDownLatch(1);
+
+    private StartupSeedingService startupSeedingService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        // Seeding runs on its own thread without a lock competitor
+        when(schedulerLockService.runWithLock(anyString(), any(Duration.class), any(Runnable.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(2, Runnable.class).run();
+                    return true;
+                });
+        startupSeedingService = new StartupSeedingService();
+        ReflectionTestUtils.setField(startupSeedingService, "dataLoader", dataLoader);
+        ReflectionTestUtils.setField(startupSeedingService, "historicalDataSeederService", historicalDataSeederService);
+        ReflectionTestUtils.setField(startupSeedingService, "schedulerLockService", schedulerLockService);
+
+        AqiService aqiService = mock(AqiService.class);
+        when(aqiService.isDatabaseReady()).thenReturn(true);
+        HealthController controller = new HealthController();
+        ReflectionTestUtils.setField(controller, "aqiService", aqiService);
+        ReflectionTestUtils.setField(controller, "openAQService", mock(OpenAQService.class));
+        ReflectionTestUtils.setField(controller, "startupSeedingService", startupSeedingService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .defaultRequest(get("/").accept(MediaType.APPLICATION_JSON))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        releaseSampleData.countDown();
+        startupSeedingService.shutdown();
+    }
+
+    @Test
+    public void testReadyWaitsForSeedingStages() throws Exception {
+        CountDownLatch sampleDataStarted = new CountDownLatch(1);
+        when(dataLoader.loadIfEmpty()).thenAnswer(invocation -> {
+            sampleDataStarted.countDown();
+            releaseSampleData.await();
+            return true;
+        });
+        when(historicalDataSeederService.seedIfNeeded()).thenReturn(false);
+
+        mockMvc.perform(get("/api/ready"))
+               .andExpect(status().isServiceUnavailable())
+               .andExpect(jsonPath("$.seeding.sample-data.state").value("PENDING"));
+
+        startupSeedingService.startSeeding();
+        assertTrue(sampleDataStarted.await(10, TimeUnit.SECONDS));
+        mockMvc.perform(get("/api/ready"))
+               .andExpect(status().isServiceUnavailable())
+               .andExpect(jsonPath("$.seeding.sample-data.state").value("RUNNING"));
+        mockMvc.perform(get("/api/ready").param("stage", "historical-data"))
+               .andExpect(status().isServiceUnavailable())
+               .andExpect(jsonPath("$.seeding.historical-data.state").value("PENDING"));
+
+        releaseSampleData.countDown();
+        waitUntilFinished(StartupSeedingService.Stage.HISTORICAL_DATA);
+        mockMvc.perform(get("/api/ready"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.status").value("READY"))
+               .andExpect(jsonPath("$.seeding.sample-data.state").value("DONE"));
+        mockMvc.perform(get("/api/ready").param("stage", "historical-data"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.seeding.historical-data.state").value("SKIPPED"));
+    }
+
+    @Test
+    public void testFailedStageDoesNotBlockReadiness() throws Exception {
+        when(dataLoader.loadIfEmpty()).thenThrow(new IllegalStateException("sample data unavailable"));
+        when(historicalDataSeederService.seedIfNeeded()).thenReturn(false);
+
+        startupSeedingService.startSeeding();
+        waitUntilFinished(StartupSeedingService.Stage.HISTORICAL_DATA);
+        mockMvc.perform(get("/api/ready"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.seeding.sample-data.state").value("FAILED"))
+               .andExpect(jsonPath("$.seeding.sample-data.error").value("sample data unavailable"));
+    }
+
+    @Test
+    public void testLockErrorsAreRetried() throws Exception {
+        // The stubbed lock from setUp is replaced by one that fails on the first attempt
+        doThrow(new IllegalStateException("scheduler_locks is missing"))
+                .doAnswer(invocation -> {
+                    invocation.getArgument(2, Runnable.class).run();
+                    return true;
+                })
+                .when(schedulerLockService).runWithLock(anyString(), any(Duration.class), any(Runnable.class));
+        when(dataLoader.loadIfEmpty()).thenReturn(true);
+
+        startupSeedingService.startSeeding();
+        waitUntilFinished(StartupSeedingService.Stage.SAMPLE_DATA);
+        mockMvc.perform(get("/api/ready"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.seeding.sample-data.state").value("DONE"));
+    }
+
+    @Test
+    public void testUnknownStageIsRejected() throws Exception {
+        mockMvc.perform(get("/api/ready").param("stage", "nonexistent"))
+               .andExpect(status().isBadRequest())
+               .andExpect(jsonPath("$.status").value("ERROR"));
+    }
+
+    private void waitUntilFinished(StartupSeedingService.Stage stage) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!startupSeedingService.isFinished(stage) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(startupSeedingService.isFinished(stage));
+    }
+}
@@ -0,0 +1,78 @@
+package com.air.airquality.repository;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.model.AqiData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class AqiDataBulkRepositoryTest {
+
+    @Autowired
+    private AqiDataBulkRepository bulkRepository;
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    private final List<Long> insertedIds = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        aqiDataRepository.deleteAllById(insertedIds);
+    }
+
+    @Test
+    public void testGeneratedIdsMatchStoredRowsAcrossBatches() {
+        // Small batches so the ids of several JDBC batches have to line up
+        ReflectionTestUtils.setField(bulkRepository, "batchSize", 3);
+        try {
+            List<AqiData> readings = new ArrayList<>();
+            LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+            for (int i = 0; i < 8; i++) {
+                readings.add(reading("Bulk Test City", start.plusHours(i), 50 + i));
+            }
+
+            bulkRepository.insertAll(readings);
+
+            Set<Long> ids = new HashSet<>();
+            for (AqiData reading : readings) {
+                assertNotNull(reading.getId());
+                insertedIds.add(reading.getId());
+                ids.add(reading.getId());
+
+                AqiData stored = aqiDataRepository.findById(reading.getId()).orElseThrow();
+                assertEquals(reading.getCity(), stored.getCity());
+                assertEquals(reading.getTimestamp(), stored.getTimestamp());
+                assertEquals(reading.getAqiValue(), stored.getAqiValue());
+                assertEquals(reading.getPm25(), stored.getPm25());
+            }
+            assertEquals(readings.size(), ids.size());
+        } finally {
+            ReflectionTestUtils.setField(bulkRepository, "batchSize", 1000);
+        }
+    }
+
+    private AqiData reading(String city, LocalDateTime timestamp, int aqi) {
+        AqiData data = new AqiData();
+        data.setCity(city);
+        data.setTimestamp(timestamp);
+        data.setAqiValue(aqi);
+        data.setPm25(aqi * 0.4);
+        data.setSource("test");
+        return data;
+    }
+}
@@ -0,0 +1,98 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.dto.AqiAnomaly;
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class AnomalyDetectionServiceTest {
+
+    private static final String LOCAL_CITY = "Anomaly Local City";
+    private static final String REMOTE_CITY = "Anomaly Remote City";
+    private static final LocalDateTime START = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        for (String city : List.of(LOCAL_CITY, REMOTE_CITY)) {
+            jdbcTemplate.update("DELETE FROM aqi_anomalies WHERE city = ?", city);
+            jdbcTemplate.update("DELETE FROM aqi_data WHERE city = ?", city);
+        }
+    }
+
+    @Test
+    public void testLocallyIngestedSpikeIsStored() {
+        for (int i = 0; i < 20; i++) {
+            anomalyDetectionService.onAqiDataIngested(AqiDataIngestedEvent.of(reading(LOCAL_CITY, i, 70 + i % 5)));
+        }
+        anomalyDetectionService.onAqiDataIngested(AqiDataIngestedEvent.of(reading(LOCAL_CITY, 20, 100)));
+
+        List<AqiAnomaly> anomalies = anomalyDetectionService.getAnomalies(LOCAL_CITY, 10);
+        assertEquals(1, anomalies.size());
+        assertEquals("SPIKE", anomalies.get(0).getKind());
+        assertEquals(100, anomalies.get(0).getAqiValue());
+        assertEquals(START.plusHours(20), anomalies.get(0).getTimestamp());
+        assertTrue(anomalyDetectionService.getRecentAnomalies(50).stream()
+                .anyMatch(anomaly -> LOCAL_CITY.equals(anomaly.getCity())));
+    }
+
+    @Test
+    public void testRemoteReadingsUpdateTheBaselineWithoutRecording() {
+        // The first invalidation only picks up the newest row; later ones catch up on everything newer
+        aqiDataRepository.save(reading(REMOTE_CITY, 0, 70));
+        aqiDataRepository.save(reading(REMOTE_CITY, 1, 71));
+        invalidate(REMOTE_CITY);
+        for (int i = 2; i < 20; i += 3) {
+            for (int j = i; j < i + 3; j++) {
+                aqiDataRepository.save(reading(REMOTE_CITY, j, 70 + j % 5));
+            }
+            invalidate(REMOTE_CITY);
+        }
+        aqiDataRepository.save(reading(REMOTE_CITY, 21, 100));
+        invalidate(REMOTE_CITY);
+
+        Map<String, Object> baseline = anomalyDetectionService.getBaseline(REMOTE_CITY).orElseThrow();
+        assertEquals(20L, ((Number) baseline.get("readings")).longValue());
+        assertEquals(START.plusHours(21), baseline.get("lastReading"));
+        // The ingesting node records and alerts; this one only learns from the reading
+        assertTrue(anomalyDetectionService.getAnomalies(REMOTE_CITY, 10).isEmpty());
+    }
+
+    private void invalidate(String city) {
+        anomalyDetectionService.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CITY_READINGS, city));
+    }
+
+    private AqiData reading(String city, int hour, int aqi) {
+        AqiData data = new AqiData();
+        data.setCity(city);
+        data.setTimestamp(START.plusHours(hour));
+        data.setAqiValue(aqi);
+        data.setSource("test");
+        return data;
+    }
+}
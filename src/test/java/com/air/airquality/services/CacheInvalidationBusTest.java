@@ -0,0 +1,85 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.config.NodeIdentity;
+import com.air.airquality.event.CacheInvalidationEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class CacheInvalidationBusTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<CacheInvalidationEvent> receivedByA = new ArrayList<>();
+    private final List<CacheInvalidationEvent> receivedByB = new ArrayList<>();
+
+    private CacheInvalidationBus nodeA;
+    private CacheInvalidationBus nodeB;
+
+    @BeforeEach
+    public void setUp() {
+        nodeA = node("node-a", receivedByA);
+        nodeB = node("node-b", receivedByB);
+        // First poll only establishes the high-water mark
+        nodeA.poll();
+        nodeB.poll();
+    }
+
+    @Test
+    public void testInvalidationReachesOtherNodesOnly() {
+        nodeA.publish(CacheInvalidationEvent.USERS, 42L);
+        nodeA.publish(CacheInvalidationEvent.USER_ALERTS, null);
+
+        nodeA.poll();
+        nodeB.poll();
+
+        assertTrue(receivedByA.isEmpty());
+        assertEquals(2, receivedByB.size());
+        assertTrue(receivedByB.get(0).isFor(CacheInvalidationEvent.USERS));
+        assertEquals("42", receivedByB.get(0).getKey());
+        assertTrue(receivedByB.get(1).isWholeCache());
+    }
+
+    @Test
+    public void testUnsettledEntriesAreDeliveredOnce() {
+        nodeB.publish(CacheInvalidationEvent.CITY_READINGS, "Delhi");
+
+        // The entry is newer than the settle window, so the mark stays below it across polls
+        nodeA.poll();
+        nodeA.poll();
+
+        assertEquals(1, receivedByA.size());
+        assertEquals("Delhi", receivedByA.get(0).getKey());
+        assertFalse(receivedByA.get(0).isWholeCache());
+    }
+
+    private CacheInvalidationBus node(String id, List<CacheInvalidationEvent> received) {
+        CacheInvalidationBus bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(bus, "nodeIdentity", new NodeIdentity(id));
+        ReflectionTestUtils.setField(bus, "eventPublisher", (ApplicationEventPublisher) event -> {
+            if (event instanceof CacheInvalidationEvent) {
+                received.add((CacheInvalidationEvent) event);
+            }
+        });
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        ReflectionTestUtils.setField(bus, "batchSize", 1000);
+        return bus;
+    }
+}
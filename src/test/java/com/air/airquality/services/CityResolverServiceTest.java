@@ -0,0 +1,55 @@
+package com.air.airquality.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CityResolverServiceTest {
+
+    private final CitySearchService citySearchService = mock(CitySearchService.class);
+
+    private CityResolverService resolver;
+
+    @BeforeEach
+    public void setUp() {
+        resolver = new CityResolverService();
+        ReflectionTestUtils.setField(resolver, "citySearchService", citySearchService);
+        ReflectionTestUtils.setField(resolver, "aliasConfig", "Bombay=Mumbai");
+        ReflectionTestUtils.setField(resolver, "cacheSize", 100);
+        resolver.loadAliases();
+    }
+
+    @Test
+    public void testSwappedCityOfSameCountIsPickedUp() {
+        when(citySearchService.getVersion()).thenReturn(1L);
+        when(citySearchService.getCities()).thenReturn(List.of("Mumbai", "Hyderabad"));
+        assertEquals("Hyderabad", resolver.resolve("hyderbad"));
+        assertEquals("Mumbai", resolver.resolve("bombay"));
+
+        // Hyderabad gone and Chennai added: same size, new version
+        when(citySearchService.getVersion()).thenReturn(2L);
+        when(citySearchService.getCities()).thenReturn(List.of("Mumbai", "Chennai"));
+        assertEquals("Hyderbad", resolver.resolve("hyderbad"));
+        assertEquals("Chennai", resolver.resolve("chenai"));
+        assertEquals("Mumbai", resolver.resolve("bombay"));
+    }
+
+    @Test
+    public void testFallbackCitiesSurviveRebuild() {
+        when(citySearchService.getVersion()).thenReturn(1L);
+        when(citySearchService.getCities()).thenReturn(List.of());
+        resolver.addKnownCities(List.of("Bangalore"));
+        assertEquals("Bangalore", resolver.resolve("banglore"));
+
+        when(citySearchService.getVersion()).thenReturn(2L);
+        when(citySearchService.getCities()).thenReturn(List.of("Kolkata"));
+        assertEquals("Bangalore", resolver.resolve("banglore"));
+        assertEquals("Kolkata", resolver.resolve("kolkatta"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import com.air.airquality.util.AqiStandard;
+import com.air.airquality.util.AqiStandards;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class ComparativeAnalyticsServiceTest {
+
+    private static final int DAYS = 10;
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private ComparativeAnalyticsService comparativeAnalyticsService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRankingCorrelationAndTrendDeltas() throws Exception {
+        LocalDate firstDay = LocalDate.now().minusDays(20);
+        List<AqiData> readings = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            for (int hour = 0; hour < 24; hour += 6) {
+                LocalDateTime timestamp = firstDay.plusDays(day).atTime(hour, 0);
+                readings.add(reading("Zetaville", 50 + day * 10, timestamp));
+                readings.add(reading("Quorvale", 100 + day * 10, timestamp));
+                readings.add(reading("Pelloria", 200 - day * 10, timestamp));
+            }
+        }
+        aqiDataRepository.saveAll(readings);
+
+        // Starts mid-day so the first day is read raw and the rest from the daily sketches
+        Map<String, Object> comparison = comparativeAnalyticsService.compare(
+                List.of("zetaville", "Quorvale", "Pelloria", "Nowhereton"),
+                firstDay.atTime(3, 0), firstDay.plusDays(DAYS - 1).atTime(23, 59));
+
+        List<Map<String, Object>> ranking = (List<Map<String, Object>>) comparison.get("ranking");
+        assertEquals(3, ranking.size());
+        assertEquals("Zetaville", ranking.get(0).get("city"));
+        assertEquals("Quorvale", ranking.get(1).get("city"));
+        assertEquals("Pelloria", ranking.get(2).get("city"));
+
+        Map<String, Map<String, Double>> correlation = (Map<String, Map<String, Double>>) comparison.get("correlation");
+        assertEquals(1.0, correlation.get("Zetaville").get("Quorvale"), 1e-9);
+        assertEquals(-1.0, correlation.get("Zetaville").get("Pelloria"), 1e-9);
+        assertEquals(-1.0, correlation.get("Pelloria").get("Quorvale"), 1e-9);
+
+        Map<String, Map<String, Object>> cities = (Map<String, Map<String, Object>>) comparison.get("cities");
+        Map<String, Object> zetaville = cities.get("Zetaville");
+        assertEquals(39L, zetaville.get("total_records"));
+        assertEquals(10.0, zetaville.get("trend_slope_per_day"));
+        assertEquals(50.0, zetaville.get("trend_delta"));
+        assertEquals(-50.0, cities.get("Pelloria").get("trend_delta"));
+
+        assertTrue(((List<String>) comparison.get("missing")).contains("Nowhereton"));
+        assertTrue(((Map<String, String>) comparison.get("errors")).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCitiesOnDifferentStandardsAreRankedOnTheEpaScale() throws Exception {
+        LocalDate firstDay = LocalDate.now().minusDays(40);
+        List<AqiData> readings = new ArrayList<>();
+        for (int day = 0; day < 5; day++) {
+            LocalDateTime timestamp = firstDay.plusDays(day).atTime(12, 0);
+            // PM2.5 55 is about 92 on NAQI but about 150 on EPA; PM2.5 40 is about 112 on EPA
+            readings.add(scored("Navora", 55.0, AqiStandards.NAQI, timestamp));
+            readings.add(scored("Epsilonia", 40.0, AqiStandards.EPA, timestamp));
+        }
+        aqiDataRepository.saveAll(readings);
+
+        Map<String, Object> comparison = comparativeAnalyticsService.compare(
+                List.of("Navora", "Epsilonia"), firstDay.atStartOfDay(), firstDay.plusDays(5).atStartOfDay());
+
+        Map<String, Map<String, Object>> cities = (Map<String, Map<String, Object>>) comparison.get("cities");
+        double navoraNative = ((Number) cities.get("Navora").get("avg_aqi")).doubleValue();
+        double epsiloniaNative = ((Number) cities.get("Epsilonia").get("avg_aqi")).doubleValue();
+        // On their own scales Navora looks cleaner...
+        assertTrue(navoraNative < epsiloniaNative);
+        assertNotNull(cities.get("Navora").get("aqi_standard"));
+
+        // ...but on a common scale it is not
+        List<Map<String, Object>> ranking = (List<Map<String, Object>>) comparison.get("ranking");
+        assertEquals("EPA", comparison.get("ranking_scale"));
+        assertEquals("Epsilonia", ranking.get(0).get("city"));
+        assertEquals("Navora", ranking.get(1).get("city"));
+        assertTrue(((Number) ranking.get(1).get("epa_avg_aqi")).doubleValue() > 140);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTimedOutCityGivesItsThreadBack() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        StatisticsSketchService sketches = mock(StatisticsSketchService.class);
+        when(sketches.getStatisticsWithDailyMeans(eq("Slowtown"), any(), any())).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        });
+        when(sketches.getStatisticsWithDailyMeans(eq("Fasttown"), any(), any()))
+                .thenReturn(new HashMap<>(Map.of("total_records", 0L)));
+        CityResolverService resolver = mock(CityResolverService.class);
+        when(resolver.resolve(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ComparativeAnalyticsService service = new ComparativeAnalyticsService();
+        ReflectionTestUtils.setField(service, "statisticsSketchService", sketches);
+        ReflectionTestUtils.setField(service, "cityResolverService", resolver);
+        ReflectionTestUtils.setField(service, "configuredParallelism", 1);
+        ReflectionTestUtils.setField(service, "maxCities", 50);
+        ReflectionTestUtils.setField(service, "timeoutMs", 200L);
+        service.init();
+        try {
+            LocalDateTime end = LocalDateTime.now();
+            Map<String, Object> first = service.compare(List.of("Slowtown"), end.minusDays(7), end);
+            assertTrue(((Map<String, String>) first.get("errors")).containsKey("Slowtown"));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+            // The single worker is free again, so the next comparison is not stuck behind the first
+            Map<String, Object> second = service.compare(List.of("Fasttown"), end.minusDays(7), end);
+            assertEquals(List.of("Fasttown"), second.get("missing"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static AqiData scored(String city, double pm25, AqiStandard standard, LocalDateTime timestamp) {
+        AqiData data = new AqiData(city, 0, pm25, null, null, null, null, null);
+        data.setTimestamp(timestamp);
+        standard.score(data);
+        return data;
+    }
+
+    private static AqiData reading(String city, int aqi, LocalDateTime timestamp) {
+        AqiData data = new AqiData(city, aqi, null, null, null, null, null, null);
+        data.setTimestamp(timestamp);
+        return data;
+    }
+}
@@ -0,0 +1,49 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class HistoricalDataSeederServiceTest {
+
+    private static final LocalDateTime END = LocalDateTime.of(2026, 6, 1, 0, 0);
+
+    @Autowired
+    private HistoricalDataSeederService seederService;
+
+    @Test
+    public void testSameSeedGeneratesSameDataset() {
+        HistoricalDataSeederService.GenerationResult first =
+                seederService.generateBenchmarkDataset(12, 1, 24, 7L, false, END);
+        HistoricalDataSeederService.GenerationResult second =
+                seederService.generateBenchmarkDataset(12, 1, 24, 7L, false, END);
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(12 * 365, first.getRows());
+        assertEquals(first.getRows(), second.getRows());
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+        assertEquals(0, first.getPersistedRows());
+    }
+
+    @Test
+    public void testDifferentSeedGeneratesDifferentDataset() {
+        HistoricalDataSeederService.GenerationResult first =
+                seederService.generateBenchmarkDataset(12, 1, 24, 7L, false, END);
+        HistoricalDataSeederService.GenerationResult other =
+                seederService.generateBenchmarkDataset(12, 1, 24, 8L, false, END);
+
+        assertEquals(first.getRows(), other.getRows());
+        assertNotEquals(first.getFingerprint(), other.getFingerprint());
+    }
+}
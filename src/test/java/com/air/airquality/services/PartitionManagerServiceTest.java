@@ -0,0 +1,140 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class PartitionManagerServiceTest {
+
+    private static final String CITY = "Partition Test City";
+
+    @Autowired
+    private PartitionManagerService partitionManagerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM aqi_data WHERE city = ?", CITY);
+    }
+
+    @Test
+    public void testH2FallbackDeletesWholeExpiredMonths() {
+        insert(LocalDateTime.of(2001, 1, 15, 0, 0));
+        insert(LocalDateTime.of(2001, 2, 15, 0, 0));
+        insert(LocalDateTime.of(2001, 3, 5, 0, 0));
+
+        assertFalse(partitionManagerService.isPartitioned());
+        assertEquals(0, partitionManagerService.ensureFuturePartitions());
+
+        PartitionManagerService.RetentionResult result =
+                partitionManagerService.dropExpired(LocalDateTime.of(2001, 3, 10, 0, 0));
+
+        assertEquals("segment-delete", result.getStrategy());
+        assertEquals(List.of("p200101", "p200102"), result.getDroppedSegments());
+        assertEquals(2, result.getRows());
+        // The month containing the cutoff is kept as a whole
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM aqi_data WHERE city = ?", Long.class, CITY));
+    }
+
+    @Test
+    public void testOldPartitionIsTrimmedUntilItHasExpired() throws Exception {
+        Map<String, Long> layout = new LinkedHashMap<>();
+        layout.put("p_old", 500L);
+        layout.put("p202510", 10L);
+        layout.put("p202511", 20L);
+        layout.put("pmax", 0L);
+        JdbcTemplate mysql = mySqlWithPartitions(layout);
+        when(mysql.update(startsWith("DELETE FROM aqi_data PARTITION (p_old)"), any(Timestamp.class))).thenReturn(120);
+
+        PartitionManagerService.RetentionResult result =
+                mySqlService(mysql).dropExpired(LocalDateTime.of(2023, 11, 20, 0, 0));
+
+        // Nothing monthly has expired, so only the old rows are deleted
+        assertEquals(120, result.getRows());
+        assertEquals(List.of(), result.getDroppedSegments());
+        verify(mysql).update(startsWith("DELETE FROM aqi_data PARTITION (p_old)"),
+                eq(Timestamp.valueOf(LocalDateTime.of(2023, 11, 1, 0, 0))));
+        verify(mysql, never()).execute(startsWith("ALTER TABLE aqi_data DROP PARTITION"));
+    }
+
+    @Test
+    public void testExpiredOldPartitionIsDroppedWithMonthlyOnes() throws Exception {
+        Map<String, Long> layout = new LinkedHashMap<>();
+        layout.put("p_old", 500L);
+        layout.put("p202510", 10L);
+        layout.put("p202511", 20L);
+        layout.put("p202512", 30L);
+        layout.put("pmax", 0L);
+        JdbcTemplate mysql = mySqlWithPartitions(layout);
+
+        PartitionManagerService.RetentionResult result =
+                mySqlService(mysql).dropExpired(LocalDateTime.of(2025, 11, 20, 0, 0));
+
+        assertEquals(List.of("p_old", "p202510"), result.getDroppedSegments());
+        assertEquals(510, result.getRows());
+        verify(mysql).execute("ALTER TABLE aqi_data DROP PARTITION p_old, p202510");
+        verify(mysql, never()).update(anyString(), any(Timestamp.class));
+        assertEquals(Map.of(YearMonth.of(2025, 10), 10L, YearMonth.of(2025, 11), 20L, YearMonth.of(2025, 12), 30L),
+                mySqlService(mysql).listMonthlyPartitions());
+    }
+
+    private void insert(LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO aqi_data (city, aqi_value, timestamp, source) VALUES (?, ?, ?, ?)",
+                CITY, 50, Timestamp.valueOf(timestamp), "test");
+    }
+
+    private PartitionManagerService mySqlService(JdbcTemplate mysql) {
+        PartitionManagerService service = new PartitionManagerService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", mysql);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "databaseProduct", "MySQL");
+        return service;
+    }
+
+    // information_schema.PARTITIONS as MySQL reports it for the given layout
+    private JdbcTemplate mySqlWithPartitions(Map<String, Long> layout) throws Exception {
+        JdbcTemplate mysql = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<String, Long> partition : layout.entrySet()) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getString("PARTITION_NAME")).thenReturn(partition.getKey());
+                when(row.getLong("TABLE_ROWS")).thenReturn(partition.getValue());
+                handler.processRow(row);
+            }
+            return null;
+        }).when(mysql).query(startsWith("SELECT PARTITION_NAME"), any(RowCallbackHandler.class), eq("aqi_data"));
+        return mysql;
+    }
+}
@@ -0,0 +1,152 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.model.RetentionJobState;
+import com.air.airquality.repository.RetentionJobStateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class RetentionJobServiceTest {
+
+    private static final String CITY = "Retention Test City";
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired
+    private RetentionJobService retentionJobService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private RetentionJobStateRepository stateRepository;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(retentionJobService, "chunkSize", 10);
+        ReflectionTestUtils.setField(retentionJobService, "minPauseMs", 0L);
+        jdbcTemplate.update("DELETE FROM retention_job_state");
+        // 30 expired rows and 5 that must be kept
+        for (int i = 0; i < 35; i++) {
+            int year = i < 30 ? 2000 : 2002;
+            jdbcTemplate.update("INSERT INTO aqi_data (city, aqi_value, timestamp, source) VALUES (?, ?, ?, ?)",
+                    CITY, 50, Timestamp.valueOf(LocalDateTime.of(year, 1, 1, 0, 0).plusHours(i)), "test");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        reset(stateRepository);
+        retentionJobService.stop();
+        waitUntilIdle();
+        ReflectionTestUtils.setField(retentionJobService, "chunkSize", 1000);
+        ReflectionTestUtils.setField(retentionJobService, "minPauseMs", 20L);
+        jdbcTemplate.update("DELETE FROM aqi_data WHERE city = ?", CITY);
+        jdbcTemplate.update("DELETE FROM retention_job_state");
+    }
+
+    @Test
+    public void testStoppedRunResumesFromCheckpoint() throws Exception {
+        // Slow the job down so it can be stopped after the first chunk
+        ReflectionTestUtils.setField(retentionJobService, "minPauseMs", 500L);
+        assertTrue(retentionJobService.start(CUTOFF));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (chunksCompleted() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(retentionJobService.stop());
+        waitUntilIdle();
+
+        RetentionJobState stopped = stateRepository.findById("aqi_data_retention").orElseThrow();
+        assertEquals(RetentionJobState.Status.STOPPED, stopped.getStatus());
+        assertEquals(10L, stopped.getRowsDeleted());
+        assertEquals(25L, remainingRows());
+
+        ReflectionTestUtils.setField(retentionJobService, "minPauseMs", 0L);
+        assertEquals(30L, retentionJobService.runToCompletion(CUTOFF));
+
+        RetentionJobState completed = stateRepository.findById("aqi_data_retention").orElseThrow();
+        assertEquals(RetentionJobState.Status.COMPLETED, completed.getStatus());
+        assertEquals(3L, completed.getChunksCompleted());
+        assertEquals(5L, remainingRows());
+    }
+
+    @Test
+    public void testFailedChunkKeepsLastCommittedCheckpoint() throws Exception {
+        // The second chunk fails while saving its checkpoint, so its delete rolls back
+        doThrow(new IllegalStateException("checkpoint write failed"))
+                .when(stateRepository).save(argThat(state -> state.getChunksCompleted() == 2));
+
+        retentionJobService.runToCompletion(CUTOFF);
+
+        RetentionJobState failed = stateRepository.findById("aqi_data_retention").orElseThrow();
+        assertEquals(RetentionJobState.Status.FAILED, failed.getStatus());
+        assertEquals(1L, failed.getChunksCompleted());
+        assertEquals(10L, failed.getRowsDeleted());
+        assertEquals(25L, remainingRows());
+        Long tenthExpiredId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM aqi_data WHERE city = ?", Long.class, CITY) - 1;
+        assertEquals(tenthExpiredId, failed.getLastDeletedId());
+
+        // Resuming picks up exactly the rows the failed chunk left behind
+        reset(stateRepository);
+        assertEquals(30L, retentionJobService.runToCompletion(CUTOFF));
+        assertEquals(5L, remainingRows());
+        assertFalse(retentionJobService.isRunning());
+    }
+
+    @Test
+    public void testCheckpointWrittenElsewhereIsNotOverwritten() throws Exception {
+        ReflectionTestUtils.setField(retentionJobService, "minPauseMs", 500L);
+        assertTrue(retentionJobService.start(CUTOFF));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (chunksCompleted() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Another replica updates the checkpoint while this one pauses between chunks
+        RetentionJobState theirs = stateRepository.findById("aqi_data_retention").orElseThrow();
+        theirs.setRowsDeleted(999L);
+        stateRepository.save(theirs);
+        waitUntilIdle();
+
+        // The next chunk's stale checkpoint write failed and rolled its delete back
+        RetentionJobState state = stateRepository.findById("aqi_data_retention").orElseThrow();
+        assertEquals(999L, state.getRowsDeleted());
+        assertEquals(1L, state.getChunksCompleted());
+        assertEquals(25L, remainingRows());
+    }
+
+    private long chunksCompleted() {
+        return stateRepository.findById("aqi_data_retention").map(RetentionJobState::getChunksCompleted).orElse(0L);
+    }
+
+    private long remainingRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM aqi_data WHERE city = ?", Long.class, CITY);
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (retentionJobService.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
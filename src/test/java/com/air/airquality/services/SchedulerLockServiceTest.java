@@ -0,0 +1,110 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.config.NodeIdentity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class SchedulerLockServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SchedulerLockService nodeA;
+    private SchedulerLockService nodeB;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM scheduler_locks WHERE name LIKE 'test-%'");
+        nodeA = node("node-a");
+        nodeB = node("node-b");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    public void testOnlyOneNodeHoldsLock() {
+        Optional<SchedulerLockService.Lease> lease = nodeA.tryAcquire("test-exclusive", Duration.ofSeconds(30));
+        assertTrue(lease.isPresent());
+        assertFalse(nodeB.tryAcquire("test-exclusive", Duration.ofSeconds(30)).isPresent());
+
+        nodeA.release(lease.get(), Duration.ZERO);
+        assertTrue(nodeB.tryAcquire("test-exclusive", Duration.ofSeconds(30)).isPresent());
+        assertEquals("node-b", jdbcTemplate.queryForObject(
+                "SELECT locked_by FROM scheduler_locks WHERE name = 'test-exclusive'", String.class));
+    }
+
+    @Test
+    public void testRenewalKeepsLeaseBeyondItsDuration() throws Exception {
+        Optional<SchedulerLockService.Lease> lease = nodeA.tryAcquire("test-renewal", Duration.ofSeconds(1));
+        assertTrue(lease.isPresent());
+
+        Thread.sleep(2500);
+        assertTrue(lease.get().isHeld());
+        assertFalse(nodeB.tryAcquire("test-renewal", Duration.ofSeconds(1)).isPresent());
+    }
+
+    @Test
+    public void testTakeoverAfterHolderStopsRenewing() throws Exception {
+        assertTrue(nodeA.tryAcquire("test-takeover", Duration.ofSeconds(1)).isPresent());
+
+        // Simulate a crashed node: renewals stop but the lock is never released
+        nodeA.shutdown();
+        Thread.sleep(2500);
+
+        assertTrue(nodeB.tryAcquire("test-takeover", Duration.ofSeconds(1)).isPresent());
+    }
+
+    @Test
+    public void testLockAtLeastForBlocksRerunAfterRelease() {
+        AtomicBoolean ran = new AtomicBoolean(false);
+        assertTrue(nodeA.runWithLock("test-at-least", Duration.ofMinutes(5), () -> ran.set(true)));
+        assertTrue(ran.get());
+
+        assertFalse(nodeB.runWithLock("test-at-least", Duration.ZERO, () -> { }));
+    }
+
+    @Test
+    public void testDatabaseErrorsMeanNotAcquired() {
+        JdbcTemplate unreachable = mock(JdbcTemplate.class, invocation -> {
+            throw new CannotGetJdbcConnectionException("Connection refused");
+        });
+        ReflectionTestUtils.setField(nodeA, "jdbcTemplate", unreachable);
+
+        assertFalse(nodeA.tryAcquire("test-unreachable", Duration.ofSeconds(30)).isPresent());
+        AtomicBoolean ran = new AtomicBoolean(false);
+        assertFalse(nodeA.runWithLock("test-unreachable", Duration.ZERO, () -> ran.set(true)));
+        assertFalse(ran.get());
+    }
+
+    private SchedulerLockService node(String id) {
+        SchedulerLockService service = new SchedulerLockService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "nodeIdentity", new NodeIdentity(id));
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 1L);
+        return service;
+    }
+}
@@ -0,0 +1,86 @@
+package com.air.airquality.services;
+
+import com.air.airquality.AirQualityMonitoringApplication;
+import com.air.airquality.event.AqiDataIngestedEvent;
+import com.air.airquality.event.CacheInvalidationEvent;
+import com.air.airquality.model.AqiData;
+import com.air.airquality.repository.AqiDataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = AirQualityMonitoringApplication.class)
+@ActiveProfiles("test")
+public class StatisticsSketchServiceTest {
+
+    private static final String CITY = "Sketch Test City";
+
+    @Autowired
+    private StatisticsSketchService statisticsSketchService;
+
+    @Autowired
+    private AqiDataRepository aqiDataRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime start = LocalDate.now().minusDays(10).atStartOfDay();
+    private final LocalDateTime end = LocalDate.now().atStartOfDay();
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM aqi_data WHERE city = ?", CITY);
+        statisticsSketchService.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CITY_SCORES, CITY));
+    }
+
+    @Test
+    public void testRemoteReadingsAreCaughtUpWithoutDoubleCounting() {
+        for (int i = 0; i < 3; i++) {
+            store(50, 5);
+        }
+        assertEquals(3L, totalRecords());
+
+        // Ingested here: arrives as an event and is also past the last known id
+        AqiData local = store(60, 3);
+        statisticsSketchService.onAqiDataIngested(AqiDataIngestedEvent.of(local));
+        // Stored by another replica: only an invalidation arrives
+        store(70, 2);
+        statisticsSketchService.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CITY_READINGS, CITY));
+
+        Map<String, Object> stats = statisticsSketchService.getStatistics(CITY, start, end);
+        assertEquals(5L, ((Number) stats.get("total_records")).longValue());
+        assertEquals(70, ((Number) stats.get("max_aqi")).intValue());
+    }
+
+    @Test
+    public void testRescoredCityIsRebuilt() {
+        store(50, 4);
+        store(50, 3);
+        assertEquals(2L, totalRecords());
+
+        jdbcTemplate.update("UPDATE aqi_data SET aqi_value = 90 WHERE city = ?", CITY);
+        statisticsSketchService.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CITY_SCORES, CITY));
+
+        Map<String, Object> stats = statisticsSketchService.getStatistics(CITY, start, end);
+        assertEquals(90, ((Number) stats.get("min_aqi")).intValue());
+    }
+
+    private AqiData store(int aqi, int daysAgo) {
+        AqiData reading = new AqiData(CITY, aqi, 20.0, 40.0, 10.0, 5.0, 0.5, 30.0);
+        reading.setTimestamp(LocalDate.now().minusDays(daysAgo).atTime(10, 0));
+        return aqiDataRepository.save(reading);
+    }
+
+    private long totalRecords() {
+        return ((Number) statisticsSketchService.getStatistics(CITY, start, end).get("total_records")).longValue();
+    }
+}
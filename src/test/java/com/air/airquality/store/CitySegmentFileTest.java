@@ -0,0 +1,118 @@
+package com.air.airquality.store;
+
+import com.air.airquality.model.AqiData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CitySegmentFileTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_456_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRoundTripAcrossOutOfOrderAppends() throws Exception {
+        Path file = directory.resolve("Delhi.seg");
+        List<AqiData> recent = readings(100, 200);
+        List<AqiData> older = readings(0, 100);
+
+        try (CitySegmentFile segment = new CitySegmentFile("Delhi", file)) {
+            segment.append(recent, 64);
+            segment.append(older, 64);
+            assertEquals(200, segment.getReadingCount());
+        }
+
+        // Reopen from disk and scan a range that spans both appends
+        try (CitySegmentFile segment = new CitySegmentFile("Delhi", file)) {
+            List<AqiData> found = sorted(segment.scan(BASE.plusHours(12 * 50), BASE.plusHours(12 * 150)));
+            assertEquals(101, found.size());
+            for (int i = 0; i < found.size(); i++) {
+                assertSameReading(reading(50 + i), found.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testTornTrailingBlockIsTruncated() throws Exception {
+        Path file = directory.resolve("Mumbai.seg");
+        try (CitySegmentFile segment = new CitySegmentFile("Mumbai", file)) {
+            segment.append(readings(0, 10), 64);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x41, 0x51, 0x49, 0x31, 0, 0, 0}));
+        }
+
+        try (CitySegmentFile segment = new CitySegmentFile("Mumbai", file)) {
+            assertEquals(10, segment.getReadingCount());
+            assertEquals(10, segment.scan(BASE, BASE.plusYears(1)).size());
+        }
+    }
+
+    @Test
+    public void testCompactionMergesBlocksAndDropsExpiredReadings() throws Exception {
+        try (CitySegmentFile segment = new CitySegmentFile("Pune", directory.resolve("Pune.seg"))) {
+            for (int i = 0; i < 40; i++) {
+                segment.append(readings(i, i + 1), 64);
+            }
+            assertEquals(40, segment.getBlockCount());
+
+            segment.compact(BASE.plusHours(12 * 10), 16);
+            assertEquals(2, segment.getBlockCount());
+            assertEquals(30, segment.getReadingCount());
+
+            List<AqiData> found = sorted(segment.scan(BASE, BASE.plusYears(1)));
+            assertSameReading(reading(10), found.get(0));
+            assertSameReading(reading(39), found.get(found.size() - 1));
+        }
+    }
+
+    // Mix of decimal values (scaled column), arbitrary doubles (XOR column) and missing values
+    private static AqiData reading(int index) {
+        AqiData data = new AqiData("Delhi", 50 + (index * 37) % 300,
+                Math.round(index * 1.37 * 100) / 100.0,
+                index % 5 == 0 ? null : Math.sqrt(index + 2),
+                null,
+                index * 0.5,
+                index % 3 == 0 ? Double.NaN : 0.1 * index,
+                -0.0);
+        data.setTimestamp(BASE.plusHours(12L * index));
+        return data;
+    }
+
+    private static List<AqiData> readings(int from, int to) {
+        List<AqiData> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            result.add(reading(i));
+        }
+        return result;
+    }
+
+    private static List<AqiData> sorted(List<AqiData> readings) {
+        readings.sort(Comparator.comparing(AqiData::getTimestamp));
+        return readings;
+    }
+
+    private static void assertSameReading(AqiData expected, AqiData actual) {
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getAqiValue(), actual.getAqiValue());
+        assertEquals(expected.getPm25(), actual.getPm25());
+        assertEquals(expected.getPm10(), actual.getPm10());
+        assertNull(actual.getNo2());
+        assertEquals(expected.getSo2(), actual.getSo2());
+        assertEquals(expected.getCo(), actual.getCo());
+        assertEquals(Double.doubleToRawLongBits(expected.getO3()), Double.doubleToRawLongBits(actual.getO3()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.air.airquality.util;
+
+import com.air.airquality.model.AqiData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AQICalculatorTest {
+
+    @Test
+    public void testPm25BreakpointsAreContinuous() {
+        AQICalculator.Pollutant pm25 = AQICalculator.Pollutant.PM25;
+        assertEquals(0, pm25.subIndex(0.0));
+        assertEquals(50, pm25.subIndex(12.0));
+        // Values between the published breakpoints (12.0 / 12.1) must not jump to the top of the scale
+        assertEquals(50, pm25.subIndex(12.05));
+        assertEquals(100, pm25.subIndex(35.4));
+        assertEquals(154, pm25.subIndex(63.0));
+        assertEquals(500, pm25.subIndex(800.0));
+        assertEquals(-1, pm25.subIndex(null));
+        assertEquals(-1, pm25.subIndex(-3.0));
+    }
+
+    @Test
+    public void testGasesReachTheTopBands() {
+        // Concentrations are ingested in µg/m³ (CO in mg/m³); the tables are in ppb (ppm)
+        assertEquals(300, AQICalculator.Pollutant.NO2.subIndex(1249 / 0.53));
+        assertEquals(400, AQICalculator.Pollutant.NO2.subIndex(1649 / 0.53));
+        assertEquals(500, AQICalculator.Pollutant.NO2.subIndex(2049 / 0.53));
+        assertEquals(400, AQICalculator.Pollutant.SO2.subIndex(804 / 0.38));
+        assertEquals(500, AQICalculator.Pollutant.SO2.subIndex(1004 / 0.38));
+        assertEquals(400, AQICalculator.Pollutant.CO.subIndex(40.4 / 0.87));
+        assertEquals(500, AQICalculator.Pollutant.CO.subIndex(50.4 / 0.87));
+    }
+
+    @Test
+    public void testScoreStoresSubIndicesAndDominantPollutant() {
+        // PM10 at 300 µg/m³ (AQI 173) outweighs PM2.5 at 40 µg/m³ (AQI 112)
+        AqiData data = new AqiData("Delhi", null, 40.0, 300.0, 40.0, null, 1.0, 60.0);
+        assertTrue(AQICalculator.score(data));
+
+        assertEquals(173, data.getAqiValue());
+        assertEquals("pm10", data.getDominantPollutant());
+        assertEquals(112, data.getAqiPm25());
+        assertEquals(173, data.getAqiPm10());
+        assertNull(data.getAqiSo2());
+        assertEquals(AQICalculator.calculateAQI(40.0, 300.0, 40.0, null, 1.0, 60.0), data.getAqiValue());
+
+        Map<String, Integer> subIndices = AQICalculator.subIndices(data);
+        assertEquals(5, subIndices.size());
+        assertFalse(subIndices.containsKey("so2"));
+        assertEquals(173, subIndices.get("pm10"));
+    }
+
+    @Test
+    public void testReadingWithoutPollutantsKeepsItsAqi() {
+        AqiData data = new AqiData("Delhi", 120, null, null, null, null, null, null);
+        assertFalse(AQICalculator.score(data));
+        assertEquals(120, data.getAqiValue());
+        assertNull(data.getDominantPollutant());
+        assertEquals(0, AQICalculator.calculateAQI(null, null, null, null, null, null));
+    }
+
+    @Test
+    public void testFillSubIndicesLeavesStoredAqi() {
+        AqiData data = new AqiData("Delhi", 99, 40.0, null, null, null, null, null);
+        assertEquals(112, AQICalculator.fillSubIndices(data));
+        assertEquals(99, data.getAqiValue());
+        assertEquals("pm25", data.getDominantPollutant());
+    }
+}
@@ -0,0 +1,78 @@
+package com.air.airquality.util;
+
+import com.air.airquality.model.AqiData;
+import com.air.airquality.util.AQICalculator.Pollutant;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AqiStandardsTest {
+
+    @Test
+    public void testNaqiSubIndicesAndCategories() {
+        AqiStandard naqi = AqiStandards.NAQI;
+        assertEquals(75, naqi.subIndex(Pollutant.PM25, 45.0));
+        assertEquals(250, naqi.subIndex(Pollutant.PM10, 300.0));
+        assertEquals(500, naqi.subIndex(Pollutant.PM10, 900.0));
+        assertEquals("Poor", naqi.category(250));
+        assertEquals("Satisfactory", naqi.category(75));
+
+        // Same reading as in AQICalculatorTest: NAQI rates it "Poor" where EPA says "Unhealthy"
+        AqiData data = new AqiData("Delhi", null, 40.0, 300.0, 40.0, null, 1.0, 60.0);
+        assertTrue(naqi.score(data));
+        assertEquals(250, data.getAqiValue());
+        assertEquals("pm10", data.getDominantPollutant());
+        assertEquals("NAQI-2014", data.getAqiStandard());
+        assertEquals(67, data.getAqiPm25());
+    }
+
+    @Test
+    public void testCaqiUsesItsOwnScaleAndUnits() {
+        AqiStandard caqi = AqiStandards.CAQI;
+        assertEquals(56, caqi.subIndex(Pollutant.PM10, 60.0));
+        // CO arrives in mg/m³, CAQI rates it in µg/m³
+        assertEquals(35, caqi.subIndex(Pollutant.CO, 6.0));
+        // Past the top breakpoint the last segment is extended, up to the ceiling
+        assertEquals(125, caqi.subIndex(Pollutant.PM25, 165.0));
+        assertEquals(200, caqi.subIndex(Pollutant.PM25, 900.0));
+        assertEquals("Medium", caqi.category(56));
+        assertEquals("High", caqi.category(100));
+        assertEquals("Very high", caqi.category(125));
+        assertEquals(-1, caqi.subIndex(Pollutant.O3, Double.NaN));
+    }
+
+    @Test
+    public void testColumnScoringMatchesSingleReadings() {
+        double[][] concentrations = new double[Pollutant.values().length][3];
+        concentrations[Pollutant.PM25.ordinal()] = new double[] {45.0, Double.NaN, 12.0};
+        concentrations[Pollutant.PM10.ordinal()] = new double[] {300.0, 20.0, Double.NaN};
+        for (Pollutant pollutant : new Pollutant[] {Pollutant.NO2, Pollutant.SO2, Pollutant.CO, Pollutant.O3}) {
+            concentrations[pollutant.ordinal()] = new double[] {Double.NaN, Double.NaN, Double.NaN};
+        }
+        int[][] subIndices = new int[Pollutant.values().length][3];
+        AqiStandards.NAQI.subIndices(concentrations, 3, new boolean[] {true, true, false}, subIndices);
+
+        assertEquals(75, subIndices[Pollutant.PM25.ordinal()][0]);
+        assertEquals(250, subIndices[Pollutant.PM10.ordinal()][0]);
+        assertEquals(-1, subIndices[Pollutant.PM25.ordinal()][1]);
+        assertEquals(20, subIndices[Pollutant.PM10.ordinal()][1]);
+        // Unselected rows are left alone
+        assertEquals(0, subIndices[Pollutant.PM25.ordinal()][2]);
+    }
+
+    @Test
+    public void testLookupAndValidation() {
+        assertSame(AqiStandards.NAQI, AqiStandards.get("naqi"));
+        assertSame(AqiStandards.CAQI, AqiStandards.get("CAQI-2012"));
+        assertSame(AqiStandards.EPA, AqiStandards.get(null));
+        assertSame(AqiStandards.EPA, AqiStandards.get("AQHI"));
+        assertEquals("Unhealthy for Sensitive Groups", AqiStandards.EPA.category(120));
+
+        assertThrows(IllegalArgumentException.class, () -> AqiStandard.builder("X", "1", "Broken")
+                .indexBounds(50, 100)
+                .pollutant(Pollutant.PM25, 1.0, 30, 20));
+    }
+}
@@ -0,0 +1,48 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BkTreeTest {
+
+    private static final List<String> CITIES = List.of(
+            "delhi", "new delhi", "mumbai", "navi mumbai", "bangalore", "mangalore",
+            "chennai", "kolkata", "hyderabad", "pune", "jaipur", "lucknow");
+
+    @Test
+    public void testSearchMatchesBruteForce() {
+        BkTree tree = new BkTree();
+        CITIES.forEach(tree::add);
+        assertFalse(tree.add("delhi"));
+        assertEquals(CITIES.size(), tree.size());
+
+        for (String query : List.of("dehli", "mumbay", "bangalor", "xyz", "chenai", "puna")) {
+            for (int distance = 0; distance <= 3; distance++) {
+                Set<String> expected = new HashSet<>();
+                for (String city : CITIES) {
+                    if (BkTree.levenshtein(query, city, Integer.MAX_VALUE) <= distance) {
+                        expected.add(city);
+                    }
+                }
+                assertEquals(expected, new HashSet<>(tree.search(query, distance)), query + " within " + distance);
+            }
+        }
+    }
+
+    @Test
+    public void testDistances() {
+        assertEquals(2, BkTree.levenshtein("dehli", "delhi", Integer.MAX_VALUE));
+        assertEquals(1, BkTree.transpositionDistance("dehli", "delhi"));
+        assertEquals(1, BkTree.levenshtein("bangalore", "mangalore", Integer.MAX_VALUE));
+        assertTrue(BkTree.levenshtein("pune", "hyderabad", 2) > 2);
+        assertEquals("new york", CityNames.matchKey(" New-York "));
+        assertEquals("New York", CityNames.normalize("  new   york"));
+    }
+}
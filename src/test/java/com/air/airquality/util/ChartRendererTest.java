@@ -0,0 +1,52 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChartRendererTest {
+
+    private static final int[] EPA_UPPER = {50, 100, 150, 200, 300, 500};
+
+    @Test
+    public void testTrendChartAsPng() {
+        double[] times = new double[48];
+        double[] aqi = new double[48];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = 1_700_000_000 + i * 3600.0;
+            aqi[i] = 40 + i * 3;
+        }
+        PngChartCanvas canvas = new PngChartCanvas(1200, 600);
+        ChartRenderer.trend(canvas, "AQI Trend Over Time - Delhi", times, aqi, times.length, EPA_UPPER);
+        byte[] png = canvas.toPng();
+        // PNG signature
+        assertEquals((byte) 0x89, png[0]);
+        assertEquals('P', png[1]);
+        assertEquals('N', png[2]);
+        assertEquals('G', png[3]);
+    }
+
+    @Test
+    public void testBarAndPieChartsAsSvg() {
+        SvgChartCanvas bars = new SvgChartCanvas(1000, 600);
+        ChartRenderer.bars(bars, "Pollution Level Distribution - A&B", "Pollution Levels", "Number of Readings",
+                new String[]{"Very Low\n(0-50)", "Low\n(51-100)"}, new double[]{12, 0},
+                new Color[]{ChartRenderer.categoryColor(0), ChartRenderer.categoryColor(1)}, true);
+        String svg = bars.toSvg();
+        assertTrue(svg.startsWith("<svg"));
+        assertTrue(svg.trim().endsWith("</svg>"));
+        assertTrue(svg.contains("A&amp;B"));
+        assertTrue(svg.contains(">12</text>"));
+        assertTrue(svg.contains("fill=\"#00ff88\""));
+
+        SvgChartCanvas pie = new SvgChartCanvas(1000, 800);
+        ChartRenderer.pie(pie, "AQI Category Distribution", new String[]{"Good", "Moderate"}, new double[]{3, 1},
+                new Color[]{ChartRenderer.categoryColor(0), ChartRenderer.categoryColor(1)});
+        String pieSvg = pie.toSvg();
+        assertTrue(pieSvg.contains("75.0%"));
+        assertTrue(pieSvg.contains("25.0%"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CitySearchIndexTest {
+
+    private final CitySearchIndex index = new CitySearchIndex(List.of(
+            "Delhi", "New Delhi", "Dehradun", "Mumbai", "Navi Mumbai", "Bangalore", "Mangalore", "Kolkata"));
+
+    @Test
+    public void testPrefixBeforeWordPrefixBeforeInfix() {
+        assertEquals(List.of("Delhi", "New Delhi"), index.search("del", 10));
+        assertEquals(List.of("Bangalore", "Mangalore"), index.search("angalore", 10));
+        assertEquals(List.of("Mumbai", "Navi Mumbai"), index.search("MUMBAI ", 10));
+        assertEquals(List.of("Kolkata"), index.search("lka", 10));
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void testPopularityRanksWithinTierAndLimitsResults() {
+        assertEquals(List.of("Dehradun", "Delhi"), index.search("de", 2));
+
+        index.addPopularity("delhi", 5);
+        assertEquals(List.of("Delhi", "Dehradun"), index.search("de", 2));
+        assertEquals(List.of("Delhi"), index.search("d", 1));
+    }
+
+    @Test
+    public void testIncrementalAddIsSearchableAndDeduplicated() {
+        assertFalse(index.contains("Pune"));
+        assertTrue(index.add("Pune"));
+        assertFalse(index.add("  pune "));
+
+        assertEquals(List.of("Pune"), index.search("pun", 10));
+        assertEquals(List.of("Pune"), index.search("une", 10));
+        assertEquals(9, index.getCities().size());
+        assertEquals("Pune", index.getCities().get(index.getCities().size() - 1));
+    }
+}
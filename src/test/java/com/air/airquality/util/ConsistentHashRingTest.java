@@ -0,0 +1,62 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 6000;
+
+    @Test
+    public void testKeysSpreadEvenlyAcrossNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("city-" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            // Within 20% of a perfect third
+            assertTrue(Math.abs(count - KEYS / 3) < KEYS / 15, "Uneven shard: " + counts);
+        }
+    }
+
+    @Test
+    public void testJoiningNodeOnlyTakesKeysFromOthers() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "city-" + i;
+            String oldOwner = before.nodeFor(key);
+            String newOwner = after.nodeFor(key);
+            if (!oldOwner.equals(newOwner)) {
+                // Keys only ever move to the new node, never between existing ones
+                assertEquals("node-d", newOwner);
+                moved++;
+            }
+        }
+        // About a quarter of the keys move
+        assertTrue(moved > KEYS / 5 && moved < KEYS * 3 / 10, "Moved " + moved + " keys");
+    }
+
+    @Test
+    public void testRingIsIndependentOfMemberOrder() {
+        ConsistentHashRing first = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+        ConsistentHashRing second = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"), 64);
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(first.nodeFor("city-" + i), second.nodeFor("city-" + i));
+        }
+        assertNull(new ConsistentHashRing(List.of(), 64).nodeFor("Delhi"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.air.airquality.util;
+
+import com.air.airquality.util.EwmaAnomalyDetector.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EwmaAnomalyDetectorTest {
+
+    private static EwmaAnomalyDetector detector() {
+        return new EwmaAnomalyDetector(0.1, 3.5, 10, 10, 8, 5, 500);
+    }
+
+    @Test
+    public void testNoiseIsQuietAndSpikesAreFlagged() {
+        EwmaAnomalyDetector detector = detector();
+        Random random = new Random(3);
+        // At 3.5 deviations plain noise is flagged well under 1% of the time
+        int flagged = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (detector.update(Math.round(80 + random.nextGaussian() * 6)) != Kind.NONE) {
+                flagged++;
+            }
+        }
+        assertTrue(flagged <= 5, flagged + " false alarms");
+        assertEquals(Kind.SPIKE, detector.update(130));
+        assertTrue(detector.getLastZScore() > 3.5);
+        assertEquals(80, detector.getLastExpected(), 5);
+        // The spike entered the baseline clamped, so the next one is still caught
+        assertEquals(Kind.SPIKE, detector.update(130));
+        assertEquals(Kind.DROP, detector.update(35));
+    }
+
+    @Test
+    public void testNothingIsFlaggedWhileWarmingUp() {
+        EwmaAnomalyDetector detector = detector();
+        double[] values = {60, 62, 300, 58, 61};
+        for (double value : values) {
+            assertEquals(Kind.NONE, detector.update(value));
+        }
+        assertEquals(5, detector.getCount());
+    }
+
+    @Test
+    public void testSensorErrors() {
+        EwmaAnomalyDetector detector = detector();
+        for (int i = 0; i < 20; i++) {
+            detector.update(70 + (i % 5));
+        }
+        long count = detector.getCount();
+        assertEquals(Kind.SENSOR_ERROR, detector.update(-1));
+        assertEquals(Kind.SENSOR_ERROR, detector.update(900));
+        // Implausible jump: flagged and kept out of the baseline
+        assertEquals(Kind.SENSOR_ERROR, detector.update(499));
+        assertEquals(count, detector.getCount());
+
+        // A flatlined sensor is reported once, on the stuckCount-th identical reading
+        int errors = 0;
+        for (int i = 0; i < 12; i++) {
+            if (detector.update(72) == Kind.SENSOR_ERROR) {
+                errors++;
+            }
+        }
+        assertEquals(1, errors);
+    }
+}
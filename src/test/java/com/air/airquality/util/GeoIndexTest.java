@@ -0,0 +1,80 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GeoIndexTest {
+
+    private final List<GeoIndex.Point<Integer>> points = randomPoints(2000);
+    private final GeoIndex<Integer> index = new GeoIndex<>(points);
+
+    @Test
+    public void testNearestMatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int query = 0; query < 200; query++) {
+            double lat = random.nextDouble(-90, 90);
+            double lon = random.nextDouble(-180, 180);
+
+            List<Integer> expected = points.stream()
+                    .sorted(Comparator.comparingDouble(p -> GeoIndex.distanceKm(lat, lon, p.getLatitude(), p.getLongitude())))
+                    .limit(5)
+                    .map(GeoIndex.Point::getValue)
+                    .collect(Collectors.toList());
+            List<GeoIndex.Neighbor<Integer>> nearest = index.nearest(lat, lon, 5);
+
+            assertEquals(expected, nearest.stream().map(n -> n.getPoint().getValue()).collect(Collectors.toList()));
+            GeoIndex.Point<Integer> first = nearest.get(0).getPoint();
+            assertEquals(GeoIndex.distanceKm(lat, lon, first.getLatitude(), first.getLongitude()),
+                    nearest.get(0).getDistanceKm(), 1e-6);
+        }
+    }
+
+    @Test
+    public void testWithinMatchesBruteForceIncludingAntimeridian() {
+        double[][] boxes = {
+                {10, 60, 35, 95},      // around India
+                {-50, 170, -10, -170}, // crosses the antimeridian
+                {60, -180, 90, 180},   // polar cap
+                {-5, -5, 5, 5}
+        };
+        for (double[] box : boxes) {
+            Set<Integer> expected = new HashSet<>();
+            for (GeoIndex.Point<Integer> p : points) {
+                boolean inLon = box[1] <= box[3]
+                        ? p.getLongitude() >= box[1] && p.getLongitude() <= box[3]
+                        : p.getLongitude() >= box[1] || p.getLongitude() <= box[3];
+                if (p.getLatitude() >= box[0] && p.getLatitude() <= box[2] && inLon) {
+                    expected.add(p.getValue());
+                }
+            }
+            Set<Integer> found = index.within(box[0], box[1], box[2], box[3]).stream()
+                    .map(GeoIndex.Point::getValue)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void testKnownDistance() {
+        // Delhi to Mumbai is about 1150 km
+        assertEquals(1150, GeoIndex.distanceKm(28.6139, 77.2090, 19.0760, 72.8777), 15);
+    }
+
+    private static List<GeoIndex.Point<Integer>> randomPoints(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<GeoIndex.Point<Integer>> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(new GeoIndex.Point<>(random.nextDouble(-90, 90), random.nextDouble(-180, 180), i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdwGridTest {
+
+    @Test
+    public void testIncrementalUpdateMatchesFullRebuild() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<GeoIndex.Point<Float>> stations = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            stations.add(new GeoIndex.Point<>(random.nextDouble(-85, 85), random.nextDouble(-180, 180), (float) random.nextInt(500)));
+        }
+        // Include stations next to the antimeridian and a pole
+        stations.add(new GeoIndex.Point<>(-17.7, 179.8, 80f));
+        stations.add(new GeoIndex.Point<>(88.5, 10, 40f));
+
+        IdwGrid incremental = new IdwGrid(1.0, 600, 2, 6);
+        incremental.update(new GeoIndex<>(stations), positions(stations));
+
+        // Revalue one station, move another and drop a third
+        List<double[]> changed = new ArrayList<>();
+        GeoIndex.Point<Float> revalued = stations.get(0);
+        stations.set(0, new GeoIndex.Point<>(revalued.getLatitude(), revalued.getLongitude(), revalued.getValue() + 100));
+        changed.add(new double[] {revalued.getLatitude(), revalued.getLongitude()});
+        GeoIndex.Point<Float> moved = stations.get(stations.size() - 2);
+        stations.set(stations.size() - 2, new GeoIndex.Point<>(moved.getLatitude(), -179.5, moved.getValue()));
+        changed.add(new double[] {moved.getLatitude(), moved.getLongitude()});
+        changed.add(new double[] {moved.getLatitude(), -179.5});
+        GeoIndex.Point<Float> removed = stations.remove(stations.size() - 1);
+        changed.add(new double[] {removed.getLatitude(), removed.getLongitude()});
+        assertTrue(incremental.update(new GeoIndex<>(stations), changed) > 0);
+
+        IdwGrid full = new IdwGrid(1.0, 600, 2, 6);
+        full.update(new GeoIndex<>(stations), positions(stations));
+
+        for (int row = 0; row < full.getTileRows(); row++) {
+            for (int col = 0; col < full.getTileCols(); col++) {
+                assertArrayEquals(full.tile(row, col).getValues(), incremental.tile(row, col).getValues());
+            }
+        }
+    }
+
+    @Test
+    public void testPointQueries() {
+        List<GeoIndex.Point<Float>> stations = List.of(
+                new GeoIndex.Point<>(28.625, 77.125, 200f),
+                new GeoIndex.Point<>(28.625, 78.125, 100f));
+        IdwGrid grid = new IdwGrid(0.25, 250, 2, 8);
+        grid.update(new GeoIndex<>(stations), positions(stations));
+
+        // Cell centred on a station takes its value; halfway between the two is the mean
+        assertEquals(200f, grid.valueAt(28.625, 77.125), 0.01);
+        assertEquals(150f, grid.valueAt(28.625, 77.625), 0.5);
+        // Nearer the first station, closer to its value
+        float nearFirst = grid.valueAt(28.625, 77.4);
+        assertTrue(nearFirst > 150 && nearFirst < 200);
+        // Outside the radius there is no estimate
+        assertTrue(Float.isNaN(grid.valueAt(-30, -60)));
+    }
+
+    @Test
+    public void testTileGeometryAndVersions() {
+        IdwGrid grid = new IdwGrid(1.0, 300, 2, 8);
+        assertEquals(180, grid.getRows());
+        assertEquals(360, grid.getCols());
+        assertEquals(3, grid.getTileRows());
+        assertEquals(6, grid.getTileCols());
+
+        IdwGrid.Tile edge = grid.tile(2, 5);
+        assertEquals(180 - 2 * IdwGrid.TILE_SIZE, edge.getRows());
+        assertEquals(360 - 5 * IdwGrid.TILE_SIZE, edge.getCols());
+        assertEquals(90 - 128, edge.getNorth(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> grid.tile(3, 0));
+
+        List<GeoIndex.Point<Float>> stations = List.of(new GeoIndex.Point<>(10.5, 10.5, 50f));
+        grid.update(new GeoIndex<>(stations), positions(stations));
+        // The station sits in tile (1, 2); a far away tile is untouched
+        assertEquals(1, grid.tileVersion(1, 2));
+        assertEquals(0, grid.tileVersion(0, 0));
+        assertEquals(0, grid.update(new GeoIndex<>(stations), positions(stations)));
+        assertEquals(1, grid.getVersion());
+    }
+
+    @Test
+    public void testTileHashFollowsContentNotHistory() {
+        List<GeoIndex.Point<Float>> stations = List.of(new GeoIndex.Point<>(10.5, 10.5, 50f));
+        IdwGrid fresh = new IdwGrid(1.0, 300, 2, 8);
+        long emptyHash = fresh.tileHash(1, 2);
+        fresh.update(new GeoIndex<>(stations), positions(stations));
+        assertNotEquals(emptyHash, fresh.tileHash(1, 2));
+        assertEquals(fresh.tileHash(1, 2), fresh.tile(1, 2).getContentHash());
+
+        // Another grid reaching the same cells by a different path, with a different version
+        IdwGrid other = new IdwGrid(1.0, 300, 2, 8);
+        List<GeoIndex.Point<Float>> before = List.of(new GeoIndex.Point<>(10.5, 10.5, 80f));
+        other.update(new GeoIndex<>(before), positions(before));
+        other.update(new GeoIndex<>(stations), positions(stations));
+        assertNotEquals(fresh.tileVersion(1, 2), other.tileVersion(1, 2));
+        assertEquals(fresh.tileHash(1, 2), other.tileHash(1, 2));
+        assertEquals(emptyHash, other.tileHash(0, 0));
+    }
+
+    private static List<double[]> positions(List<GeoIndex.Point<Float>> stations) {
+        List<double[]> positions = new ArrayList<>();
+        for (GeoIndex.Point<Float> station : stations) {
+            positions.add(new double[] {station.getLatitude(), station.getLongitude()});
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,68 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NowCastWindowTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 15, 12, 0);
+
+    @Test
+    public void testWeightFactorIsClampedForVolatileHours() {
+        // Most recent hour first; min/max = 10/90, so the factor is clamped to 0.5
+        double[] hourly = {13, 16, 10, 21, 74, 64, 53, 82, 90, 75, 80, 50};
+        NowCastWindow window = new NowCastWindow();
+        for (int i = hourly.length - 1; i >= 0; i--) {
+            window.add(NOW.minusHours(i), hourly[i], null);
+        }
+        assertEquals(17.41, window.nowCast(NowCastWindow.PM25), 0.01);
+        assertTrue(Double.isNaN(window.nowCast(NowCastWindow.PM10)));
+        assertEquals(12, window.hoursWithData(NowCastWindow.PM25));
+    }
+
+    @Test
+    public void testHourlyMeansAndMissingHours() {
+        NowCastWindow window = new NowCastWindow();
+        double[] hourly = {30, 28, Double.NaN, 25, 20, 22, 24, 26, 28, 30, 32, 34};
+        for (int i = hourly.length - 1; i >= 0; i--) {
+            if (!Double.isNaN(hourly[i])) {
+                // Two readings per hour averaging to the hourly value
+                window.add(NOW.minusHours(i).plusMinutes(10), hourly[i] - 2, null);
+                window.add(NOW.minusHours(i).plusMinutes(40), hourly[i] + 2, null);
+            }
+        }
+        assertEquals(27.93, window.nowCast(NowCastWindow.PM25), 0.01);
+        assertEquals(11, window.hoursWithData(NowCastWindow.PM25));
+        assertEquals(NOW, window.getNewestHour());
+    }
+
+    @Test
+    public void testNeedsTwoOfTheLastThreeHours() {
+        NowCastWindow window = new NowCastWindow();
+        window.add(NOW.minusHours(5), 40.0, 80.0);
+        window.add(NOW.minusHours(4), 42.0, 82.0);
+        window.add(NOW, 50.0, 90.0);
+        assertTrue(Double.isNaN(window.nowCast(NowCastWindow.PM25)));
+
+        window.add(NOW.minusHours(1), 48.0, 88.0);
+        assertFalse(Double.isNaN(window.nowCast(NowCastWindow.PM25)));
+        assertFalse(Double.isNaN(window.nowCast(NowCastWindow.PM10)));
+    }
+
+    @Test
+    public void testOldHoursLeaveTheWindow() {
+        NowCastWindow window = new NowCastWindow();
+        window.add(NOW.minusHours(13), 500.0, null);
+        window.add(NOW.minusHours(1), 20.0, null);
+        window.add(NOW, 20.0, null);
+        // The 500 hour shares a ring slot with hour -1 and was overwritten; nothing else is left of it
+        assertEquals(20.0, window.nowCast(NowCastWindow.PM25), 1e-9);
+        assertFalse(window.add(NOW.minusHours(12), 500.0, null));
+        assertEquals(2, window.hoursWithData(NowCastWindow.PM25));
+    }
+}
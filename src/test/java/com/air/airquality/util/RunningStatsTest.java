@@ -0,0 +1,59 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RunningStatsTest {
+
+    @Test
+    public void testMatchesTwoPassStatistics() {
+        double[] values = {12, 48, 151, 97, 33, 210, 64, 88};
+        RunningStats stats = new RunningStats();
+        double sum = 0;
+        for (double value : values) {
+            stats.add(value);
+            sum += value;
+        }
+        double mean = sum / values.length;
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        assertEquals(values.length, stats.getCount());
+        assertEquals(mean, stats.getMean(), 1e-9);
+        assertEquals(squares / (values.length - 1), stats.getVariance(), 1e-9);
+        assertEquals(12, stats.getMin(), 0);
+        assertEquals(210, stats.getMax(), 0);
+    }
+
+    @Test
+    public void testMergeEqualsSequential() {
+        RunningStats sequential = new RunningStats();
+        RunningStats merged = new RunningStats();
+        for (int day = 0; day < 10; day++) {
+            RunningStats daily = new RunningStats();
+            for (int i = 0; i < 24; i++) {
+                double value = 1_000_000 + day * 37 + (i * 13) % 29;
+                daily.add(value);
+                sequential.add(value);
+            }
+            merged.merge(daily);
+        }
+        merged.merge(new RunningStats());
+        assertEquals(sequential.getCount(), merged.getCount());
+        assertEquals(sequential.getMean(), merged.getMean(), 1e-6);
+        assertEquals(sequential.getVariance(), merged.getVariance(), 1e-6);
+        assertEquals(sequential.getMin(), merged.getMin(), 0);
+        assertEquals(sequential.getMax(), merged.getMax(), 0);
+    }
+
+    @Test
+    public void testEmptyStats() {
+        RunningStats stats = new RunningStats();
+        assertEquals(0, stats.getCount());
+        assertTrue(Double.isNaN(stats.getMean()));
+        assertEquals(0, stats.getVariance(), 0);
+    }
+}
@@ -0,0 +1,45 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SeriesDownsamplerTest {
+
+    @Test
+    public void testShortSeriesIsKeptWhole() {
+        double[] xs = {0, 1, 2, 3};
+        double[] ys = {5, 6, 7, 8};
+        assertArrayEquals(new int[]{0, 1, 2, 3}, SeriesDownsampler.lttb(xs, ys, 4, 600));
+    }
+
+    @Test
+    public void testKeepsEndpointsAndSpikes() {
+        int count = 10_000;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = i * 3600.0;
+            ys[i] = 60 + 10 * Math.sin(i / 50.0);
+        }
+        ys[4321] = 480;
+        ys[8765] = 2;
+
+        int[] kept = SeriesDownsampler.lttb(xs, ys, count, 500);
+        assertEquals(500, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(count - 1, kept[kept.length - 1]);
+        boolean peak = false, trough = false;
+        for (int i = 0; i < kept.length; i++) {
+            if (i > 0) {
+                assertTrue(kept[i] > kept[i - 1]);
+            }
+            peak |= kept[i] == 4321;
+            trough |= kept[i] == 8765;
+        }
+        assertTrue(peak);
+        assertTrue(trough);
+    }
+}
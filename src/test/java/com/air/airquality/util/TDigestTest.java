@@ -0,0 +1,80 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TDigestTest {
+
+    private static double exactQuantile(double[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+    }
+
+    private static double rankOf(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        return (index >= 0 ? index : -index - 1) / (double) sorted.length;
+    }
+
+    @Test
+    public void testQuantilesTrackExactValues() {
+        Random random = new Random(42);
+        double[] values = new double[50_000];
+        TDigest digest = new TDigest(100);
+        for (int i = 0; i < values.length; i++) {
+            // Skewed like AQI: mostly moderate with a long tail
+            values[i] = Math.exp(random.nextGaussian() * 0.6 + 4);
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, digest.size());
+        for (double q : new double[]{0.5, 0.9, 0.95, 0.99}) {
+            // Accuracy is in rank: the estimate sits within 0.5% of the values from the exact quantile
+            double rank = rankOf(values, digest.quantile(q));
+            assertEquals(q, rank, 0.005, "q=" + q);
+        }
+        assertEquals(values[0], digest.quantile(0), 1e-9);
+        assertEquals(values[values.length - 1], digest.quantile(1), 1e-9);
+    }
+
+    @Test
+    public void testMergedDailyDigestsMatchOneDigest() {
+        Random random = new Random(7);
+        TDigest whole = new TDigest(100);
+        TDigest merged = new TDigest(100);
+        double[] values = new double[30 * 48];
+        int n = 0;
+        for (int day = 0; day < 30; day++) {
+            TDigest daily = new TDigest(100);
+            for (int i = 0; i < 48; i++) {
+                double value = 50 + day * 2 + random.nextGaussian() * 15;
+                daily.add(value);
+                whole.add(value);
+                values[n++] = value;
+            }
+            merged.merge(daily);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, merged.size());
+        for (double q : new double[]{0.5, 0.95, 0.99}) {
+            double exact = exactQuantile(values, q);
+            assertEquals(exact, merged.quantile(q), 2.0, "q=" + q);
+            assertEquals(whole.quantile(q), merged.quantile(q), 2.0, "q=" + q);
+        }
+    }
+
+    @Test
+    public void testSmallAndEmptyDigests() {
+        TDigest digest = new TDigest(100);
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+        digest.add(42);
+        assertEquals(42, digest.quantile(0.99), 1e-9);
+        digest.add(Double.NaN);
+        digest.add(58);
+        assertEquals(2, digest.size());
+        assertEquals(50, digest.quantile(0.5), 1e-9);
+    }
+}
@@ -0,0 +1,70 @@
+package com.air.airquality.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    public void testBurstThenRefill() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 10, 100, clock::get);
+        
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("client", 1).isAllowed());
+        }
+        TokenBucketRateLimiter.Decision denied = limiter.tryAcquire("client", 1);
+        assertFalse(denied.isAllowed());
+        assertEquals(0, denied.getRemaining());
+        assertEquals(1, denied.getRetryAfterSeconds());
+        
+        // One token regenerates per second
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire("client", 1).isAllowed());
+        assertFalse(limiter.tryAcquire("client", 1).isAllowed());
+    }
+
+    @Test
+    public void testWeightedCostAndIndependentClients() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 10, 100, clock::get);
+        
+        TokenBucketRateLimiter.Decision first = limiter.tryAcquire("heavy", 6);
+        assertTrue(first.isAllowed());
+        assertEquals(4, first.getRemaining());
+        assertFalse(limiter.tryAcquire("heavy", 6).isAllowed());
+        assertTrue(limiter.tryAcquire("light", 1).isAllowed());
+    }
+
+    @Test
+    public void testTrackedClientsStayBounded() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 10, 50, clock::get);
+        
+        for (int i = 0; i < 500; i++) {
+            limiter.tryAcquire("client-" + i, 1);
+        }
+        assertTrue(limiter.getTrackedClients() <= 50);
+    }
+
+    @Test
+    public void testEvictionKeepsClientsThatAreStillLimited() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 10, 50, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("heavy", 1);
+        }
+        assertFalse(limiter.tryAcquire("heavy", 1).isAllowed());
+        // Overflowing the table with new clients must not free the exhausted bucket
+        for (int i = 0; i < 500; i++) {
+            limiter.tryAcquire("client-" + i, 1);
+        }
+        assertTrue(limiter.getTrackedClients() <= 50);
+        assertFalse(limiter.tryAcquire("heavy", 1).isAllowed());
+    }
+}